@@ -0,0 +1,68 @@
+package io.github.game.core.world.generator.location;
+
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.Gdx;
+import io.github.game.core.world.HexMap;
+import io.github.game.core.world.generator.GenerationContext;
+import io.github.game.core.world.generator.feature.FeatureRasters;
+import io.github.game.core.world.generator.world.ProceduralWorldGenerator;
+import io.github.game.ecs.EntityFactory;
+import io.github.game.services.NameService;
+import io.github.game.settings.GameplaySettings;
+import java.util.List;
+
+/**
+ * Замер размещения локаций {@link RandomLocationGenerator} на процедурном мире с заданным seed'ом.
+ * Мир и растры признаков строятся перед каждым прогоном и замеряются отдельно, чтобы время размещения
+ * (занятость клеток, маски местности, оценка кандидатов) не смешивалось с генерацией местности.
+ */
+public final class LocationGenerationBenchmark {
+
+    private static final String TAG = "LocationBenchmark";
+
+    private LocationGenerationBenchmark() {
+    }
+
+    /**
+     * Генерирует мир size x size и размещает на нем locations локаций rounds раз, пишет среднее время
+     * этапов в лог
+     *
+     * @param parallelScoring оценивать кандидатов параллельно, см. {@link RandomLocationGenerator}
+     */
+    public static void run(GameplaySettings settings, NameService nameService, EntityFactory entityFactory,
+                           int size, int locations, long seed, int rounds, boolean parallelScoring) {
+        long worldTime = 0;
+        long featureTime = 0;
+        long locationTime = 0;
+        int placed = 0;
+
+        for (int i = 0; i < rounds; i++) {
+            GenerationContext context = new GenerationContext(settings, nameService, HexMap.create(size, size));
+            // Генераторы подробно логируют каждый мир и каждую локацию
+            Gdx.app.setLogLevel(Application.LOG_ERROR);
+            try {
+                long startTime = System.nanoTime();
+                new ProceduralWorldGenerator(size, size, seed).generateWorld(context);
+                worldTime += System.nanoTime() - startTime;
+
+                startTime = System.nanoTime();
+                context.setFeatureRasters(FeatureRasters.build(context.getPlacementMap()));
+                featureTime += System.nanoTime() - startTime;
+
+                startTime = System.nanoTime();
+                List<Entity> result = new RandomLocationGenerator(locations, seed, entityFactory, parallelScoring)
+                    .generateLocations(context);
+                locationTime += System.nanoTime() - startTime;
+                placed = result.size();
+            } finally {
+                Gdx.app.setLogLevel(Application.LOG_INFO);
+                context.getHexMap().dispose();
+            }
+        }
+
+        Gdx.app.log(TAG, "%5dx%-5d %s scoring, %d of %d locations: world %.0f ms, features %.0f ms, locations %.0f ms"
+            .formatted(size, size, parallelScoring ? "parallel" : "sequential", placed, locations,
+                       worldTime / 1e6 / rounds, featureTime / 1e6 / rounds, locationTime / 1e6 / rounds));
+    }
+}
@@ -0,0 +1,90 @@
+package io.github.game.core.world.generator.world;
+
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.Gdx;
+import io.github.game.core.world.HexMap;
+import io.github.game.core.world.generator.GenerationContext;
+import io.github.game.core.world.generator.noise.NoiseRowKernel;
+import io.github.game.services.NameService;
+import io.github.game.settings.GameplaySettings;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+/**
+ * Замер {@link ProceduralWorldGenerator#generateWorld} на карте в памяти: время генерации местности и пик
+ * кучи за генерацию. Пик - сумма пиков пулов кучи JVM после их сброса перед прогоном (верхняя оценка, пулы
+ * достигают пика не одновременно) за вычетом кучи, занятой до прогона, т.е. карта и карты параметров вместе
+ * с еще не собранным мусором.
+ * <p>
+ * Предпросмотр отключается, чтобы в замер входила только генерация полного разрешения.
+ */
+public final class WorldGenerationBenchmark {
+
+    private static final String TAG = "WorldBenchmark";
+
+    private WorldGenerationBenchmark() {
+    }
+
+    /**
+     * Генерирует мир size x size ядром kernel rounds раз (первый прогон - прогрев) и пишет среднее время и
+     * наибольший пик кучи в лог
+     */
+    public static void run(GameplaySettings settings, NameService nameService, NoiseRowKernel kernel,
+                           int size, long seed, int rounds) {
+        long totalTime = 0;
+        long peakBytes = 0;
+
+        for (int i = 0; i <= rounds; i++) {
+            long heapBefore = usedHeapAfterGc();
+            resetPeakUsage();
+
+            GenerationContext context = new GenerationContext(settings, nameService, HexMap.create(size, size));
+            ProceduralWorldGenerator generator = new ProceduralWorldGenerator(size, size, seed, kernel);
+            generator.setPreview(false);
+            // Генератор подробно логирует статистику каждого мира
+            Gdx.app.setLogLevel(Application.LOG_ERROR);
+            try {
+                long startTime = System.nanoTime();
+                generator.generateWorld(context);
+                long time = System.nanoTime() - startTime;
+                if (i > 0) {
+                    totalTime += time;
+                    peakBytes = Math.max(peakBytes, peakHeapUsage() - heapBefore);
+                }
+            } finally {
+                Gdx.app.setLogLevel(Application.LOG_INFO);
+                context.getHexMap().dispose();
+            }
+        }
+
+        Gdx.app.log(TAG, "%5dx%-5d %-12s generateWorld %8.0f ms, peak heap %7.1f MB".formatted(
+            size, size, kernel.getName(), totalTime / 1e6 / rounds, peakBytes / 1048576.0));
+    }
+
+    private static void resetPeakUsage() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static long peakHeapUsage() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,94 @@
+package io.github.game.core.world.hex;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH-замер обхода соседей: объектный {@link HexUtils#getAllNeighborCoordinates} против примитивных
+ * {@link HexUtils#forEachNeighbor} и {@link HexUtils#forEachNeighborIndex}. Одна операция - обход соседей
+ * одной клетки карты size x size, клетки перебираются по строкам, поэтому краевые клетки попадают в замер в
+ * той же доле, что и на карте. Объем аллокаций на вызов показывает профилировщик gc (-prof gc, B/op).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HexNeighborBenchmark {
+
+    @Param({"512"})
+    public int size;
+
+    // Один посетитель на весь замер, чтобы обход не создавал лямбду на клетку
+    private final Accumulator accumulator = new Accumulator();
+    private int q;
+    private int r;
+
+    @Benchmark
+    public long getAllNeighborCoordinates() {
+        long sum = 0;
+        for (HexCoordinates neighbor : HexUtils.getAllNeighborCoordinates(new HexCoordinates(q, r))) {
+            int nq = neighbor.getQ();
+            int nr = neighbor.getR();
+            if (nq >= 0 && nq < size && nr >= 0 && nr < size) {
+                sum += nq + nr;
+            }
+        }
+        advance();
+        return sum;
+    }
+
+    @Benchmark
+    public long forEachNeighbor() {
+        accumulator.sum = 0;
+        HexUtils.forEachNeighbor(q, r, size, size, accumulator);
+        advance();
+        return accumulator.sum;
+    }
+
+    @Benchmark
+    public long forEachNeighborIndex() {
+        accumulator.sum = 0;
+        HexUtils.forEachNeighborIndex(q, r, size, size, accumulator);
+        advance();
+        return accumulator.sum;
+    }
+
+    /**
+     * Переходит к следующей клетке карты по строкам
+     */
+    private void advance() {
+        if (++q == size) {
+            q = 0;
+            if (++r == size) {
+                r = 0;
+            }
+        }
+    }
+
+    private static final class Accumulator implements HexVisitor, IntConsumer {
+
+        long sum;
+
+        @Override
+        public void visit(int q, int r) {
+            sum += q + r;
+        }
+
+        @Override
+        public void accept(int index) {
+            sum += index;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package io.github.game.core.world.storage;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import io.github.game.core.world.HexMap;
+import io.github.game.core.world.hex.HexType;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Замер памяти и скорости режимов хранения {@link HexMap}: заполнение карты через
+ * {@link HexMap#setHex}, построчный обход и случайное чтение {@link HexMap#getTypeOrdinal}. Память -
+ * прирост занятой кучи после сборки мусора, рядом выводится оценка
+ * {@link HexStorage#estimateMemoryBytes()}.
+ * <p>
+ * Карта {@link MappedHexStorage} пишется во временный файл, после заполнения закрывается и
+ * открывается заново только на чтение, как ее открыла бы игра; время открытия выводится отдельно.
+ */
+public final class HexStorageBenchmark {
+
+    private static final String TAG = "StorageBenchmark";
+    private static final int WARMUP_ROUNDS = 3;
+    // на маленьких картах прогрев повторяется, пока JIT не скомпилирует циклы чтения
+    private static final long WARMUP_READS = 50_000_000L;
+    private static final int RANDOM_READS = 1 << 20;
+    private static final HexType[] TYPES = HexType.values();
+
+    // результат чтений, чтобы JIT не выбросил циклы
+    private static long sink;
+
+    private HexStorageBenchmark() {
+    }
+
+    /**
+     * Режим хранения, который сравнивается в замере
+     */
+    public enum Backend {
+        OBJECT,
+        PRIMITIVE,
+        MAPPED;
+
+        HexStorage create(int width, int height, Path file) {
+            return switch (this) {
+                case OBJECT -> new ObjectHexStorage(width, height);
+                case PRIMITIVE -> new PrimitiveHexStorage(width, height);
+                case MAPPED -> MappedHexStorage.create(file, width, height);
+            };
+        }
+    }
+
+    /**
+     * Заполняет карту size x size в заданном режиме, обходит ее rounds раз и пишет результат в лог
+     */
+    public static void run(Backend backend, int size, int rounds, long seed) {
+        long cells = (long) size * size;
+        Path file = backend == Backend.MAPPED ? createTempFile() : null;
+        long heapBefore = usedHeapAfterGc();
+
+        long startTime = System.nanoTime();
+        HexMap map = new HexMap(backend.create(size, size, file));
+        fill(map);
+        long fillTime = System.nanoTime() - startTime;
+        long heapBytes = Math.max(0, usedHeapAfterGc() - heapBefore);
+
+        long openTime = 0;
+        if (file != null) {
+            map.dispose();
+            startTime = System.nanoTime();
+            map = HexMap.openMapped(file, true);
+            openTime = System.nanoTime() - startTime;
+        }
+
+        int reads = (int) Math.min(cells, RANDOM_READS);
+        int[] randomQ = new int[reads];
+        int[] randomR = new int[reads];
+        Random random = new Random(seed);
+        for (int i = 0; i < reads; i++) {
+            randomQ[i] = random.nextInt(size);
+            randomR[i] = random.nextInt(size);
+        }
+
+        long warmupRounds = Math.max(WARMUP_ROUNDS, WARMUP_READS / cells);
+        for (long i = 0; i < warmupRounds; i++) {
+            sink += scan(map);
+            sink += randomReads(map, randomQ, randomR);
+        }
+
+        long scanTime = 0;
+        long randomTime = 0;
+        for (int i = 0; i < rounds; i++) {
+            startTime = System.nanoTime();
+            sink += scan(map);
+            scanTime += System.nanoTime() - startTime;
+
+            startTime = System.nanoTime();
+            sink += randomReads(map, randomQ, randomR);
+            randomTime += System.nanoTime() - startTime;
+        }
+
+        Gdx.app.log(TAG, "%-9s %5dx%-5d heap %8.1f MB (estimate %8.1f MB), fill %8.1f ms, scan %5.2f ns/hex, random %5.2f ns/read"
+            .formatted(backend, size, size, heapBytes / 1048576.0, map.estimateMemoryBytes() / 1048576.0,
+                       fillTime / 1e6, (double) scanTime / rounds / cells, (double) randomTime / rounds / reads)
+            + (file != null ? ", open %.1f ms".formatted(openTime / 1e6) : ""));
+
+        map.dispose();
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                Gdx.app.error(TAG, "Unable to delete " + file, e);
+            }
+        }
+    }
+
+    private static void fill(HexMap map) {
+        int width = map.getWidth();
+        int height = map.getHeight();
+        for (int r = 0; r < height; r++) {
+            for (int q = 0; q < width; q++) {
+                map.setHex(q, r, TYPES[(q * 31 + r * 17) % TYPES.length], (long) r * width + q);
+            }
+        }
+    }
+
+    private static long scan(HexMap map) {
+        int width = map.getWidth();
+        int height = map.getHeight();
+        long sum = 0;
+        for (int r = 0; r < height; r++) {
+            for (int q = 0; q < width; q++) {
+                sum += map.getTypeOrdinal(q, r);
+            }
+        }
+        return sum;
+    }
+
+    private static long randomReads(HexMap map, int[] randomQ, int[] randomR) {
+        long sum = 0;
+        for (int i = 0; i < randomQ.length; i++) {
+            sum += map.getTypeOrdinal(randomQ[i], randomR[i]);
+        }
+        return sum;
+    }
+
+    private static Path createTempFile() {
+        try {
+            return Files.createTempFile("hexmap", ".bin");
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Unable to create benchmark map file", e);
+        }
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
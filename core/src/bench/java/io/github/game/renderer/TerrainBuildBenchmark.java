@@ -0,0 +1,79 @@
+package io.github.game.renderer;
+
+import com.badlogic.gdx.Gdx;
+import io.github.game.core.world.HexMap;
+
+/**
+ * Замер CPU-стоимости сборки данных местности без GL: вершины полос {@link HexGridTextureRenderer}
+ * против экземпляров {@link HexInstancedRenderer} для всех чанков карты. Загрузка в видеокарту и
+ * отрисовка не входят - только то, что делает поток рендера при построении чанка.
+ */
+public final class TerrainBuildBenchmark {
+
+    private static final int CHUNK_SIZE = TerrainChunkCache.CHUNK_SIZE;
+    private static final int WARMUP_ROUNDS = 3;
+
+    private TerrainBuildBenchmark() {
+    }
+
+    /**
+     * Собирает все чанки карты обоими способами rounds раз и пишет в лог время и объем данных на гекс
+     */
+    public static void run(HexMap map, int rounds) {
+        float[] floatBits = HexGridTextureRenderer.colorFloatBits(HexMapRenderer.HEX_COLORS);
+        float[] vertices = new float[HexGridTextureRenderer.ROW_VERTICES * CHUNK_SIZE
+                                     * HexGridTextureRenderer.VERTEX_SIZE];
+        byte[] instances = new byte[CHUNK_SIZE * CHUNK_SIZE * HexInstancedRenderer.INSTANCE_SIZE];
+        long cells = (long) map.getWidth() * map.getHeight();
+
+        long stripBytes = 0;
+        long instanceBytes = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            stripBytes = buildStrips(map, floatBits, vertices);
+            instanceBytes = buildInstances(map, instances);
+        }
+
+        long stripTime = 0;
+        long instanceTime = 0;
+        for (int i = 0; i < rounds; i++) {
+            long startTime = System.nanoTime();
+            buildStrips(map, floatBits, vertices);
+            stripTime += System.nanoTime() - startTime;
+
+            startTime = System.nanoTime();
+            buildInstances(map, instances);
+            instanceTime += System.nanoTime() - startTime;
+        }
+
+        Gdx.app.log("TerrainBenchmark", "Map %dx%d, %d rounds".formatted(map.getWidth(), map.getHeight(), rounds));
+        Gdx.app.log("TerrainBenchmark", "Strips:    %.2f ms per map, %.2f ns and %.1f bytes per hex".formatted(
+            stripTime / 1e6 / rounds, (double) stripTime / rounds / cells, (double) stripBytes / cells));
+        Gdx.app.log("TerrainBenchmark", "Instances: %.2f ms per map, %.2f ns and %.1f bytes per hex".formatted(
+            instanceTime / 1e6 / rounds, (double) instanceTime / rounds / cells, (double) instanceBytes / cells));
+    }
+
+    private static long buildStrips(HexMap map, float[] floatBits, float[] vertices) {
+        long bytes = 0;
+        for (int minR = 0; minR < map.getHeight(); minR += CHUNK_SIZE) {
+            for (int minQ = 0; minQ < map.getWidth(); minQ += CHUNK_SIZE) {
+                bytes += 4L * HexGridTextureRenderer.buildVertices(
+                    map, minQ, Math.min(map.getWidth(), minQ + CHUNK_SIZE) - 1,
+                    minR, Math.min(map.getHeight(), minR + CHUNK_SIZE) - 1,
+                    HexMapRenderer.UNIT_HEX_VERTICES, floatBits, vertices);
+            }
+        }
+        return bytes;
+    }
+
+    private static long buildInstances(HexMap map, byte[] instances) {
+        long bytes = 0;
+        for (int minR = 0; minR < map.getHeight(); minR += CHUNK_SIZE) {
+            for (int minQ = 0; minQ < map.getWidth(); minQ += CHUNK_SIZE) {
+                bytes += (long) HexInstancedRenderer.INSTANCE_SIZE * HexInstancedRenderer.buildInstances(
+                    map, minQ, Math.min(map.getWidth(), minQ + CHUNK_SIZE) - 1,
+                    minR, Math.min(map.getHeight(), minR + CHUNK_SIZE) - 1, instances);
+            }
+        }
+        return bytes;
+    }
+}
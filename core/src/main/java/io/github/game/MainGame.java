@@ -99,6 +99,10 @@ public class MainGame extends Game implements ScreenSwitcher {
             spriteBatch.dispose();
             spriteBatch = null;
         }
+        if (appComponent != null) {
+            // Карта с чанками держит поток подгрузки и файл подкачки
+            appComponent.generationContext().getHexMap().dispose();
+        }
 
         // Явное завершение процесса
         Gdx.app.log("App", "Application is shutting down...");
@@ -0,0 +1,178 @@
+package io.github.game.core.world;
+
+import io.github.game.core.world.hex.HexVisitor;
+import java.util.Arrays;
+
+/**
+ * Битовое множество клеток карты width x height. Каждая строка начинается с нового 64-битного
+ * слова, поэтому операции над строками и над множествами целиком выполняются по словам.
+ * <p>
+ * Используется для занятости клеток и масок типов местности ({@link HexMap#getTerrainMask}).
+ */
+public class HexBitSet {
+
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+    private final long[] words;
+
+    public HexBitSet(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = (width + 63) >>> 6;
+        this.words = new long[wordsPerRow * height];
+    }
+
+    private HexBitSet(HexBitSet other) {
+        this.width = other.width;
+        this.height = other.height;
+        this.wordsPerRow = other.wordsPerRow;
+        this.words = other.words.clone();
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public boolean get(int q, int r) {
+        return (words[r * wordsPerRow + (q >>> 6)] & (1L << q)) != 0;
+    }
+
+    public void set(int q, int r) {
+        words[r * wordsPerRow + (q >>> 6)] |= 1L << q;
+    }
+
+    public void clear(int q, int r) {
+        words[r * wordsPerRow + (q >>> 6)] &= ~(1L << q);
+    }
+
+    public void clear() {
+        Arrays.fill(words, 0L);
+    }
+
+    /**
+     * Копия множества
+     */
+    public HexBitSet copy() {
+        return new HexBitSet(this);
+    }
+
+    /**
+     * Пересечение с другим множеством того же размера (результат в этом множестве)
+     *
+     * @return это множество
+     */
+    public HexBitSet and(HexBitSet other) {
+        checkSize(other);
+        for (int i = 0; i < words.length; i++) {
+            words[i] &= other.words[i];
+        }
+        return this;
+    }
+
+    /**
+     * Объединение с другим множеством того же размера (результат в этом множестве)
+     *
+     * @return это множество
+     */
+    public HexBitSet or(HexBitSet other) {
+        checkSize(other);
+        for (int i = 0; i < words.length; i++) {
+            words[i] |= other.words[i];
+        }
+        return this;
+    }
+
+    /**
+     * Разность с другим множеством того же размера (результат в этом множестве)
+     *
+     * @return это множество
+     */
+    public HexBitSet andNot(HexBitSet other) {
+        checkSize(other);
+        for (int i = 0; i < words.length; i++) {
+            words[i] &= ~other.words[i];
+        }
+        return this;
+    }
+
+    /**
+     * Есть ли клетка, входящая в это множество и не входящая в other. Без создания копии
+     */
+    public boolean intersectsComplementOf(HexBitSet other) {
+        checkSize(other);
+        for (int i = 0; i < words.length; i++) {
+            if ((words[i] & ~other.words[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Число клеток в множестве
+     */
+    public int cardinality() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    public boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Обходит клетки множества построчно (по возрастанию r, затем q)
+     */
+    public void forEach(HexVisitor visitor) {
+        forEach(0, height, visitor);
+    }
+
+    /**
+     * Обходит клетки множества в строках fromRow (включительно) .. toRow (не включительно) построчно.
+     * Разные полосы строк можно обходить из разных потоков
+     */
+    public void forEach(int fromRow, int toRow, HexVisitor visitor) {
+        for (int r = fromRow; r < toRow; r++) {
+            int rowStart = r * wordsPerRow;
+            for (int w = 0; w < wordsPerRow; w++) {
+                long word = words[rowStart + w];
+                while (word != 0) {
+                    int bit = Long.numberOfTrailingZeros(word);
+                    visitor.visit((w << 6) + bit, r);
+                    word &= word - 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Слово строки r с клетками q = index * 64 .. index * 64 + 63
+     */
+    public long getWord(int r, int index) {
+        return words[r * wordsPerRow + index];
+    }
+
+    public int getWordsPerRow() {
+        return wordsPerRow;
+    }
+
+    private void checkSize(HexBitSet other) {
+        if (other.width != width || other.height != height) {
+            throw new IllegalArgumentException(
+                "Bit set size mismatch: " + width + "x" + height + " vs " + other.width + "x" + other.height);
+        }
+    }
+}
@@ -2,37 +2,128 @@ package io.github.game.core.world;
 
 import io.github.game.core.world.hex.Hex;
 import io.github.game.core.world.hex.HexCoordinates;
+import io.github.game.core.world.hex.HexType;
+import io.github.game.core.world.storage.ChunkedHexStorage;
+import io.github.game.core.world.storage.HexStorage;
+import io.github.game.core.world.storage.HexView;
+import io.github.game.core.world.storage.MappedHexStorage;
+import io.github.game.core.world.storage.ObjectHexStorage;
+import io.github.game.core.world.storage.PrimitiveHexStorage;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
- * Чистый контейнер для хранения гексов. Только данные, без логики генерации. Использует двумерный
- * массив для оптимального доступа к гексам. Координаты начинаются с (0, 0) и идут до (width-1,
- * height-1).
+ * Чистый контейнер для хранения гексов. Только данные, без логики генерации. Данные лежат в
+ * {@link HexStorage}: массиве объектов {@link Hex} или плоских примитивных массивах. Координаты
+ * начинаются с (0, 0) и идут до (width-1, height-1).
+ * <p>
+ * Для горячих путей есть примитивные методы доступа (getTypeOrdinal, setHex) и курсор
+ * {@link #cursor()}, которые не создают объект гекса на каждую клетку.
  */
 public class HexMap {
 
-    private final Hex[][] hexGrid;
+    /**
+     * Начиная с этого числа клеток {@link #create(int, int)} выбирает примитивное хранилище
+     */
+    public static final long PRIMITIVE_STORAGE_THRESHOLD = 1_000_000L;
+
+    /**
+     * Начиная с этого числа клеток {@link #create(int, int)} выбирает хранилище с чанками и
+     * подкачкой (плоские массивы заняли бы больше ~700 МБ)
+     */
+    public static final long CHUNKED_STORAGE_THRESHOLD = 64L * 1024 * 1024;
+
+    private static final HexType[] TYPES = HexType.values();
+
+    private final HexStorage storage;
     private final int width;
     private final int height;
-    private int count = 0;
+    // маски типов местности, строятся лениво и сбрасываются при изменении типов через карту
+    private volatile HexBitSet[] terrainMasks;
+    // пирамида типов для отрисовки издалека, строится лениво и обновляется при изменении типов
+    private volatile TerrainPyramid terrainPyramid;
+    // слушатели изменений местности, пустой список почти ничего не стоит при генерации
+    private final List<HexMapListener> listeners = new CopyOnWriteArrayList<>();
 
     /**
-     * Создает карту гексов заданного размера
+     * Создает карту гексов заданного размера с хранением объектов {@link Hex}
      *
      * @param width  количество гексов по оси Q (координата от 0 до width-1)
      * @param height количество гексов по оси R (координата от 0 до height-1)
      */
     public HexMap(int width, int height) {
+        this(createStorage(width, height, false));
+    }
+
+    /**
+     * Создает карту поверх готового хранилища
+     *
+     * @param storage хранилище данных гексов
+     */
+    public HexMap(HexStorage storage) {
+        validate(storage.getWidth(), storage.getHeight());
+        this.storage = storage;
+        this.width = storage.getWidth();
+        this.height = storage.getHeight();
+        if (storage instanceof ChunkedHexStorage chunked) {
+            // чанк, подгруженный в фоне, мог быть уже прочитан рендером как пустой, а тип чанка в пирамиде -
+            // оценен источником
+            chunked.setLoadListener(this::chunkLoaded);
+        }
+    }
+
+    /**
+     * Создает карту, выбирая режим хранения по размеру: небольшие карты хранят объекты гексов,
+     * большие - плоские примитивные массивы, огромные - чанки с подкачкой на диск
+     */
+    public static HexMap create(int width, int height) {
+        long cells = (long) width * height;
+        if (cells >= CHUNKED_STORAGE_THRESHOLD) {
+            return createChunked(width, height, ChunkedHexStorage.DEFAULT_MAX_RESIDENT_CHUNKS);
+        }
+        return new HexMap(createStorage(width, height, cells >= PRIMITIVE_STORAGE_THRESHOLD));
+    }
+
+    /**
+     * Создает карту из лениво материализуемых чанков, из которых в памяти держится не больше
+     * maxResidentChunks
+     */
+    public static HexMap createChunked(int width, int height, int maxResidentChunks) {
+        validate(width, height);
+        return new HexMap(new ChunkedHexStorage(width, height, maxResidentChunks, null));
+    }
+
+    /**
+     * Создает карту в новом файле, отображенном в память (данные вне кучи). Файл закрывается через
+     * {@link #dispose()}
+     */
+    public static HexMap createMapped(Path path, int width, int height) {
+        validate(width, height);
+        return new HexMap(MappedHexStorage.create(path, width, height));
+    }
+
+    /**
+     * Открывает карту из файла, отображенного в память. Карту, открытую только на чтение, можно
+     * разделять между процессами. Файл закрывается через {@link #dispose()}
+     */
+    public static HexMap openMapped(Path path, boolean readOnly) {
+        return new HexMap(MappedHexStorage.open(path, readOnly));
+    }
+
+    private static HexStorage createStorage(int width, int height, boolean primitive) {
+        validate(width, height);
+        return primitive ? new PrimitiveHexStorage(width, height) : new ObjectHexStorage(width, height);
+    }
+
+    private static void validate(int width, int height) {
         if (width <= 0 || height <= 0) {
             throw new IllegalArgumentException("Width and height must be positive");
         }
-
-        this.width = width;
-        this.height = height;
-        this.hexGrid = new Hex[height][width];
     }
 
     /**
@@ -51,10 +142,27 @@ public class HexMap {
                 "Hex coordinates out of bounds: (" + q + ", " + r + ")");
         }
 
-        if (hexGrid[r][q] == null) {
-            count++;
+        storage.putHex(hex);
+        terrainChanged(q, r, q, r);
+    }
+
+    /**
+     * Помещает на карту новый гекс без создания объекта {@link Hex} (для примитивного хранилища)
+     *
+     * @param q              координата Q
+     * @param r              координата R
+     * @param type           тип местности
+     * @param generationSeed seed генерации гекса
+     * @throws IllegalArgumentException если координаты выходят за границы карты
+     */
+    public void setHex(int q, int r, HexType type, long generationSeed) {
+        if (!isWithinBounds(q, r)) {
+            throw new IllegalArgumentException(
+                "Hex coordinates out of bounds: (" + q + ", " + r + ")");
         }
-        hexGrid[r][q] = hex;
+
+        storage.put(q, r, type.ordinal(), generationSeed);
+        terrainChanged(q, r, q, r);
     }
 
     /**
@@ -64,31 +172,85 @@ public class HexMap {
      * @return Optional с гексом, если найден
      */
     public Hex getHex(HexCoordinates coordinates) {
-        int q = coordinates.getQ();
-        int r = coordinates.getR();
-
-        return hexGrid[r][q];
+        return storage.getHex(coordinates.getQ(), coordinates.getR());
     }
 
     /**
-     * Возвращает гекс по координатам (q, r)
+     * Возвращает гекс по координатам (q, r). Для примитивного хранилища это новое представление
+     * {@link HexView}
      */
     public Hex getHex(int q, int r) {
-        return hexGrid[r][q];
+        return storage.getHex(q, r);
+    }
+
+    /**
+     * Возвращает порядковый номер типа гекса или {@link HexStorage#NO_HEX}. Без проверки границ
+     */
+    public int getTypeOrdinal(int q, int r) {
+        return storage.getTypeOrdinal(q, r);
+    }
+
+    /**
+     * Возвращает тип гекса или null, если гекса нет. Без проверки границ
+     */
+    public HexType getType(int q, int r) {
+        int ordinal = storage.getTypeOrdinal(q, r);
+        return ordinal == HexStorage.NO_HEX ? null : TYPES[ordinal];
+    }
+
+    public void setType(int q, int r, HexType type) {
+        storage.setTypeOrdinal(q, r, type.ordinal());
+        terrainChanged(q, r, q, r);
+    }
+
+    public int getDangerLevel(int q, int r) {
+        return storage.getDangerLevel(q, r);
+    }
+
+    public void setDangerLevel(int q, int r, int dangerLevel) {
+        storage.setDangerLevel(q, r, dangerLevel);
+    }
+
+    public long getGenerationSeed(int q, int r) {
+        return storage.getGenerationSeed(q, r);
+    }
+
+    public void setGenerationSeed(int q, int r, long generationSeed) {
+        storage.setGenerationSeed(q, r, generationSeed);
+    }
+
+    public UUID getLocationId(int q, int r) {
+        return storage.getLocationId(q, r);
+    }
+
+    public void setLocationId(int q, int r, UUID locationId) {
+        storage.setLocationId(q, r, locationId);
+    }
+
+    /**
+     * Создает курсор для обхода карты без аллокации гекса на клетку. Курсор переставляется через
+     * {@link HexView#moveTo(int, int)} и не должен сохраняться в коллекциях
+     */
+    public HexView cursor() {
+        return new HexView(storage, 0, 0);
     }
 
     /**
      * Проверяет существование гекса с заданными координатами
      */
     public boolean hasHex(HexCoordinates coordinates) {
-        int q = coordinates.getQ();
-        int r = coordinates.getR();
+        return hasHex(coordinates.getQ(), coordinates.getR());
+    }
 
+    /**
+     * Проверяет существование гекса в клетке (q, r) с проверкой границ
+     */
+    public boolean hasHex(int q, int r) {
         if (!isWithinBounds(q, r)) {
             return false;
         }
 
-        return hexGrid[r][q] != null;
+        return storage.getTypeOrdinal(q, r) != HexStorage.NO_HEX;
     }
 
     /**
@@ -98,9 +260,9 @@ public class HexMap {
         int q = coordinates.getQ();
         int r = coordinates.getR();
 
-        if (isWithinBounds(q, r) && hexGrid[r][q] != null) {
-            hexGrid[r][q] = null;
-            count--;
+        if (isWithinBounds(q, r)) {
+            storage.remove(q, r);
+            terrainChanged(q, r, q, r);
         }
     }
 
@@ -108,12 +270,12 @@ public class HexMap {
      * Возвращает неизменяемое представление всех гексов на карте
      */
     public List<Hex> getHexes() {
-        List<Hex> result = new ArrayList<>(count);
+        List<Hex> result = new ArrayList<>(storage.size());
 
         for (int r = 0; r < height; r++) {
             for (int q = 0; q < width; q++) {
-                if (hexGrid[r][q] != null) {
-                    result.add(hexGrid[r][q]);
+                if (storage.getTypeOrdinal(q, r) != HexStorage.NO_HEX) {
+                    result.add(storage.getHex(q, r));
                 }
             }
         }
@@ -127,19 +289,133 @@ public class HexMap {
      * @return количество гексов
      */
     public int size() {
-        return count;
+        return storage.size();
     }
 
     /**
      * Очищает карту, удаляя все гексы Используется при перезагрузке мира или смене карты
      */
     public void clear() {
-        for (int r = 0; r < height; r++) {
-            for (int q = 0; q < width; q++) {
-                hexGrid[r][q] = null;
+        storage.clear();
+        terrainChanged(0, 0, width - 1, height - 1);
+    }
+
+    /**
+     * Маска клеток заданного типа местности. Возвращается общий экземпляр - его нельзя изменять,
+     * для операций над масками используйте {@link HexBitSet#copy()}
+     */
+    public HexBitSet getTerrainMask(HexType type) {
+        return terrainMasks()[type.ordinal()];
+    }
+
+    /**
+     * Новая маска клеток любого из заданных типов
+     */
+    public HexBitSet getTerrainMask(HexType... types) {
+        HexBitSet mask = new HexBitSet(width, height);
+        for (HexType type : types) {
+            mask.or(getTerrainMask(type));
+        }
+        return mask;
+    }
+
+    /**
+     * Новая маска всех клеток, где есть гекс
+     */
+    public HexBitSet getOccupiedMask() {
+        return getTerrainMask(TYPES);
+    }
+
+    /**
+     * Сбрасывает маски типов и пирамиду местности и оповещает слушателей об изменении всей карты.
+     * Нужно вызывать после изменения типов в обход карты (через {@link HexStorage} или {@link HexView#setType})
+     */
+    public void invalidateTerrainMasks() {
+        terrainChanged(0, 0, width - 1, height - 1);
+    }
+
+    /**
+     * Подписывает слушателя на изменения типов гексов через методы карты
+     */
+    public void addListener(HexMapListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(HexMapListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Пирамида преобладающих типов по блокам 2x2, 4x4 и крупнее. Строится при первом запросе и дальше
+     * обновляется вместе с картой. Для {@link ChunkedHexStorage} мелкие уровни хранятся в чанках, и построение
+     * их не материализует
+     */
+    public TerrainPyramid getTerrainPyramid() {
+        TerrainPyramid pyramid = terrainPyramid;
+        if (pyramid != null) {
+            return pyramid;
+        }
+
+        synchronized (this) {
+            if (terrainPyramid == null) {
+                terrainPyramid = new TerrainPyramid(this);
+            }
+            return terrainPyramid;
+        }
+    }
+
+    private void terrainChanged(int minQ, int minR, int maxQ, int maxR) {
+        terrainMasks = null;
+        TerrainPyramid pyramid = terrainPyramid;
+        if (pyramid != null) {
+            // изменение большей части карты дешевле отработать перестройкой при следующем запросе
+            if ((long) (maxQ - minQ + 1) * (maxR - minR + 1) * 4 > (long) width * height) {
+                terrainPyramid = null;
+            } else {
+                pyramid.update(minQ, minR, maxQ, maxR);
+            }
+        }
+        notifyListeners(minQ, minR, maxQ, maxR);
+    }
+
+    private void chunkLoaded(int minQ, int minR, int maxQ, int maxR) {
+        TerrainPyramid pyramid = terrainPyramid;
+        if (pyramid != null) {
+            pyramid.update(minQ, minR, maxQ, maxR);
+        }
+        notifyListeners(minQ, minR, maxQ, maxR);
+    }
+
+    private void notifyListeners(int minQ, int minR, int maxQ, int maxR) {
+        for (HexMapListener listener : listeners) {
+            listener.terrainChanged(minQ, minR, maxQ, maxR);
+        }
+    }
+
+    private HexBitSet[] terrainMasks() {
+        HexBitSet[] masks = terrainMasks;
+        if (masks != null) {
+            return masks;
+        }
+
+        synchronized (this) {
+            if (terrainMasks == null) {
+                masks = new HexBitSet[TYPES.length];
+                for (int i = 0; i < masks.length; i++) {
+                    masks[i] = new HexBitSet(width, height);
+                }
+                for (int r = 0; r < height; r++) {
+                    for (int q = 0; q < width; q++) {
+                        int ordinal = storage.getTypeOrdinal(q, r);
+                        if (ordinal != HexStorage.NO_HEX) {
+                            masks[ordinal].set(q, r);
+                        }
+                    }
+                }
+                terrainMasks = masks;
             }
+            return terrainMasks;
         }
-        count = 0;
     }
 
     /**
@@ -156,29 +432,26 @@ public class HexMap {
         return height;
     }
 
+    /**
+     * Возвращает хранилище данных карты
+     */
+    public HexStorage getStorage() {
+        return storage;
+    }
+
+    /**
+     * Оценка памяти кучи, занятой данными карты, в байтах
+     */
+    public long estimateMemoryBytes() {
+        return storage.estimateMemoryBytes();
+    }
+
     public Iterator<Hex> getRowIterator(int r, int initialQ) {
         if (r < 0 || r >= height) {
             return Collections.emptyIterator();
         }
 
-        int startQ = Math.max(initialQ, 0);
-        if (startQ >= width) {
-            return Collections.emptyIterator();
-        }
-
-        return new Iterator<>() {
-            private int currentQ = startQ;
-
-            @Override
-            public boolean hasNext() {
-                return currentQ < width;
-            }
-
-            @Override
-            public Hex next() {
-                return hexGrid[r][currentQ++];
-            }
-        };
+        return getRowIteratorUnsafe(r, initialQ);
     }
 
     public Iterator<Hex> getRowIteratorUnsafe(int r, int initialQ) {
@@ -197,20 +470,33 @@ public class HexMap {
 
             @Override
             public Hex next() {
-                return hexGrid[r][currentQ++];
+                return storage.getHex(currentQ++, r);
             }
         };
     }
 
+    /**
+     * Возвращает строку гексов. Для хранилища объектов это сам массив строки, для остальных -
+     * массив представлений, поэтому в горячих путях лучше использовать {@link #getTypeOrdinal}
+     */
     public Hex[] getRowDirectAccess(int r) {
-//        if (r < 0 || r >= height) {
-//            return new Hex[0];
-//        }
-        return hexGrid[r];
+        return storage.getRow(r);
     }
 
+    /**
+     * Возвращает сетку объектов гексов. Доступно только для хранилища объектов
+     *
+     * @throws UnsupportedOperationException для остальных режимов хранения
+     * @deprecated режим хранения зависит от размера карты, поэтому вызов может упасть на большой карте.
+     * Используйте {@link #getHex(int, int)}, {@link #getTypeOrdinal} или {@link #cursor()}
+     */
+    @Deprecated
     public Hex[][] getHexGrid() {
-        return hexGrid;
+        if (storage instanceof ObjectHexStorage objectStorage) {
+            return objectStorage.getGrid();
+        }
+        throw new UnsupportedOperationException(
+            "Hex grid is available only for object storage, current: " + storage.getClass().getSimpleName());
     }
 
     /**
@@ -220,13 +506,56 @@ public class HexMap {
         if (row < 0 || row >= height || col < 0 || col >= width) {
             return null;
         }
-        return hexGrid[row][col];
+        return storage.getHex(col, row);
+    }
+
+    /**
+     * Копирует область width x height с углом (fromQ, fromR) в карту target, в область с углом (toQ, toR).
+     * Копия не связана с этой картой
+     *
+     * @throws IllegalArgumentException если область выходит за границы одной из карт
+     */
+    public void copyRegion(int fromQ, int fromR, int width, int height, HexMap target, int toQ, int toR) {
+        if (!isWithinBounds(fromQ, fromR) || !isWithinBounds(fromQ + width - 1, fromR + height - 1)
+            || !target.isWithinBounds(toQ, toR) || !target.isWithinBounds(toQ + width - 1, toR + height - 1)) {
+            throw new IllegalArgumentException(
+                "Region " + width + "x" + height + " at " + fromQ + "," + fromR + " can't be copied from "
+                + this.width + "x" + this.height + " map to " + toQ + "," + toR + " of "
+                + target.width + "x" + target.height + " map");
+        }
+
+        for (int r = 0; r < height; r++) {
+            for (int q = 0; q < width; q++) {
+                int ordinal = storage.getTypeOrdinal(fromQ + q, fromR + r);
+                if (ordinal == HexStorage.NO_HEX) {
+                    continue;
+                }
+                target.storage.put(toQ + q, toR + r, ordinal, storage.getGenerationSeed(fromQ + q, fromR + r));
+                target.storage.setDangerLevel(toQ + q, toR + r, storage.getDangerLevel(fromQ + q, fromR + r));
+                UUID locationId = storage.getLocationId(fromQ + q, fromR + r);
+                if (locationId != null) {
+                    target.storage.setLocationId(toQ + q, toR + r, locationId);
+                }
+            }
+        }
+        target.terrainChanged(toQ, toR, toQ + width - 1, toR + height - 1);
+    }
+
+    /**
+     * Освобождает ресурсы хранилища: поток подгрузки и файл подкачки чанков, отображенный в память
+     * файл. После вызова картой пользоваться нельзя
+     */
+    public void dispose() {
+        listeners.clear();
+        terrainMasks = null;
+        terrainPyramid = null;
+        storage.dispose();
     }
 
     /**
      * Проверяет, находятся ли координаты в пределах карты
      */
-    private boolean isWithinBounds(int q, int r) {
+    public boolean isWithinBounds(int q, int r) {
         return q >= 0 && q < width && r >= 0 && r < height;
     }
 }
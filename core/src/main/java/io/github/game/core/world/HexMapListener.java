@@ -0,0 +1,14 @@
+package io.github.game.core.world;
+
+/**
+ * Получатель изменений местности {@link HexMap}. Вызывается в потоке, который изменил карту, поэтому
+ * реализация должна быть потокобезопасной и быстрой (например, только помечать данные устаревшими)
+ */
+@FunctionalInterface
+public interface HexMapListener {
+
+    /**
+     * Изменились типы гексов в прямоугольнике [minQ, maxQ] x [minR, maxR] (границы включительно)
+     */
+    void terrainChanged(int minQ, int minR, int maxQ, int maxR);
+}
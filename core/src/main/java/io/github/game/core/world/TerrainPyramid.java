@@ -0,0 +1,139 @@
+package io.github.game.core.world;
+
+import io.github.game.core.world.hex.HexType;
+import io.github.game.core.world.storage.ChunkedHexStorage;
+import io.github.game.core.world.storage.HexStorage;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Пирамида местности для отрисовки издалека: уровень k хранит преобладающий тип каждого блока
+ * 2^k x 2^k гексов, уровень 0 - сама карта. Уровень строится из предыдущего по блокам 2x2, поэтому тип
+ * блока - преобладающий среди его четвертей, а не точное большинство по гексам. Пустой блок получается,
+ * только если в нем нет ни одного гекса.
+ * <p>
+ * Все уровни вместе занимают около трети байта на гекс. Для {@link ChunkedHexStorage} уровни до
+ * {@link ChunkedHexStorage#CHUNK_LEVEL} берутся из хранилища, которое держит их в чанках, а здесь хранятся
+ * только более крупные: построение не материализует чанки и занимает байты на чанк, а не на гекс.
+ * Создается через {@link HexMap#getTerrainPyramid()} и обновляется картой при изменении типов.
+ */
+public class TerrainPyramid {
+
+    private static final int TYPE_COUNT = HexType.values().length;
+
+    private final HexMap map;
+    // хранилище с уровнями до размера чанка или null
+    private final ChunkedHexStorage chunkedStorage;
+    // последний уровень, который отдает хранилище
+    private final int storageLevel;
+    // levels[k - 1] - уровень k построчно: ordinal типа или NO_HEX
+    private final byte[][] levels;
+    private final int[] widths;
+    private final int[] heights;
+
+    TerrainPyramid(HexMap map) {
+        this.map = map;
+        this.chunkedStorage = map.getStorage() instanceof ChunkedHexStorage chunked ? chunked : null;
+        int levelCount = 1;
+        for (int w = map.getWidth(), h = map.getHeight(); w > 1 || h > 1; w = (w + 1) / 2, h = (h + 1) / 2) {
+            levelCount++;
+        }
+
+        widths = new int[levelCount];
+        heights = new int[levelCount];
+        levels = new byte[levelCount - 1][];
+        widths[0] = map.getWidth();
+        heights[0] = map.getHeight();
+        storageLevel = chunkedStorage == null ? 0 : Math.min(ChunkedHexStorage.CHUNK_LEVEL, levelCount - 1);
+        for (int level = 1; level < levelCount; level++) {
+            widths[level] = (widths[level - 1] + 1) / 2;
+            heights[level] = (heights[level - 1] + 1) / 2;
+            if (level <= storageLevel) {
+                continue;
+            }
+            levels[level - 1] = new byte[widths[level] * heights[level]];
+
+            int current = level;
+            IntStream.range(0, heights[level]).parallel()
+                     .forEach(r -> updateRow(current, r, 0, widths[current] - 1));
+        }
+    }
+
+    /**
+     * Число уровней вместе с нулевым. Последний уровень - один блок на всю карту
+     */
+    public int getLevelCount() {
+        return widths.length;
+    }
+
+    /**
+     * Ширина уровня в блоках
+     */
+    public int getWidth(int level) {
+        return widths[level];
+    }
+
+    /**
+     * Высота уровня в блоках
+     */
+    public int getHeight(int level) {
+        return heights[level];
+    }
+
+    /**
+     * Преобладающий тип блока (q, r) уровня level или {@link HexStorage#NO_HEX}. Без проверки границ
+     */
+    public int getTypeOrdinal(int level, int q, int r) {
+        if (level == 0) {
+            return map.getTypeOrdinal(q, r);
+        }
+        if (level <= storageLevel) {
+            return chunkedStorage.getBlockTypeOrdinal(level, q, r);
+        }
+        return levels[level - 1][r * widths[level] + q];
+    }
+
+    /**
+     * Пересчитывает блоки всех уровней, накрывающие прямоугольник гексов [minQ, maxQ] x [minR, maxR]
+     */
+    void update(int minQ, int minR, int maxQ, int maxR) {
+        for (int level = 1; level < widths.length; level++) {
+            minQ >>= 1;
+            minR >>= 1;
+            maxQ >>= 1;
+            maxR >>= 1;
+            // уровни хранилища обновляются им самим
+            for (int r = minR; r <= maxR && level > storageLevel; r++) {
+                updateRow(level, r, minQ, maxQ);
+            }
+        }
+    }
+
+    private void updateRow(int level, int r, int minQ, int maxQ) {
+        int[] counts = new int[TYPE_COUNT];
+        byte[] types = levels[level - 1];
+        int width = widths[level];
+        int childWidth = widths[level - 1];
+        int childMinR = r * 2;
+        int childMaxR = Math.min(childMinR + 1, heights[level - 1] - 1);
+
+        for (int q = minQ; q <= maxQ; q++) {
+            int childMinQ = q * 2;
+            int childMaxQ = Math.min(childMinQ + 1, childWidth - 1);
+            Arrays.fill(counts, 0);
+            int best = HexStorage.NO_HEX;
+            int bestCount = 0;
+            // при равенстве побеждает тип, первым набравший наибольшее число четвертей
+            for (int childR = childMinR; childR <= childMaxR; childR++) {
+                for (int childQ = childMinQ; childQ <= childMaxQ; childQ++) {
+                    int type = getTypeOrdinal(level - 1, childQ, childR);
+                    if (type != HexStorage.NO_HEX && ++counts[type] > bestCount) {
+                        best = type;
+                        bestCount = counts[type];
+                    }
+                }
+            }
+            types[r * width + q] = (byte) best;
+        }
+    }
+}
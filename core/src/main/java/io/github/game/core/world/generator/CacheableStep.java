@@ -0,0 +1,78 @@
+package io.github.game.core.world.generator;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Шаг, результат которого можно взять из {@link GenerationCache}. Ключ шага - хеш его конфигурации и ключей
+ * шагов, результаты которых он читает; при том же ключе пайплайн восстанавливает снимок вместо выполнения.
+ */
+public interface CacheableStep extends GeneratorStep {
+
+    /**
+     * Хеш всех параметров, от которых зависит результат шага, кроме данных контекста
+     */
+    long configHash();
+
+    /**
+     * false, если результат зависит от чего-то вне конфигурации (например, от файла сохранения). Такой шаг
+     * и все шаги, читающие его данные, выполняются всегда
+     */
+    default boolean isCacheable() {
+        return true;
+    }
+
+    /**
+     * Снимок данных, записанных шагом. Снимок не должен меняться последующими шагами
+     *
+     * @return снимок или null, если сейчас результат кэшировать нельзя
+     */
+    Object snapshot(GenerationContext context);
+
+    /**
+     * Записывает снимок в контекст вместо выполнения шага
+     */
+    void restore(GenerationContext context, Object snapshot);
+
+    /**
+     * Записывает снимок в дисковый кэш
+     *
+     * @return false, если шаг кэшируется только в памяти
+     */
+    default boolean writeSnapshot(Object snapshot, DataOutputStream out) throws IOException {
+        return false;
+    }
+
+    /**
+     * Читает снимок, записанный {@link #writeSnapshot}
+     */
+    default Object readSnapshot(DataInputStream in) throws IOException {
+        throw new UnsupportedOperationException(getName() + " is cached in memory only");
+    }
+
+    /**
+     * true, если результат слишком велик, чтобы держать его снимок в памяти. Такой результат пайплайн пишет
+     * в дисковый кэш прямо из контекста ({@link #writeSnapshot(GenerationContext, DataOutputStream)}) и читает
+     * прямо в контекст ({@link #restore(GenerationContext, DataInputStream)}); без дискового кэша шаг
+     * выполняется всегда. Вызывается до выполнения шага
+     */
+    default boolean isStreamed(GenerationContext context) {
+        return false;
+    }
+
+    /**
+     * Записывает результат шага из контекста в дисковый кэш, см. {@link #isStreamed}
+     */
+    default void writeSnapshot(GenerationContext context, DataOutputStream out) throws IOException {
+        throw new UnsupportedOperationException(getName() + " is not streamed");
+    }
+
+    /**
+     * Читает результат, записанный {@link #writeSnapshot(GenerationContext, DataOutputStream)}, прямо в контекст
+     * вместо выполнения шага
+     */
+    default void restore(GenerationContext context, DataInputStream in) throws IOException {
+        throw new UnsupportedOperationException(getName() + " is not streamed");
+    }
+}
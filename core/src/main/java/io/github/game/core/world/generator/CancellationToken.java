@@ -0,0 +1,29 @@
+package io.github.game.core.world.generator;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Флаг кооперативной отмены генерации. Шаги и генераторы проверяют его между порциями работы и
+ * прерываются исключением {@link CancellationException}
+ */
+public class CancellationToken {
+
+    private volatile boolean cancelled;
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @throws CancellationException если генерация отменена
+     */
+    public void throwIfCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Generation cancelled");
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package io.github.game.core.world.generator;
+
+/**
+ * Данные {@link GenerationContext}, которые шаги пайплайна читают и пишут. По ним пайплайн строит граф
+ * зависимостей шагов
+ */
+public enum ContextSlot {
+    HEX_MAP("hexMap"),
+    FEATURE_RASTERS("featureRasters"),
+    LOCATIONS("locations");
+
+    private final String fieldName;
+
+    ContextSlot(String fieldName) {
+        this.fieldName = fieldName;
+    }
+
+    @Override
+    public String toString() {
+        return fieldName;
+    }
+}
@@ -0,0 +1,206 @@
+package io.github.game.core.world.generator;
+
+import com.badlogic.gdx.Gdx;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Кэш результатов шагов пайплайна по ключу шага (см. {@link CacheableStep}). В памяти хранится последний
+ * снимок каждого шага, на диске - файлы {@link #FILES_PER_STEP} последних использованных ключей каждого шага
+ * в каталоге кэша, более старые удаляются. Слишком большие результаты ({@link CacheableStep#isStreamed}) только
+ * на диске. Ошибки диска не прерывают генерацию: шаг просто выполняется заново.
+ */
+public class GenerationCache {
+
+    // Меняется при изменении формата файлов снимков; версии алгоритмов входят в хеши конфигурации шагов
+    private static final long FORMAT_VERSION = 2;
+
+    /**
+     * Сколько файлов снимков одного шага хранится на диске
+     */
+    public static final int FILES_PER_STEP = 4;
+
+    private final File directory;
+    // имя шага -> последний снимок
+    private final Map<String, Entry> memory = new HashMap<>();
+
+    /**
+     * @param directory каталог дискового кэша, null - только память
+     */
+    public GenerationCache(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Смешивает хеш с очередным значением (64-битный финализатор MurmurHash3)
+     */
+    public static long combine(long hash, long value) {
+        long h = hash * 0x9E3779B97F4A7C15L + value;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    public static long combine(long hash, String value) {
+        return combine(hash, value == null ? 0 : value.hashCode());
+    }
+
+    /**
+     * Начальный ключ шага: версия формата, класс шага и его конфигурация
+     */
+    static long stepKey(CacheableStep step) {
+        return combine(combine(FORMAT_VERSION, step.getClass().getName()), step.configHash());
+    }
+
+    /**
+     * Снимок шага с данным ключом из памяти или с диска
+     *
+     * @return снимок или null, если его нет
+     */
+    public synchronized Object load(CacheableStep step, long key) {
+        Entry entry = memory.get(step.getName());
+        if (entry != null && entry.key == key) {
+            return entry.snapshot;
+        }
+
+        Object[] snapshot = new Object[1];
+        if (!readFile(step, key, in -> snapshot[0] = step.readSnapshot(in))) {
+            return null;
+        }
+        memory.put(step.getName(), new Entry(key, snapshot[0]));
+        return snapshot[0];
+    }
+
+    /**
+     * Сохраняет снимок шага в памяти (вытесняя прежний снимок этого шага) и на диске
+     */
+    public synchronized void store(CacheableStep step, long key, Object snapshot) {
+        memory.put(step.getName(), new Entry(key, snapshot));
+        writeFile(step, key, out -> step.writeSnapshot(snapshot, out));
+    }
+
+    /**
+     * Читает результат шага с данным ключом с диска прямо в контекст, не держа снимок в памяти
+     * (см. {@link CacheableStep#isStreamed})
+     *
+     * @return false, если снимка нет или его не удалось прочитать
+     */
+    public synchronized boolean restoreStreamed(CacheableStep step, long key, GenerationContext context) {
+        return readFile(step, key, in -> step.restore(context, in));
+    }
+
+    /**
+     * Записывает результат шага на диск прямо из контекста. Прежний снимок шага в памяти удаляется
+     */
+    public synchronized void storeStreamed(CacheableStep step, long key, GenerationContext context) {
+        memory.remove(step.getName());
+        writeFile(step, key, out -> {
+            step.writeSnapshot(context, out);
+            return true;
+        });
+    }
+
+    private boolean readFile(CacheableStep step, long key, SnapshotReader reader) {
+        File file = file(step, key);
+        if (file == null || !file.isFile()) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            reader.read(in);
+            // время изменения - время последнего использования, по нему вытесняются старые файлы шага
+            file.setLastModified(System.currentTimeMillis());
+            return true;
+        } catch (IOException | RuntimeException e) {
+            Gdx.app.error("GenerationCache", "Unable to read cached " + step.getName() + ": " + e.getMessage());
+            file.delete();
+            return false;
+        }
+    }
+
+    private void writeFile(CacheableStep step, long key, SnapshotWriter writer) {
+        File file = file(step, key);
+        if (file == null) {
+            return;
+        }
+        File partial = new File(file.getPath() + ".tmp");
+        boolean written = false;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(partial)))) {
+            written = writer.write(out);
+        } catch (IOException e) {
+            Gdx.app.error("GenerationCache", "Unable to cache " + step.getName() + ": " + e.getMessage());
+        }
+        if (!written || !partial.renameTo(file)) {
+            partial.delete();
+            return;
+        }
+        pruneFiles(step, file);
+    }
+
+    /**
+     * Удаляет файлы снимков шага сверх {@link #FILES_PER_STEP} последних использованных
+     *
+     * @param stored только что записанный файл, он остается в любом случае
+     */
+    private void pruneFiles(CacheableStep step, File stored) {
+        Pattern name = Pattern.compile(Pattern.quote(step.getName()) + "-[0-9a-f]{16}\\.bin");
+        File[] files = directory.listFiles(
+            file -> !file.equals(stored) && name.matcher(file.getName()).matches());
+        if (files == null || files.length < FILES_PER_STEP) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified).reversed());
+        for (int i = FILES_PER_STEP - 1; i < files.length; i++) {
+            files[i].delete();
+        }
+    }
+
+    /**
+     * Удаляет все снимки
+     */
+    public synchronized void clear() {
+        memory.clear();
+        File[] files = directory == null ? null : directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    private File file(CacheableStep step, long key) {
+        if (directory == null || (!directory.isDirectory() && !directory.mkdirs())) {
+            return null;
+        }
+        return new File(directory, "%s-%016x.bin".formatted(step.getName(), key));
+    }
+
+    private record Entry(long key, Object snapshot) {
+    }
+
+    @FunctionalInterface
+    private interface SnapshotReader {
+        void read(DataInputStream in) throws IOException;
+    }
+
+    /**
+     * @return false, если шаг не пишет снимок на диск
+     */
+    @FunctionalInterface
+    private interface SnapshotWriter {
+        boolean write(DataOutputStream out) throws IOException;
+    }
+}
@@ -2,6 +2,7 @@ package io.github.game.core.world.generator;
 
 import com.badlogic.ashley.core.Entity;
 import io.github.game.core.world.HexMap;
+import io.github.game.core.world.generator.feature.FeatureRasters;
 import io.github.game.services.NameService;
 import io.github.game.settings.GameplaySettings;
 import java.util.ArrayList;
@@ -11,7 +12,8 @@ import lombok.Getter;
 import lombok.Setter;
 
 /**
- * Общий контекст для генераторов
+ * Общий контекст для генераторов. Контекст - данные одного запуска пайплайна: генераторы работают с
+ * переданным им контекстом, поэтому несколько миров можно генерировать одновременно, каждый в своем.
  */
 @Setter
 @Getter
@@ -20,15 +22,57 @@ public class GenerationContext {
     private GameplaySettings settings;
     private final NameService nameService;
     private HexMap hexMap ;
+    // окна мира для шагов после генерации мира по требованию, null - вся карта
+    private PlacementMosaic placementMosaic;
+    private FeatureRasters featureRasters;
     private List<Entity> locations = new ArrayList<>();
     private List<Entity> npcs = new ArrayList<>();
     private List<Entity> items = new ArrayList<>();
+    // прогресс и отмена текущего запуска пайплайна
+    private GenerationMonitor monitor = new GenerationMonitor();
 
     @Inject
     public GenerationContext(GameplaySettings gameplaySettings, NameService nameService) {
+        this(gameplaySettings, nameService,
+             HexMap.create(gameplaySettings.getHexSize(), gameplaySettings.getHexSize()));
+    }
+
+    /**
+     * Контекст отдельного запуска со своей картой
+     *
+     * @param hexMap карта, которую заполнит генератор мира
+     */
+    public GenerationContext(GameplaySettings gameplaySettings, NameService nameService, HexMap hexMap) {
         this.settings = gameplaySettings;
         this.nameService = nameService;
-        this.hexMap = new HexMap(settings.getHexSize(), settings.getHexSize());
+        this.hexMap = hexMap;
+    }
+
+    /**
+     * Заменяет карту контекста. Прежняя карта освобождается через {@link HexMap#dispose()}, поэтому
+     * ссылки на нее после замены использовать нельзя. Вместе с картой сбрасывается {@link #getPlacementMosaic()}
+     */
+    public void setHexMap(HexMap hexMap) {
+        HexMap previous = this.hexMap;
+        this.hexMap = hexMap;
+        if (previous != hexMap) {
+            if (placementMosaic != null) {
+                placementMosaic.dispose();
+                placementMosaic = null;
+            }
+            if (previous != null) {
+                previous.dispose();
+            }
+        }
+    }
+
+    /**
+     * Карта, по которой строятся растры признаков и размещаются локации: вся карта контекста или, если
+     * генератор мира заполняет ее по требованию, карта мозаики {@link #getPlacementMosaic()}, чтобы эти
+     * шаги не генерировали весь мир при запуске. Координаты на мозаике не совпадают с координатами мира
+     */
+    public HexMap getPlacementMap() {
+        return placementMosaic != null ? placementMosaic.getMap() : hexMap;
     }
 
     public void addLocation(Entity location) {
@@ -0,0 +1,78 @@
+package io.github.game.core.world.generator;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Общий пул потоков генерации с ограниченным бюджетом. Пайплайн выполняется задачей этого пула, поэтому
+ * параллельные потоки данных (IntStream.parallel) внутри шагов тоже работают в нем, а не в общем пуле
+ * ForkJoin, и не забирают ядра у потока рендера.
+ */
+public class GenerationExecutor {
+
+    private final ForkJoinPool pool;
+
+    /**
+     * @param threadBudget число потоков генерации
+     */
+    public GenerationExecutor(int threadBudget) {
+        if (threadBudget < 1) {
+            throw new IllegalArgumentException("Thread budget must be positive");
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.pool = new ForkJoinPool(threadBudget, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("world-generation-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        }, null, false);
+    }
+
+    /**
+     * Бюджет по умолчанию: все ядра, кроме одного, оставленного потоку рендера
+     */
+    public static int defaultThreadBudget() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+    public int getThreadBudget() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Выполняет пайплайн в пуле и ждет результата
+     *
+     * @throws java.util.concurrent.CancellationException если генерация отменена через монитор
+     */
+    public GenerationContext run(GeneratorPipeline pipeline, GenerationContext context, GenerationMonitor monitor) {
+        return invoke(() -> pipeline.execute(context, monitor));
+    }
+
+    /**
+     * Выполняет произвольную задачу в пуле и ждет результата, например пакет запусков пайплайна в
+     * параллельном потоке данных
+     */
+    public <T> T invoke(Callable<T> task) {
+        return pool.submit(task).join();
+    }
+
+    /**
+     * Запускает пайплайн в пуле асинхронно
+     */
+    public CompletableFuture<GenerationContext> submit(GeneratorPipeline pipeline, GenerationContext context,
+                                                       GenerationMonitor monitor) {
+        return CompletableFuture.supplyAsync(() -> pipeline.execute(context, monitor), pool);
+    }
+
+    /**
+     * Останавливает потоки генерации, текущие задачи прерываются
+     */
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,130 @@
+package io.github.game.core.world.generator;
+
+import io.github.game.core.world.generator.world.WorldPreview;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Отмена и прогресс одного запуска пайплайна. Пайплайн отмечает начало и конец каждого шага, а шаг сообщает
+ * объем своей работы ({@link #beginWork}) и выполненные порции ({@link #worked}), в том числе из
+ * параллельных задач.
+ * <p>
+ * Шаги, которые пайплайн выполняет одновременно, складывают работу в общий счет: доля выполненного у них
+ * общая, пока все они не завершатся.
+ * <p>
+ * Генератор мира публикует через монитор грубые уровни предпросмотра ({@link #publishPreview}), которые
+ * можно показывать, пока идет генерация в полном разрешении.
+ */
+public class GenerationMonitor {
+
+    private final CancellationToken cancellationToken;
+    private final GenerationProgressListener listener;
+    // работа выполняющихся сейчас шагов
+    private final AtomicLong done = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    // выполняющиеся шаги по номерам
+    private final ConcurrentSkipListMap<Integer, String> runningSteps = new ConcurrentSkipListMap<>();
+    private final AtomicInteger finishedSteps = new AtomicInteger();
+    private volatile int stepCount = 1;
+    private volatile WorldPreview preview;
+
+    /**
+     * Монитор без получателя прогресса, который никогда не отменяется
+     */
+    public GenerationMonitor() {
+        this(new CancellationToken(), GenerationProgressListener.NONE);
+    }
+
+    public GenerationMonitor(CancellationToken cancellationToken, GenerationProgressListener listener) {
+        this.cancellationToken = cancellationToken;
+        this.listener = listener;
+    }
+
+    /**
+     * Добавляет объем работы текущего шага в условных единицах
+     */
+    public void beginWork(long units) {
+        total.addAndGet(Math.max(1, units));
+        report();
+    }
+
+    /**
+     * Отмечает выполненные единицы работы текущего шага
+     */
+    public void worked(long units) {
+        done.addAndGet(units);
+        report();
+    }
+
+    /**
+     * @throws java.util.concurrent.CancellationException если генерация отменена
+     */
+    public void checkCancelled() {
+        cancellationToken.throwIfCancelled();
+    }
+
+    public boolean isCancelled() {
+        return cancellationToken.isCancelled();
+    }
+
+    /**
+     * Общий прогресс пайплайна от 0 до 1: завершенные шаги плюс доля выполняющихся
+     */
+    public float getProgress() {
+        return Math.min(1f, (finishedSteps.get() + runningSteps.size() * stepProgress()) / stepCount);
+    }
+
+    /**
+     * Имена выполняющихся шагов
+     */
+    public String getStepName() {
+        return String.join(" + ", runningSteps.values());
+    }
+
+    /**
+     * Публикует очередной, более точный уровень предпросмотра мира. Вызывается из потока генерации
+     */
+    public void publishPreview(WorldPreview preview) {
+        this.preview = preview;
+    }
+
+    /**
+     * Последний опубликованный уровень предпросмотра или null
+     */
+    public WorldPreview getPreview() {
+        return preview;
+    }
+
+    void start(int count) {
+        stepCount = Math.max(1, count);
+        finishedSteps.set(0);
+        runningSteps.clear();
+        done.set(0);
+        total.set(0);
+    }
+
+    void beginStep(int index, String name) {
+        runningSteps.put(index, name);
+        report();
+    }
+
+    void endStep(int index) {
+        runningSteps.remove(index);
+        finishedSteps.incrementAndGet();
+        if (runningSteps.isEmpty()) {
+            done.set(0);
+            total.set(0);
+        }
+        report();
+    }
+
+    private float stepProgress() {
+        long units = total.get();
+        return units == 0 ? 0f : Math.min(1f, (float) done.get() / units);
+    }
+
+    private void report() {
+        listener.onProgress(getStepName(), finishedSteps.get(), stepCount, stepProgress());
+    }
+}
@@ -0,0 +1,20 @@
+package io.github.game.core.world.generator;
+
+/**
+ * Получатель прогресса генерации. Вызывается из потоков генерации, в том числе одновременно из
+ * нескольких, поэтому реализация должна быть потокобезопасной и быстрой
+ */
+@FunctionalInterface
+public interface GenerationProgressListener {
+
+    GenerationProgressListener NONE = (stepName, finishedSteps, stepCount, stepProgress) -> {
+    };
+
+    /**
+     * @param stepName      имена выполняющихся шагов пайплайна
+     * @param finishedSteps число завершенных шагов
+     * @param stepCount     число шагов пайплайна
+     * @param stepProgress  доля выполненной работы выполняющихся шагов, от 0 до 1
+     */
+    void onProgress(String stepName, int finishedSteps, int stepCount, float stepProgress);
+}
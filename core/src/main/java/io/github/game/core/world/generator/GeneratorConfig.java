@@ -19,4 +19,12 @@ public abstract class GeneratorConfig {
     public void setSeed(long seed) {
         this.seed = seed;
     }
+
+    /**
+     * Хеш параметров, от которых зависит результат генератора, для ключа {@link GenerationCache}.
+     * Наследники добавляют свои поля
+     */
+    public long contentHash() {
+        return GenerationCache.combine(getClass().getName().hashCode(), seed);
+    }
 }
@@ -14,29 +14,26 @@ import javax.inject.Inject;
 import javax.inject.Singleton;
 
 /**
- * Фабрика для создания генераторов на основе типа и конфигурации.
+ * Фабрика для создания генераторов на основе типа и конфигурации. Генераторы не привязаны к контексту:
+ * карту и монитор они получают от шага пайплайна, поэтому запуски с разными контекстами независимы.
  */
 @Singleton
 public class GeneratorFactory {
 
-    private final GenerationContext generationContext;
     private final EntityFactory entityFactory;
 
     @Inject
-    public GeneratorFactory(GenerationContext generationContext, EntityFactory entityFactory) {
-        this.generationContext = generationContext;
+    public GeneratorFactory(EntityFactory entityFactory) {
         this.entityFactory = entityFactory;
     }
 
     public WorldGenerator createWorldGenerator(GeneratorType type, WorldGeneratorConfig config) {
         return switch (type) {
             case PROCEDURAL_WORLD -> new ProceduralWorldGenerator(
-                config.getWidth(), config.getHeight(), config.getSeed(),
-                generationContext);
+                config.getWidth(), config.getHeight(), config.getSeed());
             case RECTANGULAR_WORLD -> new RectangularWorldGenerator(
-                config.getWidth(), config.getHeight(), config.getSeed(),
-                generationContext);
-            case SAVED_WORLD -> new SavedWorldGenerator(config.getSaveFilePath(), generationContext);
+                config.getWidth(), config.getHeight(), config.getSeed());
+            case SAVED_WORLD -> new SavedWorldGenerator(config.getSaveFilePath());
             default -> throw new IllegalArgumentException("Unknown world generator type: " + type);
         };
     }
@@ -44,9 +41,8 @@ public class GeneratorFactory {
     public LocationGenerator createLocationGenerator(GeneratorType type, LocationGeneratorConfig config) {
         return switch (type) {
             case RANDOM_LOCATION -> new RandomLocationGenerator(
-                config.getNumberOfLocations(), config.getSeed(), generationContext,
-                entityFactory);
-            case SAVED_LOCATION -> new SavedLocationGenerator(config.getSaveFilePath(), generationContext);
+                config.getNumberOfLocations(), config.getSeed(), entityFactory);
+            case SAVED_LOCATION -> new SavedLocationGenerator(config.getSaveFilePath());
             default -> throw new IllegalArgumentException("Unknown location generator type: " + type);
         };
     }
@@ -1,15 +1,39 @@
 package io.github.game.core.world.generator;
 
+import com.badlogic.gdx.Gdx;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntConsumer;
 
 /**
- * Пайплайн для последовательного выполнения шагов генерации. Обрабатывает зависимости путем
- * выполнения шагов по порядку и общего доступа к контексту.
+ * Пайплайн шагов генерации. Зависимости между шагами выводятся из данных контекста, которые шаги читают и
+ * пишут ({@link GeneratorStep#reads()}, {@link GeneratorStep#writes()}): шаг ждет предыдущие по списку шаги,
+ * которые пишут читаемые им данные или обращаются к данным, которые пишет он сам. Результат поэтому тот же,
+ * что и при выполнении по порядку.
+ * <p>
+ * Запущенный в пуле ForkJoin (см. {@link GenerationExecutor}) пайплайн выполняет независимые шаги
+ * одновременно, вне пула - по порядку в вызывающем потоке. После выполнения в лог пишется время шагов и
+ * критический путь.
+ * <p>
+ * Запуск с {@link GenerationMonitor} сообщает прогресс по шагам и проверяет отмену перед каждым
+ * шагом; шаги получают монитор через {@link GenerationContext#getMonitor()}.
+ * <p>
+ * С {@link GenerationCache} шаги {@link CacheableStep} не выполняются, если в кэше есть снимок для их
+ * ключа. Ключ складывается из конфигурации шага и ключей шагов, записавших читаемые им данные, поэтому при
+ * смене, например, только числа локаций карта берется из кэша. Шаг, читающий данные некэшируемого шага или
+ * начального контекста, выполняется всегда.
  */
 public class GeneratorPipeline {
 
     private final List<GeneratorStep> steps = new ArrayList<>();
+    private GenerationCache cache;
+    private boolean concurrentSteps = true;
 
     /**
      * Добавляет шаг в пайплайн
@@ -20,6 +44,23 @@ public class GeneratorPipeline {
         steps.add(step);
     }
 
+    /**
+     * Подключает кэш результатов шагов
+     *
+     * @param cache кэш или null, чтобы выполнять все шаги
+     */
+    public void setCache(GenerationCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Выполнять ли независимые шаги одновременно, когда пайплайн запущен в пуле ForkJoin. Пакетным запускам
+     * многих миров это не нужно: ядра и так заняты разными мирами, а ожидание шагов только занимает потоки пула
+     */
+    public void setConcurrentSteps(boolean concurrentSteps) {
+        this.concurrentSteps = concurrentSteps;
+    }
+
     /**
      * Выполняет все шаги по порядку
      *
@@ -28,16 +69,312 @@ public class GeneratorPipeline {
      * @return финальный контекст после выполнения всех шагов
      */
     public GenerationContext execute(GenerationContext context) {
-        for (GeneratorStep step : steps) {
-            step.execute(context);
+        return execute(context, new GenerationMonitor());
+    }
+
+    /**
+     * Выполняет все шаги с учетом зависимостей, с отчетом о прогрессе и кооперативной отменой
+     *
+     * @param context начальный контекст
+     * @param monitor монитор запуска, доступен шагам через контекст
+     * @return финальный контекст после выполнения всех шагов
+     * @throws java.util.concurrent.CancellationException если генерация отменена
+     */
+    public GenerationContext execute(GenerationContext context, GenerationMonitor monitor) {
+        int[][] dependencies = dependencies();
+        Long[] keys = cacheKeys();
+        long[] startTimes = new long[steps.size()];
+        long[] endTimes = new long[steps.size()];
+
+        GenerationMonitor previous = context.getMonitor();
+        context.setMonitor(monitor);
+        monitor.start(steps.size());
+        long pipelineStart = System.nanoTime();
+        try {
+            if (concurrentSteps && ForkJoinTask.inForkJoinPool()) {
+                executeConcurrently(context, monitor, dependencies, keys, startTimes, endTimes);
+            } else {
+                for (int i = 0; i < steps.size(); i++) {
+                    executeStep(i, context, monitor, keys, startTimes, endTimes);
+                }
+            }
+        } finally {
+            context.setMonitor(previous);
         }
+
+        logTimings(dependencies, startTimes, endTimes, System.nanoTime() - pipelineStart);
         return context;
     }
 
+    /**
+     * Проверяет, что ни один шаг не перезаписывает данные, записанные предыдущим шагом, если их никто не
+     * прочитал: результат первой записи терялся бы.
+     *
+     * @throws IllegalStateException при конфликте записей
+     */
+    public void validate() {
+        for (int i = 0; i < steps.size(); i++) {
+            for (ContextSlot slot : steps.get(i).writes()) {
+                for (int j = i + 1; j < steps.size(); j++) {
+                    GeneratorStep later = steps.get(j);
+                    if (later.reads().contains(slot)) {
+                        break;
+                    }
+                    if (later.writes().contains(slot)) {
+                        throw new IllegalStateException(
+                            "Generation steps %s and %s both write %s, and the first result is never read"
+                                .formatted(steps.get(i).getName(), later.getName(), slot));
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * Очищает все шаги пайплайна
      */
     public void clear() {
         steps.clear();
     }
+
+    /**
+     * Выполняет шаги задачами {@link CountedCompleter} текущего пула генерации: шаги без предшественников
+     * запускаются сразу, а завершенный шаг запускает шаги, все предшественники которых завершены. Ни одна
+     * задача не ждет другую, а вызывающий поток пула, ожидая завершения запуска, сам выполняет шаги. Первая
+     * ошибка шага пробрасывается после завершения уже начатых шагов, следующие шаги после нее не запускаются
+     */
+    private void executeConcurrently(GenerationContext context, GenerationMonitor monitor, int[][] dependencies,
+                                     Long[] keys, long[] startTimes, long[] endTimes) {
+        ConcurrentRun run = new ConcurrentRun(dependencies,
+                                              step -> executeStep(step, context, monitor, keys, startTimes, endTimes));
+        run.invoke();
+        if (run.failure.get() instanceof RuntimeException failure) {
+            throw failure;
+        }
+        if (run.failure.get() instanceof Error failure) {
+            throw failure;
+        }
+    }
+
+    private void executeStep(int index, GenerationContext context, GenerationMonitor monitor, Long[] keys,
+                             long[] startTimes, long[] endTimes) {
+        GeneratorStep step = steps.get(index);
+        monitor.checkCancelled();
+        monitor.beginStep(index, step.getName());
+        startTimes[index] = System.nanoTime();
+        if (keys[index] == null) {
+            step.execute(context);
+        } else {
+            executeCached((CacheableStep) step, keys[index], context);
+        }
+        endTimes[index] = System.nanoTime();
+        monitor.endStep(index);
+    }
+
+    private void executeCached(CacheableStep step, long key, GenerationContext context) {
+        if (step.isStreamed(context)) {
+            if (cache.restoreStreamed(step, key, context)) {
+                Gdx.app.log("Generation", "Step %s restored from cache".formatted(step.getName()));
+                return;
+            }
+            step.execute(context);
+            cache.storeStreamed(step, key, context);
+            return;
+        }
+
+        Object snapshot = cache.load(step, key);
+        if (snapshot != null) {
+            step.restore(context, snapshot);
+            Gdx.app.log("Generation", "Step %s restored from cache".formatted(step.getName()));
+            return;
+        }
+
+        step.execute(context);
+        snapshot = step.snapshot(context);
+        if (snapshot != null) {
+            cache.store(step, key, snapshot);
+        }
+    }
+
+    /**
+     * Ключи кэша шагов, null - шаг выполняется без кэша. Ключ зависит от конфигурации шага и ключей последних
+     * предыдущих шагов, записавших каждые читаемые им данные
+     */
+    private Long[] cacheKeys() {
+        Long[] keys = new Long[steps.size()];
+        if (cache == null) {
+            return keys;
+        }
+
+        for (int i = 0; i < steps.size(); i++) {
+            if (!(steps.get(i) instanceof CacheableStep step) || !step.isCacheable()) {
+                continue;
+            }
+            Long key = GenerationCache.stepKey(step);
+            for (ContextSlot slot : step.reads()) {
+                int writer = i - 1;
+                while (writer >= 0 && !steps.get(writer).writes().contains(slot)) {
+                    writer--;
+                }
+                if (writer < 0 || keys[writer] == null) {
+                    key = null;
+                    break;
+                }
+                key = GenerationCache.combine(GenerationCache.combine(key, slot.ordinal()), keys[writer]);
+            }
+            keys[i] = key;
+        }
+        return keys;
+    }
+
+    /**
+     * Для каждого шага - предыдущие шаги, которые он должен дождаться: чтение после записи, запись после
+     * чтения и запись после записи одних и тех же данных
+     */
+    private int[][] dependencies() {
+        int[][] dependencies = new int[steps.size()][];
+        for (int i = 0; i < steps.size(); i++) {
+            Set<ContextSlot> reads = steps.get(i).reads();
+            Set<ContextSlot> writes = steps.get(i).writes();
+            List<Integer> predecessors = new ArrayList<>();
+            for (int j = 0; j < i; j++) {
+                Set<ContextSlot> earlierWrites = steps.get(j).writes();
+                if (intersects(earlierWrites, reads) || intersects(earlierWrites, writes)
+                    || intersects(steps.get(j).reads(), writes)) {
+                    predecessors.add(j);
+                }
+            }
+            dependencies[i] = predecessors.stream().mapToInt(Integer::intValue).toArray();
+        }
+        return dependencies;
+    }
+
+    private static boolean intersects(Set<ContextSlot> a, Set<ContextSlot> b) {
+        Set<ContextSlot> common = EnumSet.noneOf(ContextSlot.class);
+        common.addAll(a);
+        common.retainAll(b);
+        return !common.isEmpty();
+    }
+
+    /**
+     * Пишет в лог время шагов и критический путь - цепочку зависимых шагов с наибольшим суммарным временем
+     */
+    private void logTimings(int[][] dependencies, long[] startTimes, long[] endTimes, long wallTime) {
+        int count = steps.size();
+        if (count == 0) {
+            return;
+        }
+
+        long[] pathTime = new long[count];
+        int[] pathPrevious = new int[count];
+        int last = 0;
+        for (int i = 0; i < count; i++) {
+            pathPrevious[i] = -1;
+            for (int dependency : dependencies[i]) {
+                if (pathTime[dependency] > pathTime[i]) {
+                    pathTime[i] = pathTime[dependency];
+                    pathPrevious[i] = dependency;
+                }
+            }
+            long duration = endTimes[i] - startTimes[i];
+            pathTime[i] += duration;
+            if (pathTime[i] > pathTime[last]) {
+                last = i;
+            }
+            Gdx.app.log("Generation", "Step %s: %d ms".formatted(steps.get(i).getName(), duration / 1_000_000));
+        }
+
+        List<String> path = new ArrayList<>();
+        for (int i = last; i >= 0; i = pathPrevious[i]) {
+            path.add(0, steps.get(i).getName());
+        }
+        Gdx.app.log("Generation", "Pipeline: %d ms, critical path %d ms: %s".formatted(
+            wallTime / 1_000_000, pathTime[last] / 1_000_000, String.join(" -> ", path)));
+    }
+
+    /**
+     * Корневая задача параллельного запуска шагов. Завершается, когда завершены все запущенные задачи шагов
+     */
+    private static final class ConcurrentRun extends CountedCompleter<Void> {
+
+        private final IntConsumer stepAction;
+        // для каждого шага - шаги, которые его ждут
+        private final int[][] successors;
+        // для каждого шага - число еще не завершенных предшественников
+        private final AtomicInteger[] waiting;
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        ConcurrentRun(int[][] dependencies, IntConsumer stepAction) {
+            this.stepAction = stepAction;
+            this.waiting = new AtomicInteger[dependencies.length];
+            int[] successorCounts = new int[dependencies.length];
+            for (int i = 0; i < dependencies.length; i++) {
+                waiting[i] = new AtomicInteger(dependencies[i].length);
+                for (int dependency : dependencies[i]) {
+                    successorCounts[dependency]++;
+                }
+            }
+            this.successors = new int[dependencies.length][];
+            for (int i = 0; i < dependencies.length; i++) {
+                successors[i] = new int[successorCounts[i]];
+                successorCounts[i] = 0;
+            }
+            for (int i = 0; i < dependencies.length; i++) {
+                for (int dependency : dependencies[i]) {
+                    successors[dependency][successorCounts[dependency]++] = i;
+                }
+            }
+        }
+
+        @Override
+        public void compute() {
+            for (int i = 0; i < waiting.length; i++) {
+                if (waiting[i].get() == 0) {
+                    start(i);
+                }
+            }
+            tryComplete();
+        }
+
+        private void start(int step) {
+            addToPendingCount(1);
+            new StepTask(this, step).fork();
+        }
+
+        /**
+         * Отмечает завершение шага и запускает шаги, дождавшиеся всех предшественников
+         */
+        private void stepCompleted(int step) {
+            for (int successor : successors[step]) {
+                if (waiting[successor].decrementAndGet() == 0) {
+                    start(successor);
+                }
+            }
+        }
+    }
+
+    private static final class StepTask extends CountedCompleter<Void> {
+
+        private final ConcurrentRun run;
+        private final int step;
+
+        StepTask(ConcurrentRun run, int step) {
+            super(run);
+            this.run = run;
+            this.step = step;
+        }
+
+        @Override
+        public void compute() {
+            if (run.failure.get() == null) {
+                try {
+                    run.stepAction.accept(step);
+                    run.stepCompleted(step);
+                } catch (RuntimeException | Error e) {
+                    run.failure.compareAndSet(null, e);
+                }
+            }
+            tryComplete();
+        }
+    }
 }
@@ -1,8 +1,15 @@
 package io.github.game.core.world.generator;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 /**
  * Интерфейс для отдельного шага в пайплайне генерации.
  * Каждый шаг модифицирует GenerationContext.
+ * <p>
+ * Шаг объявляет, какие данные контекста читает ({@link #reads()}) и пишет ({@link #writes()}); шаги без
+ * общих данных пайплайн выполняет одновременно. По умолчанию шаг читает и пишет все, то есть выполняется
+ * строго после предыдущих и до следующих.
  */
 public interface GeneratorStep {
 
@@ -12,4 +19,25 @@ public interface GeneratorStep {
      * @param context общий контекст, содержащий данные из предыдущих шагов
      */
     void execute(GenerationContext context);
+
+    /**
+     * Имя шага для отчета о прогрессе
+     */
+    default String getName() {
+        return getClass().getSimpleName();
+    }
+
+    /**
+     * Данные контекста, которые шаг читает
+     */
+    default Set<ContextSlot> reads() {
+        return EnumSet.allOf(ContextSlot.class);
+    }
+
+    /**
+     * Данные контекста, которые шаг пишет или изменяет
+     */
+    default Set<ContextSlot> writes() {
+        return EnumSet.allOf(ContextSlot.class);
+    }
 }
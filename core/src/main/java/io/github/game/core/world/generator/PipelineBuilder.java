@@ -1,5 +1,6 @@
 package io.github.game.core.world.generator;
 
+import io.github.game.core.world.generator.feature.FeatureRasterStep;
 import io.github.game.core.world.generator.location.LocationGenerationStep;
 import io.github.game.core.world.generator.location.LocationGenerator;
 import io.github.game.core.world.generator.location.LocationGeneratorConfig;
@@ -20,6 +21,17 @@ public class PipelineBuilder {
         this.pipeline = new GeneratorPipeline();
     }
 
+    /**
+     * Подключает кэш результатов шагов, см. {@link CacheableStep}
+     *
+     * @param cache кэш генерации
+     * @return текущий builder
+     */
+    public PipelineBuilder withCache(GenerationCache cache) {
+        pipeline.setCache(cache);
+        return this;
+    }
+
     /**
      * Добавляет шаг генерации мира
      *
@@ -29,7 +41,21 @@ public class PipelineBuilder {
      */
     public PipelineBuilder withWorld(GeneratorType type, WorldGeneratorConfig config) {
         WorldGenerator worldGenerator = generatorFactory.createWorldGenerator(type, config);
-        pipeline.addStep(new WorldGenerationStep(worldGenerator));
+        // Сохранение может измениться на диске при том же пути - такой шаг не кэшируется
+        pipeline.addStep(type == GeneratorType.SAVED_WORLD
+                         ? new WorldGenerationStep(worldGenerator)
+                         : new WorldGenerationStep(worldGenerator,
+                                                   GenerationCache.combine(config.contentHash(), type.name())));
+        return this;
+    }
+
+    /**
+     * Добавляет шаг построения растров признаков окрестности гексов. Ставится после генерации мира
+     *
+     * @return текущий builder
+     */
+    public PipelineBuilder withFeatureRasters() {
+        pipeline.addStep(new FeatureRasterStep());
         return this;
     }
 
@@ -73,8 +99,11 @@ public class PipelineBuilder {
      * Возвращает готовый пайплайн
      *
      * @return настроенный пайплайн генерации
+     * @throws IllegalStateException если шаги перезаписывают результаты друг друга, см.
+     *                               {@link GeneratorPipeline#validate()}
      */
     public GeneratorPipeline build() {
+        pipeline.validate();
         return pipeline;
     }
 
@@ -0,0 +1,101 @@
+package io.github.game.core.world.generator;
+
+import io.github.game.core.world.HexMap;
+import io.github.game.core.world.hex.HexCoordinates;
+import io.github.game.core.world.storage.ChunkedHexStorage;
+import java.util.stream.IntStream;
+
+/**
+ * Карта размещения для мира, который генерируется по требованию: окна мира, равномерно разнесенные по всей
+ * его площади и скопированные встык в одну небольшую карту. Растры признаков и локации строятся по ней как
+ * по обычной карте, а координаты результатов переводятся в координаты мира ({@link #toWorld}).
+ * <p>
+ * Это приближение, а не эквивалент размещения по всему миру: местность между окнами не рассматривается,
+ * а соседство и расстояния через стыки окон не совпадают с миром. Зато при запуске генерируются только
+ * чанки под окнами, а локации покрывают весь мир.
+ */
+public final class PlacementMosaic {
+
+    private final HexMap map;
+    private final int windowWidth;
+    private final int windowHeight;
+    // углы окон в мире по столбцам и строкам мозаики
+    private final int[] originsQ;
+    private final int[] originsR;
+
+    private PlacementMosaic(HexMap map, int windowWidth, int windowHeight, int[] originsQ, int[] originsR) {
+        this.map = map;
+        this.windowWidth = windowWidth;
+        this.windowHeight = windowHeight;
+        this.originsQ = originsQ;
+        this.originsR = originsR;
+    }
+
+    /**
+     * Копирует из мира до windowsPerSide x windowsPerSide окон со стороной windowSize. Окна выровнены по
+     * чанкам {@link ChunkedHexStorage}, чтобы каждое задевало как можно меньше чанков. Вдоль стороны, на
+     * которой не помещается windowsPerSide окон, их меньше
+     */
+    public static PlacementMosaic sample(HexMap world, int windowSize, int windowsPerSide) {
+        int windowWidth = Math.min(windowSize, world.getWidth());
+        int windowHeight = Math.min(windowSize, world.getHeight());
+        int[] originsQ = origins(world.getWidth(), windowWidth, windowsPerSide);
+        int[] originsR = origins(world.getHeight(), windowHeight, windowsPerSide);
+
+        // чанки мира по требованию генерируются при первом чтении, поэтому сначала параллельно читаем по гексу
+        // из каждого чанка окон, а копируем уже сгенерированное
+        IntStream.range(0, originsQ.length * originsR.length).parallel().forEach(window -> {
+            int fromQ = originsQ[window % originsQ.length];
+            int fromR = originsR[window / originsQ.length];
+            for (int r = fromR; r < fromR + windowHeight; r += ChunkedHexStorage.CHUNK_SIZE) {
+                for (int q = fromQ; q < fromQ + windowWidth; q += ChunkedHexStorage.CHUNK_SIZE) {
+                    world.getTypeOrdinal(q, r);
+                }
+            }
+        });
+
+        HexMap map = HexMap.create(windowWidth * originsQ.length, windowHeight * originsR.length);
+        for (int row = 0; row < originsR.length; row++) {
+            for (int column = 0; column < originsQ.length; column++) {
+                world.copyRegion(originsQ[column], originsR[row], windowWidth, windowHeight,
+                                 map, column * windowWidth, row * windowHeight);
+            }
+        }
+        return new PlacementMosaic(map, windowWidth, windowHeight, originsQ, originsR);
+    }
+
+    /**
+     * Углы окон вдоль стороны size: от начала до конца через равные промежутки, округленные вниз до границы
+     * чанка
+     */
+    private static int[] origins(int size, int window, int windows) {
+        int count = Math.max(1, Math.min(windows, size / window));
+        int[] origins = new int[count];
+        for (int i = 1; i < count; i++) {
+            int origin = (int) ((long) i * (size - window) / (count - 1));
+            origins[i] = origin - origin % ChunkedHexStorage.CHUNK_SIZE;
+        }
+        return origins;
+    }
+
+    /**
+     * Карта мозаики; координаты на ней переводятся в мир через {@link #toWorld}
+     */
+    public HexMap getMap() {
+        return map;
+    }
+
+    /**
+     * Координаты в мире для гекса мозаики
+     */
+    public HexCoordinates toWorld(HexCoordinates coordinates) {
+        int q = coordinates.getQ();
+        int r = coordinates.getR();
+        return new HexCoordinates(originsQ[q / windowWidth] + q % windowWidth,
+                                  originsR[r / windowHeight] + r % windowHeight);
+    }
+
+    public void dispose() {
+        map.dispose();
+    }
+}
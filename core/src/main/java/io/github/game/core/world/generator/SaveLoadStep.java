@@ -1,6 +1,8 @@
 package io.github.game.core.world.generator;
 
 import com.badlogic.gdx.Gdx;
+import java.util.EnumSet;
+import java.util.Set;
 
 /**
  * Пайплайн для последовательного выполнения шагов генерации. Обрабатывает зависимости путем
@@ -28,4 +30,17 @@ public class SaveLoadStep implements GeneratorStep {
             // TODO: реализовать сериализацию  json.toJson(context, file);
         }
     }
+
+    /**
+     * Сохранение читает все данные контекста, загрузка их заменяет, ничего не читая
+     */
+    @Override
+    public Set<ContextSlot> reads() {
+        return isLoad ? EnumSet.noneOf(ContextSlot.class) : EnumSet.allOf(ContextSlot.class);
+    }
+
+    @Override
+    public Set<ContextSlot> writes() {
+        return isLoad ? EnumSet.allOf(ContextSlot.class) : EnumSet.noneOf(ContextSlot.class);
+    }
 }
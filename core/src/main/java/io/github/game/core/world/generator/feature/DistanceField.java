@@ -0,0 +1,241 @@
+package io.github.game.core.world.generator.feature;
+
+import io.github.game.core.world.HexMap;
+import io.github.game.core.world.hex.HexPredicate;
+import io.github.game.core.world.hex.HexType;
+import io.github.game.core.world.hex.HexUtils;
+import io.github.game.core.world.storage.HexStorage;
+import java.util.Arrays;
+
+/**
+ * Поле расстояний до ближайшего источника на карте гексов: плоский построчный растр int[] (индекс r *
+ * width + q), заполняемый поиском в ширину сразу от всех источников.
+ * <p>
+ * По умолчанию шаг на соседний гекс стоит 1. Можно задать стоимость входа в гекс каждого типа, тогда
+ * поле считается алгоритмом Дейкстры с очередью-корзинами (стоимости - небольшие целые числа).
+ * Стоимость 0 и меньше делает тип непроходимым. Гексы дальше maxDistance и недостижимые гексы
+ * получают {@link #UNREACHABLE}.
+ * <p>
+ * Источники можно добавлять по одному ({@link #addSource}): пересчитываются только гексы, которые
+ * стали ближе, поэтому добавление нового города или поселения не требует полного пересчета.
+ */
+public class DistanceField {
+
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final HexMap map;
+    private final int width;
+    private final int height;
+    private final int[] distances;
+    // стоимость входа по порядковому номеру типа, null - единичная
+    private final int[] typeCosts;
+    private final int maxDistance;
+    private int[] queue;
+    private int[][] buckets;
+    private int[] bucketSizes;
+
+    /**
+     * Поле с единичной стоимостью шага без ограничения дальности
+     */
+    public DistanceField(HexMap map) {
+        this(map, null, UNREACHABLE - 1);
+    }
+
+    /**
+     * @param map         карта
+     * @param typeCosts   стоимость входа в гекс по порядковому номеру {@link HexType}, null - шаг стоит
+     *                    1
+     * @param maxDistance дальше этого расстояния поле не распространяется
+     */
+    public DistanceField(HexMap map, int[] typeCosts, int maxDistance) {
+        if (typeCosts != null && typeCosts.length != HexType.values().length) {
+            throw new IllegalArgumentException("Expected a cost for each of " + HexType.values().length + " hex types");
+        }
+
+        this.map = map;
+        this.width = map.getWidth();
+        this.height = map.getHeight();
+        this.distances = new int[width * height];
+        this.typeCosts = typeCosts == null ? null : typeCosts.clone();
+        this.maxDistance = maxDistance;
+        Arrays.fill(distances, UNREACHABLE);
+    }
+
+    /**
+     * Строит поле расстояний до всех гексов заданного типа
+     */
+    public static DistanceField toType(HexMap map, HexType type, int maxDistance) {
+        DistanceField field = new DistanceField(map, null, maxDistance);
+        int ordinal = type.ordinal();
+        field.addSources((q, r) -> map.getTypeOrdinal(q, r) == ordinal);
+        return field;
+    }
+
+    /**
+     * Добавляет источником гекс (q, r) и обновляет расстояния, которые уменьшились
+     */
+    public void addSource(int q, int r) {
+        int index = r * width + q;
+        if (distances[index] == 0) {
+            return;
+        }
+
+        distances[index] = 0;
+        if (typeCosts == null) {
+            queue()[0] = index;
+            propagateUnit(1);
+        } else {
+            pushBucket(0, index);
+            propagateWeighted();
+        }
+    }
+
+    /**
+     * Добавляет источниками все гексы, удовлетворяющие условию, и пересчитывает поле за один проход
+     */
+    public void addSources(HexPredicate predicate) {
+        int tail = 0;
+        for (int r = 0; r < height; r++) {
+            for (int q = 0; q < width; q++) {
+                int index = r * width + q;
+                if (distances[index] != 0 && map.getTypeOrdinal(q, r) != HexStorage.NO_HEX && predicate.test(q, r)) {
+                    distances[index] = 0;
+                    if (typeCosts == null) {
+                        queue()[tail++] = index;
+                    } else {
+                        pushBucket(0, index);
+                    }
+                }
+            }
+        }
+
+        if (typeCosts == null) {
+            propagateUnit(tail);
+        } else {
+            propagateWeighted();
+        }
+    }
+
+    /**
+     * Поиск в ширину от гексов, уже лежащих в очереди
+     */
+    private void propagateUnit(int tail) {
+        int[] queue = queue();
+        int head = 0;
+
+        while (head < tail) {
+            int index = queue[head++];
+            int next = distances[index] + 1;
+            if (next > maxDistance) {
+                continue;
+            }
+
+            int q = index % width;
+            int r = index / width;
+            for (int i = 0; i < 6; i++) {
+                int nq = q + HexUtils.DIRECTION_Q[i];
+                int nr = r + HexUtils.DIRECTION_R[i];
+                if (nq < 0 || nq >= width || nr < 0 || nr >= height) {
+                    continue;
+                }
+
+                int neighbor = nr * width + nq;
+                if (next < distances[neighbor] && map.getTypeOrdinal(nq, nr) != HexStorage.NO_HEX) {
+                    distances[neighbor] = next;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+    }
+
+    /**
+     * Алгоритм Дейкстры с циклической очередью-корзинами по расстоянию
+     */
+    private void propagateWeighted() {
+        int bucketCount = buckets.length;
+        int pending = 0;
+        for (int size : bucketSizes) {
+            pending += size;
+        }
+
+        for (int distance = 0; pending > 0; distance++) {
+            int slot = distance % bucketCount;
+            while (bucketSizes[slot] > 0) {
+                int index = buckets[slot][--bucketSizes[slot]];
+                pending--;
+                if (distances[index] != distance) {
+                    continue; // устаревшая запись
+                }
+
+                int q = index % width;
+                int r = index / width;
+                for (int i = 0; i < 6; i++) {
+                    int nq = q + HexUtils.DIRECTION_Q[i];
+                    int nr = r + HexUtils.DIRECTION_R[i];
+                    if (nq < 0 || nq >= width || nr < 0 || nr >= height) {
+                        continue;
+                    }
+
+                    int ordinal = map.getTypeOrdinal(nq, nr);
+                    if (ordinal == HexStorage.NO_HEX || typeCosts[ordinal] <= 0) {
+                        continue;
+                    }
+
+                    int next = distance + typeCosts[ordinal];
+                    int neighbor = nr * width + nq;
+                    if (next <= maxDistance && next < distances[neighbor]) {
+                        distances[neighbor] = next;
+                        pushBucket(next, neighbor);
+                        pending++;
+                    }
+                }
+            }
+        }
+    }
+
+    private void pushBucket(int distance, int index) {
+        if (buckets == null) {
+            int maxCost = 1;
+            for (int cost : typeCosts) {
+                maxCost = Math.max(maxCost, cost);
+            }
+            buckets = new int[maxCost + 1][16];
+            bucketSizes = new int[maxCost + 1];
+        }
+
+        int slot = distance % buckets.length;
+        if (bucketSizes[slot] == buckets[slot].length) {
+            buckets[slot] = Arrays.copyOf(buckets[slot], bucketSizes[slot] * 2);
+        }
+        buckets[slot][bucketSizes[slot]++] = index;
+    }
+
+    private int[] queue() {
+        if (queue == null) {
+            queue = new int[width * height];
+        }
+        return queue;
+    }
+
+    /**
+     * Расстояние от (q, r) до ближайшего источника или {@link #UNREACHABLE}
+     */
+    public int get(int q, int r) {
+        return distances[r * width + q];
+    }
+
+    /**
+     * Сам растр расстояний (только для чтения)
+     */
+    public int[] getDistances() {
+        return distances;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
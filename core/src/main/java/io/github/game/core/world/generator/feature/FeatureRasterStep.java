@@ -0,0 +1,47 @@
+package io.github.game.core.world.generator.feature;
+
+import com.badlogic.gdx.Gdx;
+import io.github.game.core.world.generator.ContextSlot;
+import io.github.game.core.world.generator.GenerationContext;
+import io.github.game.core.world.generator.CacheableStep;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Шаг построения растров признаков окрестности для карты размещения контекста
+ * ({@link GenerationContext#getPlacementMap()}). Растры неизменяемы, поэтому кэшируются в памяти как есть
+ */
+public class FeatureRasterStep implements CacheableStep {
+
+    @Override
+    public void execute(GenerationContext context) {
+        long startTime = System.currentTimeMillis();
+        context.setFeatureRasters(FeatureRasters.build(context.getPlacementMap()));
+        Gdx.app.log("Generation", "Feature rasters built in " + (System.currentTimeMillis() - startTime) + " ms");
+    }
+
+    @Override
+    public Set<ContextSlot> reads() {
+        return EnumSet.of(ContextSlot.HEX_MAP);
+    }
+
+    @Override
+    public Set<ContextSlot> writes() {
+        return EnumSet.of(ContextSlot.FEATURE_RASTERS);
+    }
+
+    @Override
+    public long configHash() {
+        return 0;
+    }
+
+    @Override
+    public Object snapshot(GenerationContext context) {
+        return context.getFeatureRasters();
+    }
+
+    @Override
+    public void restore(GenerationContext context, Object snapshot) {
+        context.setFeatureRasters((FeatureRasters) snapshot);
+    }
+}
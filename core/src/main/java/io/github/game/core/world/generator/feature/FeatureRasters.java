@@ -0,0 +1,170 @@
+package io.github.game.core.world.generator.feature;
+
+import io.github.game.core.world.HexMap;
+import io.github.game.core.world.hex.HexType;
+import io.github.game.core.world.hex.HexUtils;
+import io.github.game.core.world.storage.HexStorage;
+import java.util.stream.IntStream;
+
+/**
+ * Предрассчитанные признаки окрестности каждого гекса в плоских построчных массивах (индекс r *
+ * width + q): число соседей каждого типа, число различных типов среди соседей, число проходимых
+ * соседей и расстояние до океана. Строится один раз после генерации мира, после чего оценки локаций
+ * сводятся к чтению массивов.
+ * <p>
+ * Растры отражают карту на момент построения и не обновляются при ее изменении.
+ */
+public class FeatureRasters {
+
+    /**
+     * Расстояние для гексов, от которых океан недостижим
+     */
+    public static final int UNREACHABLE = Short.MAX_VALUE;
+
+    private static final HexType[] TYPES = HexType.values();
+
+    private final int width;
+    private final int height;
+    // [порядковый номер типа][индекс гекса]
+    private final byte[][] neighborCounts;
+    private final byte[] distinctTerrain;
+    private final byte[] passableNeighbors;
+    private final short[] distanceToOcean;
+
+    private FeatureRasters(int width, int height) {
+        int cells = width * height;
+        this.width = width;
+        this.height = height;
+        this.neighborCounts = new byte[TYPES.length][cells];
+        this.distinctTerrain = new byte[cells];
+        this.passableNeighbors = new byte[cells];
+        this.distanceToOcean = new short[cells];
+    }
+
+    /**
+     * Строит растры для карты. Признаки соседей считаются параллельно по строкам
+     */
+    public static FeatureRasters build(HexMap map) {
+        int width = map.getWidth();
+        int height = map.getHeight();
+        FeatureRasters rasters = new FeatureRasters(width, height);
+
+        IntStream.range(0, height).parallel().forEach(r -> rasters.buildRow(map, r));
+        rasters.buildDistanceToOcean(map);
+
+        return rasters;
+    }
+
+    /**
+     * Проходима ли местность для передвижения
+     */
+    public static boolean isPassable(HexType type) {
+        return type != HexType.OCEAN && type != HexType.MOUNTAINS && type != HexType.SWAMP;
+    }
+
+    private void buildRow(HexMap map, int r) {
+        int[] dq = HexUtils.DIRECTION_Q;
+        int[] dr = HexUtils.DIRECTION_R;
+
+        for (int q = 0; q < width; q++) {
+            int index = r * width + q;
+            int typeMask = 0;
+            int passable = 0;
+
+            for (int i = 0; i < 6; i++) {
+                int nq = q + dq[i];
+                int nr = r + dr[i];
+                if (nq < 0 || nq >= width || nr < 0 || nr >= height) {
+                    continue;
+                }
+
+                int ordinal = map.getTypeOrdinal(nq, nr);
+                if (ordinal == HexStorage.NO_HEX) {
+                    continue;
+                }
+
+                neighborCounts[ordinal][index]++;
+                typeMask |= 1 << ordinal;
+                if (isPassable(TYPES[ordinal])) {
+                    passable++;
+                }
+            }
+
+            distinctTerrain[index] = (byte) Integer.bitCount(typeMask);
+            passableNeighbors[index] = (byte) passable;
+        }
+    }
+
+    /**
+     * Расстояние до океана через поле расстояний от всех океанских гексов
+     */
+    private void buildDistanceToOcean(HexMap map) {
+        int[] distances = DistanceField.toType(map, HexType.OCEAN, UNREACHABLE).getDistances();
+        for (int i = 0; i < distances.length; i++) {
+            distanceToOcean[i] = (short) Math.min(distances[i], UNREACHABLE);
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Подходят ли растры к карте заданного размера
+     */
+    public boolean matches(HexMap map) {
+        return map.getWidth() == width && map.getHeight() == height;
+    }
+
+    /**
+     * Число соседей заданного типа
+     */
+    public int getNeighborCount(int q, int r, HexType type) {
+        return neighborCounts[type.ordinal()][r * width + q];
+    }
+
+    /**
+     * Число соседей любого из двух типов
+     */
+    public int getNeighborCount(int q, int r, HexType first, HexType second) {
+        int index = r * width + q;
+        return neighborCounts[first.ordinal()][index] + neighborCounts[second.ordinal()][index];
+    }
+
+    /**
+     * Общее число соседей в пределах карты
+     */
+    public int getTotalNeighborCount(int q, int r) {
+        int index = r * width + q;
+        int total = 0;
+        for (byte[] counts : neighborCounts) {
+            total += counts[index];
+        }
+        return total;
+    }
+
+    /**
+     * Число различных типов местности среди соседей
+     */
+    public int getDistinctTerrainCount(int q, int r) {
+        return distinctTerrain[r * width + q];
+    }
+
+    /**
+     * Число проходимых соседей (см. {@link #isPassable(HexType)})
+     */
+    public int getPassableNeighborCount(int q, int r) {
+        return passableNeighbors[r * width + q];
+    }
+
+    /**
+     * Расстояние в гексах до ближайшего океана или {@link #UNREACHABLE}
+     */
+    public int getDistanceToOcean(int q, int r) {
+        return distanceToOcean[r * width + q];
+    }
+}
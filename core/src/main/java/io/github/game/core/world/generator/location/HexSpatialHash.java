@@ -0,0 +1,122 @@
+package io.github.game.core.world.generator.location;
+
+import io.github.game.core.world.hex.HexUtils;
+import java.util.Arrays;
+
+/**
+ * Пространственный хеш точек на карте гексов: карта разбита на квадратные ячейки (по q и r), точка
+ * хранится в ячейке, куда попадает. Каждая точка имеет класс, минимальное расстояние между точками
+ * задается матрицей по парам классов.
+ * <p>
+ * Размер ячейки не меньше наибольшего расстояния в матрице, поэтому проверка кандидата смотрит
+ * только 3x3 соседние ячейки - ожидаемое O(1) на кандидата.
+ */
+public class HexSpatialHash {
+
+    private final int cellSize;
+    private final int cellsX;
+    private final int cellsY;
+    private final int[][] spacing;
+    // точки ячейки: индексы в массивах pointQ/pointR/pointClass
+    private final int[][] cells;
+    private final int[] cellSizes;
+    private int[] pointQ = new int[16];
+    private int[] pointR = new int[16];
+    private int[] pointClass = new int[16];
+    private int size = 0;
+
+    /**
+     * @param width   ширина карты
+     * @param height  высота карты
+     * @param spacing симметричная матрица минимальных расстояний: точки классов a и b должны быть на
+     *                расстоянии не меньше spacing[a][b]
+     */
+    public HexSpatialHash(int width, int height, int[][] spacing) {
+        int maxSpacing = 1;
+        for (int[] row : spacing) {
+            if (row.length != spacing.length) {
+                throw new IllegalArgumentException("Spacing matrix must be square");
+            }
+            for (int value : row) {
+                maxSpacing = Math.max(maxSpacing, value);
+            }
+        }
+
+        this.cellSize = maxSpacing;
+        this.cellsX = (width + cellSize - 1) / cellSize;
+        this.cellsY = (height + cellSize - 1) / cellSize;
+        this.spacing = spacing;
+        this.cells = new int[cellsX * cellsY][];
+        this.cellSizes = new int[cellsX * cellsY];
+    }
+
+    /**
+     * Хеш для точек одного класса с расстоянием spacing
+     */
+    public static HexSpatialHash uniform(int width, int height, int spacing) {
+        return new HexSpatialHash(width, height, new int[][]{{spacing}});
+    }
+
+    /**
+     * Можно ли поставить точку класса pointClass в (q, r), не нарушив расстояний до уже добавленных
+     */
+    public boolean isFree(int q, int r, int pointClass) {
+        int[] minDistances = spacing[pointClass];
+        int cx = q / cellSize;
+        int cy = r / cellSize;
+
+        for (int y = Math.max(0, cy - 1); y <= Math.min(cellsY - 1, cy + 1); y++) {
+            for (int x = Math.max(0, cx - 1); x <= Math.min(cellsX - 1, cx + 1); x++) {
+                int cell = y * cellsX + x;
+                int[] points = cells[cell];
+                for (int i = 0; i < cellSizes[cell]; i++) {
+                    int point = points[i];
+                    int distance = HexUtils.distance(q, r, pointQ[point], pointR[point]);
+                    if (distance < minDistances[this.pointClass[point]]) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Добавляет точку без проверки расстояний
+     */
+    public void add(int q, int r, int pointClass) {
+        if (size == pointQ.length) {
+            pointQ = Arrays.copyOf(pointQ, size * 2);
+            pointR = Arrays.copyOf(pointR, size * 2);
+            this.pointClass = Arrays.copyOf(this.pointClass, size * 2);
+        }
+        pointQ[size] = q;
+        pointR[size] = r;
+        this.pointClass[size] = pointClass;
+
+        int cell = (r / cellSize) * cellsX + q / cellSize;
+        if (cells[cell] == null) {
+            cells[cell] = new int[4];
+        } else if (cellSizes[cell] == cells[cell].length) {
+            cells[cell] = Arrays.copyOf(cells[cell], cellSizes[cell] * 2);
+        }
+        cells[cell][cellSizes[cell]++] = size++;
+    }
+
+    /**
+     * Добавляет точку, если она не нарушает расстояний
+     *
+     * @return true, если точка добавлена
+     */
+    public boolean tryAdd(int q, int r, int pointClass) {
+        if (!isFree(q, r, pointClass)) {
+            return false;
+        }
+        add(q, r, pointClass);
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -1,7 +1,16 @@
 package io.github.game.core.world.generator.location;
 
+import com.badlogic.ashley.core.Entity;
+import io.github.game.core.world.generator.ContextSlot;
 import io.github.game.core.world.generator.GenerationContext;
 import io.github.game.core.world.generator.GeneratorStep;
+import io.github.game.core.world.generator.PlacementMosaic;
+import io.github.game.core.world.hex.HexCoordinates;
+import io.github.game.ecs.components.world.GlobalPositionComponent;
+import io.github.game.ecs.components.world.LocationComponent;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * Step for generating locations.
@@ -16,6 +25,31 @@ public class LocationGenerationStep implements GeneratorStep {
 
     @Override
     public void execute(GenerationContext context) {
-        context.setLocations(locationGenerator.generateLocations());
+        List<Entity> locations = locationGenerator.generateLocations(context);
+        PlacementMosaic mosaic = context.getPlacementMosaic();
+        if (mosaic != null) {
+            // локации размещены на мозаике: переводим их в координаты мира и отмечаем в гексах самой карты
+            for (Entity location : locations) {
+                GlobalPositionComponent position = location.getComponent(GlobalPositionComponent.class);
+                HexCoordinates coordinates = mosaic.toWorld(position.getCoordinates());
+                position.setCoordinates(coordinates);
+                context.getHexMap().setLocationId(coordinates.getQ(), coordinates.getR(),
+                                                  location.getComponent(LocationComponent.class).getLocationId());
+            }
+        }
+        context.setLocations(locations);
+    }
+
+    @Override
+    public Set<ContextSlot> reads() {
+        return EnumSet.of(ContextSlot.HEX_MAP, ContextSlot.FEATURE_RASTERS);
+    }
+
+    /**
+     * Кроме списка локаций шаг отмечает локации в гексах карты и строит растры признаков, если их нет
+     */
+    @Override
+    public Set<ContextSlot> writes() {
+        return EnumSet.of(ContextSlot.LOCATIONS, ContextSlot.HEX_MAP, ContextSlot.FEATURE_RASTERS);
     }
 }
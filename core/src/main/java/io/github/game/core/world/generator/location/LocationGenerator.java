@@ -6,6 +6,12 @@ import java.util.List;
 
 public interface LocationGenerator {
 
-    List<Entity> generateLocations();
+    /**
+     * Генерирует локации на карте контекста
+     *
+     * @param context контекст запуска с картой и растрами признаков
+     * @return сущности локаций
+     */
+    List<Entity> generateLocations(GenerationContext context);
 
 }
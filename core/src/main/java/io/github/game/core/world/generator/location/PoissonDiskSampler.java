@@ -0,0 +1,139 @@
+package io.github.game.core.world.generator.location;
+
+import io.github.game.core.world.hex.HexPredicate;
+import io.github.game.core.world.hex.HexUtils;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Выборка точек с диском Пуассона (blue noise) на карте гексов по алгоритму Бридсона: точки не
+ * ближе spacing друг к другу, новые кандидаты берутся на кольцах spacing..2*spacing вокруг активных
+ * точек. Чтобы покрыть несвязные подходящие области (острова), алгоритм перезапускается из случайной
+ * клетки каждой ячейки сетки spacing x spacing в случайном порядке.
+ * <p>
+ * Результат детерминирован для заданного seed.
+ */
+public class PoissonDiskSampler {
+
+    public static final int DEFAULT_ATTEMPTS = 30;
+
+    private final int width;
+    private final int height;
+    private final long seed;
+    private final int attempts;
+
+    public PoissonDiskSampler(int width, int height, long seed) {
+        this(width, height, seed, DEFAULT_ATTEMPTS);
+    }
+
+    /**
+     * @param attempts число кандидатов вокруг активной точки до ее исключения
+     */
+    public PoissonDiskSampler(int width, int height, long seed, int attempts) {
+        this.width = width;
+        this.height = height;
+        this.seed = seed;
+        this.attempts = attempts;
+    }
+
+    /**
+     * Строит выборку
+     *
+     * @param spacing   минимальное расстояние между точками
+     * @param maxPoints наибольшее число точек
+     * @param accept    дополнительное условие на клетку (пригодность местности, занятость)
+     * @return упакованные координаты точек ({@link HexUtils#pack}) в порядке принятия
+     */
+    public long[] sample(int spacing, int maxPoints, HexPredicate accept) {
+        Random random = new Random(seed);
+        HexSpatialHash hash = HexSpatialHash.uniform(width, height, spacing);
+        long[] points = new long[16];
+        int count = 0;
+        int[] active = new int[16];
+        int activeCount = 0;
+
+        int[] startCells = shuffledStartCells(spacing, random);
+        for (int startCell : startCells) {
+            if (count >= maxPoints) {
+                break;
+            }
+
+            int cellsX = (width + spacing - 1) / spacing;
+            int startQ = Math.min(width - 1, (startCell % cellsX) * spacing + random.nextInt(spacing));
+            int startR = Math.min(height - 1, (startCell / cellsX) * spacing + random.nextInt(spacing));
+            if (!accept.test(startQ, startR) || !hash.tryAdd(startQ, startR, 0)) {
+                continue;
+            }
+
+            if (count == points.length) {
+                points = Arrays.copyOf(points, count * 2);
+            }
+            points[count] = HexUtils.pack(startQ, startR);
+            active[activeCount++] = count++;
+
+            while (activeCount > 0 && count < maxPoints) {
+                int slot = random.nextInt(activeCount);
+                long origin = points[active[slot]];
+                boolean found = false;
+
+                for (int attempt = 0; attempt < attempts && !found; attempt++) {
+                    int distance = spacing + random.nextInt(spacing + 1);
+                    long candidate = ringCell(HexUtils.unpackQ(origin), HexUtils.unpackR(origin), distance,
+                                              random.nextInt(6 * distance));
+                    int q = HexUtils.unpackQ(candidate);
+                    int r = HexUtils.unpackR(candidate);
+
+                    if (q >= 0 && q < width && r >= 0 && r < height && accept.test(q, r) && hash.tryAdd(q, r, 0)) {
+                        if (count == points.length) {
+                            points = Arrays.copyOf(points, count * 2);
+                        }
+                        if (activeCount == active.length) {
+                            active = Arrays.copyOf(active, activeCount * 2);
+                        }
+                        points[count] = candidate;
+                        active[activeCount++] = count++;
+                        found = true;
+                    }
+                }
+
+                if (!found) {
+                    active[slot] = active[--activeCount];
+                }
+            }
+        }
+
+        return Arrays.copyOf(points, count);
+    }
+
+    /**
+     * Клетка номер index (0..6*radius-1) на кольце радиуса radius, в порядке обхода
+     * {@link HexUtils#forEachInRing}
+     */
+    private static long ringCell(int q, int r, int radius, int index) {
+        int side = index / radius;
+        int step = index % radius;
+        int cq = q + HexUtils.DIRECTION_Q[4] * radius;
+        int cr = r + HexUtils.DIRECTION_R[4] * radius;
+        for (int s = 0; s < side; s++) {
+            cq += HexUtils.DIRECTION_Q[s] * radius;
+            cr += HexUtils.DIRECTION_R[s] * radius;
+        }
+        return HexUtils.pack(cq + HexUtils.DIRECTION_Q[side] * step, cr + HexUtils.DIRECTION_R[side] * step);
+    }
+
+    private int[] shuffledStartCells(int spacing, Random random) {
+        int cellsX = (width + spacing - 1) / spacing;
+        int cellsY = (height + spacing - 1) / spacing;
+        int[] cells = new int[cellsX * cellsY];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = i;
+        }
+        for (int i = cells.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = cells[i];
+            cells[i] = cells[j];
+            cells[j] = tmp;
+        }
+        return cells;
+    }
+}
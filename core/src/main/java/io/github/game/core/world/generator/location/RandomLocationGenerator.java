@@ -1,29 +1,36 @@
 package io.github.game.core.world.generator.location;
 
 import com.badlogic.ashley.core.Entity;
+import io.github.game.core.world.HexBitSet;
 import io.github.game.core.world.HexMap;
 import io.github.game.core.world.generator.GenerationContext;
+import io.github.game.core.world.generator.GenerationMonitor;
+import io.github.game.core.world.generator.feature.DistanceField;
+import io.github.game.core.world.generator.feature.FeatureRasters;
 import io.github.game.core.world.hex.Hex;
 import io.github.game.core.world.hex.HexCoordinates;
 import io.github.game.core.world.hex.HexType;
 import io.github.game.core.world.hex.HexUtils;
+import io.github.game.core.world.storage.HexStorage;
+import io.github.game.core.world.storage.HexView;
 import io.github.game.ecs.EntityFactory;
 import io.github.game.ecs.components.world.GlobalPositionComponent;
 import io.github.game.ecs.components.world.LocationComponent;
 import io.github.game.services.NameService;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
-import java.util.Set;
+import java.util.function.IntToLongFunction;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import lombok.Getter;
 
 /**
- * Улучшенный генератор случайных локаций с равномерным распределением по карте
+ * Улучшенный генератор случайных локаций с равномерным распределением по карте. Локации размещаются на
+ * карте размещения контекста ({@link GenerationContext#getPlacementMap()})
  */
 public class RandomLocationGenerator implements LocationGenerator {
 
@@ -34,79 +41,168 @@ public class RandomLocationGenerator implements LocationGenerator {
     private static final int MIN_DISTANCE_BETWEEN_CITIES = 25; // 15
     private static final int SETTLEMENTS_PER_CITY = 2;         // 3
     private static final int SEARCH_RADIUS_AROUND_CITIES = 15; // 12
+    private static final int SETTLEMENT_MIN_DISTANCE_TO_CITY = 3;
+    private static final int SETTLEMENT_MAX_DISTANCE_TO_CITY = 8;
+    // Классы размещения для пространственного хеша
+    private static final int CITY = 0;
+    private static final int SETTLEMENT = 1;
+    private static final int SPECIAL = 2;
+    private static final int[][] PLACEMENT_SPACING = createPlacementSpacing();
+    // Высота полосы строк при параллельной оценке кандидатов по всей карте
+    private static final int SCORING_STRIPE_ROWS = 16;
+    private static final long NO_CANDIDATE = Long.MIN_VALUE;
+    private static final HexType[] TYPES = HexType.values();
+    private static final int[] DIRECTION_Q = HexUtils.DIRECTION_Q;
+    private static final int[] DIRECTION_R = HexUtils.DIRECTION_R;
     private final int numberOfLocations;
     private final long seed;
     private final Random random;
-    private final GenerationContext context;
+    // названия выбираются отдельным генератором, чтобы не сдвигать случайную последовательность размещения
+    private final Random nameRandom;
     private final EntityFactory entityFactory;
-    private final NameService nameService;
+    // оценка кандидатов в пуле ForkJoin; результат от этого не зависит
+    private final boolean parallelScoring;
+    private NameService nameService;
     @Getter
     private HexMap hexMap;
+    private FeatureRasters features;
+    // расстояние до ближайшего города, пополняется по мере размещения городов
+    private DistanceField cityDistance;
+    // все размещенные локации с минимальными расстояниями по классам
+    private HexSpatialHash placements;
 
-    public RandomLocationGenerator(int numberOfLocations, long seed, GenerationContext context,
-                                   EntityFactory entityFactory) {
+    public RandomLocationGenerator(int numberOfLocations, long seed, EntityFactory entityFactory) {
+        this(numberOfLocations, seed, entityFactory, true);
+    }
+
+    /**
+     * @param parallelScoring оценивать кандидатов параллельно. Локации создаются в вызывающем потоке,
+     *                        а при равных оценках выигрывает кандидат, раньше встреченный в
+     *                        последовательном обходе, поэтому результат одинаков при любом числе ядер
+     */
+    public RandomLocationGenerator(int numberOfLocations, long seed, EntityFactory entityFactory,
+                                   boolean parallelScoring) {
         this.numberOfLocations = numberOfLocations;
         this.seed = seed;
         this.random = new Random(seed);
-        this.context = context;
+        this.nameRandom = new Random(~seed);
         this.entityFactory = entityFactory;
-        this.nameService = context.getNameService();
+        this.parallelScoring = parallelScoring;
+    }
+
+    /**
+     * Минимальные расстояния между локациями разных классов: радиус резервирования большей из двух
+     * плюс один, между городами - {@link #MIN_DISTANCE_BETWEEN_CITIES}
+     */
+    private static int[][] createPlacementSpacing() {
+        int[] reserveRadius = {CITY_RESERVE_RADIUS, SETTLEMENT_RESERVE_RADIUS, SPECIAL_RESERVE_RADIUS};
+        int[][] spacing = new int[reserveRadius.length][reserveRadius.length];
+        for (int a = 0; a < reserveRadius.length; a++) {
+            for (int b = 0; b < reserveRadius.length; b++) {
+                spacing[a][b] = Math.max(reserveRadius[a], reserveRadius[b]) + 1;
+            }
+        }
+        spacing[CITY][CITY] = MIN_DISTANCE_BETWEEN_CITIES;
+        return spacing;
     }
 
     @Override
-    public List<Entity> generateLocations() {
-        this.hexMap = context.getHexMap();
+    public List<Entity> generateLocations(GenerationContext context) {
+        this.hexMap = context.getPlacementMap();
+        this.nameService = context.getNameService();
 
         if (hexMap == null) {
             throw new IllegalStateException("HexMap must be set before generating locations");
         }
 
+        // Растры признаков строятся шагом пайплайна; если шага не было, строим их здесь
+        features = context.getFeatureRasters();
+        if (features == null || !features.matches(hexMap)) {
+            features = FeatureRasters.build(hexMap);
+            context.setFeatureRasters(features);
+        }
+        cityDistance = new DistanceField(hexMap, null,
+                                         Math.max(MIN_DISTANCE_BETWEEN_CITIES, SEARCH_RADIUS_AROUND_CITIES));
+        placements = new HexSpatialHash(hexMap.getWidth(), hexMap.getHeight(), PLACEMENT_SPACING);
+
         List<Entity> locations = new ArrayList<>();
-        Set<HexCoordinates> usedCoordinates = new HashSet<>();
+        HexBitSet usedCoordinates = new HexBitSet(hexMap.getWidth(), hexMap.getHeight());
+
+        // Прогресс по этапам, отмена проверяется между ними
+        GenerationMonitor monitor = context.getMonitor();
+        monitor.beginWork(4);
 
-        // 1. Генерация крупных городов с зональным распределением
+        // 1. Генерация крупных городов по выборке Пуассона
         generateMajorCities(locations, usedCoordinates);
+        monitor.worked(1);
+        monitor.checkCancelled();
 
         // 2. Генерация поселений вокруг городов
         generateSettlements(locations, usedCoordinates);
+        monitor.worked(1);
+        monitor.checkCancelled();
 
         // 3. Генерация специальных локаций
         generateSpecialLocations(locations, usedCoordinates);
+        monitor.worked(1);
+        monitor.checkCancelled();
 
         // 4. Заполнение оставшихся локаций случайными поселениями
         fillRemainingLocations(locations, usedCoordinates);
+        monitor.worked(1);
 
         logLocationDistribution(locations);
         return locations;
     }
 
     /**
-     * Генерация крупных городов с равномерным распределением по зонам
+     * Генерация крупных городов: кандидаты берутся выборкой Пуассона с минимальным расстоянием между
+     * городами, из них выбираются лучшие по оценке
      */
-    private void generateMajorCities(List<Entity> locations, Set<HexCoordinates> usedCoordinates) {
+    private void generateMajorCities(List<Entity> locations, HexBitSet usedCoordinates) {
         int majorCities = Math.min(3, numberOfLocations / 4);
+        if (majorCities <= 0) {
+            return;
+        }
 
-        // Разделяем карту на зоны для равномерного распределения
-        List<Zone> zones = createZones(majorCities);
+        HexView cursor = hexMap.cursor();
+        long[] sites = new PoissonDiskSampler(hexMap.getWidth(), hexMap.getHeight(), seed)
+            .sample(MIN_DISTANCE_BETWEEN_CITIES, Integer.MAX_VALUE, (q, r) -> {
+                cursor.moveTo(q, r);
+                return cursor.exists() && isSuitableForNewCity(cursor) && placements.isFree(q, r, CITY);
+            });
 
-        for (Zone zone : zones) {
-            Hex suitableHex = findBestHexInZone(zone, usedCoordinates, this::isSuitableForCity, this::rateCityLocation);
-            if (suitableHex != null) {
-                String cityName = nameService.getRandomName("cities");
-                Entity city = createLocationEntity(suitableHex, "CITY", cityName, 3);
-                locations.add(city);
-                usedCoordinates.add(suitableHex.getCoordinates());
+        // Сортируем кандидатов по оценке, при равенстве сохраняется порядок выборки
+        int[] scores = new int[sites.length];
+        IntStream indices = IntStream.range(0, sites.length);
+        (parallelScoring ? indices.parallel() : indices).forEach(
+            i -> scores[i] = rateCityLocation(hexMap.getHex(HexUtils.unpackQ(sites[i]), HexUtils.unpackR(sites[i]))));
+        List<Integer> order = new ArrayList<>(sites.length);
+        for (int i = 0; i < sites.length; i++) {
+            order.add(i);
+        }
+        order.sort((a, b) -> Integer.compare(scores[b], scores[a]));
 
-                // Резервируем территорию вокруг города
-                reserveArea(suitableHex.getCoordinates(), CITY_RESERVE_RADIUS, usedCoordinates);
-            }
+        for (int i = 0; i < Math.min(majorCities, order.size()); i++) {
+            long site = sites[order.get(i)];
+            Hex suitableHex = hexMap.getHex(HexUtils.unpackQ(site), HexUtils.unpackR(site));
+
+            String cityName = nameService.getRandomName("cities", nameRandom);
+            Entity city = createLocationEntity(suitableHex, "CITY", cityName, 3);
+            locations.add(city);
+            usedCoordinates.set(suitableHex.getQ(), suitableHex.getR());
+            placements.add(suitableHex.getQ(), suitableHex.getR(), CITY);
+            cityDistance.addSource(suitableHex.getQ(), suitableHex.getR());
+
+            // Резервируем территорию вокруг города
+            reserveArea(suitableHex.getCoordinates(), CITY_RESERVE_RADIUS, usedCoordinates);
         }
     }
 
     /**
      * Генерация поселений вокруг крупных городов
      */
-    private void generateSettlements(List<Entity> locations, Set<HexCoordinates> usedCoordinates) {
+    private void generateSettlements(List<Entity> locations, HexBitSet usedCoordinates) {
         // Находим существующие города для создания вокруг них
         List<HexCoordinates> cityCoordinates = getCityCoordinates(locations);
 
@@ -139,7 +235,7 @@ public class RandomLocationGenerator implements LocationGenerator {
     /**
      * Генерация равномерно распределенных поселений
      */
-    private void generateDistributedSettlements(List<Entity> locations, Set<HexCoordinates> usedCoordinates,
+    private void generateDistributedSettlements(List<Entity> locations, HexBitSet usedCoordinates,
                                                 int count) {
         List<Zone> zones = createZones(count);
 
@@ -160,21 +256,22 @@ public class RandomLocationGenerator implements LocationGenerator {
     /**
      * Создание поселения
      */
-    private void createSettlement(Hex hex, List<Entity> locations, Set<HexCoordinates> usedCoordinates) {
+    private void createSettlement(Hex hex, List<Entity> locations, HexBitSet usedCoordinates) {
         String[] settlementTypes = {"VILLAGE", "TOWN", "OUTPOST"};
         String type = settlementTypes[random.nextInt(settlementTypes.length)];
 
         String name = getSettlementName(type);
         Entity settlement = createLocationEntity(hex, type, name, 1);
         locations.add(settlement);
-        usedCoordinates.add(hex.getCoordinates());
+        usedCoordinates.set(hex.getQ(), hex.getR());
+        placements.add(hex.getQ(), hex.getR(), SETTLEMENT);
         reserveArea(hex.getCoordinates(), SETTLEMENT_RESERVE_RADIUS, usedCoordinates);
     }
 
     /**
      * Генерация специальных локаций
      */
-    private void generateSpecialLocations(List<Entity> locations, Set<HexCoordinates> usedCoordinates) {
+    private void generateSpecialLocations(List<Entity> locations, HexBitSet usedCoordinates) {
         int remaining = numberOfLocations - locations.size();
         if (remaining <= 0) {
             return;
@@ -190,7 +287,8 @@ public class RandomLocationGenerator implements LocationGenerator {
                     SpecialLocation special = createSpecialLocation(entry.getKey(), suitableHex);
                     Entity specialEntity = createLocationEntity(suitableHex, special.type, special.name, special.size);
                     locations.add(specialEntity);
-                    usedCoordinates.add(suitableHex.getCoordinates());
+                    usedCoordinates.set(suitableHex.getQ(), suitableHex.getR());
+                    placements.add(suitableHex.getQ(), suitableHex.getR(), SPECIAL);
                     reserveArea(suitableHex.getCoordinates(), SPECIAL_RESERVE_RADIUS, usedCoordinates);
                 }
             }
@@ -200,19 +298,22 @@ public class RandomLocationGenerator implements LocationGenerator {
     /**
      * Заполнение оставшихся слотов локациями
      */
-    private void fillRemainingLocations(List<Entity> locations, Set<HexCoordinates> usedCoordinates) {
+    private void fillRemainingLocations(List<Entity> locations, HexBitSet usedCoordinates) {
         int remaining = numberOfLocations - locations.size();
         if (remaining <= 0) {
             return;
         }
 
         // Ищем любые подходящие гексы для оставшихся локаций
-        List<Hex> availableHexes = findAllSuitableHexes(usedCoordinates, this::isSuitableForSettlement);
+        List<Hex> availableHexes = findAllSuitableHexes(settlementTerrainMask(), usedCoordinates);
         Collections.shuffle(availableHexes, random);
 
-        for (int i = 0; i < Math.min(remaining, availableHexes.size()); i++) {
+        // Список собран до размещения, поэтому каждый кандидат сверяется с уже размещенными локациями
+        for (int i = 0; i < availableHexes.size() && locations.size() < numberOfLocations; i++) {
             Hex hex = availableHexes.get(i);
-            createSettlement(hex, locations, usedCoordinates);
+            if (placements.isFree(hex.getQ(), hex.getR(), SETTLEMENT)) {
+                createSettlement(hex, locations, usedCoordinates);
+            }
         }
     }
 
@@ -220,54 +321,53 @@ public class RandomLocationGenerator implements LocationGenerator {
     /**
      * Поиск лучшего гекса в зоне по критериям
      */
-    private Hex findBestHexInZone(Zone zone, Set<HexCoordinates> usedCoordinates,
+    private Hex findBestHexInZone(Zone zone, HexBitSet usedCoordinates,
                                   java.util.function.Predicate<Hex> suitabilityChecker,
                                   java.util.function.Function<Hex, Integer> rater) {
-        Hex bestHex = null;
-        int bestScore = -1;
-
         // Обходим зону в случайном порядке для разнообразия
-        List<Integer> qList = createShuffledRange(zone.startQ, zone.endQ);
-        List<Integer> rList = createShuffledRange(zone.startR, zone.endR);
-
-        for (Integer q : qList) {
-            for (Integer r : rList) {
-                Hex hex = hexMap.getHex(q, r);
-                if (hex != null && !usedCoordinates.contains(hex.getCoordinates()) && suitabilityChecker.test(hex)) {
+        int[] qs = createShuffledRange(zone.startQ, zone.endQ).stream().mapToInt(Integer::intValue).toArray();
+        int[] rs = createShuffledRange(zone.startR, zone.endR).stream().mapToInt(Integer::intValue).toArray();
+
+        // Полоса - один столбец, ранг - позиция в перемешанном обходе
+        long best = selectBest(qs.length, qi -> {
+            HexView hex = hexMap.cursor();
+            long stripeBest = NO_CANDIDATE;
+            for (int ri = 0; ri < rs.length; ri++) {
+                hex.moveTo(qs[qi], rs[ri]);
+                if (hex.exists() && !usedCoordinates.get(qs[qi], rs[ri]) && suitabilityChecker.test(hex)) {
                     int score = rater.apply(hex);
-                    if (score > bestScore) {
-                        bestScore = score;
-                        bestHex = hex;
+                    if (score >= 0) {
+                        stripeBest = Math.max(stripeBest, packCandidate(score, qi * rs.length + ri));
                     }
                 }
             }
-        }
+            return stripeBest;
+        });
 
-        return bestHex;
+        if (best == NO_CANDIDATE) {
+            return null;
+        }
+        int rank = candidateRank(best);
+        return hexMap.getHex(qs[rank / rs.length], rs[rank % rs.length]);
     }
 
     /**
      * Поиск поселения рядом с городом
      */
-    private Hex findSettlementNearCity(HexCoordinates cityCoord, Set<HexCoordinates> usedCoordinates) {
+    private Hex findSettlementNearCity(HexCoordinates cityCoord, HexBitSet usedCoordinates) {
         List<Hex> candidates = new ArrayList<>();
 
-        int searchRadius = SEARCH_RADIUS_AROUND_CITIES;
-        for (int r = Math.max(0, cityCoord.getR() - searchRadius);
-             r <= Math.min(hexMap.getHeight() - 1, cityCoord.getR() + searchRadius); r++) {
-            for (int q = Math.max(0, cityCoord.getQ() - searchRadius);
-                 q <= Math.min(hexMap.getWidth() - 1, cityCoord.getQ() + searchRadius); q++) {
-
-                Hex hex = hexMap.getHex(q, r);
-                if (hex != null && !usedCoordinates.contains(hex.getCoordinates())) {
-                    int distance = HexUtils.distance(cityCoord, hex.getCoordinates());
-                    // Поселения должны быть на расстоянии 3-8 гексов от города
-                    if (distance >= 3 && distance <= 8 && isSuitableForSettlement(hex)) {
-                        candidates.add(hex);
-                    }
-                }
+        // Поселения должны быть на расстоянии 3-8 гексов от города и не ближе 3 гексов к любому городу
+        int searchRadius = Math.min(SETTLEMENT_MAX_DISTANCE_TO_CITY, SEARCH_RADIUS_AROUND_CITIES);
+        HexView hex = hexMap.cursor();
+        HexUtils.forEachInRange(cityCoord.getQ(), cityCoord.getR(), searchRadius, hexMap.getWidth(),
+                                hexMap.getHeight(), (q, r) -> {
+            hex.moveTo(q, r);
+            if (hex.exists() && cityDistance.get(q, r) >= SETTLEMENT_MIN_DISTANCE_TO_CITY &&
+                !usedCoordinates.get(q, r) && isSuitableForSettlement(hex)) {
+                candidates.add(hexMap.getHex(q, r));
             }
-        }
+        });
 
         if (!candidates.isEmpty()) {
             // Сортируем по качеству и берем лучший
@@ -282,50 +382,90 @@ public class RandomLocationGenerator implements LocationGenerator {
      * Поиск гекса для специальной локации
      */
     private Hex findSuitableHexForSpecialLocation(SpecialLocationType specialType,
-                                                  Set<HexCoordinates> usedCoordinates) {
-        List<Hex> candidates = new ArrayList<>();
-
-        for (int r = 0; r < hexMap.getHeight(); r++) {
-            for (int q = 0; q < hexMap.getWidth(); q++) {
-                Hex hex = hexMap.getHex(q, r);
-                if (hex != null && !usedCoordinates.contains(hex.getCoordinates())) {
-                    if (isSuitableForSpecialLocation(hex, specialType) &&
-                        isWellPlacedSpecialLocation(hex, specialType)) {
-                        candidates.add(hex);
-                    }
+                                                  HexBitSet usedCoordinates) {
+        // Маска отсекает неподходящую местность и занятые клетки, дорогие проверки - только для остатка
+        HexBitSet candidates = specialLocationTerrainMask(specialType).copy().andNot(usedCoordinates);
+        int width = hexMap.getWidth();
+        int height = hexMap.getHeight();
+
+        // Полоса - SCORING_STRIPE_ROWS строк, ранг - индекс клетки (построчный порядок)
+        long best = selectBest((height + SCORING_STRIPE_ROWS - 1) / SCORING_STRIPE_ROWS, stripe -> {
+            HexView hex = hexMap.cursor();
+            long[] stripeBest = {NO_CANDIDATE};
+            int fromRow = stripe * SCORING_STRIPE_ROWS;
+            candidates.forEach(fromRow, Math.min(height, fromRow + SCORING_STRIPE_ROWS), (q, r) -> {
+                hex.moveTo(q, r);
+                if (isSuitableForSpecialLocation(hex, specialType) && isWellPlacedSpecialLocation(hex, specialType)) {
+                    stripeBest[0] = Math.max(stripeBest[0],
+                                             packCandidate(rateSpecialLocation(hex, specialType), r * width + q));
                 }
-            }
-        }
+            });
+            return stripeBest[0];
+        });
 
-        if (!candidates.isEmpty()) {
-            // Сортируем по пригодности для конкретного типа
-            candidates.sort((h1, h2) -> Integer.compare(rateSpecialLocation(h2, specialType),
-                                                        rateSpecialLocation(h1, specialType)));
-            return candidates.get(0);
+        if (best == NO_CANDIDATE) {
+            return null;
         }
+        int index = candidateRank(best);
+        return hexMap.getHex(index % width, index / width);
+    }
 
-        return null;
+    /**
+     * Лучший кандидат среди полос. Полосы оцениваются в пуле ForkJoin (или последовательно), а
+     * результаты сводятся максимумом, поэтому выбор не зависит ни от числа потоков, ни от порядка их
+     * завершения
+     *
+     * @param stripeScorer лучший кандидат полосы в виде {@link #packCandidate} или {@link #NO_CANDIDATE}.
+     *                     Только чтение карты; курсор у каждой полосы свой
+     */
+    private long selectBest(int stripes, IntToLongFunction stripeScorer) {
+        IntStream range = IntStream.range(0, stripes);
+        return (parallelScoring ? range.parallel() : range).mapToLong(stripeScorer).reduce(NO_CANDIDATE, Math::max);
     }
 
     /**
-     * Поиск всех подходящих гексов
+     * Упаковывает оценку и ранг кандидата так, что большее число - лучший кандидат: выше оценка, а при
+     * равенстве меньший ранг, т.е. кандидат, раньше встреченный в последовательном обходе
      */
-    private List<Hex> findAllSuitableHexes(Set<HexCoordinates> usedCoordinates,
-                                           java.util.function.Predicate<Hex> suitabilityChecker) {
-        List<Hex> suitableHexes = new ArrayList<>();
+    private static long packCandidate(int score, int rank) {
+        return ((long) score << 32) | (0xFFFFFFFFL - rank);
+    }
 
-        for (int r = 0; r < hexMap.getHeight(); r++) {
-            for (int q = 0; q < hexMap.getWidth(); q++) {
-                Hex hex = hexMap.getHex(q, r);
-                if (hex != null && !usedCoordinates.contains(hex.getCoordinates()) && suitabilityChecker.test(hex)) {
-                    suitableHexes.add(hex);
-                }
-            }
-        }
+    private static int candidateRank(long packed) {
+        return (int) (0xFFFFFFFFL - (packed & 0xFFFFFFFFL));
+    }
 
+    /**
+     * Поиск всех подходящих гексов: свободные клетки маски в построчном порядке
+     *
+     * @param candidates маска подходящей местности, не изменяется
+     */
+    private List<Hex> findAllSuitableHexes(HexBitSet candidates, HexBitSet usedCoordinates) {
+        List<Hex> suitableHexes = new ArrayList<>();
+        candidates.copy().andNot(usedCoordinates).forEach((q, r) -> suitableHexes.add(hexMap.getHex(q, r)));
         return suitableHexes;
     }
 
+    /**
+     * Маска местности, пригодной для поселений
+     */
+    private HexBitSet settlementTerrainMask() {
+        return hexMap.getOccupiedMask().andNot(hexMap.getTerrainMask(HexType.OCEAN, HexType.MOUNTAINS));
+    }
+
+    /**
+     * Маска местности, на которой в принципе возможна специальная локация данного типа
+     */
+    private HexBitSet specialLocationTerrainMask(SpecialLocationType specialType) {
+        return switch (specialType) {
+            case PORT -> hexMap.getTerrainMask(HexType.COAST);
+            case FORTRESS -> hexMap.getTerrainMask(HexType.MOUNTAINS);
+            case MONASTERY -> hexMap.getTerrainMask(HexType.FOREST);
+            case MINE -> hexMap.getTerrainMask(HexType.MOUNTAINS, HexType.PLAINS);
+            case WATCHTOWER, BRIDGE -> hexMap.getOccupiedMask();
+        };
+    }
+
 
     /**
      * Оценка гекса для города
@@ -406,7 +546,7 @@ public class RandomLocationGenerator implements LocationGenerator {
         };
 
         // Бонус за уединенность (мало соседей подходящих для поселений)
-        int settlementNeighbors = countNeighbors(hex, this::isSuitableForSettlement);
+        int settlementNeighbors = countSuitableNeighbors(hex);
         score += Math.max(0, 10 - settlementNeighbors * 2);
 
         // Бонус за естественную защиту (скалы, вода)
@@ -701,15 +841,29 @@ public class RandomLocationGenerator implements LocationGenerator {
      * Проверка пригодности гекса для города
      */
     private boolean isSuitableForCity(Hex hex) {
-        HexType type = hex.getType();
-        return type == HexType.PLAINS || type == HexType.COAST || type == HexType.FOREST;
+        return isSuitableForCity(hex.getType().ordinal());
+    }
+
+    /**
+     * Проверка пригодности для нового города с учетом минимального расстояния до других городов
+     */
+    private boolean isSuitableForNewCity(Hex hex) {
+        return isSuitableForCity(hex) && cityDistance.get(hex.getQ(), hex.getR()) >= MIN_DISTANCE_BETWEEN_CITIES;
+    }
+
+    private boolean isSuitableForCity(int typeOrdinal) {
+        return typeOrdinal == HexType.PLAINS.ordinal() || typeOrdinal == HexType.COAST.ordinal() ||
+               typeOrdinal == HexType.FOREST.ordinal();
     }
 
     /**
      * Проверка пригодности для поселения
      */
     private boolean isSuitableForSettlement(Hex hex) {
-        HexType type = hex.getType();
+        return isSuitableForSettlement(hex.getType());
+    }
+
+    private boolean isSuitableForSettlement(HexType type) {
         return type != HexType.OCEAN && type != HexType.MOUNTAINS;
     }
 
@@ -743,7 +897,7 @@ public class RandomLocationGenerator implements LocationGenerator {
     // ========== ГЕОГРАФИЧЕСКИЕ ПРОВЕРКИ ==========
 
     private boolean hasOceanAccess(Hex hex) {
-        return checkNeighbors(hex, neighbor -> neighbor.getType() == HexType.OCEAN);
+        return features.getNeighborCount(hex.getQ(), hex.getR(), HexType.OCEAN) > 0;
     }
 
     private boolean hasDeepWaterAccess(Hex hex) {
@@ -758,7 +912,11 @@ public class RandomLocationGenerator implements LocationGenerator {
     }
 
     private boolean isOnHighGround(Hex hex) {
-        return hex.getType() == HexType.MOUNTAINS || countSuitableNeighbors(hex) <= 3;
+        return isOnHighGround(hex.getQ(), hex.getR());
+    }
+
+    private boolean isOnHighGround(int q, int r) {
+        return hexMap.getTypeOrdinal(q, r) == HexType.MOUNTAINS.ordinal() || countSuitableNeighbors(q, r) <= 3;
     }
 
     private boolean hasStrategicValue(Hex hex) {
@@ -766,25 +924,13 @@ public class RandomLocationGenerator implements LocationGenerator {
     }
 
     private boolean connectsDifferentTerrains(Hex hex) {
-        Set<HexType> neighborTypes = new HashSet<>();
-        HexCoordinates[] neighbors = HexUtils.getAllNeighborCoordinates(hex.getCoordinates());
-
-        for (HexCoordinates neighborCoord : neighbors) {
-            if (isValidCoordinate(neighborCoord)) {
-                Hex neighbor = hexMap.getHex(neighborCoord);
-                if (neighbor != null) {
-                    neighborTypes.add(neighbor.getType());
-                }
-            }
-        }
-
-        return neighborTypes.size() >= 3; // Соединяет как минимум 3 разных типа terrain
+        return countDifferentTerrainTypes(hex) >= 3; // Соединяет как минимум 3 разных типа terrain
     }
 
     private boolean isOnBorder(Hex hex) {
         // Проверяем, находится ли гекс near карты или near другого биома
-        return hex.getCoordinates().getQ() <= 5 || hex.getCoordinates().getQ() >= hexMap.getWidth() - 5 ||
-               hex.getCoordinates().getR() <= 5 || hex.getCoordinates().getR() >= hexMap.getHeight() - 5;
+        return hex.getQ() <= 5 || hex.getQ() >= hexMap.getWidth() - 5 ||
+               hex.getR() <= 5 || hex.getR() >= hexMap.getHeight() - 5;
     }
 
     private boolean isOnImportantRoute(Hex hex) {
@@ -793,21 +939,23 @@ public class RandomLocationGenerator implements LocationGenerator {
     }
 
     private boolean hasWaterAccess(Hex hex) {
-        return checkNeighbors(hex,
-                              neighbor -> neighbor.getType() == HexType.OCEAN || neighbor.getType() == HexType.COAST);
+        return hasWaterAccess(hex.getQ(), hex.getR());
+    }
+
+    private boolean hasWaterAccess(int q, int r) {
+        return features.getNeighborCount(q, r, HexType.OCEAN, HexType.COAST) > 0;
     }
 
     private boolean hasResourcePotential(Hex hex) {
         // Проверяем соседей на наличие гор (полезные ископаемые) или лесов (древесина)
-        return checkNeighbors(hex, neighbor -> neighbor.getType() == HexType.MOUNTAINS ||
-                                               neighbor.getType() == HexType.FOREST);
+        return features.getNeighborCount(hex.getQ(), hex.getR(), HexType.MOUNTAINS, HexType.FOREST) > 0;
     }
 
     private int calculateCentralityBonus(Hex hex) {
         // Бонус за центральное положение в карте
         int centerQ = hexMap.getWidth() / 2;
         int centerR = hexMap.getHeight() / 2;
-        int distanceToCenter = HexUtils.distance(hex.getCoordinates(), new HexCoordinates(centerQ, centerR));
+        int distanceToCenter = HexUtils.distance(hex.getQ(), hex.getR(), centerQ, centerR);
 
         return Math.max(0, 10 - distanceToCenter / 5);
     }
@@ -815,55 +963,39 @@ public class RandomLocationGenerator implements LocationGenerator {
     // ========== СЧЕТЧИКИ И ПРОВЕРКИ СОСЕДЕЙ ==========
 
     private int countSuitableNeighbors(Hex hex) {
-        return countNeighbors(hex, this::isSuitableForSettlement);
+        return countSuitableNeighbors(hex.getQ(), hex.getR());
     }
 
-    private int countNeighborsByType(Hex hex, HexType type) {
-        return countNeighbors(hex, neighbor -> neighbor.getType() == type);
+    private int countSuitableNeighbors(int q, int r) {
+        // Подходят все типы, кроме океана и гор
+        return features.getTotalNeighborCount(q, r) -
+               features.getNeighborCount(q, r, HexType.OCEAN, HexType.MOUNTAINS);
     }
 
-    private int countControlledPaths(Hex hex) {
-        return countNeighbors(hex, neighbor -> isPassableTerrain(neighbor.getType()));
+    private int countNeighborsByType(Hex hex, HexType type) {
+        return features.getNeighborCount(hex.getQ(), hex.getR(), type);
     }
 
-    private int countNeighbors(Hex hex, java.util.function.Predicate<Hex> condition) {
-        int count = 0;
-        HexCoordinates[] neighbors = HexUtils.getAllNeighborCoordinates(hex.getCoordinates());
-
-        for (HexCoordinates neighborCoord : neighbors) {
-            if (isValidCoordinate(neighborCoord)) {
-                Hex neighbor = hexMap.getHex(neighborCoord);
-                if (neighbor != null && condition.test(neighbor)) {
-                    count++;
-                }
-            }
-        }
-
-        return count;
+    private int countControlledPaths(Hex hex) {
+        return countPassableNeighbors(hex);
     }
 
-    private boolean checkNeighbors(Hex hex, java.util.function.Predicate<Hex> condition) {
-        HexCoordinates[] neighbors = HexUtils.getAllNeighborCoordinates(hex.getCoordinates());
-
-        for (HexCoordinates neighborCoord : neighbors) {
-            if (isValidCoordinate(neighborCoord)) {
-                Hex neighbor = hexMap.getHex(neighborCoord);
-                if (neighbor != null && condition.test(neighbor)) {
-                    return true;
-                }
-            }
-        }
-
-        return false;
+    private int countPassableNeighbors(Hex hex) {
+        return features.getPassableNeighborCount(hex.getQ(), hex.getR());
     }
 
-    private boolean isPassableTerrain(HexType type) {
-        return type != HexType.OCEAN && type != HexType.MOUNTAINS && type != HexType.SWAMP;
+    private boolean hasNeighborOfType(Hex hex, HexType type) {
+        return features.getNeighborCount(hex.getQ(), hex.getR(), type) > 0;
     }
 
-    private boolean isValidCoordinate(HexCoordinates coord) {
-        return coord.getQ() >= 0 && coord.getQ() < hexMap.getWidth() && coord.getR() >= 0 &&
-               coord.getR() < hexMap.getHeight();
+    /**
+     * Порядковый номер типа соседа в направлении direction или {@link HexStorage#NO_HEX}, если
+     * соседа нет или он за границей карты
+     */
+    private int neighborTypeOrdinal(int q, int r, int direction) {
+        int nq = q + DIRECTION_Q[direction];
+        int nr = r + DIRECTION_R[direction];
+        return hexMap.isWithinBounds(nq, nr) ? hexMap.getTypeOrdinal(nq, nr) : HexStorage.NO_HEX;
     }
 
     // ========== СЛУЖЕБНЫЕ МЕТОДЫ ==========
@@ -871,18 +1003,13 @@ public class RandomLocationGenerator implements LocationGenerator {
     /**
      * Резервирование территории вокруг локации
      */
-    private void reserveArea(HexCoordinates center, int radius, Set<HexCoordinates> usedCoordinates) {
-        for (int r = 0; r < hexMap.getHeight(); r++) {
-            for (int q = 0; q < hexMap.getWidth(); q++) {
-                Hex hex = hexMap.getHex(q, r);
-                if (hex != null) {
-                    int distance = HexUtils.distance(center, hex.getCoordinates());
-                    if (distance <= radius) {
-                        usedCoordinates.add(hex.getCoordinates());
-                    }
-                }
-            }
-        }
+    private void reserveArea(HexCoordinates center, int radius, HexBitSet usedCoordinates) {
+        HexUtils.forEachInRange(center.getQ(), center.getR(), radius, hexMap.getWidth(), hexMap.getHeight(),
+                                (q, r) -> {
+                                    if (hexMap.getTypeOrdinal(q, r) != HexStorage.NO_HEX) {
+                                        usedCoordinates.set(q, r);
+                                    }
+                                });
     }
 
     /**
@@ -897,9 +1024,9 @@ public class RandomLocationGenerator implements LocationGenerator {
      */
     private String getSettlementName(String type) {
         String baseName = switch (type) {
-            case "VILLAGE" -> nameService.getRandomName("villages");
-            case "TOWN" -> nameService.getRandomName("towns");
-            case "OUTPOST" -> nameService.getRandomName("outposts");
+            case "VILLAGE" -> nameService.getRandomName("villages", nameRandom);
+            case "TOWN" -> nameService.getRandomName("towns", nameRandom);
+            case "OUTPOST" -> nameService.getRandomName("outposts", nameRandom);
             default -> "Поселение";
         };
 
@@ -917,12 +1044,12 @@ public class RandomLocationGenerator implements LocationGenerator {
      */
     private SpecialLocation createSpecialLocation(SpecialLocationType specialType, Hex hex) {
         String name = switch (specialType) {
-            case PORT -> nameService.getRandomName("ports");
-            case FORTRESS -> nameService.getRandomName("fortresses");
-            case MONASTERY -> nameService.getRandomName("monasteries");
-            case MINE -> nameService.getRandomName("mines");
-            case WATCHTOWER -> nameService.getRandomName("watchtowers");
-            case BRIDGE -> nameService.getRandomName("bridges");
+            case PORT -> nameService.getRandomName("ports", nameRandom);
+            case FORTRESS -> nameService.getRandomName("fortresses", nameRandom);
+            case MONASTERY -> nameService.getRandomName("monasteries", nameRandom);
+            case MINE -> nameService.getRandomName("mines", nameRandom);
+            case WATCHTOWER -> nameService.getRandomName("watchtowers", nameRandom);
+            case BRIDGE -> nameService.getRandomName("bridges", nameRandom);
         };
 
         return new SpecialLocation(specialType.name(), name, getSizeForSpecialType(specialType));
@@ -994,8 +1121,7 @@ public class RandomLocationGenerator implements LocationGenerator {
      * Проверка естественной защиты (скалы, вода, ущелья)
      */
     private boolean hasNaturalProtection(Hex hex) {
-        int protectiveNeighbors = countNeighbors(hex, neighbor -> neighbor.getType() == HexType.MOUNTAINS ||
-                                                                  neighbor.getType() == HexType.OCEAN);
+        int protectiveNeighbors = features.getNeighborCount(hex.getQ(), hex.getR(), HexType.MOUNTAINS, HexType.OCEAN);
         return protectiveNeighbors >= 3;
     }
 
@@ -1004,9 +1130,22 @@ public class RandomLocationGenerator implements LocationGenerator {
      */
     private boolean hasFreshWaterAccess(Hex hex) {
         // Предполагаем, что пресная вода рядом с лесами и равнинами у воды
-        return checkNeighbors(hex, neighbor -> neighbor.getType() == HexType.COAST ||
-                                               (neighbor.getType() == HexType.PLAINS && hasWaterAccess(neighbor)) ||
-                                               neighbor.getType() == HexType.FOREST);
+        int q = hex.getQ();
+        int r = hex.getR();
+        if (features.getNeighborCount(q, r, HexType.COAST, HexType.FOREST) > 0) {
+            return true;
+        }
+        if (features.getNeighborCount(q, r, HexType.PLAINS) == 0) {
+            return false;
+        }
+
+        int plains = HexType.PLAINS.ordinal();
+        for (int i = 0; i < 6; i++) {
+            if (neighborTypeOrdinal(q, r, i) == plains && hasWaterAccess(q + DIRECTION_Q[i], r + DIRECTION_R[i])) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -1022,29 +1161,15 @@ public class RandomLocationGenerator implements LocationGenerator {
     private boolean isNearCivilization(Hex hex) {
         // Упрощенная проверка - ищем города в радиусе 10 гексов
         int searchRadius = 10;
-        HexCoordinates center = hex.getCoordinates();
-
-        for (int r = Math.max(0, center.getR() - searchRadius);
-             r <= Math.min(hexMap.getHeight() - 1, center.getR() + searchRadius); r++) {
-            for (int q = Math.max(0, center.getQ() - searchRadius);
-                 q <= Math.min(hexMap.getWidth() - 1, center.getQ() + searchRadius); q++) {
-                Hex nearbyHex = hexMap.getHex(q, r);
-                if (nearbyHex != null && isSuitableForCity(nearbyHex)) {
-                    int distance = HexUtils.distance(center, nearbyHex.getCoordinates());
-                    if (distance <= searchRadius) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
+        return HexUtils.anyInRange(hex.getQ(), hex.getR(), searchRadius, hexMap.getWidth(), hexMap.getHeight(),
+                                   (q, r) -> isSuitableForCity(hexMap.getTypeOrdinal(q, r)));
     }
 
     /**
      * Проверка транспортной доступности
      */
     private boolean hasGoodTransportAccess(Hex hex) {
-        int passableNeighbors = countNeighbors(hex, type -> isPassableTerrain(type.getType()));
+        int passableNeighbors = countPassableNeighbors(hex);
         return passableNeighbors >= 4;
     }
 
@@ -1054,48 +1179,25 @@ public class RandomLocationGenerator implements LocationGenerator {
     private boolean isNearExistingSettlements(Hex hex) {
         // Аналогично isNearCivilization, но с меньшим радиусом
         int searchRadius = 6;
-        HexCoordinates center = hex.getCoordinates();
-
-        for (int r = Math.max(0, center.getR() - searchRadius);
-             r <= Math.min(hexMap.getHeight() - 1, center.getR() + searchRadius); r++) {
-            for (int q = Math.max(0, center.getQ() - searchRadius);
-                 q <= Math.min(hexMap.getWidth() - 1, center.getQ() + searchRadius); q++) {
-                Hex nearbyHex = hexMap.getHex(q, r);
-                if (nearbyHex != null && isSuitableForSettlement(nearbyHex)) {
-                    int distance = HexUtils.distance(center, nearbyHex.getCoordinates());
-                    if (distance <= searchRadius) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
+        return HexUtils.anyInRange(hex.getQ(), hex.getR(), searchRadius, hexMap.getWidth(), hexMap.getHeight(),
+                                   (q, r) -> {
+                                       int ordinal = hexMap.getTypeOrdinal(q, r);
+                                       return ordinal != HexStorage.NO_HEX && isSuitableForSettlement(TYPES[ordinal]);
+                                   });
     }
 
     /**
      * Подсчет количества разных типов terrain среди соседей
      */
     private int countDifferentTerrainTypes(Hex hex) {
-        Set<HexType> terrainTypes = new HashSet<>();
-        HexCoordinates[] neighbors = HexUtils.getAllNeighborCoordinates(hex.getCoordinates());
-
-        for (HexCoordinates neighborCoord : neighbors) {
-            if (isValidCoordinate(neighborCoord)) {
-                Hex neighbor = hexMap.getHex(neighborCoord);
-                if (neighbor != null) {
-                    terrainTypes.add(neighbor.getType());
-                }
-            }
-        }
-
-        return terrainTypes.size();
+        return features.getDistinctTerrainCount(hex.getQ(), hex.getR());
     }
 
     /**
      * Проверка удаленности места
      */
     private boolean isTooRemote(Hex hex) {
-        int passableNeighbors = countNeighbors(hex, type -> isPassableTerrain(type.getType()));
+        int passableNeighbors = countPassableNeighbors(hex);
         return passableNeighbors <= 2;
     }
 
@@ -1103,41 +1205,25 @@ public class RandomLocationGenerator implements LocationGenerator {
      * Проверка наличия естественного укрытия
      */
     private boolean hasNaturalShelter(Hex hex) {
-        return checkNeighbors(hex, neighbor -> neighbor.getType() == HexType.MOUNTAINS) ||
-               hex.getType() == HexType.MOUNTAINS;
+        return hasNeighborOfType(hex, HexType.MOUNTAINS) || hex.getType() == HexType.MOUNTAINS;
     }
 
     /**
      * Расчет видимости с башни
      */
     private int calculateVisibility(Hex hex) {
-        int visibleHexes = 0;
-        int viewDistance = 8; // Дальность обзора
-
-        HexCoordinates center = hex.getCoordinates();
-
-        for (int r = Math.max(0, center.getR() - viewDistance);
-             r <= Math.min(hexMap.getHeight() - 1, center.getR() + viewDistance); r++) {
-            for (int q = Math.max(0, center.getQ() - viewDistance);
-                 q <= Math.min(hexMap.getWidth() - 1, center.getQ() + viewDistance); q++) {
-                Hex targetHex = hexMap.getHex(q, r);
-                if (targetHex != null && hasLineOfSight(hex, targetHex)) {
-                    visibleHexes++;
-                }
-            }
-        }
-
-        return visibleHexes;
+        // Все гексы в пределах дальности видимости видны
+        return HexUtils.countInRange(hex.getQ(), hex.getR(), lineOfSightRadius(hex), hexMap.getWidth(),
+                                     hexMap.getHeight(), (q, r) -> hexMap.getTypeOrdinal(q, r) != HexStorage.NO_HEX);
     }
 
     /**
-     * Упрощенная проверка прямой видимости
+     * Упрощенная дальность прямой видимости: 5 гексов, с возвышенности 8
      */
-    private boolean hasLineOfSight(Hex from, Hex to) {
+    private int lineOfSightRadius(Hex from) {
         // Упрощенная реализация - считаем, что видимость есть если нет препятствий
         // TODO Можно учитывать высоту и препятствия
-        int distance = HexUtils.distance(from.getCoordinates(), to.getCoordinates());
-        return distance <= 5 || (distance <= 8 && isOnHighGround(from));
+        return isOnHighGround(from) ? 8 : 5;
     }
 
     /**
@@ -1151,7 +1237,7 @@ public class RandomLocationGenerator implements LocationGenerator {
      * Проверка труднодоступности
      */
     private boolean isTooInaccessible(Hex hex) {
-        int passableNeighbors = countNeighbors(hex, type -> isPassableTerrain(type.getType()));
+        int passableNeighbors = countPassableNeighbors(hex);
         return passableNeighbors <= 1;
     }
 
@@ -1161,23 +1247,15 @@ public class RandomLocationGenerator implements LocationGenerator {
     private boolean hasLineOfSightToOtherTowers(Hex hex) {
         // В реальной реализации нужно проверять существующие башни
         // Здесь упрощенная версия - проверяем наличие высоких точек в радиусе
-        int searchRadius = 12;
-        HexCoordinates center = hex.getCoordinates();
-
-        for (int r = Math.max(0, center.getR() - searchRadius);
-             r <= Math.min(hexMap.getHeight() - 1, center.getR() + searchRadius); r++) {
-            for (int q = Math.max(0, center.getQ() - searchRadius);
-                 q <= Math.min(hexMap.getWidth() - 1, center.getQ() + searchRadius); q++) {
-                Hex nearbyHex = hexMap.getHex(q, r);
-                if (nearbyHex != null && nearbyHex != hex && isOnHighGround(nearbyHex)) {
-                    int distance = HexUtils.distance(center, nearbyHex.getCoordinates());
-                    if (distance <= searchRadius && hasLineOfSight(hex, nearbyHex)) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
+        // Башни дальше дальности видимости не видны, поэтому радиус поиска ограничен ею
+        int searchRadius = Math.min(12, lineOfSightRadius(hex));
+        int centerQ = hex.getQ();
+        int centerR = hex.getR();
+
+        return HexUtils.anyInRange(centerQ, centerR, searchRadius, hexMap.getWidth(), hexMap.getHeight(),
+                                   (q, r) -> (q != centerQ || r != centerR) &&
+                                             hexMap.getTypeOrdinal(q, r) != HexStorage.NO_HEX &&
+                                             isOnHighGround(q, r));
     }
 
     /**
@@ -1185,7 +1263,7 @@ public class RandomLocationGenerator implements LocationGenerator {
      */
     private boolean isNarrowPassage(Hex hex) {
         // Узкий проход - когда гекс соединяет только 2 проходимых направления
-        int passableNeighbors = countNeighbors(hex, type -> isPassableTerrain(type.getType()));
+        int passableNeighbors = countPassableNeighbors(hex);
         return passableNeighbors == 2;
     }
 
@@ -1201,7 +1279,7 @@ public class RandomLocationGenerator implements LocationGenerator {
      * Проверка наличия естественных опор
      */
     private boolean hasNaturalFoundations(Hex hex) {
-        return checkNeighbors(hex, neighbor -> neighbor.getType() == HexType.MOUNTAINS) &&
+        return hasNeighborOfType(hex, HexType.MOUNTAINS) &&
                countNeighborsByType(hex, HexType.MOUNTAINS) >= 2;
     }
 
@@ -1209,28 +1287,18 @@ public class RandomLocationGenerator implements LocationGenerator {
      * Проверка стабильности берегов
      */
     private boolean hasStableBanks(Hex hex) {
-        return !checkNeighbors(hex, neighbor -> neighbor.getType() == HexType.SWAMP) && hex.getType() != HexType.SWAMP;
+        return !hasNeighborOfType(hex, HexType.SWAMP) && hex.getType() != HexType.SWAMP;
     }
 
     /**
      * Проверка прямого пересечения
      */
     private boolean isStraightCrossing(Hex hex) {
-        HexCoordinates[] opposites = getOppositeNeighbors(hex.getCoordinates());
-
-        // Need at least one pair of opposites to check
-        if (opposites.length < 2) {
-            return false;
-        }
-
-        // Check each pair of opposite neighbors
-        for (int i = 0; i < opposites.length; i += 2) {
-            if (i + 1 < opposites.length) {
-                Hex neighbor1 = hexMap.getHex(opposites[i]);
-                Hex neighbor2 = hexMap.getHex(opposites[i + 1]);
-                if (neighbor1 != null && neighbor2 != null && neighbor1.getType() == neighbor2.getType()) {
-                    return true;
-                }
+        // Проверяем каждую пару противоположных соседей
+        for (int direction = 0; direction < 3; direction++) {
+            int type = oppositeNeighborsType(hex.getQ(), hex.getR(), direction);
+            if (type != HexStorage.NO_HEX) {
+                return true;
             }
         }
 
@@ -1257,33 +1325,27 @@ public class RandomLocationGenerator implements LocationGenerator {
      * Проверка нестабильного основания
      */
     private boolean hasUnstableFoundation(Hex hex) {
-        return hex.getType() == HexType.SWAMP || checkNeighbors(hex, neighbor -> neighbor.getType() == HexType.SWAMP);
+        return hex.getType() == HexType.SWAMP || hasNeighborOfType(hex, HexType.SWAMP);
     }
 
     /**
-     * Получение противоположных соседей
+     * Общий тип пары противоположных соседей (направления direction и direction + 3). В
+     * гексагональной сетке у каждого гекса 3 такие пары
+     *
+     * @return порядковый номер типа или {@link HexStorage#NO_HEX}, если типы разные или одного из
+     * соседей нет
      */
-    private HexCoordinates[] getOppositeNeighbors(HexCoordinates center) {
-        HexCoordinates[] allNeighbors = HexUtils.getAllNeighborCoordinates(center);
-        List<HexCoordinates> validOpposites = new ArrayList<>();
-
-        // В гексагональной сетке у каждого гекса есть 3 пары противоположных соседей
-        int[][] oppositePairs = {{0, 3}, {1, 4}, {2, 5}};
-
-        for (int[] pair : oppositePairs) {
-            if (pair[0] < allNeighbors.length && pair[1] < allNeighbors.length) {
-                HexCoordinates coord1 = allNeighbors[pair[0]];
-                HexCoordinates coord2 = allNeighbors[pair[1]];
-
-                // Only include valid coordinates
-                if (isValidCoordinate(coord1) && isValidCoordinate(coord2)) {
-                    validOpposites.add(coord1);
-                    validOpposites.add(coord2);
-                }
-            }
+    private int oppositeNeighborsType(int q, int r, int direction) {
+        int q1 = q + DIRECTION_Q[direction];
+        int r1 = r + DIRECTION_R[direction];
+        int q2 = q + DIRECTION_Q[direction + 3];
+        int r2 = r + DIRECTION_R[direction + 3];
+        if (!hexMap.isWithinBounds(q1, r1) || !hexMap.isWithinBounds(q2, r2)) {
+            return HexStorage.NO_HEX;
         }
 
-        return validOpposites.toArray(new HexCoordinates[0]);
+        int type = hexMap.getTypeOrdinal(q1, r1);
+        return type == hexMap.getTypeOrdinal(q2, r2) ? type : HexStorage.NO_HEX;
     }
 
     /**
@@ -1298,12 +1360,9 @@ public class RandomLocationGenerator implements LocationGenerator {
      */
     private boolean isOnStraightLine(Hex hex) {
         // Упрощенная проверка - гекс имеет двух соседей одинакового типа в противоположных направлениях
-        HexCoordinates[] opposites = getOppositeNeighbors(hex.getCoordinates());
-        for (int i = 0; i < opposites.length; i += 2) {
-            Hex neighbor1 = hexMap.getHex(opposites[i]);
-            Hex neighbor2 = hexMap.getHex(opposites[i + 1]);
-            if (neighbor1 != null && neighbor2 != null && neighbor1.getType() == neighbor2.getType() &&
-                isSuitableForSettlement(neighbor1)) {
+        for (int direction = 0; direction < 3; direction++) {
+            int type = oppositeNeighborsType(hex.getQ(), hex.getR(), direction);
+            if (type != HexStorage.NO_HEX && isSuitableForSettlement(TYPES[type])) {
                 return true;
             }
         }
@@ -1339,26 +1398,18 @@ public class RandomLocationGenerator implements LocationGenerator {
      */
     private int countPlainsInDirection(Hex hex, int startDirection, int steps) {
         int count = 0;
-        HexCoordinates current = hex.getCoordinates();
+        int q = hex.getQ();
+        int r = hex.getR();
+        int plains = HexType.PLAINS.ordinal();
 
         for (int i = 0; i < steps; i++) {
-            HexCoordinates[] neighbors = HexUtils.getAllNeighborCoordinates(current);
-            if (startDirection < neighbors.length) {
-                HexCoordinates neighborCoord = neighbors[startDirection];
+            q += DIRECTION_Q[startDirection];
+            r += DIRECTION_R[startDirection];
 
-                if (!isValidCoordinate(neighborCoord)) {
-                    break;
-                }
-                Hex neighbor = hexMap.getHex(neighborCoord);
-                if (neighbor != null && neighbor.getType() == HexType.PLAINS) {
-                    count++;
-                    current = neighborCoord;
-                } else {
-                    break;
-                }
-            } else {
+            if (!hexMap.isWithinBounds(q, r) || hexMap.getTypeOrdinal(q, r) != plains) {
                 break;
             }
+            count++;
         }
 
         return count;
@@ -11,15 +11,13 @@ import java.util.List;
 public class SavedLocationGenerator implements LocationGenerator {
 
     private final String filePath;
-    private final GenerationContext context;
 
-    public SavedLocationGenerator(String filePath, GenerationContext context) {
+    public SavedLocationGenerator(String filePath) {
         this.filePath = filePath;
-        this.context = context;
     }
 
     @Override
-    public List<Entity> generateLocations() {
+    public List<Entity> generateLocations(GenerationContext context) {
         Gdx.app.log("SavedLocationGenerator", "Loading locations from: " + filePath);
         throw new UnsupportedOperationException("SavedLocationGenerator not yet implemented");
     }
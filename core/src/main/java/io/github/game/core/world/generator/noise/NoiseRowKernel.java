@@ -0,0 +1,45 @@
+package io.github.game.core.world.generator.noise;
+
+/**
+ * Ядро пакетного шума Перлина: участок строки, целиком лежащий в одном единичном квадрате.
+ * <p>
+ * Для i из [from, to): x = xs[i] * frequency - cellX, u = fade(x),
+ * g00 = c[0] * x + c[1], g10 = c[2] * (x - 1) + c[3], g01 = c[4] * x + c[5], g11 = c[6] * (x - 1) + c[7],
+ * out[i] += lerp(v, lerp(u, g00, g10), lerp(u, g01, g11)) * amplitude.
+ * <p>
+ * Реализации обязаны выполнять операции в этом порядке и без FMA, чтобы результат совпадал с
+ * {@link PerlinNoise#noise} бит в бит.
+ */
+public interface NoiseRowKernel {
+
+    int CORNER_COEFFICIENTS = 8;
+
+    void accumulate(float[] xs, int from, int to, float frequency, float cellX, float[] corners, float v,
+                    float amplitude, float[] out);
+
+    /**
+     * Название ядра для логов
+     */
+    String getName();
+
+    /**
+     * Векторное ядро, если модуль jdk.incubator.vector подключен (--add-modules jdk.incubator.vector) и
+     * класс ядра есть в сборке, иначе скалярное
+     */
+    static NoiseRowKernel preferred() {
+        // Векторное ядро собирается отдельно (source set vector), чтобы компиляция core не требовала
+        // инкубаторного модуля, поэтому загружается по имени и только если модуль есть в загрузочном слое
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                Class<?> type = Class.forName(NoiseRowKernel.class.getPackageName() + ".VectorNoiseRowKernel");
+                Object kernel = type.getDeclaredMethod("create").invoke(null);
+                if (kernel != null) {
+                    return (NoiseRowKernel) kernel;
+                }
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // ядра нет в сборке или модуль недоступен этому коду - остаемся на скалярном ядре
+            }
+        }
+        return ScalarNoiseRowKernel.INSTANCE;
+    }
+}
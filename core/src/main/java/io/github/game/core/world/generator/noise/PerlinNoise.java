@@ -0,0 +1,202 @@
+package io.github.game.core.world.generator.noise;
+
+import java.util.Random;
+
+/**
+ * Упрощенная реализация шума Перлина для процедурной генерации. Основные принципы: - permutation table: таблица
+ * псевдослучайных градиентов для воспроизводимости - fade-функция: сглаживает интерполяцию для естественного вида -
+ * grad-функция: вычисляет скалярное произведение для градиента - lerp: линейная интерполяция между значениями
+ * <p>
+ * Кроме поточечного {@link #noise} есть пакетный {@link #accumulateRow}: строка отсчетов с общим y считается
+ * целиком ядром {@link NoiseRowKernel} (векторным, если доступен Vector API) и дает те же значения, что и
+ * поточечный вызов.
+ */
+public class PerlinNoise {
+
+    // Градиент с хешем h: grad(h, x, y) = GRAD_X[h] * x + GRAD_Y[h] * y
+    private static final float[] GRAD_X = new float[16];
+    private static final float[] GRAD_Y = new float[16];
+
+    static {
+        for (int h = 0; h < 16; h++) {
+            float sign1 = (h & 1) == 0 ? 1 : -1;
+            float sign2 = (h & 2) == 0 ? 1 : -1;
+            if (h < 4) {
+                GRAD_X[h] = sign1;
+                GRAD_Y[h] = sign2;
+            } else if (h < 8) {
+                GRAD_X[h] = sign1;
+            } else if (h == 12 || h == 14) {
+                GRAD_X[h] = sign2;
+                GRAD_Y[h] = sign1;
+            } else {
+                GRAD_Y[h] = sign1;
+            }
+        }
+    }
+
+    private final Random random;
+    private final int[] permutation; // Таблица перестановок для градиентов
+    private final NoiseRowKernel kernel;
+
+    public PerlinNoise(long seed) {
+        this(seed, NoiseRowKernel.preferred());
+    }
+
+    public PerlinNoise(long seed, NoiseRowKernel kernel) {
+        this.random = new Random(seed);
+        this.permutation = new int[512];
+        this.kernel = kernel;
+        initializePermutation();
+    }
+
+    /**
+     * Основная функция шума Перлина
+     *
+     * @param x координата X
+     * @param y координата Y
+     * @return значение шума в диапазоне примерно [-1, 1]
+     */
+    public float noise(float x, float y) {
+        // Определяем единичный квадрат, в котором находится точка
+        int X = (int) Math.floor(x) & 255;
+        int Y = (int) Math.floor(y) & 255;
+
+        // Локальные координаты внутри квадрата
+        x -= Math.floor(x);
+        y -= Math.floor(y);
+
+        // Вычисляем fade-кривые для сглаживания
+        float u = fade(x);
+        float v = fade(y);
+
+        // Получаем градиенты для четырех углов квадрата
+        int a = permutation[X] + Y;
+        int aa = permutation[a];
+        int ab = permutation[a + 1];
+        int b = permutation[X + 1] + Y;
+        int ba = permutation[b];
+        int bb = permutation[b + 1];
+
+        // Интерполируем между градиентами
+        return lerp(v, lerp(u, grad(permutation[aa], x, y), grad(permutation[ba], x - 1, y)),
+                    lerp(u, grad(permutation[ab], x, y - 1), grad(permutation[bb], x - 1, y - 1)));
+    }
+
+    /**
+     * Пакетный шум для строки: out[i] += noise(xs[i] * frequency, y * frequency) * amplitude, i = 0..count-1.
+     * Несколько вызовов подряд с разными частотами накапливают октавы в одном массиве в том же порядке
+     * сложения, что и выражение вида {@code noise(..) * a1 + noise(..) * a2 + ...}.
+     * <p>
+     * Внутри строки y и его fade общие, а угловые градиенты меняются только на границах единичных квадратов,
+     * поэтому строка режется на участки с общим X, и каждый участок считается ядром без обращений к таблице
+     * перестановок.
+     *
+     * @param xs        координаты x по неубыванию, неотрицательные
+     * @param frequency частота октавы, больше нуля
+     */
+    public void accumulateRow(float[] xs, int count, float y, float frequency, float amplitude, float[] out) {
+        float fy = y * frequency;
+        int Y = (int) Math.floor(fy) & 255;
+        fy -= Math.floor(fy);
+        float v = fade(fy);
+
+        float[] corners = new float[NoiseRowKernel.CORNER_COEFFICIENTS];
+        int from = 0;
+        while (from < count) {
+            double cell = Math.floor(xs[from] * frequency);
+            int to = cellEnd(xs, from, count, frequency, cell);
+
+            // Хеши четырех углов квадрата, как в noise()
+            int X = (int) cell & 255;
+            int a = permutation[X] + Y;
+            int b = permutation[X + 1] + Y;
+            int h00 = permutation[permutation[a]] & 15;
+            int h10 = permutation[permutation[b]] & 15;
+            int h01 = permutation[permutation[a + 1]] & 15;
+            int h11 = permutation[permutation[b + 1]] & 15;
+
+            // Вклад y в градиент постоянен для всей строки
+            corners[0] = GRAD_X[h00];
+            corners[1] = GRAD_Y[h00] * fy;
+            corners[2] = GRAD_X[h10];
+            corners[3] = GRAD_Y[h10] * fy;
+            corners[4] = GRAD_X[h01];
+            corners[5] = GRAD_Y[h01] * (fy - 1);
+            corners[6] = GRAD_X[h11];
+            corners[7] = GRAD_Y[h11] * (fy - 1);
+
+            kernel.accumulate(xs, from, to, frequency, (float) cell, corners, v, amplitude, out);
+            from = to;
+        }
+    }
+
+    /**
+     * Конец участка с тем же единичным квадратом: первый индекс после from, где floor(xs[i] * frequency) больше
+     * cell. Двоичный поиск, xs по неубыванию
+     */
+    private static int cellEnd(float[] xs, int from, int count, float frequency, double cell) {
+        int lo = from + 1;
+        int hi = count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (Math.floor(xs[mid] * frequency) == cell) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    public NoiseRowKernel getKernel() {
+        return kernel;
+    }
+
+    /**
+     * Инициализация таблицы перестановок
+     */
+    private void initializePermutation() {
+        int[] p = new int[256];
+        for (int i = 0; i < 256; i++) {
+            p[i] = i;
+        }
+
+        // Перемешиваем массив используя seed
+        for (int i = 0; i < 256; i++) {
+            int j = random.nextInt(256);
+            int temp = p[i];
+            p[i] = p[j];
+            p[j] = temp;
+        }
+
+        // Дублируем для упрощения вычислений (избегание операций modulo)
+        for (int i = 0; i < 256; i++) {
+            permutation[256 + i] = permutation[i] = p[i];
+        }
+    }
+
+    /**
+     * Функция сглаживания (fade function) для плавной интерполяции
+     */
+    static float fade(float t) {
+        return t * t * t * (t * (t * 6 - 15) + 10);
+    }
+
+    /**
+     * Линейная интерполяция
+     */
+    static float lerp(float t, float a, float b) {
+        return a + t * (b - a);
+    }
+
+    /**
+     * Вычисление градиента
+     */
+    private static float grad(int hash, float x, float y) {
+        int h = hash & 15; // Младшие 4 бита определяют градиент
+        float u = h < 8 ? x : y;
+        float v = h < 4 ? y : (h == 12 || h == 14 ? x : 0);
+        return ((h & 1) == 0 ? u : -u) + ((h & 2) == 0 ? v : -v);
+    }
+}
@@ -0,0 +1,41 @@
+package io.github.game.core.world.generator.noise;
+
+/**
+ * Скалярное ядро пакетного шума. Используется, когда Vector API недоступен, и для хвостов векторного ядра
+ */
+public final class ScalarNoiseRowKernel implements NoiseRowKernel {
+
+    public static final ScalarNoiseRowKernel INSTANCE = new ScalarNoiseRowKernel();
+
+    private ScalarNoiseRowKernel() {
+    }
+
+    @Override
+    public void accumulate(float[] xs, int from, int to, float frequency, float cellX, float[] corners, float v,
+                           float amplitude, float[] out) {
+        float gx00 = corners[0];
+        float c00 = corners[1];
+        float gx10 = corners[2];
+        float c10 = corners[3];
+        float gx01 = corners[4];
+        float c01 = corners[5];
+        float gx11 = corners[6];
+        float c11 = corners[7];
+
+        for (int i = from; i < to; i++) {
+            float x = xs[i] * frequency - cellX;
+            float u = PerlinNoise.fade(x);
+            float g00 = gx00 * x + c00;
+            float g10 = gx10 * (x - 1) + c10;
+            float g01 = gx01 * x + c01;
+            float g11 = gx11 * (x - 1) + c11;
+            float n = PerlinNoise.lerp(v, PerlinNoise.lerp(u, g00, g10), PerlinNoise.lerp(u, g01, g11));
+            out[i] += n * amplitude;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,149 @@
+package io.github.game.core.world.generator.world;
+
+import io.github.game.core.world.hex.HexType;
+
+/**
+ * Классификатор биомов по нормализованным высоте, влажности, температуре и аридности.
+ * <p>
+ * Эталон - каскад условий {@link #determineHexType}. Для генерации используется таблица {@link #lookup}: каждая
+ * ось квантуется по порогам каскада, и тип берется из заранее построенной таблицы одним индексированным чтением,
+ * без непредсказуемых ветвлений. Уровни осей выбраны по самим порогам, а не равномерно, поэтому таблица
+ * совпадает с каскадом точно. Если пороги каскада поменяются без правки границ ниже, расхождения покажет
+ * BiomeClassifierTest.
+ */
+public final class BiomeClassifier {
+
+    /*
+     * Границы уровней по осям: уровень значения - число границ, не превосходящих его. Для условий вида
+     * "x < t" граница - сам порог, для "x > t" - следующее за порогом число float. Доступны пакету для теста
+     */
+    static final float[] HEIGHT_BOUNDS = {0.4f, 0.45f, Math.nextUp(0.5f), Math.nextUp(0.65f),
+                                          Math.nextUp(0.8f)};
+    static final float[] MOISTURE_BOUNDS = {0.4f, 0.5f, 0.6f, 0.7f, 0.8f};
+    static final float[] TEMPERATURE_BOUNDS = {0.3f};
+    static final float[] ARIDITY_BOUNDS = {Math.nextUp(0.6f), Math.nextUp(0.7f)};
+
+    private static final int ARIDITY_STRIDE = 1;
+    private static final int TEMPERATURE_STRIDE = ARIDITY_STRIDE * (ARIDITY_BOUNDS.length + 1);
+    private static final int MOISTURE_STRIDE = TEMPERATURE_STRIDE * (TEMPERATURE_BOUNDS.length + 1);
+    private static final int HEIGHT_STRIDE = MOISTURE_STRIDE * (MOISTURE_BOUNDS.length + 1);
+
+    // Ординалы типов по индексу hl * HEIGHT_STRIDE + ml * MOISTURE_STRIDE + tl * TEMPERATURE_STRIDE + al
+    private static final byte[] TABLE = buildTable();
+
+    private BiomeClassifier() {
+    }
+
+    /**
+     * Тип гекса по таблице
+     *
+     * @return ординал {@link HexType}
+     */
+    public static int lookup(float height, float moisture, float temperature, float aridity) {
+        return TABLE[level(height, HEIGHT_BOUNDS) * HEIGHT_STRIDE
+                     + level(moisture, MOISTURE_BOUNDS) * MOISTURE_STRIDE
+                     + level(temperature, TEMPERATURE_BOUNDS) * TEMPERATURE_STRIDE
+                     + level(aridity, ARIDITY_BOUNDS)];
+    }
+
+    /**
+     * Уровень значения: число границ, не превосходящих его. Границ не больше пяти, сравнения без ветвлений
+     */
+    private static int level(float value, float[] bounds) {
+        int level = 0;
+        for (float bound : bounds) {
+            level += value >= bound ? 1 : 0;
+        }
+        return level;
+    }
+
+    /**
+     * Таблица строится из каскада: в каждой ячейке каскад вычисляется в ее нижней границе. Внутри ячейки ни одно
+     * условие каскада не меняет значение, поэтому любая точка ячейки дает тот же тип
+     */
+    private static byte[] buildTable() {
+        byte[] table = new byte[HEIGHT_STRIDE * (HEIGHT_BOUNDS.length + 1)];
+        for (int hl = 0; hl <= HEIGHT_BOUNDS.length; hl++) {
+            for (int ml = 0; ml <= MOISTURE_BOUNDS.length; ml++) {
+                for (int tl = 0; tl <= TEMPERATURE_BOUNDS.length; tl++) {
+                    for (int al = 0; al <= ARIDITY_BOUNDS.length; al++) {
+                        HexType type = determineHexType(lowerBound(hl, HEIGHT_BOUNDS), lowerBound(ml, MOISTURE_BOUNDS),
+                                                        lowerBound(tl, TEMPERATURE_BOUNDS),
+                                                        lowerBound(al, ARIDITY_BOUNDS));
+                        table[hl * HEIGHT_STRIDE + ml * MOISTURE_STRIDE + tl * TEMPERATURE_STRIDE + al] =
+                            (byte) type.ordinal();
+                    }
+                }
+            }
+        }
+        return table;
+    }
+
+    private static float lowerBound(int level, float[] bounds) {
+        return level == 0 ? 0f : bounds[level - 1];
+    }
+
+    /**
+     * Определяет тип гекса на основе высоты, влажности, температуры и аридности. Логика выстроена в виде каскада
+     * условий от самого определяющего фактора (высота) к более тонким (влажность, аридность).
+     * <p>
+     * ИЕРАРХИЯ ПРИНЯТИЯ РЕШЕНИЙ: 1. ВЫСОТА: вода/берег/суша 2. Для суши: высотные пояса (низменности, равнины,
+     * возвышенности, горы) 3. В каждом поясе: влажность и аридность определяют конкретный биом
+     * <p>
+     * Пороговые значения (0.4, 0.6 и т.д.) - ключевые параметры для балансировки мира. Их можно настраивать для
+     * изменения соотношения биомов.
+     */
+    public static HexType determineHexType(float height, float moisture, float temperature, float aridity) {
+        // 1. Вода и береговая линия - самые определяющие факторы
+        if (height < 0.4f) {
+            return HexType.OCEAN;
+        } else if (height < 0.45f) {
+            return HexType.COAST; // Узкая полоса побережья
+        }
+
+        // 2. СУША: Разделение по высотным поясам
+        if (height > 0.8f) {
+            // Высокогорье
+            if (temperature < 0.3f) {
+                return HexType.MOUNTAINS; // Снежные горы
+            } else if (aridity > 0.7f && moisture < 0.4f) {
+                return HexType.DESERT; // Высокогорная пустыня (редко)
+            } else {
+                return HexType.MOUNTAINS; // Обычные горы
+            }
+        } else if (height > 0.65f) {
+            // Возвышенности
+            if (aridity > 0.6f && moisture < 0.4f) {
+                return HexType.DESERT;
+            } else if (moisture < 0.5f) {
+                return HexType.PLAINS;
+            } else if (moisture < 0.7f) {
+                return HexType.FOREST;
+            } else {
+                return HexType.SWAMP;
+            }
+        } else if (height > 0.5f) {
+            // Равнины
+            if (aridity > 0.6f && moisture < 0.4f) {
+                return HexType.DESERT;
+            } else if (moisture < 0.6f) {
+                return HexType.PLAINS;
+            } else if (moisture < 0.8f) {
+                return HexType.FOREST;
+            } else {
+                return HexType.SWAMP;
+            }
+        } else {
+            // Низменности
+            if (aridity > 0.6f && moisture < 0.4f) {
+                return HexType.DESERT;
+            } else if (moisture < 0.6f) {
+                return HexType.PLAINS;
+            } else if (moisture < 0.8f) {
+                return HexType.FOREST;
+            } else {
+                return HexType.SWAMP;
+            }
+        }
+    }
+}
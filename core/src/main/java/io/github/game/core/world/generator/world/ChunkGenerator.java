@@ -0,0 +1,19 @@
+package io.github.game.core.world.generator.world;
+
+/**
+ * Генератор, способный строить мир по частям: любой чанк можно сгенерировать отдельно, в любом порядке
+ * и повторно. Типы и seed гексов - чистые функции seed мира и абсолютных координат, поэтому чанк, выгруженный
+ * из памяти без изменений, достаточно сгенерировать заново.
+ */
+public interface ChunkGenerator {
+
+    /**
+     * Генерирует чанк (cq, cr): гексы с q из [cq * size, (cq + 1) * size) и r из [cr * size, (cr + 1) * size)
+     *
+     * @param size            сторона чанка в гексах
+     * @param types           ординалы типов построчно внутри чанка, заранее заполнены NO_HEX; клетки за
+     *                        границами мира остаются NO_HEX
+     * @param generationSeeds seed генерации гексов в том же порядке
+     */
+    void generateChunk(int cq, int cr, int size, byte[] types, long[] generationSeeds);
+}
@@ -2,24 +2,76 @@ package io.github.game.core.world.generator.world;
 
 import com.badlogic.gdx.Gdx;
 import io.github.game.core.world.HexMap;
+import io.github.game.core.world.generator.GenerationCache;
 import io.github.game.core.world.generator.GenerationContext;
-import io.github.game.core.world.hex.Hex;
+import io.github.game.core.world.generator.GenerationMonitor;
+import io.github.game.core.world.generator.PlacementMosaic;
+import io.github.game.core.world.generator.noise.NoiseRowKernel;
+import io.github.game.core.world.generator.noise.PerlinNoise;
 import io.github.game.core.world.hex.HexType;
+import io.github.game.core.world.storage.ChunkedHexStorage;
+import io.github.game.core.world.storage.ChunkedHexStorage.ChunkSource;
+import io.github.game.core.world.storage.HexStorage;
+import java.util.Arrays;
 import java.util.Random;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.stream.IntStream;
+import lombok.Setter;
 
 /**
  * Продвинутый генератор мира с использованием многоуровневого шума Перлина. Использует комбинированный подход с
  * континентальным и климатическим моделированием.
  * <p>
- * ОСНОВНАЯ ЛОГИКА: 1. Генерация отдельных карт высот, влажности, температуры и аридности с помощью шума Перлина. 2.
- * Нормализация каждой карты в диапазон [0, 1] для согласованности. 3. Комбинирование параметров для каждого гекса в
- * функции determineHexType(). 4. Создание гексов и сбор статистики генерации.
+ * ОСНОВНАЯ ЛОГИКА: 1. Генерация карт высот, влажности, температуры и аридности с помощью шума Перлина вместе с
+ * диапазонами значений (один параллельный проход по строкам). 2. Нормализация каждой карты в диапазон [0, 1] для
+ * согласованности, классификация параметров каждого гекса {@link BiomeClassifier} и запись гексов в карту
+ * (второй проход). 3. Сбор статистики генерации.
+ * <p>
+ * Для больших миров (от STREAMING_THRESHOLD клеток или по {@link #setStreaming}) используется потоковый режим:
+ * тайлы генерируются и классифицируются сразу, без полных карт параметров.
+ * <p>
+ * Потоковый результат не зависит от порядка тайлов: каждая клетка - чистая функция seed, размеров мира и ее
+ * координат. Поэтому генератор умеет строить мир по чанкам ({@link ChunkGenerator}), и карта с
+ * {@link ChunkedHexStorage} по умолчанию заполняется лениво, по мере приближения камеры. Растры признаков и
+ * локации для такой карты строятся по мозаике окон, разнесенных по всему миру ({@link PlacementMosaic}),
+ * поэтому при запуске генерируются только чанки окон. Размещение по мозаике приближенное: местность между
+ * окнами не учитывается.
+ * <p>
+ * Шум зависит только от нормализованных координат, поэтому в режиме предпросмотра ({@link #setPreview})
+ * генератор сначала считает мир на сетках 1/8 и 1/4 разрешения и публикует их через
+ * {@link GenerationMonitor#publishPreview}, а затем генерирует полное разрешение.
  */
-public class ProceduralWorldGenerator implements WorldGenerator {
+public class ProceduralWorldGenerator implements WorldGenerator, ChunkGenerator, ChunkSource {
+
+    // Версия алгоритма для ключа кэша: увеличивать при любом изменении результата генерации
+    private static final int ALGORITHM_VERSION = 1;
+
+    // Строк на одну параллельную задачу генерации
+    private static final int ROWS_PER_TASK = 8;
+
+    // Индексы карт параметров
+    private static final int HEIGHT = 0;
+    private static final int MOISTURE = 1;
+    private static final int TEMPERATURE = 2;
+    private static final int ARIDITY = 3;
+    private static final int PARAMETERS = 4;
+
+    private static final HexType[] HEX_TYPES = HexType.values();
+
+    // Потоковая генерация включается по умолчанию с этого числа клеток (полные карты параметров - 16 байт на клетку)
+    private static final long STREAMING_THRESHOLD = 25_000_000L;
+    // Сторона тайла потоковой генерации
+    private static final int TILE_SIZE = 256;
+    // Отсчетов по каждой оси в предварительном проходе оценки диапазонов
+    private static final int PREPASS_RESOLUTION = 512;
+    // Шаги сеток уровней предпросмотра, от грубого к точному
+    private static final int[] PREVIEW_STEPS = {8, 4};
+    // Предпросмотр включается по умолчанию с этого числа клеток
+    private static final long PREVIEW_THRESHOLD = 1_000_000L;
+    // Окна мозаики карты по требованию, в которой строятся растры и размещаются локации: 8x8 окон по 2x2 чанка
+    private static final int PLACEMENT_WINDOW_SIZE = 2 * ChunkedHexStorage.CHUNK_SIZE;
+    private static final int PLACEMENT_WINDOWS = 8;
+    // Отсчетов по каждой оси при оценке типа еще не сгенерированного чанка
+    private static final int CHUNK_SAMPLES = 4;
 
     private final int width;
     private final int height;
@@ -35,7 +87,32 @@ public class ProceduralWorldGenerator implements WorldGenerator {
     private final PerlinNoise mountainNoise;     // Специфически для горных хребтов
     private final PerlinNoise aridityNoise;
 
-    private GenerationContext context;
+    /**
+     * Потоковая генерация тайлами без полных карт параметров, см. {@link #generateStreaming}
+     */
+    @Setter
+    private boolean streaming;
+
+    /**
+     * В потоковом режиме не генерировать карту с чанками сразу, а отдать ей генератор как источник чанков
+     */
+    @Setter
+    private boolean onDemand = true;
+
+    /**
+     * Классифицировать каскадом условий {@link BiomeClassifier#determineHexType} вместо таблицы
+     */
+    @Setter
+    private boolean referenceClassifier;
+
+    /**
+     * Перед генерацией публиковать уровни предпросмотра {@link #PREVIEW_STEPS}
+     */
+    @Setter
+    private boolean preview;
+
+    // Нормализация потокового режима и генерации по чанкам, оценивается один раз
+    private volatile Normalization normalizationEstimate;
 
     /**
      * Конструктор генератора мира
@@ -44,130 +121,76 @@ public class ProceduralWorldGenerator implements WorldGenerator {
      * @param height высота мира в гексах
      * @param seed   seed для генерации
      */
-    public ProceduralWorldGenerator(int width, int height, long seed, GenerationContext context) {
-        this.context = context;
+    public ProceduralWorldGenerator(int width, int height, long seed) {
+        this(width, height, seed, NoiseRowKernel.preferred());
+    }
+
+    /**
+     * Конструктор генератора мира с заданным ядром пакетного шума (для замеров и сравнения ядер)
+     *
+     * @param kernel ядро, которым считаются строки шума; результат от ядра не зависит
+     */
+    public ProceduralWorldGenerator(int width, int height, long seed, NoiseRowKernel kernel) {
         this.width = width;
         this.height = height;
         this.seed = seed;
         this.random = new Random(seed);
         // Каждый тип шума использует свой seed для независимых паттернов
-        this.continentalNoise = new PerlinNoise(seed);
-        this.terrainNoise = new PerlinNoise(seed + 1);
-        this.moistureNoise = new PerlinNoise(seed + 2);
-        this.temperatureNoise = new PerlinNoise(seed + 3);
-        this.mountainNoise = new PerlinNoise(seed + 4);
-        this.aridityNoise = new PerlinNoise(seed + 5);
+        this.continentalNoise = new PerlinNoise(seed, kernel);
+        this.terrainNoise = new PerlinNoise(seed + 1, kernel);
+        this.moistureNoise = new PerlinNoise(seed + 2, kernel);
+        this.temperatureNoise = new PerlinNoise(seed + 3, kernel);
+        this.mountainNoise = new PerlinNoise(seed + 4, kernel);
+        this.aridityNoise = new PerlinNoise(seed + 5, kernel);
+        this.streaming = (long) width * height >= STREAMING_THRESHOLD;
+        this.preview = (long) width * height >= PREVIEW_THRESHOLD;
+    }
+
+    /**
+     * Версия алгоритма, потоковый режим (другая нормализация), заполнение по требованию (снимок такой карты -
+     * только типы чанков) и классификатор. От ядра шума и предпросмотра результат не зависит
+     */
+    @Override
+    public long algorithmHash() {
+        long hash = GenerationCache.combine(ALGORITHM_VERSION, streaming ? 1 : 0);
+        hash = GenerationCache.combine(hash, onDemand ? 1 : 0);
+        return GenerationCache.combine(hash, referenceClassifier ? 1 : 0);
     }
 
     @Override
-    public HexMap generateWorld() {
-        // Создаем карту с указанием размеров
+    public HexMap generateWorld(GenerationContext context) {
+        // Карта запуска уже создана с нужными размерами
         HexMap map = context.getHexMap();
+        GenerationMonitor monitor = context.getMonitor();
 
-        // Массивы для сбора статистики по типам гексов
-        int[] typeCounts = new int[HexType.values().length];
-        int totalCount = 0;
-
-        // Переменные для отслеживания диапазонов параметров (отладка/балансировка)
-        float minHeight = Float.MAX_VALUE;
-        float maxHeight = Float.MIN_VALUE;
-        float minMoisture = Float.MAX_VALUE;
-        float maxMoisture = Float.MIN_VALUE;
-        float minTemperature = Float.MAX_VALUE;
-        float maxTemperature = Float.MIN_VALUE;
-        float minAridity = Float.MAX_VALUE;
-        float maxAridity = Float.MIN_VALUE;
-
-        // Предварительная генерация всех карт параметров
-        float[][] heightMap = new float[width][height];
-        float[][] moistureMap = new float[width][height];
-        float[][] temperatureMap = new float[width][height];
-        float[][] aridityMap = new float[width][height];
-
-        // ПАРАЛЛЕЛЬНАЯ ГЕНЕРАЦИЯ КАРТ: увеличивает производительность на больших картах
-        IntStream.range(0, width).parallel() // Использует многопоточность для ускорения
-                 .forEach(q -> {
-                     for (int r = 0; r < height; r++) {
-                         // Нормализованные координаты позволяют масштабировать шум независимо от размера карты
-                         float nx = (float) q / width;
-                         float ny = (float) r / height;
-
-                         // Заполняем карты исходными значениями
-                         heightMap[q][r] = generateHeightValue(nx, ny);
-                         moistureMap[q][r] = generateMoistureValue(nx, ny);
-                         temperatureMap[q][r] = generateTemperatureValue(nx, ny);
-                         aridityMap[q][r] = generateAridityValue(nx, ny);
-                     }
-                 });
-
-        long startTime = System.currentTimeMillis();
+        if (preview) {
+            publishPreviews(monitor);
+        }
 
-        // МНОГОПОТОЧНАЯ НОРМАЛИЗАЦИЯ: каждая карта нормализуется в отдельном потоке
-        ExecutorService executorService = Executors.newFixedThreadPool(4);
-        CompletableFuture[] futures = new CompletableFuture[]{
-            CompletableFuture.runAsync(() -> normalizeMap(heightMap), executorService),
-            CompletableFuture.runAsync(() -> normalizeMap(moistureMap), executorService),
-            CompletableFuture.runAsync(() -> normalizeMap(temperatureMap), executorService),
-            CompletableFuture.runAsync(() -> normalizeMap(aridityMap), executorService)};
-        CompletableFuture.allOf(futures).join(); // Ожидаем завершения всех задач
-        executorService.shutdown();
-
-        long duration = System.currentTimeMillis() - startTime;
-
-        Gdx.app.log("Custom", "Hex entities creation completed " + duration + " mils");
-
-        // ОСНОВНОЙ ЦИКЛ: создание гексов на основе нормализованных карт
-        for (int q = 0; q < width; q++) {
-            for (int r = 0; r < height; r++) {
-                totalCount++;
-
-                // Получаем нормализованные значения для текущего гекса
-                float heightValue = heightMap[q][r];
-                float moistureValue = moistureMap[q][r];
-                float temperatureValue = temperatureMap[q][r];
-                float aridityValue = aridityMap[q][r];
-
-                // Обновляем статистику диапазонов
-                minHeight = Math.min(minHeight, heightValue);
-                maxHeight = Math.max(maxHeight, heightValue);
-                minMoisture = Math.min(minMoisture, moistureValue);
-                maxMoisture = Math.max(maxMoisture, moistureValue);
-                minTemperature = Math.min(minTemperature, temperatureValue);
-                maxTemperature = Math.max(maxTemperature, temperatureValue);
-                minAridity = Math.min(minAridity, aridityValue);
-                maxAridity = Math.max(maxAridity, aridityValue);
-
-                // КЛЮЧЕВАЯ ЛОГИКА: определение типа гекса по комбинации параметров
-                HexType type = determineHexType(heightValue, moistureValue, temperatureValue, aridityValue);
-
-                // Статистика по типам
-                typeCounts[type.ordinal()]++;
-
-                // Создаем гекс. Уникальный seed на основе параметров позволяет
-                // дополнительно варьировать детали (растительность и т.д.)
-                Hex hex = new Hex(q, r, type);
-                hex.setGenerationSeed(
-                    (long) (heightValue * 1000 + moistureValue * 100 + temperatureValue * 10 + aridityValue * 1));
-
-                // Добавляем гекс на карту
-                try {
-                    map.addHex(hex);
-                } catch (IllegalArgumentException e) {
-                    Gdx.app.error("Generation", "Failed to add hex at (" + q + ", " + r + "): " + e.getMessage());
-                }
-            }
+        if (streaming && onDemand && map.getStorage() instanceof ChunkedHexStorage storage) {
+            attachOnDemand(context, storage, null);
+            return map;
         }
 
+        long startTime = System.currentTimeMillis();
+        GenerationStats stats = streaming ? generateStreaming(map, monitor) : generateInMemory(map, monitor);
+        Gdx.app.log("Generation", "Terrain generated in %d ms (%s, %s kernel)".formatted(
+            System.currentTimeMillis() - startTime, streaming ? "streaming" : "in memory",
+            continentalNoise.getKernel().getName()));
+
         // ВЫВОД СТАТИСТИКИ: полезно для балансировки и отладки
+        ValueRanges ranges = stats.ranges;
         Gdx.app.log("Generation", "World generation complete (%dx%d):".formatted(width, height));
-        Gdx.app.log("Generation", "Height range: %.2f - %.2f".formatted(minHeight, maxHeight));
-        Gdx.app.log("Generation", "Moisture range: %.2f - %.2f".formatted(minMoisture, maxMoisture));
-        Gdx.app.log("Generation", "Temperature range: %.2f - %.2f".formatted(minTemperature, maxTemperature));
-        Gdx.app.log("Generation", "Aridity range: %.2f - %.2f".formatted(minAridity, maxAridity));
+        Gdx.app.log("Generation", "Height range: %.2f - %.2f".formatted(ranges.min[HEIGHT], ranges.max[HEIGHT]));
+        Gdx.app.log("Generation", "Moisture range: %.2f - %.2f".formatted(ranges.min[MOISTURE], ranges.max[MOISTURE]));
+        Gdx.app.log("Generation", "Temperature range: %.2f - %.2f".formatted(ranges.min[TEMPERATURE],
+                                                                             ranges.max[TEMPERATURE]));
+        Gdx.app.log("Generation", "Aridity range: %.2f - %.2f".formatted(ranges.min[ARIDITY], ranges.max[ARIDITY]));
 
         // Распределение биомов в процентах
-        for (HexType type : HexType.values()) {
-            int count = typeCounts[type.ordinal()];
+        long totalCount = (long) width * height;
+        for (HexType type : HEX_TYPES) {
+            long count = stats.typeCounts[type.ordinal()];
             double percentage = (double) count / totalCount * 100;
             Gdx.app.log("Generation", "- %s: %d (%.1f%%)".formatted(type.getName(), count, percentage));
         }
@@ -176,176 +199,480 @@ public class ProceduralWorldGenerator implements WorldGenerator {
     }
 
     /**
-     * Нормализует карту для получения полного диапазона [0, 1] Это важно для согласованности пороговых значений в
-     * determineHexType
+     * Карта с чанками из кэша: генерировать ее нечего, чанки по-прежнему строятся по требованию, а типы чанков
+     * для отрисовки издалека берутся из снимка вместо оценки
      */
-    private void normalizeMap(float[][] map) {
-        float min = Float.MAX_VALUE;
-        float max = Float.MIN_VALUE;
-
-        // Находим минимальное и максимальное значения
-        for (int q = 0; q < width; q++) {
-            for (int r = 0; r < height; r++) {
-                min = Math.min(min, map[q][r]);
-                max = Math.max(max, map[q][r]);
-            }
+    @Override
+    public boolean resumeOnDemand(GenerationContext context, byte[] chunkTypes) {
+        HexMap map = context.getHexMap();
+        if (!streaming || !onDemand || !(map.getStorage() instanceof ChunkedHexStorage storage)) {
+            return false;
         }
+        storage.clear();
+        attachOnDemand(context, storage, chunkTypes);
+        map.invalidateTerrainMasks();
+        return true;
+    }
 
-        // Нормализуем значения
-        float range = max - min;
-        if (range > 0) {
-            for (int q = 0; q < width; q++) {
-                for (int r = 0; r < height; r++) {
-                    map[q][r] = (map[q][r] - min) / range;
+    /**
+     * Делает генератор источником чанков карты и строит по ней мозаику размещения для следующих шагов
+     *
+     * @param chunkTypes известные типы чанков или null - оценить, см. {@link ChunkedHexStorage#setChunkSource}
+     */
+    private void attachOnDemand(GenerationContext context, ChunkedHexStorage storage, byte[] chunkTypes) {
+        estimatedNormalization();
+        storage.setChunkSource(this, chunkTypes);
+        // Следующие шаги пайплайна работают с окнами, разнесенными по миру, а не со всем миром
+        PlacementMosaic mosaic = PlacementMosaic.sample(context.getHexMap(), PLACEMENT_WINDOW_SIZE, PLACEMENT_WINDOWS);
+        context.setPlacementMosaic(mosaic);
+        Gdx.app.log("Generation", "Terrain of %dx%d will be generated on demand in %dx%d chunks, placement mosaic %dx%d"
+            .formatted(width, height, ChunkedHexStorage.CHUNK_SIZE, ChunkedHexStorage.CHUNK_SIZE,
+                       mosaic.getMap().getWidth(), mosaic.getMap().getHeight()));
+    }
+
+    /**
+     * Публикует уровни предпросмотра от грубого к точному
+     */
+    private void publishPreviews(GenerationMonitor monitor) {
+        // Потоковый режим нормализует по оценке - предпросмотр с ней совпадает с итогом в своих узлах
+        Normalization normalization = streaming ? estimatedNormalization() : null;
+        for (int step : PREVIEW_STEPS) {
+            monitor.checkCancelled();
+            long startTime = System.currentTimeMillis();
+            WorldPreview level = generatePreview(step, normalization);
+            monitor.publishPreview(level);
+            Gdx.app.log("Generation", "Preview 1/%d (%dx%d) generated in %d ms".formatted(
+                step, level.getColumns(), level.getRows(), System.currentTimeMillis() - startTime));
+        }
+    }
+
+    /**
+     * Генерирует уровень предпросмотра в клетках (column * step, row * step) - с теми же нормализованными
+     * координатами, что у этих клеток при полной генерации
+     *
+     * @param normalization нормализация или null, чтобы оценить диапазоны по самим узлам уровня
+     */
+    private WorldPreview generatePreview(int step, Normalization normalization) {
+        int columns = (width + step - 1) / step;
+        int rows = (height + step - 1) / step;
+        float[] xs = new float[columns];
+        for (int i = 0; i < columns; i++) {
+            xs[i] = (float) (i * step) / width;
+        }
+
+        float[][] climate = new float[PARAMETERS][columns * rows];
+        ValueRanges rawRanges = IntStream.range(0, rows).parallel().mapToObj(row -> {
+            RowBuffers buffers = new RowBuffers(columns);
+            ValueRanges ranges = new ValueRanges();
+            generateRow(xs, (float) (row * step) / height, buffers);
+            for (int p = 0; p < PARAMETERS; p++) {
+                System.arraycopy(buffers.parameters[p], 0, climate[p], row * columns, columns);
+            }
+            ranges.include(climate, row * columns, (row + 1) * columns);
+            return ranges;
+        }).reduce(ValueRanges::merge).orElseGet(ValueRanges::new);
+
+        Normalization levelNormalization = normalization != null ? normalization
+                                                                 : new Normalization(rawRanges, true);
+        byte[] types = new byte[columns * rows];
+        IntStream.range(0, rows).parallel().forEach(row -> {
+            GenerationStats stats = new GenerationStats();
+            float[] values = new float[PARAMETERS];
+            for (int i = row * columns; i < (row + 1) * columns; i++) {
+                for (int p = 0; p < PARAMETERS; p++) {
+                    values[p] = climate[p][i];
+                }
+                classify(values, levelNormalization, stats, types, i);
+            }
+        });
+        return new WorldPreview(width, height, step, columns, rows, types);
+    }
+
+    /**
+     * Генерация с полными картами параметров: точные диапазоны для нормализации ценой 16 байт на клетку
+     */
+    private GenerationStats generateInMemory(HexMap map, GenerationMonitor monitor) {
+        int tasks = (height + ROWS_PER_TASK - 1) / ROWS_PER_TASK;
+
+        // Карты параметров - плоские массивы в построчном порядке, как в HexMap (индекс r * width + q)
+        float[][] climate = new float[PARAMETERS][width * height];
+        float[] xs = normalizedColumns(0, width);
+        monitor.beginWork(2L * tasks);
+
+        // ПРОХОД 1 (параллельно по полосам строк): шум пакетно по строкам и диапазоны значений полосы
+        ValueRanges rawRanges = IntStream.range(0, tasks).parallel().mapToObj(task -> {
+            monitor.checkCancelled();
+            RowBuffers row = new RowBuffers(width);
+            ValueRanges ranges = new ValueRanges();
+            for (int r = task * ROWS_PER_TASK; r < Math.min(height, (task + 1) * ROWS_PER_TASK); r++) {
+                generateRow(xs, (float) r / height, row);
+
+                int offset = r * width;
+                for (int p = 0; p < PARAMETERS; p++) {
+                    System.arraycopy(row.parameters[p], 0, climate[p], offset, width);
                 }
+                ranges.include(climate, offset, offset + width);
             }
+            monitor.worked(1);
+            return ranges;
+        }).reduce(ValueRanges::merge).orElseGet(ValueRanges::new);
+
+        // ПРОХОД 2 (параллельно по полосам строк): нормализация в [0, 1], классификация и запись в карту
+        Normalization normalization = new Normalization(rawRanges, false);
+        return IntStream.range(0, tasks).parallel().mapToObj(task -> {
+            monitor.checkCancelled();
+            GenerationStats stripeStats = new GenerationStats();
+            int fromRow = task * ROWS_PER_TASK;
+            int toRow = Math.min(height, fromRow + ROWS_PER_TASK);
+            int fromIndex = fromRow * width;
+            byte[] types = new byte[(toRow - fromRow) * width];
+            long[] seeds = new long[types.length];
+            float[] values = new float[PARAMETERS];
+
+            for (int i = 0; i < types.length; i++) {
+                for (int p = 0; p < PARAMETERS; p++) {
+                    values[p] = climate[p][fromIndex + i];
+                }
+                seeds[i] = classify(values, normalization, stripeStats, types, i);
+            }
+
+            writeTile(map, 0, width, fromRow, toRow, types, seeds);
+            monitor.worked(1);
+            return stripeStats;
+        }).reduce(GenerationStats::merge).orElseGet(GenerationStats::new);
+    }
+
+    /**
+     * Потоковая генерация: мир считается тайлами TILE_SIZE x TILE_SIZE, каждый тайл сразу классифицируется и
+     * пишется в карту. Память генератора - буферы одного тайла на поток, от размера мира не зависит.
+     * <p>
+     * Диапазоны для нормализации оцениваются предварительным проходом по сетке PREPASS_RESOLUTION x
+     * PREPASS_RESOLUTION отсчетов; значения за пределами оценки прижимаются к [0, 1]. Поэтому результат
+     * может немного отличаться от генерации в памяти на границах биомов, шум в каждой клетке тот же.
+     */
+    private GenerationStats generateStreaming(HexMap map, GenerationMonitor monitor) {
+        Normalization normalization = estimatedNormalization();
+        int tilesQ = (width + TILE_SIZE - 1) / TILE_SIZE;
+        int tilesR = (height + TILE_SIZE - 1) / TILE_SIZE;
+        monitor.beginWork((long) tilesQ * tilesR);
+
+        return IntStream.range(0, tilesQ * tilesR).parallel().mapToObj(tile -> {
+            monitor.checkCancelled();
+            int fromQ = (tile % tilesQ) * TILE_SIZE;
+            int toQ = Math.min(width, fromQ + TILE_SIZE);
+            int fromRow = (tile / tilesQ) * TILE_SIZE;
+            int toRow = Math.min(height, fromRow + TILE_SIZE);
+
+            GenerationStats tileStats = new GenerationStats();
+            byte[] types = new byte[(toQ - fromQ) * (toRow - fromRow)];
+            long[] seeds = new long[types.length];
+            generateTile(fromQ, toQ, fromRow, toRow, toQ - fromQ, normalization, tileStats, types, seeds);
+
+            writeTile(map, fromQ, toQ, fromRow, toRow, types, seeds);
+            monitor.worked(1);
+            return tileStats;
+        }).reduce(GenerationStats::merge).orElseGet(GenerationStats::new);
+    }
+
+    /**
+     * Генерирует чанк теми же вычислениями, что и потоковый режим: результат совпадает с потоковой генерацией
+     * бит в бит при любом порядке чанков
+     */
+    @Override
+    public void generateChunk(int cq, int cr, int size, byte[] types, long[] generationSeeds) {
+        int fromQ = cq * size;
+        int fromRow = cr * size;
+        int toQ = Math.min(width, fromQ + size);
+        int toRow = Math.min(height, fromRow + size);
+        if (fromQ >= toQ || fromRow >= toRow) {
+            return;
         }
+        generateTile(fromQ, toQ, fromRow, toRow, size, estimatedNormalization(), new GenerationStats(), types,
+                     generationSeeds);
     }
 
     /**
-     * Генерирует значение высоты на основе шума Перлина. Ключевые особенности: - continentalNoise: задает базовые
-     * очертания континентов (крупные формы) - terrainNoise: добавляет детализацию рельефа (фрактальный шум) -
-     * mountainNoise: создает специфические горные хребты - plateNoise: очень низкочастотный шум для тектонических плит
-     * - mountainRidge: высокочастотный шум для острых горных пиков - Комбинирование с весами: основные формы + детали +
-     * горы - Возведение в степень (1.3): увеличивает контраст, подчеркивая долины и пики
+     * Оценивает преобладающий тип чанка по сетке CHUNK_SAMPLES x CHUNK_SAMPLES его гексов теми же вычислениями,
+     * что и генерация. Нужна, чтобы мир по требованию можно было нарисовать издалека, не генерируя чанки
      */
-    private float generateHeightValue(float nx, float ny) {
-        // Континентальный шум - определяет основные массы суши
-        float continentalValue = continentalNoise.noise(nx * 1.2f, ny * 1.2f);
-        continentalValue = (continentalValue + 1.0f) / 2.0f;
+    @Override
+    public int sampleChunk(int cq, int cr, int size) {
+        int fromQ = cq * size;
+        int fromRow = cr * size;
+        int chunkWidth = Math.min(width, fromQ + size) - fromQ;
+        int chunkHeight = Math.min(height, fromRow + size) - fromRow;
+        if (chunkWidth <= 0 || chunkHeight <= 0) {
+            return HexStorage.NO_HEX;
+        }
 
-        // Детализированный шум рельефа (фрактальный шум с октавами)
-        float terrainValue = terrainNoise.noise(nx * 4, ny * 4) * 0.5f + terrainNoise.noise(nx * 8, ny * 8) * 0.3f +
-                             terrainNoise.noise(nx * 16, ny * 16) * 0.2f;
-        terrainValue = (terrainValue + 1.0f) / 2.0f;
+        int samplesQ = Math.min(CHUNK_SAMPLES, chunkWidth);
+        int samplesR = Math.min(CHUNK_SAMPLES, chunkHeight);
+        float[] xs = new float[samplesQ];
+        for (int i = 0; i < samplesQ; i++) {
+            xs[i] = (float) (fromQ + sampleIndex(i, samplesQ, chunkWidth)) / width;
+        }
 
-        // Горный шум - создает высокие горные области
-        float mountainValue = mountainNoise.noise(nx * 6, ny * 6);
-        mountainValue = (mountainValue + 1.0f) / 2.0f;
-        mountainValue = (float) Math.pow(mountainValue, 2.2f); // Усиливаем пики
+        Normalization normalization = estimatedNormalization();
+        GenerationStats stats = new GenerationStats();
+        RowBuffers row = new RowBuffers(samplesQ);
+        float[] values = new float[PARAMETERS];
+        byte[] type = new byte[1];
+        for (int j = 0; j < samplesR; j++) {
+            generateRow(xs, (float) (fromRow + sampleIndex(j, samplesR, chunkHeight)) / height, row);
+            for (int i = 0; i < samplesQ; i++) {
+                for (int p = 0; p < PARAMETERS; p++) {
+                    values[p] = row.parameters[p][i];
+                }
+                classify(values, normalization, stats, type, 0);
+            }
+        }
 
-        // Низкочастотный шум для тектонических плит
-        float plateNoise = continentalNoise.noise(nx * 0.3f, ny * 0.3f);
-        plateNoise = (plateNoise + 1.0f) / 2.0f;
+        int best = HexStorage.NO_HEX;
+        long bestCount = 0;
+        for (int t = 0; t < HEX_TYPES.length; t++) {
+            if (stats.typeCounts[t] > bestCount) {
+                best = t;
+                bestCount = stats.typeCounts[t];
+            }
+        }
+        return best;
+    }
 
-        // Высокочастотный шум для горных хребтов
-        float mountainRidge = mountainNoise.noise(nx * 8, ny * 8);
-        mountainRidge = (float) Math.pow(mountainRidge, 3); // Создать более выраженные хребты
+    /**
+     * Генерирует и классифицирует прямоугольник [fromQ, toQ) x [fromRow, toRow) в буферы со строками длины stride
+     */
+    private void generateTile(int fromQ, int toQ, int fromRow, int toRow, int stride, Normalization normalization,
+                              GenerationStats stats, byte[] types, long[] seeds) {
+        int tileWidth = toQ - fromQ;
+        float[] xs = normalizedColumns(fromQ, toQ);
+        RowBuffers row = new RowBuffers(tileWidth);
+        float[] values = new float[PARAMETERS];
+
+        for (int r = fromRow; r < toRow; r++) {
+            generateRow(xs, (float) r / height, row);
+            int offset = (r - fromRow) * stride;
+            for (int i = 0; i < tileWidth; i++) {
+                for (int p = 0; p < PARAMETERS; p++) {
+                    values[p] = row.parameters[p][i];
+                }
+                seeds[offset + i] = classify(values, normalization, stats, types, offset + i);
+            }
+        }
+    }
 
-        // Комбинируем все шумы с весовыми коэффициентами
-        float heightValue = continentalValue * 0.5f + terrainValue * 0.3f + mountainValue * 0.2f + plateNoise * 0.1f +
-                            mountainRidge * 0.15f;
+    /**
+     * Нормализация по оценке диапазонов {@link #estimateRanges()}. Оценка зависит только от seed и размеров
+     * мира, поэтому гонка первых вызовов безвредна - все получат одинаковый результат
+     */
+    private Normalization estimatedNormalization() {
+        Normalization normalization = normalizationEstimate;
+        if (normalization == null) {
+            normalization = new Normalization(estimateRanges(), true);
+            normalizationEstimate = normalization;
+        }
+        return normalization;
+    }
+
+    /**
+     * Оценка диапазонов параметров по редкой равномерной сетке, включающей крайние строки и столбцы
+     */
+    private ValueRanges estimateRanges() {
+        int samplesQ = Math.min(width, PREPASS_RESOLUTION);
+        int samplesR = Math.min(height, PREPASS_RESOLUTION);
+        float[] xs = new float[samplesQ];
+        for (int i = 0; i < samplesQ; i++) {
+            xs[i] = (float) sampleIndex(i, samplesQ, width) / width;
+        }
 
-        // Усиливаем контраст для создания более выраженного рельефа
-        heightValue = (float) Math.pow(heightValue, 1.3f);
+        return IntStream.range(0, samplesR).parallel().mapToObj(i -> {
+            RowBuffers row = new RowBuffers(samplesQ);
+            ValueRanges ranges = new ValueRanges();
+            generateRow(xs, (float) sampleIndex(i, samplesR, height) / height, row);
+            ranges.include(row.parameters, 0, samplesQ);
+            return ranges;
+        }).reduce(ValueRanges::merge).orElseGet(ValueRanges::new);
+    }
 
-        return heightValue;
+    /**
+     * i-й из samples равномерно расположенных индексов в [0, size - 1]
+     */
+    private static int sampleIndex(int i, int samples, int size) {
+        return samples > 1 ? (int) ((long) i * (size - 1) / (samples - 1)) : 0;
     }
 
     /**
-     * Генерирует значение влажности. Использует фрактальный шум (октавы) для создания естественных паттернов осадков.
+     * Нормализованные координаты столбцов fromQ .. toQ - 1. Позволяют масштабировать шум независимо от
+     * размера карты
      */
-    private float generateMoistureValue(float nx, float ny) {
-        // Многоуровневый шум для влажности (фрактальный шум)
-        float noiseValue = moistureNoise.noise(nx * 3, ny * 3) * 0.6f + moistureNoise.noise(nx * 6, ny * 6) * 0.3f +
-                           moistureNoise.noise(nx * 12, ny * 12) * 0.1f;
+    private float[] normalizedColumns(int fromQ, int toQ) {
+        float[] xs = new float[toQ - fromQ];
+        for (int q = fromQ; q < toQ; q++) {
+            xs[q - fromQ] = (float) q / width;
+        }
+        return xs;
+    }
 
-        return (noiseValue + 1.0f) / 2.0f;
+    /**
+     * Все параметры строки
+     */
+    private void generateRow(float[] xs, float ny, RowBuffers row) {
+        generateHeightRow(xs, ny, row);
+        generateMoistureRow(xs, ny, row);
+        generateTemperatureRow(xs, ny, row);
+        generateAridityRow(xs, ny, row);
     }
 
     /**
-     * Генерирует значение температуры. Особенности: - Фрактальный шум для базового распределения - Широтный градиент
-     * (latitudeEffect): температура падает к полюсам (ny = Y-координата) - Клиппинг значения: ограничение диапазона
-     * [0.1, 1.0]
+     * Нормализует сырые значения клетки (на месте), определяет тип и учитывает его в статистике
+     *
+     * @return seed генерации гекса
      */
-    private float generateTemperatureValue(float nx, float ny) {
-        // Многоуровневый шум для температуры
-        float noiseValue = temperatureNoise.noise(nx * 2, ny * 2) * 0.7f +
-                           temperatureNoise.noise(nx * 4, ny * 4) * 0.3f;
+    private long classify(float[] values, Normalization normalization, GenerationStats stats, byte[] types,
+                          int index) {
+        // Нормализуем значения: полный диапазон [0, 1] важен для пороговых значений классификатора
+        normalization.apply(values);
+        stats.ranges.include(values);
+
+        // КЛЮЧЕВАЯ ЛОГИКА: определение типа гекса по комбинации параметров
+        float height = values[HEIGHT];
+        float moisture = values[MOISTURE];
+        float temperature = values[TEMPERATURE];
+        float aridity = values[ARIDITY];
+        int type = referenceClassifier
+                   ? BiomeClassifier.determineHexType(height, moisture, temperature, aridity).ordinal()
+                   : BiomeClassifier.lookup(height, moisture, temperature, aridity);
+        stats.typeCounts[type]++;
+        types[index] = (byte) type;
+
+        // Уникальный seed на основе параметров позволяет
+        // дополнительно варьировать детали (растительность и т.д.)
+        return (long) (values[HEIGHT] * 1000 + values[MOISTURE] * 100 + values[TEMPERATURE] * 10 +
+                       values[ARIDITY] * 1);
+    }
 
-        // Нормализуем шум к диапазону [0, 1]
-        noiseValue = (noiseValue + 1.0f) / 2.0f;
+    /**
+     * Записывает классифицированный прямоугольник [fromQ, toQ) x [fromRow, toRow) в карту. Хранилища карты не
+     * потокобезопасны на запись, поэтому тайлы пишутся по очереди
+     */
+    private void writeTile(HexMap map, int fromQ, int toQ, int fromRow, int toRow, byte[] types, long[] seeds) {
+        int tileWidth = toQ - fromQ;
+        synchronized (map) {
+            for (int r = fromRow; r < toRow; r++) {
+                int offset = (r - fromRow) * tileWidth;
+                for (int q = fromQ; q < toQ; q++) {
+                    int i = offset + q - fromQ;
+                    try {
+                        map.setHex(q, r, HEX_TYPES[types[i]], seeds[i]);
+                    } catch (IllegalArgumentException e) {
+                        Gdx.app.error("Generation",
+                                      "Failed to add hex at (" + q + ", " + r + "): " + e.getMessage());
+                    }
+                }
+            }
+        }
+    }
 
-        // Добавляем широтный градиент (холоднее к полюсам)
-        float latitudeEffect = Math.abs(ny - 0.5f) * 2.0f; // 0 на экваторе, 1 на полюсах
-        noiseValue -= latitudeEffect * 0.4f;
+    /**
+     * Генерирует строку значений высоты на основе шума Перлина. Ключевые особенности: - continentalNoise: задает
+     * базовые очертания континентов (крупные формы) - terrainNoise: добавляет детализацию рельефа (фрактальный шум) -
+     * mountainNoise: создает специфические горные хребты - plateNoise: очень низкочастотный шум для тектонических
+     * плит - mountainRidge: высокочастотный шум для острых горных пиков - Комбинирование с весами: основные формы +
+     * детали + горы - Возведение в степень (1.3): увеличивает контраст, подчеркивая долины и пики
+     */
+    private void generateHeightRow(float[] xs, float ny, RowBuffers row) {
+        row.clearOctaves();
+
+        // Континентальный шум - определяет основные массы суши
+        continentalNoise.accumulateRow(xs, xs.length, ny, 1.2f, 1f, row.continental);
+        // Детализированный шум рельефа (фрактальный шум с октавами)
+        terrainNoise.accumulateRow(xs, xs.length, ny, 4, 0.5f, row.terrain);
+        terrainNoise.accumulateRow(xs, xs.length, ny, 8, 0.3f, row.terrain);
+        terrainNoise.accumulateRow(xs, xs.length, ny, 16, 0.2f, row.terrain);
+        // Горный шум - создает высокие горные области
+        mountainNoise.accumulateRow(xs, xs.length, ny, 6, 1f, row.mountain);
+        // Низкочастотный шум для тектонических плит
+        continentalNoise.accumulateRow(xs, xs.length, ny, 0.3f, 1f, row.plate);
+        // Высокочастотный шум для горных хребтов
+        mountainNoise.accumulateRow(xs, xs.length, ny, 8, 1f, row.ridge);
+
+        for (int q = 0; q < xs.length; q++) {
+            float continentalValue = (row.continental[q] + 1.0f) / 2.0f;
+            float terrainValue = (row.terrain[q] + 1.0f) / 2.0f;
 
-        // Ограничиваем диапазон для избежания экстремальных значений
-        return Math.max(0.1f, Math.min(1, noiseValue));
+            float mountainValue = (row.mountain[q] + 1.0f) / 2.0f;
+            mountainValue = (float) Math.pow(mountainValue, 2.2f); // Усиливаем пики
+
+            float plateNoise = (row.plate[q] + 1.0f) / 2.0f;
+
+            float mountainRidge = (float) Math.pow(row.ridge[q], 3); // Создать более выраженные хребты
+
+            // Комбинируем все шумы с весовыми коэффициентами
+            float heightValue = continentalValue * 0.5f + terrainValue * 0.3f + mountainValue * 0.2f +
+                                plateNoise * 0.1f + mountainRidge * 0.15f;
+
+            // Усиливаем контраст для создания более выраженного рельефа
+            row.height[q] = (float) Math.pow(heightValue, 1.3f);
+        }
     }
 
     /**
-     * Генерирует значение аридности (засушливости). Аридность может коррелировать с влажностью, но использует
-     * независимый шум для большего разнообразия биомов (например, высокогорные пустыни).
+     * Генерирует строку значений влажности. Использует фрактальный шум (октавы) для создания естественных
+     * паттернов осадков.
      */
-    private float generateAridityValue(float nx, float ny) {
-        // Многоуровневый шум для аридности
-        float noiseValue = aridityNoise.noise(nx * 2, ny * 2) * 0.7f + aridityNoise.noise(nx * 4, ny * 4) * 0.3f;
+    private void generateMoistureRow(float[] xs, float ny, RowBuffers row) {
+        float[] moisture = row.moisture;
+        Arrays.fill(moisture, 0f);
+
+        // Многоуровневый шум для влажности (фрактальный шум)
+        moistureNoise.accumulateRow(xs, xs.length, ny, 3, 0.6f, moisture);
+        moistureNoise.accumulateRow(xs, xs.length, ny, 6, 0.3f, moisture);
+        moistureNoise.accumulateRow(xs, xs.length, ny, 12, 0.1f, moisture);
 
-        return (noiseValue + 1.0f) / 2.0f;
+        for (int q = 0; q < xs.length; q++) {
+            moisture[q] = (moisture[q] + 1.0f) / 2.0f;
+        }
     }
 
     /**
-     * Определяет тип гекса на основе высоты, влажности, температуры и аридности. Логика выстроена в виде каскада
-     * условий от самого определяющего фактора (высота) к более тонким (влажность, аридность).
-     * <p>
-     * ИЕРАРХИЯ ПРИНЯТИЯ РЕШЕНИЙ: 1. ВЫСОТА: вода/берег/суша 2. Для суши: высотные пояса (низменности, равнины,
-     * возвышенности, горы) 3. В каждом поясе: влажность и аридность определяют конкретный биом
-     * <p>
-     * Пороговые значения (0.4, 0.6 и т.д.) - ключевые параметры для балансировки мира. Их можно настраивать для
-     * изменения соотношения биомов.
+     * Генерирует строку значений температуры. Особенности: - Фрактальный шум для базового распределения - Широтный
+     * градиент (latitudeEffect): температура падает к полюсам (ny = Y-координата) - Клиппинг значения: ограничение
+     * диапазона [0.1, 1.0]
      */
-    private HexType determineHexType(float height, float moisture, float temperature, float aridity) {
-        // 1. Вода и береговая линия - самые определяющие факторы
-        if (height < 0.4f) {
-            return HexType.OCEAN;
-        } else if (height < 0.45f) {
-            return HexType.COAST; // Узкая полоса побережья
+    private void generateTemperatureRow(float[] xs, float ny, RowBuffers row) {
+        float[] temperature = row.temperature;
+        Arrays.fill(temperature, 0f);
+
+        // Многоуровневый шум для температуры
+        temperatureNoise.accumulateRow(xs, xs.length, ny, 2, 0.7f, temperature);
+        temperatureNoise.accumulateRow(xs, xs.length, ny, 4, 0.3f, temperature);
+
+        // Широтный градиент (холоднее к полюсам) одинаков для всей строки
+        float latitudeEffect = Math.abs(ny - 0.5f) * 2.0f; // 0 на экваторе, 1 на полюсах
+
+        for (int q = 0; q < xs.length; q++) {
+            // Нормализуем шум к диапазону [0, 1]
+            float noiseValue = (temperature[q] + 1.0f) / 2.0f;
+            noiseValue -= latitudeEffect * 0.4f;
+
+            // Ограничиваем диапазон для избежания экстремальных значений
+            temperature[q] = Math.max(0.1f, Math.min(1, noiseValue));
         }
+    }
 
-        // 2. СУША: Разделение по высотным поясам
-        if (height > 0.8f) {
-            // Высокогорье
-            if (temperature < 0.3f) {
-                return HexType.MOUNTAINS; // Снежные горы
-            } else if (aridity > 0.7f && moisture < 0.4f) {
-                return HexType.DESERT; // Высокогорная пустыня (редко)
-            } else {
-                return HexType.MOUNTAINS; // Обычные горы
-            }
-        } else if (height > 0.65f) {
-            // Возвышенности
-            if (aridity > 0.6f && moisture < 0.4f) {
-                return HexType.DESERT;
-            } else if (moisture < 0.5f) {
-                return HexType.PLAINS;
-            } else if (moisture < 0.7f) {
-                return HexType.FOREST;
-            } else {
-                return HexType.SWAMP;
-            }
-        } else if (height > 0.5f) {
-            // Равнины
-            if (aridity > 0.6f && moisture < 0.4f) {
-                return HexType.DESERT;
-            } else if (moisture < 0.6f) {
-                return HexType.PLAINS;
-            } else if (moisture < 0.8f) {
-                return HexType.FOREST;
-            } else {
-                return HexType.SWAMP;
-            }
-        } else {
-            // Низменности
-            if (aridity > 0.6f && moisture < 0.4f) {
-                return HexType.DESERT;
-            } else if (moisture < 0.6f) {
-                return HexType.PLAINS;
-            } else if (moisture < 0.8f) {
-                return HexType.FOREST;
-            } else {
-                return HexType.SWAMP;
-            }
+    /**
+     * Генерирует строку значений аридности (засушливости). Аридность может коррелировать с влажностью, но
+     * использует независимый шум для большего разнообразия биомов (например, высокогорные пустыни).
+     */
+    private void generateAridityRow(float[] xs, float ny, RowBuffers row) {
+        float[] aridity = row.aridity;
+        Arrays.fill(aridity, 0f);
+
+        // Многоуровневый шум для аридности
+        aridityNoise.accumulateRow(xs, xs.length, ny, 2, 0.7f, aridity);
+        aridityNoise.accumulateRow(xs, xs.length, ny, 4, 0.3f, aridity);
+
+        for (int q = 0; q < xs.length; q++) {
+            aridity[q] = (aridity[q] + 1.0f) / 2.0f;
         }
     }
 
@@ -361,101 +688,132 @@ public class ProceduralWorldGenerator implements WorldGenerator {
     }
 
     /**
-     * Упрощенная реализация шума Перлина для процедурной генерации. Основные принципы: - permutation table: таблица
-     * псевдослучайных градиентов для воспроизводимости - fade-функция: сглаживает интерполяцию для естественного вида -
-     * grad-функция: вычисляет скалярное произведение для градиента - lerp: линейная интерполяция между значениями
-     * <p>
-     * Это классическая реализация, хорошо подходящая для задач генерации ландшафта.
+     * Минимумы и максимумы карт параметров. Начальные значения те же, что были у последовательного подсчета
+     * (максимум начинается с Float.MIN_VALUE)
      */
-    private static class PerlinNoise {
+    private static final class ValueRanges {
 
-        private final Random random;
-        private final int[] permutation; // Таблица перестановок для градиентов
+        final float[] min = new float[PARAMETERS];
+        final float[] max = new float[PARAMETERS];
 
-        public PerlinNoise(long seed) {
-            this.random = new Random(seed);
-            this.permutation = new int[512];
-            initializePermutation();
+        ValueRanges() {
+            Arrays.fill(min, Float.MAX_VALUE);
+            Arrays.fill(max, Float.MIN_VALUE);
         }
 
-        /**
-         * Основная функция шума Перлина
-         *
-         * @param x координата X
-         * @param y координата Y
-         * @return значение шума в диапазоне примерно [-1, 1]
-         */
-        public float noise(float x, float y) {
-            // Определяем единичный квадрат, в котором находится точка
-            int X = (int) Math.floor(x) & 255;
-            int Y = (int) Math.floor(y) & 255;
-
-            // Локальные координаты внутри квадрата
-            x -= Math.floor(x);
-            y -= Math.floor(y);
-
-            // Вычисляем fade-кривые для сглаживания
-            float u = fade(x);
-            float v = fade(y);
-
-            // Получаем градиенты для четырех углов квадрата
-            int a = permutation[X] + Y;
-            int aa = permutation[a];
-            int ab = permutation[a + 1];
-            int b = permutation[X + 1] + Y;
-            int ba = permutation[b];
-            int bb = permutation[b + 1];
-
-            // Интерполируем между градиентами
-            return lerp(v, lerp(u, grad(permutation[aa], x, y), grad(permutation[ba], x - 1, y)),
-                        lerp(u, grad(permutation[ab], x, y - 1), grad(permutation[bb], x - 1, y - 1)));
+        void include(float[][] maps, int from, int to) {
+            for (int p = 0; p < PARAMETERS; p++) {
+                float[] map = maps[p];
+                float mapMin = min[p];
+                float mapMax = max[p];
+                for (int i = from; i < to; i++) {
+                    mapMin = Math.min(mapMin, map[i]);
+                    mapMax = Math.max(mapMax, map[i]);
+                }
+                min[p] = mapMin;
+                max[p] = mapMax;
+            }
         }
 
-        /**
-         * Инициализация таблицы перестановок
-         */
-        private void initializePermutation() {
-            int[] p = new int[256];
-            for (int i = 0; i < 256; i++) {
-                p[i] = i;
+        void include(float[] values) {
+            for (int p = 0; p < PARAMETERS; p++) {
+                min[p] = Math.min(min[p], values[p]);
+                max[p] = Math.max(max[p], values[p]);
             }
+        }
 
-            // Перемешиваем массив используя seed
-            for (int i = 0; i < 256; i++) {
-                int j = random.nextInt(256);
-                int temp = p[i];
-                p[i] = p[j];
-                p[j] = temp;
+        ValueRanges merge(ValueRanges other) {
+            for (int p = 0; p < PARAMETERS; p++) {
+                min[p] = Math.min(min[p], other.min[p]);
+                max[p] = Math.max(max[p], other.max[p]);
             }
+            return this;
+        }
+    }
 
-            // Дублируем для упрощения вычислений (избегание операций modulo)
-            for (int i = 0; i < 256; i++) {
-                permutation[256 + i] = permutation[i] = p[i];
+    /**
+     * Нормализация сырых значений в [0, 1] по диапазонам: (value - min) / (max - min), если диапазон не пуст
+     */
+    private static final class Normalization {
+
+        final float[] min;
+        final float[] range = new float[PARAMETERS];
+        // прижимать к [0, 1]: нужно, когда диапазоны оценены, а не посчитаны точно
+        final boolean clamp;
+
+        Normalization(ValueRanges ranges, boolean clamp) {
+            this.min = ranges.min;
+            this.clamp = clamp;
+            for (int p = 0; p < PARAMETERS; p++) {
+                range[p] = ranges.max[p] - min[p];
             }
         }
 
-        /**
-         * Функция сглаживания (fade function) для плавной интерполяции
-         */
-        private float fade(float t) {
-            return t * t * t * (t * (t * 6 - 15) + 10);
+        void apply(float[] values) {
+            for (int p = 0; p < PARAMETERS; p++) {
+                if (range[p] > 0) {
+                    float value = (values[p] - min[p]) / range[p];
+                    values[p] = clamp ? Math.max(0f, Math.min(1f, value)) : value;
+                }
+            }
         }
+    }
 
-        /**
-         * Линейная интерполяция
-         */
-        private float lerp(float t, float a, float b) {
-            return a + t * (b - a);
+    /**
+     * Статистика полосы или тайла: диапазоны нормализованных параметров и число гексов каждого типа
+     */
+    private static final class GenerationStats {
+
+        final ValueRanges ranges = new ValueRanges();
+        final long[] typeCounts = new long[HEX_TYPES.length];
+
+        GenerationStats merge(GenerationStats other) {
+            ranges.merge(other.ranges);
+            for (int i = 0; i < typeCounts.length; i++) {
+                typeCounts[i] += other.typeCounts[i];
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Буферы одной строки (или строки тайла) пакетной генерации: итоговые значения параметров и промежуточные октавы высоты
+     */
+    private static final class RowBuffers {
+
+        final float[] height;
+        final float[] moisture;
+        final float[] temperature;
+        final float[] aridity;
+
+        final float[] continental;
+        final float[] terrain;
+        final float[] mountain;
+        final float[] plate;
+        final float[] ridge;
+
+        // итоговые значения по индексам HEIGHT .. ARIDITY
+        final float[][] parameters;
+
+        RowBuffers(int width) {
+            height = new float[width];
+            moisture = new float[width];
+            temperature = new float[width];
+            aridity = new float[width];
+            continental = new float[width];
+            terrain = new float[width];
+            mountain = new float[width];
+            plate = new float[width];
+            ridge = new float[width];
+            parameters = new float[][]{height, moisture, temperature, aridity};
         }
 
-        /**
-         * Вычисление градиента
-         */
-        private float grad(int hash, float x, float y) {
-            int h = hash & 15; // Младшие 4 бита определяют градиент
-            float u = h < 8 ? x : y;
-            float v = h < 4 ? y : (h == 12 || h == 14 ? x : 0);
-            return ((h & 1) == 0 ? u : -u) + ((h & 2) == 0 ? v : -v);
+        void clearOctaves() {
+            Arrays.fill(continental, 0f);
+            Arrays.fill(terrain, 0f);
+            Arrays.fill(mountain, 0f);
+            Arrays.fill(plate, 0f);
+            Arrays.fill(ridge, 0f);
         }
     }
 }
@@ -2,7 +2,6 @@ package io.github.game.core.world.generator.world;
 
 import io.github.game.core.world.HexMap;
 import io.github.game.core.world.generator.GenerationContext;
-import io.github.game.core.world.hex.Hex;
 import io.github.game.core.world.hex.HexType;
 
 /**
@@ -15,7 +14,6 @@ public class RectangularWorldGenerator implements WorldGenerator {
     private final int width;
     private final int height;
     private final HexType baseType;
-    private final GenerationContext context;
 
     /**
      * Создает генератор прямоугольной области
@@ -24,8 +22,7 @@ public class RectangularWorldGenerator implements WorldGenerator {
      * @param height высота области в гексах
      * @param seed
      */
-    public RectangularWorldGenerator(int width, int height, long seed, GenerationContext context) {
-        this.context = context;
+    public RectangularWorldGenerator(int width, int height, long seed) {
         this.startQ = 0;
         this.startR = 0;
         this.width = width;
@@ -39,14 +36,13 @@ public class RectangularWorldGenerator implements WorldGenerator {
      * @return карта с заполненной прямоугольной областью
      */
     @Override
-    public HexMap generateWorld() {
+    public HexMap generateWorld(GenerationContext context) {
         HexMap map = context.getHexMap();
 
         for (int q = startQ; q < startQ + width; q++) {
             for (int r = startR; r < startR + height; r++) {
-                // Создаем гекс и добавляем его на карту
-                Hex hex = new Hex(q, r, baseType);
-                map.addHex(hex);
+                // Добавляем гекс на карту без создания объекта
+                map.setHex(q, r, baseType, 0L);
             }
         }
         return map;
@@ -11,15 +11,13 @@ import io.github.game.core.world.generator.GenerationContext;
 public class SavedWorldGenerator implements WorldGenerator {
 
     private final String filePath;
-    private final GenerationContext context;
 
-    public SavedWorldGenerator(String filePath, GenerationContext context) {
+    public SavedWorldGenerator(String filePath) {
         this.filePath = filePath;
-        this.context = context;
     }
 
     @Override
-    public HexMap generateWorld() {
+    public HexMap generateWorld(GenerationContext context) {
         // Load from file
         // For now, placeholder - implement JSON deserialization
         Gdx.app.log("SavedWorldGenerator", "Loading world from: " + filePath);
@@ -1,21 +1,282 @@
 package io.github.game.core.world.generator.world;
 
+import io.github.game.core.world.HexMap;
+import io.github.game.core.world.generator.CacheableStep;
+import io.github.game.core.world.generator.ContextSlot;
+import io.github.game.core.world.generator.GenerationCache;
 import io.github.game.core.world.generator.GenerationContext;
-import io.github.game.core.world.generator.GeneratorStep;
+import io.github.game.core.world.storage.ChunkedHexStorage;
+import io.github.game.core.world.storage.HexStorage;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Set;
 
 /**
  * Step for generating the world map.
+ * <p>
+ * С хешем конфигурации генератора шаг кэшируется: снимок - типы и seed'ы гексов карты. Карты больше
+ * {@link #MAX_SNAPSHOT_CELLS} не копируются в память, а пишутся в файл кэша и читаются из него прямо через карту
+ * ({@link #isStreamed}). Карта на {@link ChunkedHexStorage}, которую генератор заполняет по требованию, -
+ * чистая функция конфигурации из ключа, поэтому ее снимок - только типы чанков для отрисовки издалека, а
+ * восстановление заново подключает генератор ({@link WorldGenerator#resumeOnDemand}). Карта на
+ * {@link ChunkedHexStorage}, сгенерированная сразу целиком, не кэшируется: ее файл занял бы 9 байт на клетку.
  */
-public class WorldGenerationStep implements GeneratorStep {
+public class WorldGenerationStep implements CacheableStep {
+
+    public static final long MAX_SNAPSHOT_CELLS = 16L * 1024 * 1024;
+
+    // Вид снимка в файле кэша
+    private static final byte TERRAIN = 0;
+    private static final byte ON_DEMAND = 1;
 
     private final WorldGenerator worldGenerator;
+    private final Long configHash;
 
+    /**
+     * Шаг без кэширования
+     */
     public WorldGenerationStep(WorldGenerator worldGenerator) {
         this.worldGenerator = worldGenerator;
+        this.configHash = null;
+    }
+
+    /**
+     * @param configHash хеш типа и конфигурации генератора, см. {@link WorldGeneratorConfig#contentHash()}
+     */
+    public WorldGenerationStep(WorldGenerator worldGenerator, long configHash) {
+        this.worldGenerator = worldGenerator;
+        this.configHash = configHash;
     }
 
     @Override
     public void execute(GenerationContext context) {
-        context.setHexMap(worldGenerator.generateWorld());
+        context.setHexMap(worldGenerator.generateWorld(context));
+    }
+
+    /**
+     * Карта контекста для генератора - только место записи, ее прежнее содержимое не читается
+     */
+    @Override
+    public Set<ContextSlot> reads() {
+        return EnumSet.noneOf(ContextSlot.class);
+    }
+
+    @Override
+    public Set<ContextSlot> writes() {
+        return EnumSet.of(ContextSlot.HEX_MAP);
+    }
+
+    @Override
+    public boolean isCacheable() {
+        return configHash != null;
+    }
+
+    /**
+     * Хеш конфигурации вместе с {@link WorldGenerator#algorithmHash()}: режимы генератора задаются после
+     * создания шага, поэтому хеш берется при запуске
+     */
+    @Override
+    public long configHash() {
+        return configHash == null ? 0 : GenerationCache.combine(configHash, worldGenerator.algorithmHash());
+    }
+
+    /**
+     * Карты больше {@link #MAX_SNAPSHOT_CELLS} в памяти (не на {@link ChunkedHexStorage})
+     */
+    @Override
+    public boolean isStreamed(GenerationContext context) {
+        HexMap map = context.getHexMap();
+        return !(map.getStorage() instanceof ChunkedHexStorage)
+            && (long) map.getWidth() * map.getHeight() > MAX_SNAPSHOT_CELLS;
+    }
+
+    @Override
+    public Object snapshot(GenerationContext context) {
+        HexMap map = context.getHexMap();
+        int width = map.getWidth();
+        int height = map.getHeight();
+        if (map.getStorage() instanceof ChunkedHexStorage storage) {
+            return storage.hasChunkSource() ? new OnDemandTerrain(width, height, storage.getChunkTypes()) : null;
+        }
+        if ((long) width * height > MAX_SNAPSHOT_CELLS) {
+            return null;
+        }
+
+        byte[] types = new byte[width * height];
+        long[] seeds = new long[width * height];
+        for (int r = 0; r < height; r++) {
+            for (int q = 0; q < width; q++) {
+                int index = r * width + q;
+                int ordinal = map.getTypeOrdinal(q, r);
+                types[index] = (byte) ordinal;
+                if (ordinal != HexStorage.NO_HEX) {
+                    seeds[index] = map.getGenerationSeed(q, r);
+                }
+            }
+        }
+        return new Terrain(width, height, types, seeds);
+    }
+
+    /**
+     * Заменяет содержимое карты контекста снимком. Запись идет в хранилище в обход карты, слушатели и
+     * пирамида получают одно оповещение об изменении всей карты
+     */
+    @Override
+    public void restore(GenerationContext context, Object snapshot) {
+        HexMap map = context.getHexMap();
+        if (snapshot instanceof OnDemandTerrain terrain) {
+            if (map.getWidth() != terrain.width() || map.getHeight() != terrain.height()
+                || !worldGenerator.resumeOnDemand(context, terrain.chunkTypes())) {
+                execute(context);
+            }
+            return;
+        }
+
+        Terrain terrain = (Terrain) snapshot;
+        if (map.getWidth() != terrain.width() || map.getHeight() != terrain.height()) {
+            // Карта контекста другого размера - генерируем заново
+            execute(context);
+            return;
+        }
+
+        HexStorage storage = map.getStorage();
+        storage.clear();
+        for (int r = 0; r < terrain.height(); r++) {
+            for (int q = 0; q < terrain.width(); q++) {
+                int index = r * terrain.width() + q;
+                if (terrain.types()[index] >= 0) {
+                    storage.put(q, r, terrain.types()[index], terrain.seeds()[index]);
+                }
+            }
+        }
+        map.invalidateTerrainMasks();
+    }
+
+    @Override
+    public boolean writeSnapshot(Object snapshot, DataOutputStream out) throws IOException {
+        if (snapshot instanceof OnDemandTerrain terrain) {
+            out.writeByte(ON_DEMAND);
+            out.writeInt(terrain.width());
+            out.writeInt(terrain.height());
+            out.writeInt(terrain.chunkTypes().length);
+            out.write(terrain.chunkTypes());
+            return true;
+        }
+
+        Terrain terrain = (Terrain) snapshot;
+        out.writeByte(TERRAIN);
+        out.writeInt(terrain.width());
+        out.writeInt(terrain.height());
+        out.write(terrain.types());
+        for (long seed : terrain.seeds()) {
+            out.writeLong(seed);
+        }
+        return true;
+    }
+
+    @Override
+    public Object readSnapshot(DataInputStream in) throws IOException {
+        byte kind = in.readByte();
+        int width = in.readInt();
+        int height = in.readInt();
+        if (kind == ON_DEMAND) {
+            int chunks = in.readInt();
+            if (width <= 0 || height <= 0 || chunks <= 0 || chunks > width * (long) height) {
+                throw new IOException("Invalid on-demand terrain " + width + "x" + height + ", " + chunks + " chunks");
+            }
+            byte[] chunkTypes = new byte[chunks];
+            in.readFully(chunkTypes);
+            return new OnDemandTerrain(width, height, chunkTypes);
+        }
+        if (kind != TERRAIN || width <= 0 || height <= 0 || (long) width * height > MAX_SNAPSHOT_CELLS) {
+            throw new IOException("Invalid terrain " + kind + ", size " + width + "x" + height);
+        }
+        byte[] types = new byte[width * height];
+        in.readFully(types);
+        long[] seeds = new long[width * height];
+        for (int i = 0; i < seeds.length; i++) {
+            seeds[i] = in.readLong();
+        }
+        return new Terrain(width, height, types, seeds);
+    }
+
+    /**
+     * Пишет карту в том же формате, что и {@link Terrain}, двумя проходами по карте: типы, затем seed'ы.
+     * В памяти при этом одна строка
+     */
+    @Override
+    public void writeSnapshot(GenerationContext context, DataOutputStream out) throws IOException {
+        HexMap map = context.getHexMap();
+        int width = map.getWidth();
+        int height = map.getHeight();
+        out.writeByte(TERRAIN);
+        out.writeInt(width);
+        out.writeInt(height);
+        byte[] row = new byte[width];
+        for (int r = 0; r < height; r++) {
+            for (int q = 0; q < width; q++) {
+                row[q] = (byte) map.getTypeOrdinal(q, r);
+            }
+            out.write(row);
+        }
+        for (int r = 0; r < height; r++) {
+            for (int q = 0; q < width; q++) {
+                out.writeLong(map.getTypeOrdinal(q, r) != HexStorage.NO_HEX ? map.getGenerationSeed(q, r) : 0);
+            }
+        }
+    }
+
+    /**
+     * Читает файл {@link #writeSnapshot(GenerationContext, DataOutputStream)} в карту контекста: сначала
+     * гексы с типами, затем их seed'ы. Оповещение, как и в {@link #restore(GenerationContext, Object)}, одно
+     */
+    @Override
+    public void restore(GenerationContext context, DataInputStream in) throws IOException {
+        HexMap map = context.getHexMap();
+        int width = map.getWidth();
+        int height = map.getHeight();
+        byte kind = in.readByte();
+        int snapshotWidth = in.readInt();
+        int snapshotHeight = in.readInt();
+        if (kind != TERRAIN || snapshotWidth != width || snapshotHeight != height) {
+            throw new IOException("Terrain " + kind + " of " + snapshotWidth + "x" + snapshotHeight
+                                  + " does not match the map " + width + "x" + height);
+        }
+
+        HexStorage storage = map.getStorage();
+        storage.clear();
+        byte[] row = new byte[width];
+        for (int r = 0; r < height; r++) {
+            in.readFully(row);
+            for (int q = 0; q < width; q++) {
+                if (row[q] >= 0) {
+                    storage.put(q, r, row[q], 0);
+                }
+            }
+        }
+        for (int r = 0; r < height; r++) {
+            for (int q = 0; q < width; q++) {
+                long seed = in.readLong();
+                if (storage.getTypeOrdinal(q, r) != HexStorage.NO_HEX) {
+                    storage.setGenerationSeed(q, r, seed);
+                }
+            }
+        }
+        map.invalidateTerrainMasks();
+    }
+
+    /**
+     * Снимок карты: порядковые номера типов (-1 - гекса нет) и seed'ы по строкам
+     */
+    private record Terrain(int width, int height, byte[] types, long[] seeds) {
+    }
+
+    /**
+     * Снимок карты, которую генератор заполняет по требованию: типы чанков, см.
+     * {@link ChunkedHexStorage#getChunkTypes()}
+     */
+    private record OnDemandTerrain(int width, int height, byte[] chunkTypes) {
     }
 }
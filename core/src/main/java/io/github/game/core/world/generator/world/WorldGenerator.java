@@ -1,6 +1,8 @@
 package io.github.game.core.world.generator.world;
 
 import io.github.game.core.world.HexMap;
+import io.github.game.core.world.generator.GenerationContext;
+import io.github.game.core.world.storage.ChunkedHexStorage;
 
 /**
  * Интерфейс для генерации игрового мира. Позволяет реализовать различные алгоритмы генерации
@@ -10,7 +12,27 @@ public interface WorldGenerator {
     /**
      * Генерирует карту гексов
      *
+     * @param context контекст запуска: генератор заполняет его карту и сообщает прогресс его монитору
      * @return заполненная карта гексов
      */
-    HexMap generateWorld();
+    HexMap generateWorld(GenerationContext context);
+
+    /**
+     * Хеш версии алгоритма и режимов генератора, от которых зависит результат при той же конфигурации.
+     * Входит в ключ кэша {@link WorldGenerationStep}, поэтому смена алгоритма или режима не отдает старый снимок
+     */
+    default long algorithmHash() {
+        return 0;
+    }
+
+    /**
+     * Вместо {@link #generateWorld} заново подключает генератор к карте контекста, если он заполняет ее
+     * по требованию: так {@link WorldGenerationStep} восстанавливает такой мир из кэша без генерации
+     *
+     * @param chunkTypes типы чанков, сохраненные с прошлого запуска ({@link ChunkedHexStorage#getChunkTypes()})
+     * @return false, если генератор не заполняет эту карту по требованию
+     */
+    default boolean resumeOnDemand(GenerationContext context, byte[] chunkTypes) {
+        return false;
+    }
 }
@@ -1,5 +1,6 @@
 package io.github.game.core.world.generator.world;
 
+import io.github.game.core.world.generator.GenerationCache;
 import io.github.game.core.world.generator.GeneratorConfig;
 
 /**
@@ -32,4 +33,11 @@ public class WorldGeneratorConfig extends GeneratorConfig {
     public String getSaveFilePath() {
         return saveFilePath;
     }
+
+    @Override
+    public long contentHash() {
+        long hash = GenerationCache.combine(super.contentHash(), width);
+        hash = GenerationCache.combine(hash, height);
+        return GenerationCache.combine(hash, saveFilePath);
+    }
 }
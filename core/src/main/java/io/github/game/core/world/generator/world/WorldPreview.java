@@ -0,0 +1,55 @@
+package io.github.game.core.world.generator.world;
+
+import io.github.game.core.world.hex.HexType;
+
+/**
+ * Уровень предпросмотра мира: типы гексов в узлах сетки с шагом step (клетки q = column * step,
+ * r = row * step). Неизменяем, поэтому его можно передавать из потока генерации в поток рендера.
+ */
+public final class WorldPreview {
+
+    private static final HexType[] TYPES = HexType.values();
+
+    private final int worldWidth;
+    private final int worldHeight;
+    private final int step;
+    private final int columns;
+    private final int rows;
+    private final byte[] types;
+
+    WorldPreview(int worldWidth, int worldHeight, int step, int columns, int rows, byte[] types) {
+        this.worldWidth = worldWidth;
+        this.worldHeight = worldHeight;
+        this.step = step;
+        this.columns = columns;
+        this.rows = rows;
+        this.types = types;
+    }
+
+    public int getWorldWidth() {
+        return worldWidth;
+    }
+
+    public int getWorldHeight() {
+        return worldHeight;
+    }
+
+    /**
+     * Шаг сетки в гексах: 8 - уровень 1/8 разрешения
+     */
+    public int getStep() {
+        return step;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public HexType getType(int column, int row) {
+        return TYPES[types[row * columns + column]];
+    }
+}
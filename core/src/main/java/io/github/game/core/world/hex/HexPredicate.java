@@ -0,0 +1,10 @@
+package io.github.game.core.world.hex;
+
+/**
+ * Условие на клетку для обходов из {@link HexUtils} с ранним выходом
+ */
+@FunctionalInterface
+public interface HexPredicate {
+
+    boolean test(int q, int r);
+}
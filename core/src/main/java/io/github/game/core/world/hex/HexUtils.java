@@ -2,11 +2,13 @@ package io.github.game.core.world.hex;
 
 import com.badlogic.gdx.math.Vector2;
 import io.github.game.ecs.components.world.GlobalPositionComponent;
+import java.util.function.IntConsumer;
 import lombok.experimental.UtilityClass;
 
 /**
  * Утилитарный класс для математических операций с гексами. Поддерживает как работу напрямую с
- * объектами Hex.
+ * объектами Hex, так и примитивный API без аллокаций: упакованные координаты, смещения индексов
+ * соседей в плоской сетке и обходы соседей, колец и спиралей через посетителей.
  */
 @UtilityClass
 public final class HexUtils {
@@ -26,6 +28,118 @@ public final class HexUtils {
         new HexCoordinates(-1, 0), new HexCoordinates(-1, 1), new HexCoordinates(0, 1)
     };
 
+    /**
+     * Смещения по Q для шести направлений (в том же порядке, что {@link #HEX_DIRECTIONS})
+     */
+    public static final int[] DIRECTION_Q = {1, 1, 0, -1, -1, 0};
+
+    /**
+     * Смещения по R для шести направлений (в том же порядке, что {@link #HEX_DIRECTIONS})
+     */
+    public static final int[] DIRECTION_R = {0, -1, -1, 0, 1, 1};
+
+    /**
+     * Упаковывает координаты в long: q в старших 32 битах, r в младших
+     */
+    public static long pack(int q, int r) {
+        return ((long) q << 32) | (r & 0xFFFFFFFFL);
+    }
+
+    public static int unpackQ(long packed) {
+        return (int) (packed >> 32);
+    }
+
+    public static int unpackR(long packed) {
+        return (int) packed;
+    }
+
+    /**
+     * Индекс клетки в плоской построчной сетке ширины width
+     */
+    public static int index(int q, int r, int width) {
+        return r * width + q;
+    }
+
+    /**
+     * Смещения индексов шести соседей в плоской построчной сетке ширины width. Соседи считаются в
+     * осевых координатах, поэтому смещения одинаковы для четных и нечетных строк. Для клеток на краю
+     * карты смещение может указывать на другую строку - проверяйте границы по координатам
+     */
+    public static int[] neighborIndexOffsets(int width) {
+        int[] offsets = new int[6];
+        for (int i = 0; i < 6; i++) {
+            offsets[i] = DIRECTION_R[i] * width + DIRECTION_Q[i];
+        }
+        return offsets;
+    }
+
+    /**
+     * Расстояние между клетками (q1, r1) и (q2, r2)
+     */
+    public static int distance(int q1, int r1, int q2, int r2) {
+        int dq = q1 - q2;
+        int dr = r1 - r2;
+        return (Math.abs(dq) + Math.abs(dr) + Math.abs(dq + dr)) / 2;
+    }
+
+    /**
+     * Обходит соседей клетки, лежащих в пределах карты width x height
+     */
+    public static void forEachNeighbor(int q, int r, int width, int height, HexVisitor visitor) {
+        for (int i = 0; i < 6; i++) {
+            int nq = q + DIRECTION_Q[i];
+            int nr = r + DIRECTION_R[i];
+            if (nq >= 0 && nq < width && nr >= 0 && nr < height) {
+                visitor.visit(nq, nr);
+            }
+        }
+    }
+
+    /**
+     * Обходит индексы соседей клетки в плоской построчной сетке, пропуская клетки вне карты
+     */
+    public static void forEachNeighborIndex(int q, int r, int width, int height, IntConsumer consumer) {
+        int index = r * width + q;
+        for (int i = 0; i < 6; i++) {
+            int nq = q + DIRECTION_Q[i];
+            int nr = r + DIRECTION_R[i];
+            if (nq >= 0 && nq < width && nr >= 0 && nr < height) {
+                consumer.accept(index + DIRECTION_R[i] * width + DIRECTION_Q[i]);
+            }
+        }
+    }
+
+    /**
+     * Обходит кольцо радиуса radius вокруг (q, r) без проверки границ. Радиус 0 - сама клетка
+     */
+    public static void forEachInRing(int q, int r, int radius, HexVisitor visitor) {
+        if (radius == 0) {
+            visitor.visit(q, r);
+            return;
+        }
+
+        // Начинаем с клетки в направлении 4 и идем по сторонам кольца
+        int cq = q + DIRECTION_Q[4] * radius;
+        int cr = r + DIRECTION_R[4] * radius;
+        for (int side = 0; side < 6; side++) {
+            for (int step = 0; step < radius; step++) {
+                visitor.visit(cq, cr);
+                cq += DIRECTION_Q[side];
+                cr += DIRECTION_R[side];
+            }
+        }
+    }
+
+    /**
+     * Обходит спираль вокруг (q, r) от центра наружу до радиуса radius включительно, без проверки
+     * границ
+     */
+    public static void forEachInSpiral(int q, int r, int radius, HexVisitor visitor) {
+        for (int k = 0; k <= radius; k++) {
+            forEachInRing(q, r, k, visitor);
+        }
+    }
+
     /**
      * Вычисляет расстояние между двумя гексами
      */
@@ -82,6 +196,109 @@ public final class HexUtils {
     }
 
 
+    /**
+     * Обходит все клетки на расстоянии не больше radius от (q, r), лежащие в пределах карты width x
+     * height. Клетки посещаются построчно (по возрастанию r, затем q), вне диапазона ничего не
+     * перебирается
+     */
+    public static void forEachInRange(int q, int r, int radius, int width, int height, HexVisitor visitor) {
+        int minR = Math.max(0, r - radius);
+        int maxR = Math.min(height - 1, r + radius);
+        for (int nr = minR; nr <= maxR; nr++) {
+            int dr = nr - r;
+            int minQ = Math.max(0, q + Math.max(-radius, -dr - radius));
+            int maxQ = Math.min(width - 1, q + Math.min(radius, -dr + radius));
+            for (int nq = minQ; nq <= maxQ; nq++) {
+                visitor.visit(nq, nr);
+            }
+        }
+    }
+
+    /**
+     * Проверяет, есть ли в радиусе radius от (q, r) клетка карты, удовлетворяющая условию.
+     * Обход как в {@link #forEachInRange}, останавливается на первом совпадении
+     */
+    public static boolean anyInRange(int q, int r, int radius, int width, int height, HexPredicate predicate) {
+        int minR = Math.max(0, r - radius);
+        int maxR = Math.min(height - 1, r + radius);
+        for (int nr = minR; nr <= maxR; nr++) {
+            int dr = nr - r;
+            int minQ = Math.max(0, q + Math.max(-radius, -dr - radius));
+            int maxQ = Math.min(width - 1, q + Math.min(radius, -dr + radius));
+            for (int nq = minQ; nq <= maxQ; nq++) {
+                if (predicate.test(nq, nr)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Считает клетки карты в радиусе radius от (q, r), удовлетворяющие условию
+     */
+    public static int countInRange(int q, int r, int radius, int width, int height, HexPredicate predicate) {
+        int count = 0;
+        int minR = Math.max(0, r - radius);
+        int maxR = Math.min(height - 1, r + radius);
+        for (int nr = minR; nr <= maxR; nr++) {
+            int dr = nr - r;
+            int minQ = Math.max(0, q + Math.max(-radius, -dr - radius));
+            int maxQ = Math.min(width - 1, q + Math.min(radius, -dr + radius));
+            for (int nq = minQ; nq <= maxQ; nq++) {
+                if (predicate.test(nq, nr)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Обходит кольцо радиуса radius вокруг (q, r), пропуская клетки вне карты width x height
+     */
+    public static void forEachInRing(int q, int r, int radius, int width, int height, HexVisitor visitor) {
+        forEachInRing(q, r, radius, (nq, nr) -> {
+            if (nq >= 0 && nq < width && nr >= 0 && nr < height) {
+                visitor.visit(nq, nr);
+            }
+        });
+    }
+
+    /**
+     * Обходит спираль вокруг (q, r) от центра наружу, пропуская клетки вне карты width x height
+     */
+    public static void forEachInSpiral(int q, int r, int radius, int width, int height, HexVisitor visitor) {
+        for (int k = 0; k <= radius; k++) {
+            forEachInRing(q, r, k, width, height, visitor);
+        }
+    }
+
+    /**
+     * Ищет по спирали от центра ближайшую клетку карты, удовлетворяющую условию
+     *
+     * @return упакованные координаты ({@link #pack}) или -1, если ничего не найдено
+     */
+    public static long findInSpiral(int q, int r, int radius, int width, int height, HexPredicate predicate) {
+        for (int k = 0; k <= radius; k++) {
+            int cq = q + DIRECTION_Q[4] * k;
+            int cr = r + DIRECTION_R[4] * k;
+            int sides = k == 0 ? 1 : 6;
+            int steps = k == 0 ? 1 : k;
+            for (int side = 0; side < sides; side++) {
+                for (int step = 0; step < steps; step++) {
+                    if (cq >= 0 && cq < width && cr >= 0 && cr < height && predicate.test(cq, cr)) {
+                        return pack(cq, cr);
+                    }
+                    cq += DIRECTION_Q[side];
+                    cr += DIRECTION_R[side];
+                }
+            }
+        }
+        return -1L;
+    }
+
+
     /**
      * Преобразует осевые координаты (q, r) в пиксельные координаты
      */
@@ -93,6 +310,16 @@ public final class HexUtils {
     }
 
 
+    /**
+     * Преобразует координаты (q, r) в пиксельные координаты, записывая результат в out
+     *
+     * @return out
+     */
+    public static Vector2 axialToPixel(int q, int r, float hexSize, Vector2 out) {
+        return out.set(hexSize * (float) (Math.sqrt(3) * (q + 0.5 * (r & 1))), hexSize * 1.5f * r);
+    }
+
+
     /**
      * Возвращает координаты всех шести соседних гексов
      */
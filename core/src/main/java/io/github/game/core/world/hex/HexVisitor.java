@@ -0,0 +1,11 @@
+package io.github.game.core.world.hex;
+
+/**
+ * Посетитель клеток для обходов из {@link HexUtils}: получает координаты без создания
+ * {@link HexCoordinates}
+ */
+@FunctionalInterface
+public interface HexVisitor {
+
+    void visit(int q, int r);
+}
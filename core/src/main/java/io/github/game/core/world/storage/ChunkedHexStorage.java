@@ -0,0 +1,928 @@
+package io.github.game.core.world.storage;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import io.github.game.core.world.HexMapListener;
+import io.github.game.core.world.hex.Hex;
+import io.github.game.core.world.hex.HexType;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+
+/**
+ * Хранилище, разбитое на чанки {@value #CHUNK_SIZE}x{@value #CHUNK_SIZE} гексов. Чанк
+ * материализуется при первом обращении, в памяти держится ограниченное число горячих чанков (вытеснение
+ * по алгоритму часов), холодные выгружаются в файл подкачки и при следующем обращении читаются обратно.
+ * <p>
+ * Внутри чанка данные лежат так же, как в {@link PrimitiveHexStorage}. Идентификаторы локаций редки
+ * и хранятся в общей разреженной таблице, не выгружаясь.
+ * <p>
+ * Резидентные чанки лежат в таблице по ключу чанка, и чтение из них идет без блокировки. Запись, подгрузка
+ * и вытеснение работают под общей блокировкой. Поток, заданный через {@link #setNonBlockingReader}
+ * (рендер), никогда не ждет диска или генерации: чтение отсутствующего чанка возвращает пустые клетки и
+ * ставит чанк в очередь фоновой подгрузки, а после подгрузки хранилище сообщает об этом слушателю
+ * ({@link #setLoadListener}). {@link #prefetch} заранее подгружает чанки вокруг камеры, ближние первыми.
+ * <p>
+ * Для отрисовки издалека хранилище держит преобладающие типы блоков до размера чанка
+ * ({@link #getBlockTypeOrdinal}): внутри резидентного чанка они считаются по его гексам, для остальных
+ * берется тип чанка, запомненный при вытеснении или оцененный источником ({@link ChunkSource#sampleChunk}).
+ * Поэтому пирамида местности не материализует чанки.
+ * <p>
+ * С источником чанков ({@link #setChunkSource}) чанк, которого нет ни в памяти, ни в файле подкачки,
+ * генерируется при первом обращении. Генерация идет с отпущенной блокировкой, чтобы остальные
+ * потоки читали уже готовые чанки. Сгенерированный и не измененный чанк при вытеснении не пишется на
+ * диск: источник детерминирован, и чанк можно сгенерировать заново.
+ * <p>
+ * После использования хранилище нужно закрыть через {@link #dispose()}: оно держит поток подгрузки и
+ * открытый файл подкачки.
+ */
+public class ChunkedHexStorage implements HexStorage {
+
+    public static final int CHUNK_SIZE = 64;
+    public static final int DEFAULT_MAX_RESIDENT_CHUNKS = 1024;
+
+    private static final int CHUNK_SHIFT = 6;
+    /**
+     * Уровень блоков размером с чанк: блоки уровней от 1 до этого хранятся в чанках
+     */
+    public static final int CHUNK_LEVEL = CHUNK_SHIFT;
+    private static final int TYPE_COUNT = HexType.values().length;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int CHUNK_CELLS = CHUNK_SIZE * CHUNK_SIZE;
+    private static final int CHUNK_BYTES = CHUNK_CELLS * (Byte.BYTES + Short.BYTES + Long.BYTES);
+    private static final int UUID_ENTRY_BYTES = 64;
+    // отдается читающему без ожидания потоку вместо отсутствующего чанка, никогда не устанавливается
+    private static final Chunk PLACEHOLDER = new Chunk();
+
+    static {
+        Arrays.fill(PLACEHOLDER.types, (byte) NO_HEX);
+    }
+
+    private final int width;
+    private final int height;
+    private final int chunksX;
+    private final int chunksY;
+    private final int maxResidentChunks;
+    // резидентные чанки по ключу; читается без блокировки, меняется под ней
+    private final AtomicReferenceArray<Chunk> residentChunks;
+    // ключи резидентных чанков по слотам часов вытеснения
+    private final int[] residentKeys;
+    private int residentCount;
+    private int clockHand;
+    // чанки, у которых есть копия в файле подкачки
+    private final BitSet pagedOut;
+    private final Map<Long, UUID> locationIds = new ConcurrentHashMap<>();
+    private final File backingFile;
+    private final RandomAccessFile pageFile;
+    private final ByteBuffer ioBuffer = ByteBuffer.allocate(CHUNK_BYTES);
+    private final ExecutorService prefetchExecutor;
+    private final AtomicBoolean prefetchPending = new AtomicBoolean(false);
+    // чанки, прочитанные читающим без ожидания потоком в отсутствие, в порядке запроса
+    private final ArrayDeque<Integer> missedKeys = new ArrayDeque<>();
+    private final BitSet missed;
+    private final AtomicBoolean loadPending = new AtomicBoolean(false);
+    private volatile Thread nonBlockingReader;
+    private volatile HexMapListener loadListener;
+    // методы не берут блокировку повторно: генерация чанка отпускает ее ровно один раз
+    private final ReentrantLock lock = new ReentrantLock();
+    // чанки, гексы которых уже учтены в count после генерации
+    private final BitSet generated;
+    // преобладающий тип каждого чанка для отрисовки издалека; читается без блокировки
+    private final byte[] chunkTypes;
+    private ChunkSource chunkSource;
+    private int count = 0;
+    private boolean disposed;
+
+    /**
+     * Создает хранилище с файлом подкачки во временном каталоге
+     */
+    public ChunkedHexStorage(int width, int height) {
+        this(width, height, DEFAULT_MAX_RESIDENT_CHUNKS, null);
+    }
+
+    /**
+     * @param width             ширина карты
+     * @param height            высота карты
+     * @param maxResidentChunks сколько чанков держать в памяти
+     * @param backingFile       файл подкачки, null - временный файл
+     */
+    public ChunkedHexStorage(int width, int height, int maxResidentChunks, File backingFile) {
+        if (maxResidentChunks < 1) {
+            throw new IllegalArgumentException("At least one resident chunk is required");
+        }
+
+        this.width = width;
+        this.height = height;
+        this.chunksX = (width + CHUNK_MASK) >> CHUNK_SHIFT;
+        this.chunksY = (height + CHUNK_MASK) >> CHUNK_SHIFT;
+        this.maxResidentChunks = maxResidentChunks;
+        this.residentChunks = new AtomicReferenceArray<>(chunksX * chunksY);
+        this.residentKeys = new int[maxResidentChunks];
+        this.pagedOut = new BitSet(chunksX * chunksY);
+        this.generated = new BitSet(chunksX * chunksY);
+        this.missed = new BitSet(chunksX * chunksY);
+        this.chunkTypes = new byte[chunksX * chunksY];
+        Arrays.fill(chunkTypes, (byte) NO_HEX);
+
+        try {
+            if (backingFile == null) {
+                backingFile = File.createTempFile("hexmap", ".chunks");
+                backingFile.deleteOnExit();
+            }
+            this.backingFile = backingFile;
+            this.pageFile = new RandomAccessFile(backingFile, "rw");
+            this.pageFile.setLength(0);
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Unable to create hex chunk page file", e);
+        }
+
+        this.prefetchExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hex-chunk-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    public int getMaxResidentChunks() {
+        return maxResidentChunks;
+    }
+
+    public int getResidentChunkCount() {
+        lock.lock();
+        try {
+            return residentCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Число чанков, сгенерированных источником ({@link #setChunkSource}) после создания или {@link #clear()},
+     * включая выгруженные в файл подкачки
+     */
+    public int getGeneratedChunkCount() {
+        lock.lock();
+        try {
+            return generated.cardinality();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Задает источник, которым генерируются еще не существующие чанки. До обращения к чанку его гексы
+     * не учитываются в {@link #size()}. Типы еще не существующих чанков для отрисовки издалека сразу
+     * оцениваются источником
+     *
+     * @param chunkSource источник или null - новые чанки пустые
+     */
+    public void setChunkSource(ChunkSource chunkSource) {
+        setChunkSource(chunkSource, null);
+    }
+
+    /**
+     * Как {@link #setChunkSource(ChunkSource)}, но с уже известными типами чанков, например сохраненными
+     * {@link #getChunkTypes()} для того же источника: источник их не оценивает
+     *
+     * @param chunkTypes типы чанков по ключам или null - оценить источником
+     */
+    public void setChunkSource(ChunkSource chunkSource, byte[] chunkTypes) {
+        byte[] samples;
+        if (chunkTypes != null) {
+            if (chunkTypes.length != this.chunkTypes.length) {
+                throw new IllegalArgumentException(
+                    "Expected " + this.chunkTypes.length + " chunk types, got " + chunkTypes.length);
+            }
+            samples = chunkTypes.clone();
+        } else {
+            samples = new byte[this.chunkTypes.length];
+            Arrays.fill(samples, (byte) NO_HEX);
+            if (chunkSource != null) {
+                IntStream.range(0, samples.length).parallel().forEach(
+                    key -> samples[key] = (byte) chunkSource.sampleChunk(key % chunksX, key / chunksX, CHUNK_SIZE));
+            }
+        }
+
+        lock.lock();
+        try {
+            this.chunkSource = chunkSource;
+            for (int key = 0; key < samples.length; key++) {
+                if (!generated.get(key) && !pagedOut.get(key) && residentChunks.get(key) == null) {
+                    this.chunkTypes[key] = samples[key];
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Есть ли источник чанков ({@link #setChunkSource})
+     */
+    public boolean hasChunkSource() {
+        lock.lock();
+        try {
+            return chunkSource != null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Копия типов чанков по ключам (строка за строкой чанков): преобладающие типы существующих чанков и
+     * оценки источника для остальных, {@link HexStorage#NO_HEX} - пустой чанк
+     */
+    public byte[] getChunkTypes() {
+        lock.lock();
+        try {
+            return chunkTypes.clone();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Задает поток, который не должен ждать чанков (рендер): его чтения отсутствующих чанков возвращают
+     * пустые клетки, а чанк подгружается в фоне
+     *
+     * @param thread поток или null - ждут все потоки
+     */
+    public void setNonBlockingReader(Thread thread) {
+        this.nonBlockingReader = thread;
+    }
+
+    /**
+     * Задает слушателя фоновой подгрузки: вызывается в потоке подгрузки с прямоугольником гексов чанка,
+     * который появился в памяти (сгенерирован или прочитан из файла подкачки), чтобы данные, построенные по
+     * пустым клеткам, можно было обновить
+     */
+    public void setLoadListener(HexMapListener loadListener) {
+        this.loadListener = loadListener;
+    }
+
+    @Override
+    public int getTypeOrdinal(int q, int r) {
+        return chunkForRead(q, r).types[cell(q, r)];
+    }
+
+    /**
+     * Преобладающий тип блока (q, r) уровня level от 1 до {@link #CHUNK_LEVEL} - квадрата 2^level x 2^level
+     * гексов - или NO_HEX. Блок считается по четвертям, как в пирамиде местности. Никогда не ждет и не
+     * подгружает чанки: для чанка вне памяти возвращается тип всего чанка. Без проверки границ
+     */
+    public int getBlockTypeOrdinal(int level, int q, int r) {
+        int shift = CHUNK_LEVEL - level;
+        int key = (r >> shift) * chunksX + (q >> shift);
+        Chunk chunk = residentChunks.get(key);
+        if (chunk == null) {
+            return chunkTypes[key];
+        }
+
+        int side = CHUNK_SIZE >> level;
+        return blocks(key, chunk)[level - 1][(r & (side - 1)) * side + (q & (side - 1))];
+    }
+
+    @Override
+    public void setTypeOrdinal(int q, int r, int typeOrdinal) {
+        lock.lock();
+        try {
+            Chunk chunk = chunk(q, r);
+            int cell = cell(q, r);
+            if (chunk.types[cell] == NO_HEX) {
+                count++;
+            }
+            chunk.types[cell] = (byte) typeOrdinal;
+            chunk.dirty = true;
+            chunk.typeVersion++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getDangerLevel(int q, int r) {
+        return chunkForRead(q, r).dangerLevels[cell(q, r)];
+    }
+
+    @Override
+    public void setDangerLevel(int q, int r, int dangerLevel) {
+        lock.lock();
+        try {
+            Chunk chunk = chunk(q, r);
+            chunk.dangerLevels[cell(q, r)] = (short) dangerLevel;
+            chunk.dirty = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long getGenerationSeed(int q, int r) {
+        return chunkForRead(q, r).generationSeeds[cell(q, r)];
+    }
+
+    @Override
+    public void setGenerationSeed(int q, int r, long generationSeed) {
+        lock.lock();
+        try {
+            Chunk chunk = chunk(q, r);
+            chunk.generationSeeds[cell(q, r)] = generationSeed;
+            chunk.dirty = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public UUID getLocationId(int q, int r) {
+        return locationIds.get((long) r * width + q);
+    }
+
+    @Override
+    public void setLocationId(int q, int r, UUID locationId) {
+        lock.lock();
+        try {
+            putLocationId(q, r, locationId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(int q, int r, int typeOrdinal, long generationSeed) {
+        lock.lock();
+        try {
+            put(q, r, typeOrdinal, generationSeed, 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void putHex(Hex hex) {
+        int q = hex.getQ();
+        int r = hex.getR();
+        lock.lock();
+        try {
+            put(q, r, hex.getType().ordinal(), hex.getGenerationSeed(), hex.getDangerLevel());
+            putLocationId(q, r, hex.getLocationId());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Hex getHex(int q, int r) {
+        return chunkForRead(q, r).types[cell(q, r)] == NO_HEX ? null : new HexView(this, q, r);
+    }
+
+    @Override
+    public Hex[] getRow(int r) {
+        Hex[] row = new Hex[width];
+        for (int q = 0; q < width; q++) {
+            row[q] = getHex(q, r);
+        }
+        return row;
+    }
+
+    @Override
+    public void remove(int q, int r) {
+        lock.lock();
+        try {
+            Chunk chunk = chunk(q, r);
+            int cell = cell(q, r);
+            if (chunk.types[cell] != NO_HEX) {
+                chunk.types[cell] = (byte) NO_HEX;
+                chunk.dangerLevels[cell] = 0;
+                chunk.generationSeeds[cell] = 0L;
+                chunk.dirty = true;
+                chunk.typeVersion++;
+                locationIds.remove((long) r * width + q);
+                count--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.lock();
+        try {
+            clearResident();
+            pagedOut.clear();
+            generated.clear();
+            Arrays.fill(chunkTypes, (byte) NO_HEX);
+            chunkSource = null;
+            locationIds.clear();
+            count = 0;
+            pageFile.setLength(0);
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Unable to truncate hex chunk page file", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Оценка памяти кучи: только резидентные чанки, выгруженные лежат на диске
+     */
+    @Override
+    public long estimateMemoryBytes() {
+        lock.lock();
+        try {
+            return (long) residentCount * CHUNK_BYTES + (long) locationIds.size() * UUID_ENTRY_BYTES;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Асинхронно подгружает чанки, покрывающие прямоугольник гексов, от ближних к гексу (centerQ, centerR)
+     * к дальним. Если предыдущая подгрузка еще не завершена, запрос отбрасывается - рендер пришлет новый на
+     * следующем кадре. Число подгружаемых чанков ограничено половиной резидентных, поэтому область больше
+     * этого бюджета подгружается только вокруг центра и не вытесняет саму себя. Чанки, которые ждет
+     * читающий без ожидания поток, подгружаются раньше.
+     */
+    public void prefetch(int minQ, int maxQ, int minR, int maxR, int centerQ, int centerR) {
+        int minCq = Math.max(0, minQ) >> CHUNK_SHIFT;
+        int maxCq = Math.min(width - 1, maxQ) >> CHUNK_SHIFT;
+        int minCr = Math.max(0, minR) >> CHUNK_SHIFT;
+        int maxCr = Math.min(height - 1, maxR) >> CHUNK_SHIFT;
+        if (minCq > maxCq || minCr > maxCr || !prefetchPending.compareAndSet(false, true)) {
+            return;
+        }
+
+        int centerCq = centerQ >> CHUNK_SHIFT;
+        int centerCr = centerR >> CHUNK_SHIFT;
+        try {
+            prefetchExecutor.execute(() -> {
+                try {
+                    for (int key : nearestChunks(minCq, maxCq, minCr, maxCr, centerCq, centerCr)) {
+                        loadMissedChunks();
+                        load(key);
+                    }
+                } finally {
+                    prefetchPending.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // хранилище уже закрыто
+            prefetchPending.set(false);
+        }
+    }
+
+    /**
+     * Останавливает поток подгрузки, закрывает и удаляет файл подкачки. После этого хранилищем
+     * пользоваться нельзя
+     */
+    @Override
+    public void dispose() {
+        prefetchExecutor.shutdownNow();
+        loadListener = null;
+        lock.lock();
+        try {
+            if (disposed) {
+                return;
+            }
+            disposed = true;
+            clearResident();
+            pageFile.close();
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Unable to close hex chunk page file", e);
+        } finally {
+            backingFile.delete();
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Ключи чанков прямоугольника по возрастанию расстояния до центра, не больше половины резидентных
+     */
+    private int[] nearestChunks(int minCq, int maxCq, int minCr, int maxCr, int centerCq, int centerCr) {
+        int columns = maxCq - minCq + 1;
+        long[] order = new long[columns * (maxCr - minCr + 1)];
+        for (int cr = minCr; cr <= maxCr; cr++) {
+            for (int cq = minCq; cq <= maxCq; cq++) {
+                long dq = cq - centerCq;
+                long dr = cr - centerCr;
+                // квадрат расстояния в старших битах, ключ чанка в младших
+                order[(cr - minCr) * columns + cq - minCq] = (dq * dq + dr * dr) << 32 | (cr * chunksX + cq);
+            }
+        }
+        Arrays.sort(order);
+
+        int[] keys = new int[Math.min(order.length, Math.max(1, maxResidentChunks / 2))];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = (int) order[i];
+        }
+        return keys;
+    }
+
+    /**
+     * Подгружает чанк в потоке подгрузки и сообщает слушателю, если его не было в памяти
+     */
+    private void load(int key) {
+        if (residentChunks.get(key) != null) {
+            residentChunks.get(key).referenced = true;
+            return;
+        }
+
+        lock.lock();
+        try {
+            if (disposed) {
+                return;
+            }
+            chunkByKey(key);
+        } finally {
+            lock.unlock();
+        }
+
+        HexMapListener listener = loadListener;
+        if (listener != null) {
+            int minQ = (key % chunksX) << CHUNK_SHIFT;
+            int minR = (key / chunksX) << CHUNK_SHIFT;
+            listener.terrainChanged(minQ, minR, Math.min(width - 1, minQ + CHUNK_MASK),
+                                    Math.min(height - 1, minR + CHUNK_MASK));
+        }
+    }
+
+    /**
+     * Чанк для чтения: резидентный без блокировки, иначе подгруженный под блокировкой. Читающему без
+     * ожидания потоку вместо отсутствующего чанка отдается пустой, а чанк ставится в очередь подгрузки
+     */
+    private Chunk chunkForRead(int q, int r) {
+        int key = (r >> CHUNK_SHIFT) * chunksX + (q >> CHUNK_SHIFT);
+        Chunk chunk = residentChunks.get(key);
+        if (chunk != null) {
+            chunk.referenced = true;
+            return chunk;
+        }
+
+        if (Thread.currentThread() == nonBlockingReader) {
+            requestLoad(key);
+            return PLACEHOLDER;
+        }
+        lock.lock();
+        try {
+            return chunkByKey(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Ставит чанк в очередь подгрузки. Очередь ограничена половиной резидентных чанков, лишние запросы
+     * отбрасываются и повторятся при следующем чтении
+     */
+    private void requestLoad(int key) {
+        synchronized (missedKeys) {
+            if (missed.get(key) || missedKeys.size() >= Math.max(1, maxResidentChunks / 2)) {
+                return;
+            }
+            missed.set(key);
+            missedKeys.add(key);
+        }
+        scheduleMissedLoad();
+    }
+
+    private void scheduleMissedLoad() {
+        if (!loadPending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            prefetchExecutor.execute(() -> {
+                do {
+                    try {
+                        loadMissedChunks();
+                    } finally {
+                        loadPending.set(false);
+                    }
+                    // запрос мог прийти после опустошения очереди, но до сброса флага
+                } while (hasMissedChunks() && loadPending.compareAndSet(false, true));
+            });
+        } catch (RejectedExecutionException e) {
+            // хранилище уже закрыто
+            loadPending.set(false);
+        }
+    }
+
+    private boolean hasMissedChunks() {
+        synchronized (missedKeys) {
+            return !missedKeys.isEmpty();
+        }
+    }
+
+    /**
+     * Подгружает все чанки из очереди запросов. Только в потоке подгрузки
+     */
+    private void loadMissedChunks() {
+        while (true) {
+            int key;
+            synchronized (missedKeys) {
+                Integer next = missedKeys.poll();
+                if (next == null) {
+                    return;
+                }
+                key = next;
+            }
+            load(key);
+            synchronized (missedKeys) {
+                missed.clear(key);
+            }
+        }
+    }
+
+    private int cell(int q, int r) {
+        return ((r & CHUNK_MASK) << CHUNK_SHIFT) | (q & CHUNK_MASK);
+    }
+
+    private Chunk chunk(int q, int r) {
+        return chunkByKey((r >> CHUNK_SHIFT) * chunksX + (q >> CHUNK_SHIFT));
+    }
+
+    /**
+     * Помещает гекс в клетку. Вызывается под блокировкой
+     */
+    private void put(int q, int r, int typeOrdinal, long generationSeed, int dangerLevel) {
+        Chunk chunk = chunk(q, r);
+        int cell = cell(q, r);
+        if (chunk.types[cell] == NO_HEX) {
+            count++;
+        }
+        chunk.types[cell] = (byte) typeOrdinal;
+        chunk.dangerLevels[cell] = (short) dangerLevel;
+        chunk.generationSeeds[cell] = generationSeed;
+        chunk.dirty = true;
+        chunk.typeVersion++;
+        if (!locationIds.isEmpty()) {
+            locationIds.remove((long) r * width + q);
+        }
+    }
+
+    private void putLocationId(int q, int r, UUID locationId) {
+        if (locationId == null) {
+            locationIds.remove((long) r * width + q);
+        } else {
+            locationIds.put((long) r * width + q, locationId);
+        }
+    }
+
+    /**
+     * Возвращает резидентный чанк, при необходимости читая его из файла подкачки или генерируя.
+     * Вызывается под блокировкой; на время генерации блокировка отпускается, поэтому после возврата
+     * состояние хранилища могло измениться
+     */
+    private Chunk chunkByKey(int key) {
+        Chunk chunk = residentChunks.get(key);
+        if (chunk != null) {
+            chunk.referenced = true;
+            return chunk;
+        }
+
+        if (pagedOut.get(key)) {
+            chunk = new Chunk();
+            readChunk(key, chunk);
+        } else if (chunkSource != null) {
+            ChunkSource source = chunkSource;
+            lock.unlock();
+            try {
+                chunk = generateChunk(source, key);
+            } finally {
+                lock.lock();
+            }
+            // пока чанк генерировался, его могли установить из другого потока или сменить источник
+            Chunk installed = residentChunks.get(key);
+            if (installed != null) {
+                return installed;
+            }
+            if (chunkSource != source || pagedOut.get(key)) {
+                return chunkByKey(key);
+            }
+        } else {
+            chunk = new Chunk();
+            Arrays.fill(chunk.types, (byte) NO_HEX);
+        }
+
+        install(key, chunk);
+        return chunk;
+    }
+
+    private Chunk generateChunk(ChunkSource source, int key) {
+        Chunk chunk = new Chunk();
+        Arrays.fill(chunk.types, (byte) NO_HEX);
+        source.generateChunk(key % chunksX, key / chunksX, CHUNK_SIZE, chunk.types, chunk.generationSeeds);
+        chunk.generated = true;
+        return chunk;
+    }
+
+    private void install(int key, Chunk chunk) {
+        if (chunk.generated && !generated.get(key)) {
+            generated.set(key);
+            for (byte type : chunk.types) {
+                if (type != NO_HEX) {
+                    count++;
+                }
+            }
+        }
+
+        int slot;
+        if (residentCount < maxResidentChunks) {
+            slot = residentCount++;
+        } else {
+            slot = evict();
+            clockHand = (slot + 1) % maxResidentChunks;
+        }
+        residentKeys[slot] = key;
+        chunk.referenced = true;
+        blocks(key, chunk);
+        residentChunks.set(key, chunk);
+    }
+
+    /**
+     * Блоки чанка уровней 1..{@link #CHUNK_LEVEL}, пересчитанные, если типы чанка менялись. Пересчет
+     * обновляет и запомненный тип чанка. Читатели вызывают без блокировки: гонка пересчетов безвредна,
+     * каждый строит блоки по версии типов, прочитанной до начала
+     */
+    private byte[][] blocks(int key, Chunk chunk) {
+        int version = chunk.typeVersion;
+        ChunkBlocks blocks = chunk.blocks;
+        if (blocks != null && blocks.version() == version) {
+            return blocks.levels();
+        }
+
+        byte[][] levels = new byte[CHUNK_LEVEL][];
+        byte[] child = chunk.types;
+        int[] counts = new int[TYPE_COUNT];
+        for (int level = 1; level <= CHUNK_LEVEL; level++) {
+            int side = CHUNK_SIZE >> level;
+            levels[level - 1] = new byte[side * side];
+            for (int r = 0; r < side; r++) {
+                for (int q = 0; q < side; q++) {
+                    Arrays.fill(counts, 0);
+                    int best = NO_HEX;
+                    int bestCount = 0;
+                    // порядок четвертей и правило равенства те же, что в пирамиде местности
+                    for (int childR = 2 * r; childR <= 2 * r + 1; childR++) {
+                        for (int childQ = 2 * q; childQ <= 2 * q + 1; childQ++) {
+                            int type = child[childR * side * 2 + childQ];
+                            if (type != NO_HEX && ++counts[type] > bestCount) {
+                                best = type;
+                                bestCount = counts[type];
+                            }
+                        }
+                    }
+                    levels[level - 1][r * side + q] = (byte) best;
+                }
+            }
+            child = levels[level - 1];
+        }
+
+        chunk.blocks = new ChunkBlocks(version, levels);
+        chunkTypes[key] = levels[CHUNK_LEVEL - 1][0];
+        return levels;
+    }
+
+    /**
+     * Вытесняет чанк по алгоритму часов: чанки, прочитанные после прошлого прохода стрелки, получают
+     * второй шанс. Измененный чанк пишется в файл подкачки
+     *
+     * @return освободившийся слот
+     */
+    private int evict() {
+        // читатели могут снова отмечать чанки во время обхода, поэтому обход ограничен двумя кругами
+        for (int step = 0; ; step++) {
+            int slot = clockHand;
+            Chunk chunk = residentChunks.get(residentKeys[slot]);
+            if (!chunk.referenced || step >= 2 * maxResidentChunks) {
+                // тип чанка остается для отрисовки издалека
+                blocks(residentKeys[slot], chunk);
+                if (chunk.dirty) {
+                    writeChunk(residentKeys[slot], chunk);
+                    pagedOut.set(residentKeys[slot]);
+                }
+                residentChunks.set(residentKeys[slot], null);
+                return slot;
+            }
+            chunk.referenced = false;
+            clockHand = (slot + 1) % maxResidentChunks;
+        }
+    }
+
+    private void clearResident() {
+        for (int i = 0; i < residentCount; i++) {
+            residentChunks.set(residentKeys[i], null);
+        }
+        residentCount = 0;
+        clockHand = 0;
+    }
+
+    private void writeChunk(int key, Chunk chunk) {
+        ioBuffer.clear();
+        ioBuffer.put(chunk.types);
+        ioBuffer.asShortBuffer().put(chunk.dangerLevels);
+        ioBuffer.position(ioBuffer.position() + CHUNK_CELLS * Short.BYTES);
+        ioBuffer.asLongBuffer().put(chunk.generationSeeds);
+
+        try {
+            pageFile.seek((long) key * CHUNK_BYTES);
+            pageFile.write(ioBuffer.array(), 0, CHUNK_BYTES);
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Unable to page out hex chunk " + key, e);
+        }
+    }
+
+    private void readChunk(int key, Chunk chunk) {
+        try {
+            pageFile.seek((long) key * CHUNK_BYTES);
+            pageFile.readFully(ioBuffer.array(), 0, CHUNK_BYTES);
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Unable to page in hex chunk " + key, e);
+        }
+
+        ioBuffer.clear();
+        ioBuffer.get(chunk.types);
+        ioBuffer.asShortBuffer().get(chunk.dangerLevels);
+        ioBuffer.position(ioBuffer.position() + CHUNK_CELLS * Short.BYTES);
+        ioBuffer.asLongBuffer().get(chunk.generationSeeds);
+    }
+
+    /**
+     * Данные одного чанка в построчном порядке внутри чанка
+     */
+    private static final class Chunk {
+
+        final byte[] types = new byte[CHUNK_CELLS];
+        final short[] dangerLevels = new short[CHUNK_CELLS];
+        final long[] generationSeeds = new long[CHUNK_CELLS];
+        boolean dirty;
+        // создан источником чанков, а не прочитан из файла подкачки
+        boolean generated;
+        // читался после прошлого прохода стрелки вытеснения; пишется читателями без блокировки
+        volatile boolean referenced;
+        // растет при каждом изменении типов, меняется под блокировкой
+        volatile int typeVersion;
+        volatile ChunkBlocks blocks;
+    }
+
+    /**
+     * Блоки чанка по уровням, построенные по версии типов version
+     */
+    private record ChunkBlocks(int version, byte[][] levels) {
+    }
+
+    /**
+     * Детерминированный источник содержимого чанков
+     */
+    @FunctionalInterface
+    public interface ChunkSource {
+
+        /**
+         * Заполняет чанк (cq, cr) со стороной size. Массивы построчные внутри чанка, types заранее
+         * заполнен NO_HEX
+         */
+        void generateChunk(int cq, int cr, int size, byte[] types, long[] generationSeeds);
+
+        /**
+         * Дешевая оценка преобладающего типа чанка (cq, cr) без его генерации, для отрисовки мира издалека
+         *
+         * @return ordinal типа или NO_HEX, если оценки нет
+         */
+        default int sampleChunk(int cq, int cr, int size) {
+            return NO_HEX;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package io.github.game.core.world.storage;
+
+import io.github.game.core.world.hex.Hex;
+import java.util.UUID;
+
+/**
+ * Низкоуровневое хранилище данных гексов для {@link io.github.game.core.world.HexMap}. Работает с
+ * координатами (q, r) и порядковыми номерами {@link io.github.game.core.world.hex.HexType}, чтобы
+ * горячие пути (рендер, генерация) не создавали объект {@link Hex} на каждую клетку.
+ * <p>
+ * Проверку границ выполняет вызывающая сторона.
+ */
+public interface HexStorage {
+
+    /**
+     * Значение порядкового номера типа для клетки без гекса
+     */
+    int NO_HEX = -1;
+
+    int getWidth();
+
+    int getHeight();
+
+    /**
+     * Возвращает порядковый номер типа гекса или {@link #NO_HEX}, если гекса нет
+     */
+    int getTypeOrdinal(int q, int r);
+
+    /**
+     * Меняет тип гекса. Если гекса нет, он создается с нулевыми остальными полями
+     */
+    void setTypeOrdinal(int q, int r, int typeOrdinal);
+
+    int getDangerLevel(int q, int r);
+
+    void setDangerLevel(int q, int r, int dangerLevel);
+
+    long getGenerationSeed(int q, int r);
+
+    void setGenerationSeed(int q, int r, long generationSeed);
+
+    UUID getLocationId(int q, int r);
+
+    void setLocationId(int q, int r, UUID locationId);
+
+    /**
+     * Помещает в клетку новый гекс заданного типа, сбрасывая опасность и локацию (аналог addHex(new
+     * Hex(...)))
+     */
+    void put(int q, int r, int typeOrdinal, long generationSeed);
+
+    /**
+     * Помещает в клетку данные существующего объекта гекса
+     */
+    void putHex(Hex hex);
+
+    /**
+     * Возвращает гекс по координатам или null. Реализации без объектов гексов возвращают
+     * {@link HexView}
+     */
+    Hex getHex(int q, int r);
+
+    /**
+     * Возвращает строку гексов. По умолчанию строка собирается из {@link #getHex(int, int)}
+     */
+    default Hex[] getRow(int r) {
+        int width = getWidth();
+        Hex[] row = new Hex[width];
+        for (int q = 0; q < width; q++) {
+            row[q] = getHex(q, r);
+        }
+        return row;
+    }
+
+    void remove(int q, int r);
+
+    int size();
+
+    void clear();
+
+    /**
+     * Оценка занимаемой памяти кучи в байтах (для сравнения режимов хранения)
+     */
+    long estimateMemoryBytes();
+
+    /**
+     * Освобождает ресурсы хранилища (потоки, файлы). После вызова хранилищем пользоваться нельзя.
+     * Хранилищам в куче освобождать нечего
+     */
+    default void dispose() {
+    }
+}
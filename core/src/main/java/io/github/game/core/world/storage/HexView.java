@@ -0,0 +1,111 @@
+package io.github.game.core.world.storage;
+
+import io.github.game.core.world.hex.Hex;
+import io.github.game.core.world.hex.HexCoordinates;
+import io.github.game.core.world.hex.HexType;
+import java.util.UUID;
+
+/**
+ * Гекс-представление поверх {@link HexStorage}: не хранит данных, а читает и пишет их в хранилище.
+ * Позволяет существующему коду, работающему с {@link Hex}, использовать хранилища без объектов.
+ * <p>
+ * Может использоваться как курсор (flyweight): {@link #moveTo(int, int)} переставляет представление
+ * на другую клетку без новых аллокаций. Курсор нельзя сохранять в коллекции - для этого нужен
+ * стабильный гекс из {@link io.github.game.core.world.HexMap#getHex(int, int)}.
+ */
+public class HexView extends Hex {
+
+    private static final HexType[] TYPES = HexType.values();
+
+    private final HexStorage storage;
+    private int q;
+    private int r;
+
+    public HexView(HexStorage storage, int q, int r) {
+        super((HexCoordinates) null, null);
+        this.storage = storage;
+        this.q = q;
+        this.r = r;
+    }
+
+    /**
+     * Переставляет представление на клетку (q, r)
+     *
+     * @return это же представление
+     */
+    public HexView moveTo(int q, int r) {
+        this.q = q;
+        this.r = r;
+        return this;
+    }
+
+    /**
+     * Есть ли гекс в текущей клетке
+     */
+    public boolean exists() {
+        return storage.getTypeOrdinal(q, r) != HexStorage.NO_HEX;
+    }
+
+    /**
+     * Порядковый номер типа текущего гекса без обращения к enum
+     */
+    public int getTypeOrdinal() {
+        return storage.getTypeOrdinal(q, r);
+    }
+
+    @Override
+    public HexCoordinates getCoordinates() {
+        return new HexCoordinates(q, r);
+    }
+
+    @Override
+    public int getQ() {
+        return q;
+    }
+
+    @Override
+    public int getR() {
+        return r;
+    }
+
+    @Override
+    public HexType getType() {
+        int ordinal = storage.getTypeOrdinal(q, r);
+        return ordinal == HexStorage.NO_HEX ? null : TYPES[ordinal];
+    }
+
+    @Override
+    public void setType(HexType type) {
+        storage.setTypeOrdinal(q, r, type.ordinal());
+    }
+
+    @Override
+    public int getDangerLevel() {
+        return storage.getDangerLevel(q, r);
+    }
+
+    @Override
+    public void setDangerLevel(int dangerLevel) {
+        storage.setDangerLevel(q, r, dangerLevel);
+    }
+
+    @Override
+    public UUID getLocationId() {
+        return storage.getLocationId(q, r);
+    }
+
+    @Override
+    public void setLocationId(UUID locationId) {
+        storage.setLocationId(q, r, locationId);
+    }
+
+    @Override
+    public long getGenerationSeed() {
+        return storage.getGenerationSeed(q, r);
+    }
+
+    @Override
+    public void setGenerationSeed(long generationSeed) {
+        storage.setGenerationSeed(q, r, generationSeed);
+    }
+}
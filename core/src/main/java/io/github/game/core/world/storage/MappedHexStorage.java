@@ -0,0 +1,309 @@
+package io.github.game.core.world.storage;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.LongMap;
+import io.github.game.core.world.hex.Hex;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+/**
+ * Хранилище вне кучи: данные гексов лежат в файле, отображенном в память. Карта открывается
+ * мгновенно, не нагружает GC и может читаться одновременно несколькими процессами (например,
+ * генератором и игрой).
+ * <p>
+ * Формат файла (little-endian):
+ * <pre>
+ * заголовок, {@value #HEADER_BYTES} байт: magic "HEXM", версия, width, height
+ * типы:      byte[width * height], {@link #NO_HEX} - пустая клетка
+ * опасность: short[width * height]
+ * seed:      long[width * height]
+ * </pre>
+ * Клетки в каждой секции идут построчно (индекс r * width + q). Идентификаторы локаций в файл не
+ * пишутся и хранятся в разреженной таблице в куче.
+ */
+public class MappedHexStorage implements HexStorage {
+
+    public static final int MAGIC = 0x4D584548; // "HEXM"
+    public static final int VERSION = 1;
+    public static final int HEADER_BYTES = 16;
+
+    private static final int UUID_ENTRY_BYTES = 64;
+
+    private final int width;
+    private final int height;
+    private final boolean readOnly;
+    private final FileChannel channel;
+    private final MappedByteBuffer types;
+    private final MappedByteBuffer dangerLevels;
+    private final MappedByteBuffer generationSeeds;
+    private final LongMap<UUID> locationIds = new LongMap<>();
+    private int count;
+
+    private MappedHexStorage(FileChannel channel, int width, int height, boolean readOnly)
+        throws IOException {
+        long cells = (long) width * height;
+        if (cells * Long.BYTES > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Map is too large for mapped storage: " + width + "x" + height);
+        }
+
+        this.width = width;
+        this.height = height;
+        this.readOnly = readOnly;
+        this.channel = channel;
+
+        FileChannel.MapMode mode = readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE;
+        long offset = HEADER_BYTES;
+        this.types = map(mode, offset, cells);
+        offset += cells;
+        this.dangerLevels = map(mode, offset, cells * Short.BYTES);
+        offset += cells * Short.BYTES;
+        this.generationSeeds = map(mode, offset, cells * Long.BYTES);
+
+        for (int i = 0; i < cells; i++) {
+            if (types.get(i) != NO_HEX) {
+                count++;
+            }
+        }
+    }
+
+    /**
+     * Создает новый файл карты (существующий перезаписывается) и открывает его на запись
+     */
+    public static MappedHexStorage create(Path path, int width, int height) {
+        long cells = (long) width * height;
+        try {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                                   StandardOpenOption.WRITE,
+                                                   StandardOpenOption.TRUNCATE_EXISTING);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height).flip();
+            channel.write(header, 0);
+
+            MappedHexStorage storage = new MappedHexStorage(channel, width, height, false);
+            storage.fillEmpty();
+            return storage;
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Unable to create mapped hex map: " + path, e);
+        }
+    }
+
+    /**
+     * Открывает существующий файл карты
+     *
+     * @param readOnly true - только чтение, запись через хранилище запрещена
+     */
+    public static MappedHexStorage open(Path path, boolean readOnly) {
+        try {
+            FileChannel channel = readOnly
+                                  ? FileChannel.open(path, StandardOpenOption.READ)
+                                  : FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, 0);
+            header.flip();
+
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC) {
+                channel.close();
+                throw new GdxRuntimeException("Not a hex map file: " + path);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                channel.close();
+                throw new GdxRuntimeException("Unsupported hex map file version " + version + ": " + path);
+            }
+
+            return new MappedHexStorage(channel, header.getInt(), header.getInt(), readOnly);
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Unable to open mapped hex map: " + path, e);
+        }
+    }
+
+    private MappedByteBuffer map(FileChannel.MapMode mode, long offset, long size) throws IOException {
+        MappedByteBuffer buffer = channel.map(mode, offset, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    private void fillEmpty() {
+        int cells = width * height;
+        for (int i = 0; i < cells; i++) {
+            types.put(i, (byte) NO_HEX);
+        }
+    }
+
+    private void checkWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException("Mapped hex map is opened read-only");
+        }
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getTypeOrdinal(int q, int r) {
+        return types.get(r * width + q);
+    }
+
+    @Override
+    public void setTypeOrdinal(int q, int r, int typeOrdinal) {
+        checkWritable();
+        int index = r * width + q;
+        if (types.get(index) == NO_HEX) {
+            count++;
+        }
+        types.put(index, (byte) typeOrdinal);
+    }
+
+    @Override
+    public int getDangerLevel(int q, int r) {
+        return dangerLevels.getShort((r * width + q) * Short.BYTES);
+    }
+
+    @Override
+    public void setDangerLevel(int q, int r, int dangerLevel) {
+        checkWritable();
+        dangerLevels.putShort((r * width + q) * Short.BYTES, (short) dangerLevel);
+    }
+
+    @Override
+    public long getGenerationSeed(int q, int r) {
+        return generationSeeds.getLong((r * width + q) * Long.BYTES);
+    }
+
+    @Override
+    public void setGenerationSeed(int q, int r, long generationSeed) {
+        checkWritable();
+        generationSeeds.putLong((r * width + q) * Long.BYTES, generationSeed);
+    }
+
+    @Override
+    public UUID getLocationId(int q, int r) {
+        return locationIds.get((long) r * width + q);
+    }
+
+    @Override
+    public void setLocationId(int q, int r, UUID locationId) {
+        if (locationId == null) {
+            locationIds.remove((long) r * width + q);
+        } else {
+            locationIds.put((long) r * width + q, locationId);
+        }
+    }
+
+    @Override
+    public void put(int q, int r, int typeOrdinal, long generationSeed) {
+        checkWritable();
+        int index = r * width + q;
+        if (types.get(index) == NO_HEX) {
+            count++;
+        }
+        types.put(index, (byte) typeOrdinal);
+        dangerLevels.putShort(index * Short.BYTES, (short) 0);
+        generationSeeds.putLong(index * Long.BYTES, generationSeed);
+        if (locationIds.size > 0) {
+            locationIds.remove(index);
+        }
+    }
+
+    @Override
+    public void putHex(Hex hex) {
+        int q = hex.getQ();
+        int r = hex.getR();
+        put(q, r, hex.getType().ordinal(), hex.getGenerationSeed());
+        setDangerLevel(q, r, hex.getDangerLevel());
+        setLocationId(q, r, hex.getLocationId());
+    }
+
+    @Override
+    public Hex getHex(int q, int r) {
+        return types.get(r * width + q) == NO_HEX ? null : new HexView(this, q, r);
+    }
+
+    @Override
+    public void remove(int q, int r) {
+        checkWritable();
+        int index = r * width + q;
+        if (types.get(index) != NO_HEX) {
+            types.put(index, (byte) NO_HEX);
+            dangerLevels.putShort(index * Short.BYTES, (short) 0);
+            generationSeeds.putLong(index * Long.BYTES, 0L);
+            locationIds.remove(index);
+            count--;
+        }
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public void clear() {
+        checkWritable();
+        fillEmpty();
+        int cells = width * height;
+        for (int i = 0; i < cells; i++) {
+            dangerLevels.putShort(i * Short.BYTES, (short) 0);
+            generationSeeds.putLong(i * Long.BYTES, 0L);
+        }
+        locationIds.clear();
+        count = 0;
+    }
+
+    /**
+     * Данные лежат вне кучи, в куче только таблица локаций
+     */
+    @Override
+    public long estimateMemoryBytes() {
+        return (long) locationIds.size * UUID_ENTRY_BYTES;
+    }
+
+    /**
+     * Сбрасывает изменения на диск
+     */
+    public void force() {
+        if (!readOnly) {
+            types.force();
+            dangerLevels.force();
+            generationSeeds.force();
+        }
+    }
+
+    /**
+     * Сбрасывает изменения и закрывает файл. Отображения остаются валидными до сборки мусора, но
+     * пользоваться хранилищем после закрытия нельзя
+     */
+    public void close() {
+        if (!channel.isOpen()) {
+            return;
+        }
+        force();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Unable to close mapped hex map", e);
+        }
+    }
+
+    @Override
+    public void dispose() {
+        close();
+    }
+}
@@ -0,0 +1,161 @@
+package io.github.game.core.world.storage;
+
+import io.github.game.core.world.hex.Hex;
+import io.github.game.core.world.hex.HexType;
+import java.util.UUID;
+
+/**
+ * Классическое хранилище: двумерный массив объектов {@link Hex}, индексируемый как [r][q]. Каждый
+ * гекс - отдельный объект со своим {@link io.github.game.core.world.hex.HexCoordinates}.
+ */
+public class ObjectHexStorage implements HexStorage {
+
+    // Оценка размеров объектов при сжатых ссылках: Hex ~40 байт, HexCoordinates ~24 байта, ссылка 4
+    private static final int HEX_OBJECT_BYTES = 40;
+    private static final int COORDINATES_OBJECT_BYTES = 24;
+    private static final int REFERENCE_BYTES = 4;
+
+    private static final HexType[] TYPES = HexType.values();
+
+    private final Hex[][] hexGrid;
+    private final int width;
+    private final int height;
+    private int count = 0;
+
+    public ObjectHexStorage(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.hexGrid = new Hex[height][width];
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getTypeOrdinal(int q, int r) {
+        Hex hex = hexGrid[r][q];
+        return hex == null ? NO_HEX : hex.getType().ordinal();
+    }
+
+    @Override
+    public void setTypeOrdinal(int q, int r, int typeOrdinal) {
+        Hex hex = hexGrid[r][q];
+        if (hex == null) {
+            put(q, r, typeOrdinal, 0L);
+        } else {
+            hex.setType(TYPES[typeOrdinal]);
+        }
+    }
+
+    @Override
+    public int getDangerLevel(int q, int r) {
+        Hex hex = hexGrid[r][q];
+        return hex == null ? 0 : hex.getDangerLevel();
+    }
+
+    @Override
+    public void setDangerLevel(int q, int r, int dangerLevel) {
+        Hex hex = hexGrid[r][q];
+        if (hex != null) {
+            hex.setDangerLevel(dangerLevel);
+        }
+    }
+
+    @Override
+    public long getGenerationSeed(int q, int r) {
+        Hex hex = hexGrid[r][q];
+        return hex == null ? 0L : hex.getGenerationSeed();
+    }
+
+    @Override
+    public void setGenerationSeed(int q, int r, long generationSeed) {
+        Hex hex = hexGrid[r][q];
+        if (hex != null) {
+            hex.setGenerationSeed(generationSeed);
+        }
+    }
+
+    @Override
+    public UUID getLocationId(int q, int r) {
+        Hex hex = hexGrid[r][q];
+        return hex == null ? null : hex.getLocationId();
+    }
+
+    @Override
+    public void setLocationId(int q, int r, UUID locationId) {
+        Hex hex = hexGrid[r][q];
+        if (hex != null) {
+            hex.setLocationId(locationId);
+        }
+    }
+
+    @Override
+    public void put(int q, int r, int typeOrdinal, long generationSeed) {
+        Hex hex = new Hex(q, r, TYPES[typeOrdinal]);
+        hex.setGenerationSeed(generationSeed);
+        putHex(hex);
+    }
+
+    @Override
+    public void putHex(Hex hex) {
+        int q = hex.getQ();
+        int r = hex.getR();
+        if (hexGrid[r][q] == null) {
+            count++;
+        }
+        hexGrid[r][q] = hex;
+    }
+
+    @Override
+    public Hex getHex(int q, int r) {
+        return hexGrid[r][q];
+    }
+
+    @Override
+    public Hex[] getRow(int r) {
+        return hexGrid[r];
+    }
+
+    @Override
+    public void remove(int q, int r) {
+        if (hexGrid[r][q] != null) {
+            hexGrid[r][q] = null;
+            count--;
+        }
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public void clear() {
+        for (int r = 0; r < height; r++) {
+            for (int q = 0; q < width; q++) {
+                hexGrid[r][q] = null;
+            }
+        }
+        count = 0;
+    }
+
+    @Override
+    public long estimateMemoryBytes() {
+        long cells = (long) width * height;
+        return cells * REFERENCE_BYTES + (long) count * (HEX_OBJECT_BYTES + COORDINATES_OBJECT_BYTES);
+    }
+
+    /**
+     * Прямой доступ к сетке объектов (только для этого режима хранения)
+     */
+    public Hex[][] getGrid() {
+        return hexGrid;
+    }
+}
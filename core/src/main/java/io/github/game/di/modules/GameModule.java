@@ -12,6 +12,8 @@ import com.badlogic.gdx.utils.viewport.Viewport;
 import dagger.Module;
 import dagger.Provides;
 import io.github.game.core.world.generator.GenerationContext;
+import io.github.game.core.world.generator.GenerationCache;
+import io.github.game.core.world.generator.GenerationExecutor;
 import io.github.game.core.world.generator.GeneratorFactory;
 import io.github.game.ecs.EntityFactory;
 import io.github.game.ecs.systems.CameraControlSystem;
@@ -86,8 +88,8 @@ public class GameModule {
     @Provides
     @Singleton
     HexMapRenderer provideHexMapRenderer(GenerationContext context, ShapeRenderer shapeRenderer,
-                                         OrthographicCamera camera) {
-        return new HexMapRenderer(context, shapeRenderer, camera);
+                                         OrthographicCamera camera, GraphicsSettings graphicsSettings) {
+        return new HexMapRenderer(context, shapeRenderer, camera, graphicsSettings);
     }
 
     @Provides
@@ -152,8 +154,11 @@ public class GameModule {
     @Singleton
     WorldEntityService provideWorldEntityService(PooledEngine engine, EntityFactory entityFactory,
                                                  GenerationContext generationContext,
-                                                 GeneratorFactory generatorFactory) {
-        return new WorldEntityService(engine, entityFactory, generationContext, generatorFactory);
+                                                 GeneratorFactory generatorFactory,
+                                                 GenerationExecutor generationExecutor,
+                                                 GenerationCache generationCache) {
+        return new WorldEntityService(engine, entityFactory, generationContext, generatorFactory,
+                                      generationExecutor, generationCache);
     }
 
     // From ECSModule
@@ -1,8 +1,11 @@
 package io.github.game.di.modules;
 
+import com.badlogic.gdx.Gdx;
 import dagger.Module;
 import dagger.Provides;
+import io.github.game.core.world.generator.GenerationCache;
 import io.github.game.core.world.generator.GenerationContext;
+import io.github.game.core.world.generator.GenerationExecutor;
 import io.github.game.core.world.generator.GeneratorFactory;
 import io.github.game.ecs.EntityFactory;
 import io.github.game.services.NameService;
@@ -17,8 +20,8 @@ public class WorldModule {
 
     @Provides
     @Singleton
-    GeneratorFactory provideGeneratorFactory(GenerationContext context, EntityFactory entityFactory) {
-        return new GeneratorFactory(context, entityFactory);
+    GeneratorFactory provideGeneratorFactory(EntityFactory entityFactory) {
+        return new GeneratorFactory(entityFactory);
     }
 
     @Provides
@@ -27,6 +30,19 @@ public class WorldModule {
         return new GenerationContext(settings, nameService);
     }
 
+    @Provides
+    @Singleton
+    GenerationExecutor provideGenerationExecutor(GameplaySettings settings) {
+        int threads = settings.getGenerationThreads();
+        return new GenerationExecutor(threads > 0 ? threads : GenerationExecutor.defaultThreadBudget());
+    }
+
+    @Provides
+    @Singleton
+    GenerationCache provideGenerationCache() {
+        return new GenerationCache(Gdx.files.local("generation-cache").file());
+    }
+
     @Provides
     @Singleton
     NameService provideNameService() {
@@ -32,21 +32,36 @@ public class EntityFactory {
         this.resourceManager = resourceManager;
     }
 
+    /**
+     * Создает сущность локации без спрайта. Вызывается генератором локаций в потоке генерации, а при поиске
+     * seed'ов - одновременно из нескольких потоков с общей фабрикой, поэтому не должен трогать движок и его
+     * пулы ({@link PooledEngine} не потокобезопасен) и текстуры (они могут еще загружаться). Спрайт добавляет
+     * {@link #addLocationSprite(Entity)} в потоке рендера перед добавлением сущности в движок.
+     */
     public Entity createLocation(Hex hex, String type, String name, int size) {
 
         Gdx.app.log("EntityFactory", "Creating location at  hex position: " + hex.getCoordinates().getR() + ", " +
                                      hex.getCoordinates().getQ());
 
-        Entity location = engine.createEntity();
+        Entity location = new Entity();
 
-        LocationComponent locationComponent = engine.createComponent(LocationComponent.class);
-        locationComponent.setLocationId(UUID.randomUUID());
+        LocationComponent locationComponent = new LocationComponent(UUID.randomUUID());
         locationComponent.setLocationData(new LocationData(name, (short) size, type));
         location.add(locationComponent);
 
-        GlobalPositionComponent globalPositionComponent = engine.createComponent(GlobalPositionComponent.class);
-        globalPositionComponent.setCoordinates(hex.getCoordinates());
-        location.add(globalPositionComponent);
+        location.add(new GlobalPositionComponent(hex.getCoordinates()));
+
+        hex.setLocationId(locationComponent.getLocationId());
+
+        return location;
+    }
+
+    /**
+     * Добавляет спрайт сущности локации, созданной {@link #createLocation(Hex, String, String, int)}. Только в
+     * потоке рендера после загрузки текстур
+     */
+    public void addLocationSprite(Entity location) {
+        LocationData locationData = location.getComponent(LocationComponent.class).getLocationData();
 
         // Создаем и настраиваем спрайт
         Texture playerTexture = resourceManager.getTexture("textures/ball.png");
@@ -55,18 +70,12 @@ public class EntityFactory {
         }
 
         Sprite playerSprite = new Sprite(playerTexture);
-        playerSprite.setScale(0.5f * size);
+        playerSprite.setScale(0.5f * locationData.getSize());
 
         RenderComponent render = engine.createComponent(RenderComponent.class);
         render.setSprite(playerSprite);
-        render.setTitle(locationComponent.getLocationData().getName());
+        render.setTitle(locationData.getName());
         location.add(render);
-
-        Gdx.app.log("EntityFactory", "Location entity created successfully");
-
-        hex.setLocationId(locationComponent.getLocationId());
-
-        return location;
     }
 
     public Entity createLocation(HexCoordinates coordinates) {
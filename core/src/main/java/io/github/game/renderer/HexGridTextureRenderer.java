@@ -1,9 +1,11 @@
 package io.github.game.renderer;
 
+import static io.github.game.core.world.hex.HexUtils.HALF_WIDTH;
+import static io.github.game.core.world.hex.HexUtils.HEX_WIDTH;
+import static io.github.game.core.world.hex.HexUtils.Y_PITCH;
+
 import com.badlogic.gdx.graphics.glutils.ShaderProgram;
 import java.util.Map;
-import java.util.stream.Collectors;
-import java.util.Iterator;
 
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.GL20;
@@ -12,72 +14,77 @@ import com.badlogic.gdx.graphics.VertexAttribute;
 import com.badlogic.gdx.graphics.VertexAttributes.Usage;
 import com.badlogic.gdx.math.Matrix4;
 import io.github.game.core.world.HexMap;
-import io.github.game.core.world.hex.Hex;
 import io.github.game.core.world.hex.HexType;
-import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.GdxRuntimeException;
 
-public class HexGridTextureRenderer {
-    private final int maxVertices;
-    private final float[] contourVertices;
+/**
+ * Рисует заливку гексов полосами треугольников из статических мешей {@link TerrainChunkCache}: пока
+ * местность не меняется, кадр стоит только одного вызова отрисовки на видимый чанк, без пересборки и
+ * загрузки вершин. Запасной путь для контекстов без GL 3.0, см. {@link HexInstancedRenderer}.
+ */
+public class HexGridTextureRenderer implements TerrainRenderer {
 
-    // кешированные floatBits для цветов
-    private final Map<HexType, Float> hexFloatBits;
+    private static final int CHUNK_SIZE = TerrainChunkCache.CHUNK_SIZE;
+    // Вершин на ряд полосы: 3 в начале ряда, по 4 на гекс, 2 вырожденные в конце
+    static final int ROW_VERTICES = 3 + 4 * CHUNK_SIZE + 2;
+    static final int VERTEX_SIZE = 3;
+
+    private final float[] contourVertices;
+    // кешированные floatBits для цветов, индекс = ordinal типа + 1 (0 - клетка без гекса)
+    private final float[] hexFloatBits;
+    private final float[] vertices = new float[ROW_VERTICES * CHUNK_SIZE * VERTEX_SIZE];
 
-    private final Mesh mesh;
     private final ShaderProgram shader;
-    private final int vertexSize;
-    private final float[] vertices;
-
-    // Константы для размера гекса
-    private static final float HEX_SIZE = 25f;
-    private static final float HEX_WIDTH = (float) (Math.sqrt(3) * HEX_SIZE);
-    private static final float HALF_WIDTH = HEX_WIDTH / 2;
-    private static final float HEX_HEIGHT = 2 * HEX_SIZE;
-    private static final float Y_PITCH = 1.5f * HEX_SIZE;
-
-    public HexGridTextureRenderer (int maxVertices, Map<HexType, Color> hexColorsMap, float[] contourVertices) {
-        this.maxVertices = maxVertices;
+    private final TerrainChunkCache chunkCache;
+
+    public HexGridTextureRenderer (Map<HexType, Color> hexColorsMap, float[] contourVertices) {
         this.contourVertices = contourVertices;
-        this.hexFloatBits = hexColorsMap
-            .entrySet().stream()
-            .collect(Collectors.toMap(
-                e -> e.getKey(),
-                e -> e.getValue().toFloatBits()
-            ));
+        this.hexFloatBits = colorFloatBits(hexColorsMap);
         shader = createHexShader();
+        chunkCache = new TerrainChunkCache(this::buildChunk);
+    }
 
-        mesh = new Mesh(false, maxVertices, 0,
-                        new VertexAttribute(Usage.Position, 2, ShaderProgram.POSITION_ATTRIBUTE),
-                        new VertexAttribute(Usage.ColorPacked, 4, ShaderProgram.COLOR_ATTRIBUTE));
-
-        vertexSize = mesh.getVertexAttributes().vertexSize / 4;
-        vertices = new float[maxVertices * vertexSize];
+    /**
+     * floatBits цветов по индексу ordinal типа + 1, в нулевом элементе прозрачный цвет клетки без гекса
+     */
+    static float[] colorFloatBits(Map<HexType, Color> hexColorsMap) {
+        float[] floatBits = new float[HexType.values().length + 1];
+        floatBits[0] = Color.CLEAR.toFloatBits();
+        hexColorsMap.forEach((type, color) -> floatBits[type.ordinal() + 1] = color.toFloatBits());
+        return floatBits;
     }
 
+    @Override
     public void render(HexMap map, Matrix4 viewProjection, int minQ, int maxQ, int minR, int maxR) {
-        float[] contourVertices = this.contourVertices;
-        float[] vertices = this.vertices;
-        int vertexSize = this.vertexSize;
-        Map<HexType, Float> hexFloatBits = this.hexFloatBits;
-        int endIndex = 0;
-        int vertexOverflowLimit = maxVertices - (5 + 4 * (maxQ - minQ + 1));
+        shader.bind();
+        chunkCache.render(map, shader, viewProjection, minQ, maxQ, minR, maxR, GL20.GL_TRIANGLE_STRIP);
+    }
 
-        float x, y;
-        float oddOffset = HALF_WIDTH * (minR & 1);
+    private Mesh buildChunk(HexMap map, int minQ, int maxQ, int minR, int maxR) {
+        int length = buildVertices(map, minQ, maxQ, minR, maxR, contourVertices, hexFloatBits, vertices);
+        Mesh mesh = new Mesh(true, length / VERTEX_SIZE, 0,
+                             new VertexAttribute(Usage.Position, 2, ShaderProgram.POSITION_ATTRIBUTE),
+                             new VertexAttribute(Usage.ColorPacked, 4, ShaderProgram.COLOR_ATTRIBUTE));
+        mesh.setVertices(vertices, 0, length);
+        return mesh;
+    }
 
-        Hex hex = map.getHex(minQ, minR); //TODO Index ** out of bounds for length ** при изменении размера окна
-        HexType prevType = hex.getType();
-        float colorBits = hexFloatBits.get(prevType);
+    /**
+     * Заполняет вершины полосы треугольников для гексов [minQ, maxQ] x [minR, maxR] относительно
+     * центра гекса (minQ, minR). Ряды соединяются вырожденными треугольниками. minR должен быть четным
+     *
+     * @return число записанных float
+     */
+    static int buildVertices(HexMap map, int minQ, int maxQ, int minR, int maxR, float[] contourVertices,
+                             float[] hexFloatBits, float[] vertices) {
+        int endIndex = 0;
+        float x, y;
+        float oddOffset = 0;
 
-        // Отрисовка заполненных гексов
         for (int r = minR; r <= maxR; r++) {
-            if ( vertexOverflowLimit < endIndex ) {
-                flush(endIndex, viewProjection, GL20.GL_TRIANGLE_STRIP);
-                endIndex = 0;
-            }
-            y = Y_PITCH * r;
-            x = HEX_WIDTH * minQ + oddOffset;
+            y = Y_PITCH * (r - minR);
+            x = oddOffset;
+            float colorBits = hexFloatBits[map.getTypeOrdinal(minQ, r) + 1];
 
             vertices[endIndex] = x + contourVertices[10];
             vertices[endIndex + 1] = y + contourVertices[11];
@@ -88,31 +95,11 @@ public class HexGridTextureRenderer {
             vertices[endIndex + 6] = x + contourVertices[8];
             vertices[endIndex + 7] = y + contourVertices[9];
             vertices[endIndex + 8] = colorBits;
-            endIndex += vertexSize * 3;
-
-
-            Hex[] curRow = map.getRowDirectAccess(r);
-//            Hex[][] curGrid = map.getHexGrid();
-
-//            Iterator<Hex> rowIteratorUnsafe = map.getRowIteratorUnsafe(r, minQ);
+            endIndex += VERTEX_SIZE * 3;
 
             for (int q = minQ; q <= maxQ; q++) {
-                x = HEX_WIDTH * q + oddOffset;
-
-//                hex = map.getHex(q, r);
-
-                hex = curRow[q];
-
-//                hex = curGrid[r][q];
-
-//                hex = rowIteratorUnsafe.next();
-
-
-
-                if (prevType != hex.getType()) {
-                    prevType = hex.getType();
-                    colorBits = hexFloatBits.get(prevType);
-                }
+                x = HEX_WIDTH * (q - minQ) + oddOffset;
+                colorBits = hexFloatBits[map.getTypeOrdinal(q, r) + 1];
 
                 vertices[endIndex] = x + contourVertices[0];
                 vertices[endIndex + 1] = y + contourVertices[1];
@@ -126,34 +113,26 @@ public class HexGridTextureRenderer {
                 vertices[endIndex + 9] = x + contourVertices[4];
                 vertices[endIndex + 10] = y + contourVertices[5];
                 vertices[endIndex + 11] = colorBits;
-                endIndex += vertexSize * 4;
+                endIndex += VERTEX_SIZE * 4;
             }
 
-            vertices[endIndex + 0] = x + contourVertices[6];
+            vertices[endIndex] = x + contourVertices[6];
             vertices[endIndex + 1] = y + contourVertices[7];
             vertices[endIndex + 2] = colorBits;
             vertices[endIndex + 3] = x + contourVertices[6];
             vertices[endIndex + 4] = y + contourVertices[7];
             vertices[endIndex + 5] = colorBits;
-            endIndex += vertexSize * 2;
+            endIndex += VERTEX_SIZE * 2;
 
             oddOffset = HALF_WIDTH - oddOffset;
         }
-
-        flush(endIndex, viewProjection, GL20.GL_TRIANGLE_STRIP);
-    }
-
-    public void flush (int bytesWritten, Matrix4 projModelView, int primitiveType) {
-        if (bytesWritten == 0) return;
-        shader.bind();
-        shader.setUniformMatrix("u_projModelView", projModelView);
-        mesh.setVertices(vertices, 0, bytesWritten);
-        mesh.render(shader, primitiveType);
+        return endIndex;
     }
 
+    @Override
     public void dispose () {
         shader.dispose();
-        mesh.dispose();
+        chunkCache.dispose();
     }
 
     /** Returns a new instance of the default shader used by SpriteBatch for GL2 when no shader is specified. */
@@ -179,7 +158,7 @@ public class HexGridTextureRenderer {
         return shader;
     }
 
-    static private String createHexFragmentShader () {
+    static String createHexFragmentShader () {
         String shader = "#version 150\n"
                         + "#ifdef GL_ES\nprecision mediump float;\n#endif\n"
                         + "flat in vec4 v_col;\n"
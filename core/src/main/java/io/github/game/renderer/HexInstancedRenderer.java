@@ -0,0 +1,152 @@
+package io.github.game.renderer;
+
+import static io.github.game.core.world.hex.HexUtils.HEX_WIDTH;
+import static io.github.game.core.world.hex.HexUtils.Y_PITCH;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.VertexAttribute;
+import com.badlogic.gdx.graphics.VertexAttributes.Usage;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import io.github.game.core.world.HexMap;
+import io.github.game.core.world.hex.HexType;
+import io.github.game.core.world.storage.HexStorage;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Map;
+
+/**
+ * Рисует заливку гексов инстансингом (GL 3.0+): один меш единичного гекса на чанк и буфер экземпляров
+ * по 4 байта на гекс - q и r внутри чанка, тип и выравнивание. Позицию и цвет считает вершинный шейдер,
+ * поэтому сборка чанка на CPU - это только запись типов, а не 4 вершин по 12 байт.
+ * <p>
+ * Чанки кешируются в {@link TerrainChunkCache} так же, как у {@link HexGridTextureRenderer}.
+ */
+public class HexInstancedRenderer implements TerrainRenderer {
+
+    // q, r внутри чанка, ordinal типа, выравнивание атрибута до 4 байт
+    static final int INSTANCE_SIZE = 4;
+    private static final int CHUNK_SIZE = TerrainChunkCache.CHUNK_SIZE;
+    private static final String INSTANCE_ATTRIBUTE = "a_instance";
+    // центр и 7 точек контура (последняя совпадает с первой) для GL_TRIANGLE_FAN
+    private static final int FAN_VERTICES = 8;
+
+    private final float[] fanVertices = new float[FAN_VERTICES * 2];
+    private final float[] palette = new float[HexType.values().length * 4];
+    // четвертый байт каждого экземпляра всегда 0
+    private final byte[] instanceBytes = new byte[CHUNK_SIZE * CHUNK_SIZE * INSTANCE_SIZE];
+    private final ByteBuffer instances;
+    private final FloatBuffer instanceData;
+
+    private final ShaderProgram shader;
+    private final TerrainChunkCache chunkCache;
+
+    public HexInstancedRenderer(Map<HexType, Color> hexColorsMap, float[] contourVertices) {
+        System.arraycopy(contourVertices, 0, fanVertices, 2, (FAN_VERTICES - 1) * 2);
+        hexColorsMap.forEach((type, color) -> {
+            int index = type.ordinal() * 4;
+            palette[index] = color.r;
+            palette[index + 1] = color.g;
+            palette[index + 2] = color.b;
+            palette[index + 3] = color.a;
+        });
+        instances = ByteBuffer.allocateDirect(instanceBytes.length).order(ByteOrder.nativeOrder());
+        // Mesh принимает данные экземпляров как float, байты копируются как есть
+        instanceData = instances.asFloatBuffer();
+        shader = createShader();
+        chunkCache = new TerrainChunkCache(this::buildChunk);
+    }
+
+    /**
+     * Инстансинг доступен, если контекст создан с GL 3.0+ (в Lwjgl3Launcher - эмуляция GL32)
+     */
+    public static boolean isSupported() {
+        return Gdx.gl30 != null;
+    }
+
+    @Override
+    public void render(HexMap map, Matrix4 viewProjection, int minQ, int maxQ, int minR, int maxR) {
+        shader.bind();
+        shader.setUniform4fv("u_palette", palette, 0, palette.length);
+        chunkCache.render(map, shader, viewProjection, minQ, maxQ, minR, maxR, GL20.GL_TRIANGLE_FAN);
+    }
+
+    private Mesh buildChunk(HexMap map, int minQ, int maxQ, int minR, int maxR) {
+        int count = buildInstances(map, minQ, maxQ, minR, maxR, instanceBytes);
+        if (count == 0) {
+            return null;
+        }
+        instances.clear();
+        instances.put(instanceBytes, 0, count * INSTANCE_SIZE);
+
+        Mesh mesh = new Mesh(true, FAN_VERTICES, 0,
+                             new VertexAttribute(Usage.Position, 2, ShaderProgram.POSITION_ATTRIBUTE));
+        mesh.setVertices(fanVertices);
+        mesh.enableInstancedRendering(true, count,
+                                      new VertexAttribute(Usage.Generic, 4, GL20.GL_UNSIGNED_BYTE, false,
+                                                          INSTANCE_ATTRIBUTE));
+        instanceData.clear();
+        // один экземпляр занимает ровно один float
+        mesh.setInstanceData(instanceData, count);
+        return mesh;
+    }
+
+    /**
+     * Записывает экземпляры гексов [minQ, maxQ] x [minR, maxR] (не больше чанка) с координатами
+     * относительно (minQ, minR). Клетки без гекса пропускаются
+     *
+     * @return число экземпляров
+     */
+    static int buildInstances(HexMap map, int minQ, int maxQ, int minR, int maxR, byte[] out) {
+        int index = 0;
+        for (int r = minR; r <= maxR; r++) {
+            byte localR = (byte) (r - minR);
+            for (int q = minQ; q <= maxQ; q++) {
+                int type = map.getTypeOrdinal(q, r);
+                if (type == HexStorage.NO_HEX) {
+                    continue;
+                }
+                out[index] = (byte) (q - minQ);
+                out[index + 1] = localR;
+                out[index + 2] = (byte) type;
+                index += INSTANCE_SIZE;
+            }
+        }
+        return index / INSTANCE_SIZE;
+    }
+
+    @Override
+    public void dispose() {
+        shader.dispose();
+        chunkCache.dispose();
+    }
+
+    private static ShaderProgram createShader() {
+        String vertexShader = "#version 150\n"
+                              + "in vec4 " + ShaderProgram.POSITION_ATTRIBUTE + ";\n"
+                              + "in vec4 " + INSTANCE_ATTRIBUTE + ";\n"
+                              + "uniform mat4 u_projModelView;\n"
+                              + "uniform vec4 u_palette[" + HexType.values().length + "];\n"
+                              + "flat out vec4 v_col;\n"
+                              + "void main() {\n"
+                              + "   float q = " + INSTANCE_ATTRIBUTE + ".x;\n"
+                              + "   float r = " + INSTANCE_ATTRIBUTE + ".y;\n"
+                              // нечетные ряды сдвинуты на полгекса, как в HexGridTextureRenderer
+                              + "   vec2 center = vec2((q + 0.5 * mod(r, 2.0)) * " + HEX_WIDTH + ", r * " + Y_PITCH
+                              + ");\n"
+                              + "   gl_Position = u_projModelView * vec4(" + ShaderProgram.POSITION_ATTRIBUTE
+                              + ".xy + center, 0.0, 1.0);\n"
+                              + "   v_col = u_palette[int(" + INSTANCE_ATTRIBUTE + ".z)];\n"
+                              + "}";
+        ShaderProgram program = new ShaderProgram(vertexShader, HexGridTextureRenderer.createHexFragmentShader());
+        if (!program.isCompiled()) {
+            throw new GdxRuntimeException("Error compiling instanced hex shader: " + program.getLog());
+        }
+        return program;
+    }
+}
@@ -11,12 +11,16 @@ import static io.github.game.core.world.hex.HexUtils.HEX_SIZE;
 import static io.github.game.core.world.hex.HexUtils.HEX_WIDTH;
 import static io.github.game.core.world.hex.HexUtils.Y_PITCH;
 
+import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
 import io.github.game.core.world.HexMap;
+import io.github.game.core.world.TerrainPyramid;
 import io.github.game.core.world.generator.GenerationContext;
 import io.github.game.core.world.hex.HexType;
+import io.github.game.core.world.storage.ChunkedHexStorage;
+import io.github.game.settings.GraphicsSettings;
 import java.util.EnumMap;
 import java.util.Map;
 import javax.inject.Inject;
@@ -30,8 +34,14 @@ public class HexMapRenderer {
 
 
     // Статические данные для вершин единичного гекса (предварительно вычисленные)
-    private static final float[] UNIT_HEX_VERTICES = new float[2 * 7];
+    static final float[] UNIT_HEX_VERTICES = new float[2 * 7];
     static private final Color contourColor = new Color(0, 0, 0, 1);
+    // На сколько кадров вперед экстраполировать движение камеры при подгрузке чанков
+    private static final int PREFETCH_LOOKAHEAD_FRAMES = 30;
+    // Ширина гекса на экране в пикселях, ниже которой контуры сливаются в сплошную сетку и не рисуются
+    private static final float OUTLINE_MIN_HEX_PIXELS = 8f;
+    // Минимальная ширина клетки на экране: более мелкие гексы заменяются блоками пирамиды местности
+    private static final float LOD_MIN_CELL_PIXELS = 6f;
 
     static {
         // Вычисляем вершины единичного гекса один раз при загрузке класса
@@ -43,10 +53,8 @@ public class HexMapRenderer {
         }
     }
 
-    private final ShapeRenderer shapeRenderer;
-    private final OrthographicCamera camera;
     // цвета гексов
-    private final Map<HexType, Color> hexColorsMap = new EnumMap<>(
+    static final Map<HexType, Color> HEX_COLORS = new EnumMap<>(
         Map.of(PLAINS, new Color(0.4f, 0.8f, 0.2f, 1),    // Зеленый для равнин
                FOREST, new Color(0.2f, 0.6f, 0.1f, 1),     // Темно-зеленый для леса
                MOUNTAINS, new Color(0.5f, 0.5f, 0.5f, 1),  // Серый для гор
@@ -55,34 +63,59 @@ public class HexMapRenderer {
                DESERT, new Color(0.95f, 0.9f, 0.11f, 1),   // Желтый для пустыни
                SWAMP, new Color(0.1f, 0.2f, 0.1f, 1)      // Темно-зеленый для болота
         ));
+
+    private final ShapeRenderer shapeRenderer;
+    private final OrthographicCamera camera;
     private final HexGridOutlineRenderer lineRenderer;
-    private final HexGridTextureRenderer hexRenderer;
+    private final TerrainRenderer hexRenderer;
+    private final TerrainLodRenderer lodRenderer;
+    private final GraphicsSettings graphicsSettings;
+    // создается при первом кадре, в котором режим включен и карта помещается в текстуру
+    private TerrainDataTextureRenderer dataTextureRenderer;
     private GenerationContext context;
-    private final HexMap hexMap;
+    private int prevMinQ = -1;
+    private int prevMinR = -1;
 
 
     @Inject
     public HexMapRenderer(GenerationContext context, ShapeRenderer shapeRenderer,
-                          OrthographicCamera camera) {
+                          OrthographicCamera camera, GraphicsSettings graphicsSettings) {
         this.context = context;
-        this.hexMap = context.getHexMap();
+        this.graphicsSettings = graphicsSettings;
         this.shapeRenderer = shapeRenderer;
         this.camera = camera;
         this.lineRenderer = new HexGridOutlineRenderer(10000, contourColor, UNIT_HEX_VERTICES);
-        this.hexRenderer = new HexGridTextureRenderer(10000, hexColorsMap, UNIT_HEX_VERTICES);
+        this.hexRenderer = createTerrainRenderer();
+        this.lodRenderer = new TerrainLodRenderer(HEX_COLORS);
     }
 
 
+    /**
+     * Инстансинг, если контекст поддерживает GL 3.0, иначе полосы треугольников
+     */
+    private static TerrainRenderer createTerrainRenderer() {
+        if (HexInstancedRenderer.isSupported()) {
+            Gdx.app.log("HexMapRenderer", "Terrain is drawn with instancing");
+            return new HexInstancedRenderer(HEX_COLORS, UNIT_HEX_VERTICES);
+        }
+        Gdx.app.log("HexMapRenderer", "GL 3.0 is not available, terrain is drawn with triangle strips");
+        return new HexGridTextureRenderer(HEX_COLORS, UNIT_HEX_VERTICES);
+    }
+
     /**
      * Основной метод рендеринга гексовой карты
      */
     public void render() {
+        // Карту берем из контекста каждый кадр: генерация заменяет ее после создания рендерера
+        HexMap hexMap = context.getHexMap();
 
         // Получаем видимую область камеры
         float camX = camera.position.x;
         float camY = camera.position.y;
         float camWidth = camera.viewportWidth * camera.zoom;
         float camHeight = camera.viewportHeight * camera.zoom;
+        // ширина гекса на экране в пикселях
+        float hexPixels = HEX_WIDTH * Gdx.graphics.getBackBufferWidth() / camWidth;
 
         // Вычисляем границы видимой области в мировых координатах
         float left = camX - camWidth / 2;
@@ -99,8 +132,77 @@ public class HexMapRenderer {
         int minR = Math.max(0, (int) ((bottom - HEX_SIZE) / Y_PITCH + 1.0f));    //низ
         int maxR = Math.min(hexMap.getHeight() - 1, (int) ((top + HEX_SIZE) / Y_PITCH)); //верх
 
+        TerrainDataTextureRenderer dataTexture = dataTextureRenderer(hexMap);
+        int level = dataTexture != null ? 0 : lodLevel(hexMap, hexPixels);
+        if (hexMap.getStorage() instanceof ChunkedHexStorage chunkedStorage) {
+            // рендер не ждет чанков: отсутствующие рисуются пустыми до фоновой подгрузки
+            chunkedStorage.setNonBlockingReader(Thread.currentThread());
+            // блоки размером с чанк и крупнее берутся из типов чанков, сами чанки для них не нужны
+            if (level < ChunkedHexStorage.CHUNK_LEVEL) {
+                prefetchChunks(chunkedStorage, minQ, maxQ, minR, maxR);
+            }
+        }
+
+        if (dataTexture != null) {
+            // заливка и контуры одним вызовом отрисовки
+            dataTexture.render(hexMap, camera.combined, minQ, maxQ, minR, maxR);
+            return;
+        }
+
+        if (level > 0) {
+            // гексы мельче нескольких пикселей: блоки пирамиды без контуров
+            lodRenderer.render(hexMap, level, camera.combined, minQ, maxQ, minR, maxR);
+            return;
+        }
         hexRenderer.render(hexMap, camera.combined, minQ, maxQ, minR, maxR);
-        lineRenderer.render(hexMap, camera.combined, minQ, maxQ, minR, maxR);
+        if (hexPixels >= OUTLINE_MIN_HEX_PIXELS) {
+            lineRenderer.render(hexMap, camera.combined, minQ, maxQ, minR, maxR);
+        }
+    }
+
+    /**
+     * Уровень пирамиды местности, на котором клетка шире LOD_MIN_CELL_PIXELS, или 0 для полной детализации
+     */
+    private static int lodLevel(HexMap hexMap, float hexPixels) {
+        if (hexPixels <= 0 || hexPixels >= LOD_MIN_CELL_PIXELS) {
+            return 0;
+        }
+        TerrainPyramid pyramid = hexMap.getTerrainPyramid();
+        int level = 0;
+        while (level < pyramid.getLevelCount() - 1 && hexPixels * (1 << level) < LOD_MIN_CELL_PIXELS) {
+            level++;
+        }
+        return level;
+    }
+
+    /**
+     * Рендерер текстуры данных, если режим включен в настройках (по умолчанию нет) и подходит для карты,
+     * иначе null
+     */
+    private TerrainDataTextureRenderer dataTextureRenderer(HexMap hexMap) {
+        if (!graphicsSettings.isTerrainDataTexture() || !TerrainDataTextureRenderer.isSupported()) {
+            return null;
+        }
+        if (dataTextureRenderer == null) {
+            dataTextureRenderer = new TerrainDataTextureRenderer(HEX_COLORS, contourColor);
+        }
+        return dataTextureRenderer.supports(hexMap) ? dataTextureRenderer : null;
+    }
+
+    /**
+     * Подгружает в фоне чанки вокруг видимой области, смещенной по направлению движения камеры, начиная с
+     * центра экрана
+     */
+    private void prefetchChunks(ChunkedHexStorage storage, int minQ, int maxQ, int minR, int maxR) {
+        int deltaQ = prevMinQ < 0 ? 0 : (minQ - prevMinQ) * PREFETCH_LOOKAHEAD_FRAMES;
+        int deltaR = prevMinR < 0 ? 0 : (minR - prevMinR) * PREFETCH_LOOKAHEAD_FRAMES;
+        prevMinQ = minQ;
+        prevMinR = minR;
+
+        int margin = ChunkedHexStorage.CHUNK_SIZE;
+        storage.prefetch(Math.min(minQ, minQ + deltaQ) - margin, Math.max(maxQ, maxQ + deltaQ) + margin,
+                         Math.min(minR, minR + deltaR) - margin, Math.max(maxR, maxR + deltaR) + margin,
+                         (minQ + maxQ) / 2, (minR + maxR) / 2);
     }
 
     /**
@@ -110,6 +212,10 @@ public class HexMapRenderer {
         shapeRenderer.dispose();
         lineRenderer.dispose();
         hexRenderer.dispose();
+        lodRenderer.dispose();
+        if (dataTextureRenderer != null) {
+            dataTextureRenderer.dispose();
+        }
     }
 
 }
@@ -0,0 +1,226 @@
+package io.github.game.renderer;
+
+import static io.github.game.core.world.hex.HexUtils.HEX_WIDTH;
+import static io.github.game.core.world.hex.HexUtils.Y_PITCH;
+
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.Matrix4;
+import io.github.game.core.world.HexMap;
+import io.github.game.core.world.HexMapListener;
+import io.github.game.core.world.TerrainPyramid;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Кеш статических мешей местности: один неизменяемый меш на область CHUNK_SIZE x CHUNK_SIZE клеток,
+ * построенный {@link ChunkBuilder}. Клетка - гекс или, для уровней {@link TerrainPyramid}, блок
+ * cellSize x cellSize гексов. Меш строится при первом появлении чанка на экране и
+ * перестраивается, только когда карта сообщает об изменении гекса внутри него. Вершины хранятся
+ * относительно угла чанка, чтобы на больших картах не терять точность float.
+ * <p>
+ * Меши создаются и удаляются только в потоке рендера; слушатель карты лишь помечает чанки устаревшими.
+ */
+class TerrainChunkCache implements HexMapListener {
+
+    static final int CHUNK_SIZE = 32;
+
+    // Сколько мешей держать в памяти видеокарты (~50 КБ на чанк). Видимые в кадре чанки не вытесняются
+    private static final int MAX_CACHED_CHUNKS = 512;
+
+    private final ChunkBuilder builder;
+    // сторона клетки в гексах
+    private final int cellSize;
+    private final Matrix4 chunkTransform = new Matrix4();
+
+    // порядок доступа: недавно нарисованные чанки в конце, кандидаты на вытеснение в начале
+    private final Map<Long, ChunkMesh> meshes = new LinkedHashMap<>(64, 0.75f, true);
+    private final Set<Long> dirtyChunks = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger mapVersion = new AtomicInteger();
+
+    private HexMap map;
+    private int builtVersion;
+    private int frame;
+
+    TerrainChunkCache(ChunkBuilder builder) {
+        this(builder, 1);
+    }
+
+    TerrainChunkCache(ChunkBuilder builder, int cellSize) {
+        this.builder = builder;
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Рисует чанки, пересекающие видимую область [minQ, maxQ] x [minR, maxR] в клетках. Шейдер должен быть привязан
+     * и принимать матрицу u_projModelView; сдвиг чанка добавляется к viewProjection
+     */
+    void render(HexMap map, ShaderProgram shader, Matrix4 viewProjection, int minQ, int maxQ, int minR, int maxR,
+                int primitiveType) {
+        beginFrame(map);
+        for (int chunkR = minR / CHUNK_SIZE; chunkR <= maxR / CHUNK_SIZE && minQ <= maxQ; chunkR++) {
+            for (int chunkQ = minQ / CHUNK_SIZE; chunkQ <= maxQ / CHUNK_SIZE; chunkQ++) {
+                Mesh mesh = get(chunkQ, chunkR);
+                if (mesh == null) {
+                    continue;
+                }
+                // вершины чанка заданы относительно центра его первого гекса
+                chunkTransform.set(viewProjection).translate(HEX_WIDTH * chunkQ * CHUNK_SIZE * cellSize,
+                                                             Y_PITCH * chunkR * CHUNK_SIZE * cellSize, 0);
+                shader.setUniformMatrix("u_projModelView", chunkTransform);
+                mesh.render(shader, primitiveType);
+            }
+        }
+        endFrame();
+    }
+
+    /**
+     * Начинает кадр: переключается на карту, если она сменилась, и удаляет меши измененных чанков
+     */
+    private void beginFrame(HexMap map) {
+        frame++;
+        if (map != this.map) {
+            if (this.map != null) {
+                this.map.removeListener(this);
+            }
+            this.map = map;
+            map.addListener(this);
+            mapVersion.incrementAndGet();
+        }
+
+        int version = mapVersion.get();
+        if (version != builtVersion) {
+            builtVersion = version;
+            dirtyChunks.clear();
+            clear();
+            return;
+        }
+
+        if (!dirtyChunks.isEmpty()) {
+            Iterator<Long> iterator = dirtyChunks.iterator();
+            while (iterator.hasNext()) {
+                ChunkMesh chunk = meshes.remove(iterator.next());
+                iterator.remove();
+                if (chunk != null) {
+                    chunk.dispose();
+                }
+            }
+        }
+    }
+
+    /**
+     * Возвращает меш чанка (chunkQ, chunkR), строя его при необходимости, или null для пустого чанка
+     */
+    private Mesh get(int chunkQ, int chunkR) {
+        Long key = key(chunkQ, chunkR);
+        ChunkMesh chunk = meshes.get(key);
+        if (chunk == null) {
+            chunk = new ChunkMesh(build(chunkQ, chunkR));
+            meshes.put(key, chunk);
+        }
+        chunk.frame = frame;
+        return chunk.mesh;
+    }
+
+    /**
+     * Заканчивает кадр: вытесняет давно не рисовавшиеся меши сверх лимита
+     */
+    private void endFrame() {
+        Iterator<ChunkMesh> iterator = meshes.values().iterator();
+        while (meshes.size() > MAX_CACHED_CHUNKS && iterator.hasNext()) {
+            ChunkMesh chunk = iterator.next();
+            if (chunk.frame == frame) {
+                break;
+            }
+            iterator.remove();
+            chunk.dispose();
+        }
+    }
+
+    int size() {
+        return meshes.size();
+    }
+
+    @Override
+    public void terrainChanged(int minQ, int minR, int maxQ, int maxR) {
+        int chunkHexes = CHUNK_SIZE * cellSize;
+        int minChunkQ = minQ / chunkHexes;
+        int maxChunkQ = maxQ / chunkHexes;
+        int minChunkR = minR / chunkHexes;
+        int maxChunkR = maxR / chunkHexes;
+
+        // Крупные изменения (очистка, перегенерация) проще отметить сбросом всего кеша
+        if ((long) (maxChunkQ - minChunkQ + 1) * (maxChunkR - minChunkR + 1) > MAX_CACHED_CHUNKS) {
+            mapVersion.incrementAndGet();
+            return;
+        }
+        for (int chunkR = minChunkR; chunkR <= maxChunkR; chunkR++) {
+            for (int chunkQ = minChunkQ; chunkQ <= maxChunkQ; chunkQ++) {
+                dirtyChunks.add(key(chunkQ, chunkR));
+            }
+        }
+    }
+
+    private Mesh build(int chunkQ, int chunkR) {
+        int minQ = chunkQ * CHUNK_SIZE;
+        int minR = chunkR * CHUNK_SIZE;
+        int maxQ = Math.min((map.getWidth() + cellSize - 1) / cellSize, minQ + CHUNK_SIZE) - 1;
+        int maxR = Math.min((map.getHeight() + cellSize - 1) / cellSize, minR + CHUNK_SIZE) - 1;
+        return builder.build(map, minQ, maxQ, minR, maxR);
+    }
+
+    /**
+     * Удаляет все меши. Только в потоке рендера
+     */
+    void clear() {
+        for (ChunkMesh chunk : meshes.values()) {
+            chunk.dispose();
+        }
+        meshes.clear();
+    }
+
+    void dispose() {
+        clear();
+        if (map != null) {
+            map.removeListener(this);
+            map = null;
+        }
+    }
+
+    private static long key(int chunkQ, int chunkR) {
+        return ((long) chunkR << 32) | (chunkQ & 0xFFFFFFFFL);
+    }
+
+    private static final class ChunkMesh {
+        final Mesh mesh;
+        int frame;
+
+        ChunkMesh(Mesh mesh) {
+            this.mesh = mesh;
+        }
+
+        void dispose() {
+            if (mesh != null) {
+                mesh.dispose();
+            }
+        }
+    }
+
+    /**
+     * Строит меш клеток [minQ, maxQ] x [minR, maxR] с вершинами относительно центра первого гекса клетки
+     * (minQ, minR). Ряд первого гекса всегда четный, поэтому сдвиг нечетных рядов внутри чанка такой же,
+     * как на карте
+     */
+    @FunctionalInterface
+    interface ChunkBuilder {
+
+        /**
+         * @return меш или null, если рисовать нечего
+         */
+        Mesh build(HexMap map, int minQ, int maxQ, int minR, int maxR);
+    }
+}
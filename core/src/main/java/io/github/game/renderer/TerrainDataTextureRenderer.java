@@ -0,0 +1,301 @@
+package io.github.game.renderer;
+
+import static io.github.game.core.world.hex.HexUtils.HALF_WIDTH;
+import static io.github.game.core.world.hex.HexUtils.HEX_SIZE;
+import static io.github.game.core.world.hex.HexUtils.HEX_WIDTH;
+import static io.github.game.core.world.hex.HexUtils.Y_PITCH;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.GL30;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.VertexAttribute;
+import com.badlogic.gdx.graphics.VertexAttributes.Usage;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.BufferUtils;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import io.github.game.core.world.HexMap;
+import io.github.game.core.world.HexMapListener;
+import io.github.game.core.world.hex.HexType;
+import io.github.game.core.world.storage.ChunkedHexStorage;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Рисует всю видимую карту одним прямоугольником: типы гексов лежат в текстуре данных R8 (ordinal + 1,
+ * 0 - нет гекса), фрагментный шейдер переводит мировые координаты пикселя в гекс, берет цвет из
+ * текстуры-палитры и рисует контур по расстоянию до края гекса. Заменяет {@link HexGridTextureRenderer}
+ * и {@link HexGridOutlineRenderer}: стоимость кадра на CPU не зависит от масштаба.
+ * <p>
+ * Текстура заливается при смене карты, изменения отдельных гексов догружаются через glTexSubImage2D.
+ * Карты с подкачкой чанков и карты больше GL_MAX_TEXTURE_SIZE не поддерживаются, см. {@link #supports}.
+ */
+public class TerrainDataTextureRenderer implements TerrainRenderer, HexMapListener {
+
+    // Сколько прямоугольников изменений копить до кадра, дальше проще перезалить текстуру целиком
+    private static final int MAX_PENDING_UPDATES = 256;
+    // Размер буфера загрузки: большие области заливаются полосами строк
+    private static final int UPLOAD_BUFFER_BYTES = 1 << 20;
+    // Ширина контура в пикселях экрана
+    private static final float OUTLINE_PIXELS = 1.0f;
+    // С какой ширины гекса в пикселях контур начинает исчезать (при 2x от нее виден полностью)
+    private static final float OUTLINE_FADE_PIXELS = 6.0f;
+
+    private final ShaderProgram shader;
+    private final Texture palette;
+    private final Mesh quad;
+    private final float[] quadVertices = new float[8];
+    private final Color outlineColor;
+    private final int maxTextureSize;
+    private final ByteBuffer uploadBuffer = BufferUtils.newByteBuffer(UPLOAD_BUFFER_BYTES);
+
+    private final List<int[]> pendingUpdates = new ArrayList<>();
+    private boolean fullUploadPending;
+
+    private HexMap map;
+    private int terrainTexture;
+
+    public TerrainDataTextureRenderer(Map<HexType, Color> hexColorsMap, Color outlineColor) {
+        this.outlineColor = outlineColor;
+        this.shader = createShader();
+        this.palette = createPalette(hexColorsMap);
+        this.quad = new Mesh(false, 4, 0, new VertexAttribute(Usage.Position, 2, ShaderProgram.POSITION_ATTRIBUTE));
+
+        IntBuffer result = BufferUtils.newIntBuffer(16);
+        Gdx.gl.glGetIntegerv(GL20.GL_MAX_TEXTURE_SIZE, result);
+        this.maxTextureSize = result.get(0);
+    }
+
+    /**
+     * Текстура R8 требует GL 3.0
+     */
+    public static boolean isSupported() {
+        return Gdx.gl30 != null;
+    }
+
+    /**
+     * Карта помещается в одну текстуру и хранится в памяти целиком
+     */
+    public boolean supports(HexMap map) {
+        return !(map.getStorage() instanceof ChunkedHexStorage)
+               && map.getWidth() <= maxTextureSize && map.getHeight() <= maxTextureSize;
+    }
+
+    @Override
+    public void render(HexMap map, Matrix4 viewProjection, int minQ, int maxQ, int minR, int maxR) {
+        if (map != this.map) {
+            bind(map);
+        }
+        applyUpdates();
+        if (minQ > maxQ || minR > maxR) {
+            return;
+        }
+
+        // Прямоугольник с запасом в гекс вокруг видимых клеток, лишнее шейдер отбрасывает
+        float left = HEX_WIDTH * (minQ - 1);
+        float right = HEX_WIDTH * (maxQ + 1.5f);
+        float bottom = Y_PITCH * minR - HEX_SIZE;
+        float top = Y_PITCH * maxR + HEX_SIZE;
+        quadVertices[0] = left;
+        quadVertices[1] = bottom;
+        quadVertices[2] = right;
+        quadVertices[3] = bottom;
+        quadVertices[4] = left;
+        quadVertices[5] = top;
+        quadVertices[6] = right;
+        quadVertices[7] = top;
+        quad.setVertices(quadVertices);
+
+        Gdx.gl.glActiveTexture(GL20.GL_TEXTURE1);
+        palette.bind();
+        Gdx.gl.glActiveTexture(GL20.GL_TEXTURE0);
+        Gdx.gl.glBindTexture(GL20.GL_TEXTURE_2D, terrainTexture);
+
+        shader.bind();
+        shader.setUniformMatrix("u_projModelView", viewProjection);
+        shader.setUniformi("u_terrain", 0);
+        shader.setUniformi("u_palette", 1);
+        shader.setUniformi("u_mapSize", map.getWidth(), map.getHeight());
+        shader.setUniformf("u_outlineColor", outlineColor);
+        quad.render(shader, GL20.GL_TRIANGLE_STRIP);
+    }
+
+    @Override
+    public void terrainChanged(int minQ, int minR, int maxQ, int maxR) {
+        synchronized (pendingUpdates) {
+            if (fullUploadPending) {
+                return;
+            }
+            if (pendingUpdates.size() >= MAX_PENDING_UPDATES) {
+                pendingUpdates.clear();
+                fullUploadPending = true;
+                return;
+            }
+            pendingUpdates.add(new int[]{minQ, minR, maxQ, maxR});
+        }
+    }
+
+    /**
+     * Переключается на карту: создает текстуру ее размера и заливает все типы
+     */
+    private void bind(HexMap map) {
+        if (this.map != null) {
+            this.map.removeListener(this);
+        }
+        this.map = map;
+        map.addListener(this);
+
+        if (terrainTexture == 0) {
+            terrainTexture = Gdx.gl.glGenTexture();
+        }
+        Gdx.gl.glBindTexture(GL20.GL_TEXTURE_2D, terrainTexture);
+        Gdx.gl.glTexParameteri(GL20.GL_TEXTURE_2D, GL20.GL_TEXTURE_MIN_FILTER, GL20.GL_NEAREST);
+        Gdx.gl.glTexParameteri(GL20.GL_TEXTURE_2D, GL20.GL_TEXTURE_MAG_FILTER, GL20.GL_NEAREST);
+        Gdx.gl.glTexParameteri(GL20.GL_TEXTURE_2D, GL20.GL_TEXTURE_WRAP_S, GL20.GL_CLAMP_TO_EDGE);
+        Gdx.gl.glTexParameteri(GL20.GL_TEXTURE_2D, GL20.GL_TEXTURE_WRAP_T, GL20.GL_CLAMP_TO_EDGE);
+        Gdx.gl.glTexImage2D(GL20.GL_TEXTURE_2D, 0, GL30.GL_R8, map.getWidth(), map.getHeight(), 0, GL30.GL_RED,
+                            GL20.GL_UNSIGNED_BYTE, null);
+
+        synchronized (pendingUpdates) {
+            pendingUpdates.clear();
+            fullUploadPending = true;
+        }
+        Gdx.app.log("TerrainDataTexture", "Terrain texture %dx%d (%d KB)".formatted(
+            map.getWidth(), map.getHeight(), (long) map.getWidth() * map.getHeight() / 1024));
+    }
+
+    private void applyUpdates() {
+        int[][] updates;
+        boolean fullUpload;
+        synchronized (pendingUpdates) {
+            fullUpload = fullUploadPending;
+            updates = fullUpload ? null : pendingUpdates.toArray(new int[0][]);
+            pendingUpdates.clear();
+            fullUploadPending = false;
+        }
+
+        if (fullUpload) {
+            upload(0, 0, map.getWidth() - 1, map.getHeight() - 1);
+            return;
+        }
+        for (int[] update : updates) {
+            upload(update[0], update[1], update[2], update[3]);
+        }
+    }
+
+    /**
+     * Загружает типы прямоугольника [minQ, maxQ] x [minR, maxR] полосами строк через glTexSubImage2D
+     */
+    private void upload(int minQ, int minR, int maxQ, int maxR) {
+        int width = maxQ - minQ + 1;
+        int bandRows = Math.max(1, UPLOAD_BUFFER_BYTES / width);
+
+        Gdx.gl.glBindTexture(GL20.GL_TEXTURE_2D, terrainTexture);
+        Gdx.gl.glPixelStorei(GL20.GL_UNPACK_ALIGNMENT, 1);
+        for (int bandMinR = minR; bandMinR <= maxR; bandMinR += bandRows) {
+            int bandMaxR = Math.min(maxR, bandMinR + bandRows - 1);
+            uploadBuffer.clear();
+            for (int r = bandMinR; r <= bandMaxR; r++) {
+                for (int q = minQ; q <= maxQ; q++) {
+                    uploadBuffer.put((byte) (map.getTypeOrdinal(q, r) + 1));
+                }
+            }
+            uploadBuffer.flip();
+            Gdx.gl.glTexSubImage2D(GL20.GL_TEXTURE_2D, 0, minQ, bandMinR, width, bandMaxR - bandMinR + 1,
+                                   GL30.GL_RED, GL20.GL_UNSIGNED_BYTE, uploadBuffer);
+        }
+        Gdx.gl.glPixelStorei(GL20.GL_UNPACK_ALIGNMENT, 4);
+    }
+
+    /**
+     * Палитра: пиксель ordinal + 1 - цвет типа, нулевой пиксель прозрачный (нет гекса)
+     */
+    private static Texture createPalette(Map<HexType, Color> hexColorsMap) {
+        Pixmap pixmap = new Pixmap(HexType.values().length + 1, 1, Pixmap.Format.RGBA8888);
+        pixmap.setColor(Color.CLEAR);
+        pixmap.fill();
+        hexColorsMap.forEach((type, color) -> pixmap.drawPixel(type.ordinal() + 1, 0, Color.rgba8888(color)));
+        Texture texture = new Texture(pixmap);
+        texture.setFilter(Texture.TextureFilter.Nearest, Texture.TextureFilter.Nearest);
+        pixmap.dispose();
+        return texture;
+    }
+
+    private static ShaderProgram createShader() {
+        String vertexShader = "#version 150\n"
+                              + "in vec4 " + ShaderProgram.POSITION_ATTRIBUTE + ";\n"
+                              + "uniform mat4 u_projModelView;\n"
+                              + "out vec2 v_world;\n"
+                              + "void main() {\n"
+                              + "   v_world = " + ShaderProgram.POSITION_ATTRIBUTE + ".xy;\n"
+                              + "   gl_Position = u_projModelView * " + ShaderProgram.POSITION_ATTRIBUTE + ";\n"
+                              + "}";
+        String fragmentShader = "#version 150\n"
+                                + "#ifdef GL_ES\nprecision highp float;\n#endif\n"
+                                + "uniform sampler2D u_terrain;\n"
+                                + "uniform sampler2D u_palette;\n"
+                                + "uniform ivec2 u_mapSize;\n"
+                                + "uniform vec4 u_outlineColor;\n"
+                                + "in vec2 v_world;\n"
+                                + "void main() {\n"
+                                // мировые координаты -> осевые (pointy-top), затем округление в кубических
+                                + "   float aq = (0.57735027 * v_world.x - v_world.y / 3.0) / " + HEX_SIZE + ";\n"
+                                + "   float ar = (v_world.y * 2.0 / 3.0) / " + HEX_SIZE + ";\n"
+                                + "   vec3 cube = vec3(aq, -aq - ar, ar);\n"
+                                + "   vec3 rounded = floor(cube + 0.5);\n"
+                                + "   vec3 diff = abs(rounded - cube);\n"
+                                + "   if (diff.x > diff.y && diff.x > diff.z) {\n"
+                                + "      rounded.x = -rounded.y - rounded.z;\n"
+                                + "   } else if (diff.y > diff.z) {\n"
+                                + "      rounded.y = -rounded.x - rounded.z;\n"
+                                + "   } else {\n"
+                                + "      rounded.z = -rounded.x - rounded.y;\n"
+                                + "   }\n"
+                                // осевые -> координаты карты: нечетные ряды сдвинуты на полгекса вправо
+                                + "   int r = int(rounded.z);\n"
+                                + "   int q = int(rounded.x) + (r - (r & 1)) / 2;\n"
+                                + "   if (q < 0 || r < 0 || q >= u_mapSize.x || r >= u_mapSize.y) discard;\n"
+                                + "   int type = int(texelFetch(u_terrain, ivec2(q, r), 0).r * 255.0 + 0.5);\n"
+                                + "   vec4 color = texelFetch(u_palette, ivec2(type, 0), 0);\n"
+                                + "   if (type == 0) discard;\n"
+                                // расстояние до ближайшей стороны гекса и ширина пикселя в мировых единицах
+                                + "   vec2 center = vec2(" + HEX_WIDTH + " * (float(q) + 0.5 * float(r & 1)), "
+                                + Y_PITCH + " * float(r));\n"
+                                + "   vec2 d = abs(v_world - center);\n"
+                                + "   float edge = " + HALF_WIDTH + " - max(d.x, dot(d, vec2(0.5, 0.8660254)));\n"
+                                + "   float pixel = max(fwidth(v_world.x), 1e-6);\n"
+                                + "   float line = 1.0 - smoothstep(0.0, pixel * " + OUTLINE_PIXELS + ", edge);\n"
+                                // мелкие гексы без контура, иначе карта вдали сливается в цвет контура
+                                + "   float fade = clamp((" + HEX_WIDTH + " / pixel - " + OUTLINE_FADE_PIXELS + ") / "
+                                + OUTLINE_FADE_PIXELS + ", 0.0, 1.0);\n"
+                                + "   gl_FragColor = mix(color, u_outlineColor, line * fade);\n"
+                                + "}";
+        ShaderProgram program = new ShaderProgram(vertexShader, fragmentShader);
+        if (!program.isCompiled()) {
+            throw new GdxRuntimeException("Error compiling terrain texture shader: " + program.getLog());
+        }
+        return program;
+    }
+
+    @Override
+    public void dispose() {
+        if (map != null) {
+            map.removeListener(this);
+            map = null;
+        }
+        if (terrainTexture != 0) {
+            Gdx.gl.glDeleteTexture(terrainTexture);
+            terrainTexture = 0;
+        }
+        palette.dispose();
+        quad.dispose();
+        shader.dispose();
+    }
+}
@@ -0,0 +1,129 @@
+package io.github.game.renderer;
+
+import static io.github.game.core.world.hex.HexUtils.HEX_WIDTH;
+import static io.github.game.core.world.hex.HexUtils.Y_PITCH;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.VertexAttribute;
+import com.badlogic.gdx.graphics.VertexAttributes.Usage;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.Matrix4;
+import io.github.game.core.world.HexMap;
+import io.github.game.core.world.TerrainPyramid;
+import io.github.game.core.world.hex.HexType;
+import java.util.Map;
+
+/**
+ * Рисует местность издалека по уровню {@link TerrainPyramid}: блок 2^k x 2^k гексов - один прямоугольник
+ * цвета преобладающего типа, ряд блоков - полоса треугольников по 2 вершины на блок. Меши кешируются
+ * в отдельном {@link TerrainChunkCache} на каждый уровень.
+ * <p>
+ * {@link HexMapRenderer} выбирает уровень так, чтобы блок на экране был не меньше нескольких пикселей,
+ * поэтому число вершин в кадре ограничено разрешением экрана, а не зумом.
+ */
+public class TerrainLodRenderer {
+
+    private static final int CHUNK_SIZE = TerrainChunkCache.CHUNK_SIZE;
+    // Вершин на ряд полосы: 3 в начале ряда, по 2 на блок, 1 вырожденная в конце
+    static final int ROW_VERTICES = 3 + 2 * CHUNK_SIZE + 1;
+    static final int VERTEX_SIZE = 3;
+    // стороны карты меньше 2^31, поэтому уровней не больше 32
+    private static final int MAX_LEVELS = 32;
+
+    // кешированные floatBits для цветов, индекс = ordinal типа + 1 (0 - пустой блок)
+    private final float[] hexFloatBits;
+    private final float[] vertices = new float[ROW_VERTICES * CHUNK_SIZE * VERTEX_SIZE];
+    private final TerrainChunkCache[] chunkCaches = new TerrainChunkCache[MAX_LEVELS];
+
+    private final ShaderProgram shader;
+
+    public TerrainLodRenderer(Map<HexType, Color> hexColorsMap) {
+        this.hexFloatBits = HexGridTextureRenderer.colorFloatBits(hexColorsMap);
+        // формат вершин тот же, что у полос гексов
+        this.shader = HexGridTextureRenderer.createHexShader();
+    }
+
+    /**
+     * Рисует блоки уровня level (от 1), накрывающие видимую область гексов [minQ, maxQ] x [minR, maxR]
+     */
+    public void render(HexMap map, int level, Matrix4 viewProjection, int minQ, int maxQ, int minR, int maxR) {
+        TerrainChunkCache chunkCache = chunkCaches[level];
+        if (chunkCache == null) {
+            chunkCache = new TerrainChunkCache(
+                (chunkMap, chunkMinQ, chunkMaxQ, chunkMinR, chunkMaxR) ->
+                    buildChunk(chunkMap, level, chunkMinQ, chunkMaxQ, chunkMinR, chunkMaxR), 1 << level);
+            chunkCaches[level] = chunkCache;
+        }
+        shader.bind();
+        chunkCache.render(map, shader, viewProjection, minQ >> level, maxQ >> level, minR >> level, maxR >> level,
+                          GL20.GL_TRIANGLE_STRIP);
+    }
+
+    private Mesh buildChunk(HexMap map, int level, int minQ, int maxQ, int minR, int maxR) {
+        int length = buildVertices(map, map.getTerrainPyramid(), level, minQ, maxQ, minR, maxR, hexFloatBits,
+                                   vertices);
+        Mesh mesh = new Mesh(true, length / VERTEX_SIZE, 0,
+                             new VertexAttribute(Usage.Position, 2, ShaderProgram.POSITION_ATTRIBUTE),
+                             new VertexAttribute(Usage.ColorPacked, 4, ShaderProgram.COLOR_ATTRIBUTE));
+        mesh.setVertices(vertices, 0, length);
+        return mesh;
+    }
+
+    /**
+     * Заполняет вершины полосы треугольников для блоков [minQ, maxQ] x [minR, maxR] уровня level
+     * относительно центра первого гекса блока (minQ, minR). Цвет прямоугольника берется из его последней
+     * вершины, ряды соединяются вырожденными треугольниками
+     *
+     * @return число записанных float
+     */
+    static int buildVertices(HexMap map, TerrainPyramid pyramid, int level, int minQ, int maxQ, int minR, int maxR,
+                             float[] hexFloatBits, float[] vertices) {
+        int cellSize = 1 << level;
+        float cellWidth = HEX_WIDTH * cellSize;
+        float cellHeight = Y_PITCH * cellSize;
+        // нечетные ряды сдвинуты на полгекса, вертикальные края блоков проходят посередине
+        float left = -HEX_WIDTH / 4;
+        // последние блоки карты неполные, их край обрезается по последнему гексу
+        float right = HEX_WIDTH * (Math.min(map.getWidth(), (maxQ + 1) * cellSize) - minQ * cellSize) + left;
+        float mapTop = Y_PITCH * (map.getHeight() - minR * cellSize) - Y_PITCH / 2;
+        int endIndex = 0;
+
+        for (int r = minR; r <= maxR; r++) {
+            float bottom = cellHeight * (r - minR) - Y_PITCH / 2;
+            float top = Math.min(bottom + cellHeight, mapTop);
+            float colorBits = hexFloatBits[pyramid.getTypeOrdinal(level, minQ, r) + 1];
+
+            endIndex = putVertex(vertices, endIndex, left, bottom, colorBits);
+            endIndex = putVertex(vertices, endIndex, left, bottom, colorBits);
+            endIndex = putVertex(vertices, endIndex, left, top, colorBits);
+
+            for (int q = minQ; q <= maxQ; q++) {
+                float x = q == maxQ ? right : cellWidth * (q - minQ + 1) + left;
+                colorBits = hexFloatBits[pyramid.getTypeOrdinal(level, q, r) + 1];
+                endIndex = putVertex(vertices, endIndex, x, bottom, colorBits);
+                endIndex = putVertex(vertices, endIndex, x, top, colorBits);
+            }
+
+            endIndex = putVertex(vertices, endIndex, right, top, colorBits);
+        }
+        return endIndex;
+    }
+
+    private static int putVertex(float[] vertices, int index, float x, float y, float colorBits) {
+        vertices[index] = x;
+        vertices[index + 1] = y;
+        vertices[index + 2] = colorBits;
+        return index + VERTEX_SIZE;
+    }
+
+    public void dispose() {
+        shader.dispose();
+        for (TerrainChunkCache chunkCache : chunkCaches) {
+            if (chunkCache != null) {
+                chunkCache.dispose();
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package io.github.game.renderer;
+
+import com.badlogic.gdx.math.Matrix4;
+import io.github.game.core.world.HexMap;
+
+/**
+ * Способ отрисовки заливки гексов. Выбирается {@link HexMapRenderer} по возможностям GL-контекста
+ */
+public interface TerrainRenderer {
+
+    /**
+     * Рисует гексы видимой области [minQ, maxQ] x [minR, maxR] (границы включительно)
+     */
+    void render(HexMap map, Matrix4 viewProjection, int minQ, int maxQ, int minR, int maxR);
+
+    void dispose();
+}
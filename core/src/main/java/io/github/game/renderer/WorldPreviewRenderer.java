@@ -0,0 +1,65 @@
+package io.github.game.renderer;
+
+import static io.github.game.core.world.hex.HexUtils.HEX_WIDTH;
+import static io.github.game.core.world.hex.HexUtils.Y_PITCH;
+
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import io.github.game.core.world.generator.world.WorldPreview;
+
+/**
+ * Рисует уровень предпросмотра мира одной текстурой: пиксель на узел сетки, цвета те же, что у
+ * {@link HexMapRenderer}. Текстура пересоздается, только когда приходит новый уровень.
+ */
+public class WorldPreviewRenderer {
+
+    private WorldPreview preview;
+    private Texture texture;
+
+    /**
+     * Рисует предпросмотр с сохранением пропорций карты, по центру прямоугольника. Только в потоке рендера
+     * между batch.begin() и batch.end()
+     */
+    public void render(SpriteBatch batch, WorldPreview preview, float x, float y, float width, float height) {
+        if (preview == null) {
+            return;
+        }
+        if (preview != this.preview) {
+            updateTexture(preview);
+        }
+
+        // Ряды гексов сдвинуты на Y_PITCH, столбцы - на HEX_WIDTH
+        float aspect = preview.getWorldWidth() * HEX_WIDTH / (preview.getWorldHeight() * Y_PITCH);
+        float drawWidth = Math.min(width, height * aspect);
+        float drawHeight = drawWidth / aspect;
+        batch.draw(texture, x + (width - drawWidth) / 2, y + (height - drawHeight) / 2, drawWidth, drawHeight);
+    }
+
+    private void updateTexture(WorldPreview preview) {
+        Pixmap pixmap = new Pixmap(preview.getColumns(), preview.getRows(), Pixmap.Format.RGBA8888);
+        for (int row = 0; row < preview.getRows(); row++) {
+            for (int column = 0; column < preview.getColumns(); column++) {
+                pixmap.setColor(HexMapRenderer.HEX_COLORS.get(preview.getType(column, row)));
+                // строка 0 карты внизу, строка 0 pixmap - вверху
+                pixmap.drawPixel(column, preview.getRows() - 1 - row);
+            }
+        }
+
+        dispose();
+        texture = new Texture(pixmap);
+        pixmap.dispose();
+        this.preview = preview;
+    }
+
+    /**
+     * Освобождает текстуру
+     */
+    public void dispose() {
+        if (texture != null) {
+            texture.dispose();
+            texture = null;
+        }
+        preview = null;
+    }
+}
@@ -28,10 +28,21 @@ public class NameService {
      * Возвращает случайное название для типа
      */
     public String getRandomName(String locationType) {
+        synchronized (random) {
+            return getRandomName(locationType, random);
+        }
+    }
+
+    /**
+     * Возвращает название для типа, выбранное генератором random. Названия загружаются в конструкторе и
+     * дальше только читаются, поэтому метод можно вызывать из нескольких потоков, каждый со своим random;
+     * с random от seed'а мира названия воспроизводимы
+     */
+    public String getRandomName(String locationType, Random random) {
         List<String> names = nameCache.get(locationType);
         if (names == null || names.isEmpty()) {
             Gdx.app.error("NameService", "No names found for type: " + locationType);
-            return getDefaultName(locationType);
+            names = getDefaultNames(locationType);
         }
         return names.get(random.nextInt(names.size()));
     }
@@ -134,9 +145,4 @@ public class NameService {
             default -> List.of("Неизвестное Место");
         };
     }
-
-    private String getDefaultName(String locationType) {
-        List<String> defaultNames = getDefaultNames(locationType);
-        return defaultNames.get(random.nextInt(defaultNames.size()));
-    }
 }
@@ -0,0 +1,165 @@
+package io.github.game.services;
+
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.gdx.Gdx;
+import io.github.game.core.world.HexMap;
+import io.github.game.core.world.generator.GenerationContext;
+import io.github.game.core.world.generator.GenerationExecutor;
+import io.github.game.core.world.generator.GenerationMonitor;
+import io.github.game.core.world.generator.GeneratorFactory;
+import io.github.game.core.world.generator.GeneratorPipeline;
+import io.github.game.core.world.generator.GeneratorType;
+import io.github.game.core.world.generator.PipelineBuilder;
+import io.github.game.core.world.generator.feature.FeatureRasters;
+import io.github.game.core.world.generator.location.LocationGeneratorConfig;
+import io.github.game.core.world.generator.world.WorldGeneratorConfig;
+import io.github.game.core.world.hex.HexCoordinates;
+import io.github.game.core.world.hex.HexType;
+import io.github.game.core.world.storage.HexStorage;
+import io.github.game.ecs.components.world.GlobalPositionComponent;
+import io.github.game.ecs.components.world.LocationComponent;
+import io.github.game.settings.GameplaySettings;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.LongStream;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Поиск удачных seed'ов: генерирует много миров малого размера на всех потоках пула генерации, каждый в
+ * своем контексте, и оценивает распределение биомов и качество размещения локаций. Не требует GL, поэтому
+ * работает и в headless-запуске.
+ * <p>
+ * Общие для всех миров только сервис названий и фабрика сущностей: названия каждый генератор локаций
+ * выбирает своим генератором случайных чисел от seed'а мира, а фабрика создает локации без движка (см.
+ * {@link io.github.game.ecs.EntityFactory#createLocation(io.github.game.core.world.hex.Hex, String, String, int)}).
+ */
+@Singleton
+public class SeedSearchService {
+
+    private static final HexType[] TYPES = HexType.values();
+    // Желаемая доля суши; оценка суши падает до нуля при отклонении на эту же величину
+    private static final float TARGET_LAND_SHARE = 0.5f;
+    // Вес биомов в итоговой оценке, остальное - локации
+    private static final float BIOME_WEIGHT = 0.5f;
+    // Число соседей гекса
+    private static final int NEIGHBORS = 6;
+
+    private final GameplaySettings settings;
+    private final NameService nameService;
+    private final GeneratorFactory generatorFactory;
+    private final GenerationExecutor generationExecutor;
+
+    @Inject
+    public SeedSearchService(GameplaySettings settings, NameService nameService, GeneratorFactory generatorFactory,
+                             GenerationExecutor generationExecutor) {
+        this.settings = settings;
+        this.nameService = nameService;
+        this.generatorFactory = generatorFactory;
+        this.generationExecutor = generationExecutor;
+    }
+
+    /**
+     * Генерирует и оценивает миры с seed'ами firstSeed .. firstSeed + count - 1
+     *
+     * @param worldSize         сторона квадратного мира в гексах
+     * @param locationsPerWorld число локаций в каждом мире
+     * @return оценки от лучшей к худшей
+     */
+    public List<SeedRating> search(long firstSeed, int count, int worldSize, int locationsPerWorld) {
+        long startTime = System.currentTimeMillis();
+        List<SeedRating> ratings = generationExecutor.invoke(
+            () -> LongStream.range(firstSeed, firstSeed + count).parallel()
+                .mapToObj(seed -> evaluate(seed, worldSize, locationsPerWorld))
+                .sorted(Comparator.comparingDouble(SeedRating::score).reversed())
+                .toList());
+        Gdx.app.log("SeedSearch", "%d worlds %dx%d rated in %d ms on %d threads".formatted(
+            count, worldSize, worldSize, System.currentTimeMillis() - startTime,
+            generationExecutor.getThreadBudget()));
+        return ratings;
+    }
+
+    /**
+     * Генерирует один мир в отдельном контексте и оценивает его
+     */
+    public SeedRating evaluate(long seed, int worldSize, int locationsPerWorld) {
+        GenerationContext context = new GenerationContext(settings, nameService, HexMap.create(worldSize, worldSize));
+        GeneratorPipeline pipeline = new PipelineBuilder(generatorFactory)
+            .withWorld(GeneratorType.PROCEDURAL_WORLD, new WorldGeneratorConfig(seed, worldSize, worldSize))
+            .withFeatureRasters()
+            .withLocations(GeneratorType.RANDOM_LOCATION,
+                           new LocationGeneratorConfig(seed, context.getHexMap(), locationsPerWorld))
+            .build();
+        // Миры и так идут параллельно, шаги одного мира выполняются по порядку
+        pipeline.setConcurrentSteps(false);
+        try {
+            pipeline.execute(context, new GenerationMonitor());
+            return rate(seed, context, locationsPerWorld);
+        } finally {
+            context.getHexMap().dispose();
+        }
+    }
+
+    private SeedRating rate(long seed, GenerationContext context, int requestedLocations) {
+        HexMap map = context.getHexMap();
+        long[] counts = new long[TYPES.length];
+        for (int r = 0; r < map.getHeight(); r++) {
+            for (int q = 0; q < map.getWidth(); q++) {
+                int ordinal = map.getTypeOrdinal(q, r);
+                if (ordinal != HexStorage.NO_HEX) {
+                    counts[ordinal]++;
+                }
+            }
+        }
+
+        // Биомы: доля суши близка к желаемой, типы суши представлены равномерно (нормированная энтропия)
+        long cells = 0;
+        for (long count : counts) {
+            cells += count;
+        }
+        long land = cells - counts[HexType.OCEAN.ordinal()];
+        float landShare = cells == 0 ? 0f : (float) land / cells;
+        float landScore = 1f - Math.min(1f, Math.abs(landShare - TARGET_LAND_SHARE) / TARGET_LAND_SHARE);
+        double entropy = 0;
+        for (HexType type : TYPES) {
+            long count = counts[type.ordinal()];
+            if (type != HexType.OCEAN && count > 0) {
+                double share = (double) count / land;
+                entropy -= share * Math.log(share);
+            }
+        }
+        float diversity = land == 0 ? 0f : (float) (entropy / Math.log(TYPES.length - 1));
+        float biomeScore = landScore * diversity;
+
+        // Локации: размещены все запрошенные, есть крупные города, локации доступны по суше
+        List<Entity> locations = context.getLocations();
+        FeatureRasters features = context.getFeatureRasters();
+        int cities = 0;
+        float access = 0;
+        for (Entity location : locations) {
+            if ("CITY".equals(location.getComponent(LocationComponent.class).getLocationData().getType())) {
+                cities++;
+            }
+            HexCoordinates coordinates = location.getComponent(GlobalPositionComponent.class).getCoordinates();
+            access += (float) features.getPassableNeighborCount(coordinates.getQ(), coordinates.getR()) / NEIGHBORS;
+        }
+        // столько крупных городов пытается разместить RandomLocationGenerator
+        int expectedCities = Math.min(3, requestedLocations / 4);
+        float fill = requestedLocations == 0 ? 1f : Math.min(1f, (float) locations.size() / requestedLocations);
+        float cityShare = expectedCities == 0 ? 1f : Math.min(1f, (float) cities / expectedCities);
+        float locationScore = (fill + cityShare + (locations.isEmpty() ? 0f : access / locations.size())) / 3;
+
+        return new SeedRating(seed, BIOME_WEIGHT * biomeScore + (1 - BIOME_WEIGHT) * locationScore, biomeScore,
+                              locationScore, landShare, locations.size());
+    }
+
+    /**
+     * Оценка мира: итоговая и ее составляющие, все от 0 до 1
+     *
+     * @param landShare доля суши
+     * @param locations число размещенных локаций
+     */
+    public record SeedRating(long seed, float score, float biomeScore, float locationScore, float landShare,
+                             int locations) {
+    }
+}
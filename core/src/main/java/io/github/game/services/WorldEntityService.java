@@ -2,7 +2,10 @@ package io.github.game.services;
 
 import com.badlogic.ashley.core.Entity;
 import com.badlogic.ashley.core.PooledEngine;
+import io.github.game.core.world.generator.GenerationCache;
 import io.github.game.core.world.generator.GenerationContext;
+import io.github.game.core.world.generator.GenerationExecutor;
+import io.github.game.core.world.generator.GenerationMonitor;
 import io.github.game.core.world.generator.GeneratorFactory;
 import io.github.game.core.world.generator.GeneratorPipeline;
 import io.github.game.core.world.generator.GeneratorType;
@@ -10,11 +13,15 @@ import io.github.game.core.world.generator.PipelineBuilder;
 import io.github.game.core.world.generator.location.LocationGeneratorConfig;
 import io.github.game.core.world.generator.world.WorldGeneratorConfig;
 import io.github.game.ecs.EntityFactory;
+import java.util.concurrent.CompletableFuture;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
 /**
  * Сервис для инициализации игрового мира. Создает сущности ECS для всех гексов карты.
+ * <p>
+ * Генерация идет в пуле {@link GenerationExecutor}; в движок ECS сущности добавляет только поток рендера
+ * ({@link #addLocationEntities}).
  */
 @Singleton
 public class WorldEntityService {
@@ -26,39 +33,73 @@ public class WorldEntityService {
 
     private final GenerationContext generationContext;
     private final GeneratorFactory generatorFactory;
+    private final GenerationExecutor generationExecutor;
+    private final GenerationCache generationCache;
 
     @Inject
     public WorldEntityService(PooledEngine engine, EntityFactory entityFactory,
-                              GenerationContext generationContext, GeneratorFactory generatorFactory) {
+                              GenerationContext generationContext, GeneratorFactory generatorFactory,
+                              GenerationExecutor generationExecutor, GenerationCache generationCache) {
         this.engine = engine;
         this.entityFactory = entityFactory;
         this.generationContext = generationContext;
         this.generatorFactory = generatorFactory;
+        this.generationExecutor = generationExecutor;
+        this.generationCache = generationCache;
     }
 
 
     public void generateAll() {
+        generateAll(new GenerationMonitor());
+    }
+
+    /**
+     * Генерирует мир в пуле генерации и добавляет сущности в движок. Только в потоке рендера
+     *
+     * @param monitor прогресс и отмена генерации
+     * @throws java.util.concurrent.CancellationException если генерация отменена
+     */
+    public void generateAll(GenerationMonitor monitor) {
+        addLocationEntities(generationExecutor.run(buildPipeline(), generationContext, monitor));
+    }
+
+    /**
+     * Запускает генерацию мира в фоне. Сущности после завершения нужно добавить в движок из потока рендера
+     * через {@link #addLocationEntities}
+     *
+     * @param monitor прогресс и отмена генерации
+     */
+    public CompletableFuture<GenerationContext> generateAllAsync(GenerationMonitor monitor) {
+        return generationExecutor.submit(buildPipeline(), generationContext, monitor);
+    }
+
+    /**
+     * Добавляет сгенерированные локации в движок ECS. Только в потоке рендера после загрузки текстур
+     */
+    public void addLocationEntities(GenerationContext resultContext) {
+        for (Entity entity : resultContext.getLocations()) {
+            entityFactory.addLocationSprite(entity);
+            engine.addEntity(entity);
+        }
+    }
+
+    private GeneratorPipeline buildPipeline() {
         GenerationContext context = this.generationContext;
 
+        // Размер мира - размер карты контекста, созданной по настройкам
         // Используем инжектированную фабрику
-        GeneratorPipeline pipeline = new PipelineBuilder(generatorFactory)
+        return new PipelineBuilder(generatorFactory)
+            .withCache(generationCache)
             .withWorld(GeneratorType.PROCEDURAL_WORLD,
                        new WorldGeneratorConfig(5050,
-                                                context.getSettings().getHexSize(),
-                                                context.getSettings().getHexSize()))
+                                                context.getHexMap().getWidth(),
+                                                context.getHexMap().getHeight()))
+            .withFeatureRasters()
             .withLocations(GeneratorType.RANDOM_LOCATION,
                            new LocationGeneratorConfig(5050,
                                                        context.getHexMap(),
                                                        50))
             .build();
-
-        GenerationContext resultContext = pipeline.execute(generationContext);
-
-        pipeline.clear();
-
-        for (Entity entity : resultContext.getLocations()) {
-            engine.addEntity(entity);
-        }
     }
 
 }
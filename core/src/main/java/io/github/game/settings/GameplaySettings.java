@@ -26,4 +26,11 @@ public interface GameplaySettings extends BaseSettings {
     int getHexSize();
 
     void setHexSize(int size);
+
+    /**
+     * Бюджет потоков генерации мира, 0 - все ядра, кроме одного
+     */
+    int getGenerationThreads();
+
+    void setGenerationThreads(int threads);
 }
@@ -33,4 +33,12 @@ public interface GraphicsSettings extends BaseSettings {
     boolean isDebugMode();
 
     void setDebugMode(boolean debugMode);
+
+    /**
+     * Рисовать местность и контуры одной текстурой данных, если карта в нее помещается. По умолчанию
+     * выключено: местность рисуется кешем чанков (с инстансингом на GL 3.0) и блоками пирамиды издалека
+     */
+    boolean isTerrainDataTexture();
+
+    void setTerrainDataTexture(boolean terrainDataTexture);
 }
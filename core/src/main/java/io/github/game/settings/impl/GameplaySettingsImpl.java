@@ -12,6 +12,7 @@ public class GameplaySettingsImpl extends BaseSettingsImpl implements GameplaySe
     private boolean autoSaveEnabled;
     private int autoSaveInterval;
     private int hexSize;
+    private int generationThreads;
 
     public GameplaySettingsImpl(Preferences prefs) {
         super(prefs, GameSettingsConstants.PREFIX_GAMEPLAY);
@@ -30,6 +31,8 @@ public class GameplaySettingsImpl extends BaseSettingsImpl implements GameplaySe
                                   GameSettingsConstants.DEFAULT_AUTO_SAVE_INTERVAL);
         hexSize = getInt(GameSettingsConstants.KEY_HEX_SIZE_DEBUG,
                          GameSettingsConstants.DEFAULT_HEX_SIZE);
+        generationThreads = getInt(GameSettingsConstants.KEY_GENERATION_THREADS,
+                                   GameSettingsConstants.DEFAULT_GENERATION_THREADS);
     }
 
     @Override
@@ -38,6 +41,7 @@ public class GameplaySettingsImpl extends BaseSettingsImpl implements GameplaySe
         setDifficulty(GameSettingsConstants.DEFAULT_DIFFICULTY);
         setAutoSaveEnabled(GameSettingsConstants.DEFAULT_AUTO_SAVE);
         setAutoSaveInterval(GameSettingsConstants.DEFAULT_AUTO_SAVE_INTERVAL);
+        setGenerationThreads(GameSettingsConstants.DEFAULT_GENERATION_THREADS);
         save();
     }
 
@@ -108,4 +112,19 @@ public class GameplaySettingsImpl extends BaseSettingsImpl implements GameplaySe
         save();
 
     }
+
+    @Override
+    public int getGenerationThreads() {
+        return generationThreads;
+    }
+
+    @Override
+    public void setGenerationThreads(int threads) {
+        this.generationThreads = validateInt(threads,
+                                             GameSettingsConstants.MIN_GENERATION_THREADS,
+                                             GameSettingsConstants.MAX_GENERATION_THREADS,
+                                             "Generation threads");
+        putInt(GameSettingsConstants.KEY_GENERATION_THREADS, this.generationThreads);
+        save();
+    }
 }
@@ -14,6 +14,7 @@ public class GraphicsSettingsImpl extends BaseSettingsImpl implements GraphicsSe
     private String viewportType;
     private float uiScale;
     private boolean debugMode;
+    private boolean terrainDataTexture;
 
     public GraphicsSettingsImpl(Preferences prefs) {
         super(prefs, GameSettingsConstants.PREFIX_GRAPHICS);
@@ -36,6 +37,8 @@ public class GraphicsSettingsImpl extends BaseSettingsImpl implements GraphicsSe
                            GameSettingsConstants.DEFAULT_UI_SCALE);
         debugMode = getBoolean(GameSettingsConstants.KEY_DEBUG_MODE,
                                GameSettingsConstants.DEFAULT_DEBUG_MODE);
+        terrainDataTexture = getBoolean(GameSettingsConstants.KEY_TERRAIN_DATA_TEXTURE,
+                                        GameSettingsConstants.DEFAULT_TERRAIN_DATA_TEXTURE);
     }
 
     @Override
@@ -47,6 +50,7 @@ public class GraphicsSettingsImpl extends BaseSettingsImpl implements GraphicsSe
         setViewportType(GameSettingsConstants.DEFAULT_VIEWPORT_TYPE);
         setUiScale(GameSettingsConstants.DEFAULT_UI_SCALE);
         setDebugMode(GameSettingsConstants.DEFAULT_DEBUG_MODE);
+        setTerrainDataTexture(GameSettingsConstants.DEFAULT_TERRAIN_DATA_TEXTURE);
         save();
     }
 
@@ -139,4 +143,16 @@ public class GraphicsSettingsImpl extends BaseSettingsImpl implements GraphicsSe
         putBoolean(GameSettingsConstants.KEY_DEBUG_MODE, this.debugMode);
         save();
     }
+
+    @Override
+    public boolean isTerrainDataTexture() {
+        return terrainDataTexture;
+    }
+
+    @Override
+    public void setTerrainDataTexture(boolean terrainDataTexture) {
+        this.terrainDataTexture = terrainDataTexture;
+        putBoolean(GameSettingsConstants.KEY_TERRAIN_DATA_TEXTURE, this.terrainDataTexture);
+        save();
+    }
 }
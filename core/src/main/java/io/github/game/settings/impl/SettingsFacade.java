@@ -134,6 +134,16 @@ public class SettingsFacade implements GraphicsSettings, AudioSettings,
         graphics.setDebugMode(debugMode);
     }
 
+    @Override
+    public boolean isTerrainDataTexture() {
+        return graphics.isTerrainDataTexture();
+    }
+
+    @Override
+    public void setTerrainDataTexture(boolean terrainDataTexture) {
+        graphics.setTerrainDataTexture(terrainDataTexture);
+    }
+
     // Делегирование методов AudioSettings
     @Override
     public float getMasterVolume() {
@@ -216,6 +226,16 @@ public class SettingsFacade implements GraphicsSettings, AudioSettings,
         gameplay.setHexSize(size);
     }
 
+    @Override
+    public int getGenerationThreads() {
+        return gameplay.getGenerationThreads();
+    }
+
+    @Override
+    public void setGenerationThreads(int threads) {
+        gameplay.setGenerationThreads(threads);
+    }
+
     // Делегирование методов CameraSettings
     @Override
     public float getCameraMoveSpeed() {
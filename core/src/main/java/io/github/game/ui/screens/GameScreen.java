@@ -62,8 +62,7 @@ public class GameScreen implements Screen {
         // Установка обработчика ввода
         Gdx.input.setInputProcessor(inputManager.getInputMultiplexer());
 
-        worldEntityService.generateAll();
-
+        // Мир уже сгенерирован на экране загрузки
         // Создание игрока и NPC через отдельный сервис
         characterEntityService.createPlayer(100, 100);
 
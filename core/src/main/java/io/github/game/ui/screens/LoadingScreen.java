@@ -6,19 +6,45 @@ import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.badlogic.gdx.utils.viewport.Viewport;
+import io.github.game.core.world.generator.CancellationToken;
+import io.github.game.core.world.generator.GenerationContext;
+import io.github.game.core.world.generator.GenerationMonitor;
+import io.github.game.core.world.generator.GenerationProgressListener;
+import io.github.game.renderer.WorldPreviewRenderer;
 import io.github.game.services.AssetService;
 import io.github.game.services.WorldEntityService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import javax.inject.Inject;
 
+/**
+ * Экран загрузки: текстуры грузятся в потоке рендера, а мир в это же время генерируется в фоне. Прогресс
+ * складывается из обоих; в потоке рендера остается только добавление сущностей локаций в движок.
+ * <p>
+ * Пока мир генерируется, экран показывает последний опубликованный генератором уровень предпросмотра.
+ */
 public class LoadingScreen implements Screen {
 
+    // Доля генерации мира в общей полосе прогресса: она намного дольше загрузки текстур
+    private static final float GENERATION_PROGRESS_WEIGHT = 0.8f;
+    // Отступы предпросмотра мира: снизу под строки прогресса
+    private static final float PREVIEW_MARGIN = 20f;
+    private static final float PREVIEW_BOTTOM = 230f;
+
     private final AssetService assetService;
     private final SpriteBatch spriteBatch;
     private final BitmapFont font;
     private final ScreenSwitcher screenSwitcher;
     private final WorldEntityService worldEntityService;
     private final Viewport viewport;
+    // создается при показе экрана и освобождается при уходе с него
+    private WorldPreviewRenderer previewRenderer;
+
+    private CancellationToken cancellationToken;
+    private GenerationMonitor generationMonitor;
+    private CompletableFuture<GenerationContext> generation;
 
     @Inject
     public LoadingScreen(AssetService assetService,
@@ -39,6 +65,18 @@ public class LoadingScreen implements Screen {
     public void show() {
         // Начинаем загрузку ресурсов при показе экрана
         assetService.loadAssets();
+
+        if (previewRenderer == null) {
+            previewRenderer = new WorldPreviewRenderer();
+        }
+
+        // Генерация мира идет параллельно с загрузкой ресурсов. Отмененная при уходе с экрана запускается
+        // заново; если ее задача еще не завершилась, новая начнется после нее, чтобы не делить с ней контекст
+        if (generation == null || generation.isCompletedExceptionally()) {
+            restartGeneration(null);
+        } else if (!generation.isDone() && cancellationToken.isCancelled()) {
+            restartGeneration(generation);
+        }
     }
 
     @Override
@@ -50,25 +88,82 @@ public class LoadingScreen implements Screen {
         viewport.apply();
 
         // Обновление процесса загрузки
-        boolean finished = assetService.update();
-        float progress = assetService.getProgress();
+        boolean assetsFinished = assetService.update();
+        boolean finished = assetsFinished && generation.isDone();
+        float progress = assetService.getProgress() * (1 - GENERATION_PROGRESS_WEIGHT)
+                         + (generation.isDone() ? 1f : generationMonitor.getProgress()) * GENERATION_PROGRESS_WEIGHT;
 
         // Отрисовка прогресса загрузки
         spriteBatch.begin();
+        if (!generation.isDone()) {
+            spriteBatch.setColor(Color.WHITE);
+            previewRenderer.render(spriteBatch, generationMonitor.getPreview(), PREVIEW_MARGIN, PREVIEW_BOTTOM,
+                                   Gdx.graphics.getWidth() - 2 * PREVIEW_MARGIN,
+                                   Gdx.graphics.getHeight() - PREVIEW_BOTTOM - PREVIEW_MARGIN);
+        }
         spriteBatch.setColor(Color.CORAL);
 //        font.draw(spriteBatch, "Loading", 100, 100);
 
         font.draw(spriteBatch, "Loading: " + (int) (progress * 100) + "%",
                   100,
                   200);
+        if (!generation.isDone()) {
+            font.draw(spriteBatch, generationMonitor.getStepName(), 100, 170);
+        }
         spriteBatch.end();
 
-        // Если загрузка завершена, переключаемся на главный экран
+        // Если загрузка завершена, добавляем сущности мира и переключаемся на главный экран. Результат
+        // сбрасывается, чтобы повторный показ экрана не добавил те же сущности еще раз
         if (finished) {
+            GenerationContext result = generatedContext();
+            generation = null;
+            worldEntityService.addLocationEntities(result);
             screenSwitcher.switchToGameScreen();
         }
     }
 
+    /**
+     * Результат фоновой генерации; ошибка генерации пробрасывается в поток рендера
+     */
+    private GenerationContext generatedContext() {
+        try {
+            return generation.join();
+        } catch (CompletionException e) {
+            throw new GdxRuntimeException("World generation failed", e.getCause());
+        }
+    }
+
+    /**
+     * Запускает генерацию мира с новым токеном отмены
+     *
+     * @param previous отмененная, но еще не завершившаяся генерация или null
+     */
+    private void restartGeneration(CompletableFuture<GenerationContext> previous) {
+        cancellationToken = new CancellationToken();
+        GenerationMonitor monitor = new GenerationMonitor(cancellationToken, GenerationProgressListener.NONE);
+        generationMonitor = monitor;
+        generation = previous == null
+                     ? worldEntityService.generateAllAsync(monitor)
+                     : previous.handle((result, error) -> null)
+                         .thenCompose(ignored -> worldEntityService.generateAllAsync(monitor));
+    }
+
+    /**
+     * Отменяет фоновую генерацию, если она еще идет
+     */
+    private void cancelGeneration() {
+        if (generation != null && !generation.isDone()) {
+            cancellationToken.cancel();
+        }
+    }
+
+    private void disposePreviewRenderer() {
+        if (previewRenderer != null) {
+            previewRenderer.dispose();
+            previewRenderer = null;
+        }
+    }
+
     @Override
     public void resize(int width, int height) {
         // Обработка изменения размера основного viewport
@@ -87,11 +182,15 @@ public class LoadingScreen implements Screen {
 
     @Override
     public void hide() {
-
+        // Уход с экрана до конца загрузки прерывает генерацию
+        cancelGeneration();
+        disposePreviewRenderer();
     }
 
     @Override
     public void dispose() {
+        cancelGeneration();
+        disposePreviewRenderer();
         // Очистка ресурсов, специфичных для этого экрана
         font.dispose();
     }
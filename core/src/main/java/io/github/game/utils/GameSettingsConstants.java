@@ -22,6 +22,7 @@ public final class GameSettingsConstants {
     public static final String KEY_VIEWPORT_TYPE = "viewportType";
     public static final String KEY_UI_SCALE = "uiScale";
     public static final String KEY_DEBUG_MODE = "debugMode";
+    public static final String KEY_TERRAIN_DATA_TEXTURE = "terrainDataTexture";
 
     // Ключи для аудио настроек
     public static final String KEY_MASTER_VOLUME = "masterVolume";
@@ -34,6 +35,7 @@ public final class GameSettingsConstants {
     public static final String KEY_AUTO_SAVE = "autoSaveEnabled";
     public static final String KEY_AUTO_SAVE_INTERVAL = "autoSaveInterval";
     public static final String KEY_HEX_SIZE_DEBUG = "hexSize";
+    public static final String KEY_GENERATION_THREADS = "generationThreads";
 
     // Ключи для настроек камеры
     public static final String KEY_CAMERA_MOVE_SPEED = "cameraMoveSpeed";
@@ -51,6 +53,7 @@ public final class GameSettingsConstants {
     public static final String DEFAULT_VIEWPORT_TYPE = "fit";
     public static final float DEFAULT_UI_SCALE = 1.0f;
     public static final boolean DEFAULT_DEBUG_MODE = false;
+    public static final boolean DEFAULT_TERRAIN_DATA_TEXTURE = false;
 
     // Значения по умолчанию для аудио настроек
     public static final float DEFAULT_MASTER_VOLUME = 0.8f;
@@ -63,6 +66,8 @@ public final class GameSettingsConstants {
     public static final boolean DEFAULT_AUTO_SAVE = true;
     public static final int DEFAULT_AUTO_SAVE_INTERVAL = 5;
     public static final int DEFAULT_HEX_SIZE = 200;
+    // 0 - все ядра, кроме одного
+    public static final int DEFAULT_GENERATION_THREADS = 0;
 
     // Значения по умолчанию для настроек камеры
     public static final float DEFAULT_CAMERA_MOVE_SPEED = 300.0f;
@@ -93,6 +98,8 @@ public final class GameSettingsConstants {
     public static final float MAX_ZOOM_SENSITIVITY = 0.5f;
     public static final int MIN_AUTO_SAVE_INTERVAL = 1;
     public static final int MAX_AUTO_SAVE_INTERVAL = 60;
+    public static final int MIN_GENERATION_THREADS = 0;
+    public static final int MAX_GENERATION_THREADS = 64;
 
     // Типы вьюпортов
     public static final String VIEWPORT_TYPE_FIT = "fit";
@@ -0,0 +1,77 @@
+package io.github.game.core.world.generator.world;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.game.core.world.hex.HexType;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Сверяет таблицу {@link BiomeClassifier#lookup} с каскадом {@link BiomeClassifier#determineHexType} на всем
+ * квантованном пространстве входов: по каждой оси - равномерная сетка [0, 1], каждая граница уровня, соседние с
+ * ней числа float и середины уровней.
+ */
+class BiomeClassifierTest {
+
+    // Шагов равномерной сетки по каждой оси
+    private static final int GRID_STEPS = 64;
+    // Сколько расхождений выводить в сообщении
+    private static final int REPORTED_MISMATCHES = 20;
+
+    private static final HexType[] HEX_TYPES = HexType.values();
+
+    @Test
+    void lookupTableMatchesReferenceCascade() {
+        float[] heights = probes(BiomeClassifier.HEIGHT_BOUNDS);
+        float[] moistures = probes(BiomeClassifier.MOISTURE_BOUNDS);
+        float[] temperatures = probes(BiomeClassifier.TEMPERATURE_BOUNDS);
+        float[] aridities = probes(BiomeClassifier.ARIDITY_BOUNDS);
+
+        long mismatches = 0;
+        List<String> reported = new ArrayList<>();
+        for (float height : heights) {
+            for (float moisture : moistures) {
+                for (float temperature : temperatures) {
+                    for (float aridity : aridities) {
+                        HexType expected = BiomeClassifier.determineHexType(height, moisture, temperature, aridity);
+                        int actual = BiomeClassifier.lookup(height, moisture, temperature, aridity);
+                        if (actual != expected.ordinal()) {
+                            mismatches++;
+                            if (reported.size() < REPORTED_MISMATCHES) {
+                                reported.add("h=%s m=%s t=%s a=%s: %s instead of %s".formatted(
+                                    height, moisture, temperature, aridity, HEX_TYPES[actual], expected));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        long total = (long) heights.length * moistures.length * temperatures.length * aridities.length;
+        long finalMismatches = mismatches;
+        assertTrue(mismatches == 0, () -> "%d of %d inputs classified differently, first ones:%n%s".formatted(
+            finalMismatches, total, String.join(System.lineSeparator(), reported)));
+    }
+
+    /**
+     * Точки проверки оси: равномерная сетка [0, 1], каждая граница, соседние с ней числа float и середины уровней
+     */
+    private static float[] probes(float[] bounds) {
+        float[] probes = new float[GRID_STEPS + 1 + bounds.length * 4 + 1];
+        int n = 0;
+        for (int i = 0; i <= GRID_STEPS; i++) {
+            probes[n++] = (float) i / GRID_STEPS;
+        }
+        float previous = 0f;
+        for (float bound : bounds) {
+            probes[n++] = Math.nextDown(bound);
+            probes[n++] = bound;
+            probes[n++] = Math.nextUp(bound);
+            probes[n++] = (previous + bound) / 2;
+            previous = bound;
+        }
+        probes[n] = (previous + 1f) / 2;
+        return probes;
+    }
+}
@@ -0,0 +1,66 @@
+package io.github.game.core.world.generator.noise;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Векторное ядро пакетного шума на jdk.incubator.vector: те же операции, что в
+ * {@link ScalarNoiseRowKernel}, над SPECIES_PREFERRED отсчетами за раз. Хвост участка считается скалярно.
+ * <p>
+ * Лежит в отдельном source set vector, который один компилируется с --add-modules jdk.incubator.vector.
+ * Создается только через {@link NoiseRowKernel#preferred()}: он проверяет наличие модуля и вызывает
+ * {@link #create()} по имени класса.
+ */
+final class VectorNoiseRowKernel implements NoiseRowKernel {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    private VectorNoiseRowKernel() {
+    }
+
+    /**
+     * @return ядро или null, если предпочтительная ширина вектора меньше 4 (выигрыша нет)
+     */
+    static NoiseRowKernel create() {
+        return SPECIES.length() >= 4 ? new VectorNoiseRowKernel() : null;
+    }
+
+    @Override
+    public void accumulate(float[] xs, int from, int to, float frequency, float cellX, float[] corners, float v,
+                           float amplitude, float[] out) {
+        float gx00 = corners[0];
+        float c00 = corners[1];
+        float gx10 = corners[2];
+        float c10 = corners[3];
+        float gx01 = corners[4];
+        float c01 = corners[5];
+        float gx11 = corners[6];
+        float c11 = corners[7];
+
+        int i = from;
+        int bound = from + SPECIES.loopBound(to - from);
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector x = FloatVector.fromArray(SPECIES, xs, i).mul(frequency).sub(cellX);
+            FloatVector x1 = x.sub(1f);
+            // fade(x) = x * x * x * (x * (x * 6 - 15) + 10)
+            FloatVector u = x.mul(x).mul(x).mul(x.mul(x.mul(6f).sub(15f)).add(10f));
+            FloatVector g00 = x.mul(gx00).add(c00);
+            FloatVector g10 = x1.mul(gx10).add(c10);
+            FloatVector g01 = x.mul(gx01).add(c01);
+            FloatVector g11 = x1.mul(gx11).add(c11);
+            FloatVector n0 = g00.add(u.mul(g10.sub(g00)));
+            FloatVector n1 = g01.add(u.mul(g11.sub(g01)));
+            FloatVector n = n0.add(n1.sub(n0).mul(v));
+            FloatVector.fromArray(SPECIES, out, i).add(n.mul(amplitude)).intoArray(out, i);
+        }
+
+        if (i < to) {
+            ScalarNoiseRowKernel.INSTANCE.accumulate(xs, i, to, frequency, cellX, corners, v, amplitude, out);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "vector x" + SPECIES.length();
+    }
+}
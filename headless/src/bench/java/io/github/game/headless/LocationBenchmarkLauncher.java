@@ -0,0 +1,44 @@
+package io.github.game.headless;
+
+import com.badlogic.ashley.core.PooledEngine;
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import io.github.game.core.world.generator.location.LocationGenerationBenchmark;
+import io.github.game.ecs.EntityFactory;
+import io.github.game.services.NameService;
+import io.github.game.settings.impl.SettingsFacade;
+import io.github.game.utils.ResourceManager;
+
+/**
+ * Measures location placement on seeded procedural worlds of several sizes.
+ * <p>
+ * Arguments: --sizes (200,1000,4000), --locations (50), --seed (42), --rounds (1),
+ * --parallel (false; true scores candidates on all cores).
+ */
+public class LocationBenchmarkLauncher {
+    public static void main(String[] args) {
+        HeadlessApplicationConfiguration configuration = new HeadlessApplicationConfiguration();
+        configuration.updatesPerSecond = -1;
+        new HeadlessApplication(new ApplicationAdapter() {
+            @Override
+            public void create() {
+                int[] sizes = LauncherArguments.getInts(args, "--sizes", "200,1000,4000");
+                int locations = Integer.parseInt(LauncherArguments.get(args, "--locations", "50"));
+                long seed = Long.parseLong(LauncherArguments.get(args, "--seed", "42"));
+                int rounds = Integer.parseInt(LauncherArguments.get(args, "--rounds", "1"));
+                boolean parallel = Boolean.parseBoolean(LauncherArguments.get(args, "--parallel", "false"));
+
+                ResourceManager resourceManager = new ResourceManager();
+                EntityFactory entityFactory = new EntityFactory(new PooledEngine(), resourceManager);
+                for (int size : sizes) {
+                    LocationGenerationBenchmark.run(new SettingsFacade(), new NameService(), entityFactory,
+                                                    size, locations, seed, rounds, parallel);
+                }
+                resourceManager.dispose();
+                Gdx.app.exit();
+            }
+        }, configuration);
+    }
+}
@@ -0,0 +1,45 @@
+package io.github.game.headless;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import io.github.game.core.world.storage.HexStorageBenchmark;
+import io.github.game.core.world.storage.HexStorageBenchmark.Backend;
+import java.util.Locale;
+
+/**
+ * Compares heap use and access speed of the HexMap storage backends (object, primitive, mapped) on square maps.
+ * <p>
+ * Arguments: --sizes (200,2000,10000), --backends (object,primitive), --rounds (10), --seed (0),
+ * --max-object-size (2000; object storage needs ~70 bytes per hex, so larger maps need a bigger -Xmx).
+ */
+public class StorageBenchmarkLauncher {
+    public static void main(String[] args) {
+        HeadlessApplicationConfiguration configuration = new HeadlessApplicationConfiguration();
+        configuration.updatesPerSecond = -1;
+        new HeadlessApplication(new ApplicationAdapter() {
+            @Override
+            public void create() {
+                int[] sizes = LauncherArguments.getInts(args, "--sizes", "200,2000,10000");
+                String[] backends = LauncherArguments.get(args, "--backends", "object,primitive").split(",");
+                int rounds = Integer.parseInt(LauncherArguments.get(args, "--rounds", "10"));
+                long seed = Long.parseLong(LauncherArguments.get(args, "--seed", "0"));
+                int maxObjectSize = Integer.parseInt(LauncherArguments.get(args, "--max-object-size", "2000"));
+
+                for (int size : sizes) {
+                    for (String name : backends) {
+                        Backend backend = Backend.valueOf(name.trim().toUpperCase(Locale.ROOT));
+                        if (backend == Backend.OBJECT && size > maxObjectSize) {
+                            Gdx.app.log("StorageBenchmark", "%-9s %5dx%-5d skipped, raise --max-object-size and -Xmx"
+                                .formatted(backend, size, size));
+                            continue;
+                        }
+                        HexStorageBenchmark.run(backend, size, rounds, seed);
+                    }
+                }
+                Gdx.app.exit();
+            }
+        }, configuration);
+    }
+}
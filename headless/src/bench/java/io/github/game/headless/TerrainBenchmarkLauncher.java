@@ -0,0 +1,43 @@
+package io.github.game.headless;
+
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import io.github.game.core.world.HexMap;
+import io.github.game.core.world.generator.GenerationContext;
+import io.github.game.core.world.generator.world.ProceduralWorldGenerator;
+import io.github.game.renderer.TerrainBuildBenchmark;
+import io.github.game.services.NameService;
+import io.github.game.settings.impl.SettingsFacade;
+
+/**
+ * Measures the CPU cost of building terrain chunks for the strip and instanced renderers, without a GPU.
+ * <p>
+ * Arguments: --size (2048), --seed (0), --rounds (10).
+ */
+public class TerrainBenchmarkLauncher {
+    public static void main(String[] args) {
+        HeadlessApplicationConfiguration configuration = new HeadlessApplicationConfiguration();
+        configuration.updatesPerSecond = -1;
+        new HeadlessApplication(new ApplicationAdapter() {
+            @Override
+            public void create() {
+                int size = Integer.parseInt(LauncherArguments.get(args, "--size", "2048"));
+                long seed = Long.parseLong(LauncherArguments.get(args, "--seed", "0"));
+                int rounds = Integer.parseInt(LauncherArguments.get(args, "--rounds", "10"));
+
+                GenerationContext context = new GenerationContext(new SettingsFacade(), new NameService(),
+                                                                  HexMap.create(size, size));
+                Gdx.app.setLogLevel(Application.LOG_ERROR);
+                HexMap map = new ProceduralWorldGenerator(size, size, seed).generateWorld(context);
+                Gdx.app.setLogLevel(Application.LOG_INFO);
+
+                TerrainBuildBenchmark.run(map, rounds);
+                map.dispose();
+                Gdx.app.exit();
+            }
+        }, configuration);
+    }
+}
@@ -0,0 +1,43 @@
+package io.github.game.headless;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import io.github.game.core.world.generator.noise.NoiseRowKernel;
+import io.github.game.core.world.generator.noise.ScalarNoiseRowKernel;
+import io.github.game.core.world.generator.world.WorldGenerationBenchmark;
+import io.github.game.services.NameService;
+import io.github.game.settings.impl.SettingsFacade;
+
+/**
+ * Measures wall time and peak heap of in-memory terrain generation with the scalar noise kernel and, when the
+ * JVM runs with --add-modules=jdk.incubator.vector, with the vector kernel.
+ * <p>
+ * Arguments: --sizes (2000,4000), --seed (42), --rounds (3).
+ */
+public class WorldBenchmarkLauncher {
+    public static void main(String[] args) {
+        HeadlessApplicationConfiguration configuration = new HeadlessApplicationConfiguration();
+        configuration.updatesPerSecond = -1;
+        new HeadlessApplication(new ApplicationAdapter() {
+            @Override
+            public void create() {
+                int[] sizes = LauncherArguments.getInts(args, "--sizes", "2000,4000");
+                long seed = Long.parseLong(LauncherArguments.get(args, "--seed", "42"));
+                int rounds = Integer.parseInt(LauncherArguments.get(args, "--rounds", "3"));
+
+                NoiseRowKernel preferred = NoiseRowKernel.preferred();
+                for (int size : sizes) {
+                    WorldGenerationBenchmark.run(new SettingsFacade(), new NameService(), ScalarNoiseRowKernel.INSTANCE,
+                                                 size, seed, rounds);
+                    if (preferred != ScalarNoiseRowKernel.INSTANCE) {
+                        WorldGenerationBenchmark.run(new SettingsFacade(), new NameService(), preferred,
+                                                     size, seed, rounds);
+                    }
+                }
+                Gdx.app.exit();
+            }
+        }, configuration);
+    }
+}
@@ -0,0 +1,34 @@
+package io.github.game.headless;
+
+/**
+ * Reads "--name value" pairs from the command line of the headless launchers.
+ */
+final class LauncherArguments {
+
+    private LauncherArguments() {
+    }
+
+    /**
+     * Value of an argument of the form "--name value", or defaultValue
+     */
+    static String get(String[] args, String name, String defaultValue) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals(name)) {
+                return args[i + 1];
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Comma-separated integers of an argument, e.g. "--sizes 200,2000"
+     */
+    static int[] getInts(String[] args, String name, String defaultValue) {
+        String[] values = get(args, name, defaultValue).split(",");
+        int[] result = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = Integer.parseInt(values[i].trim());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,102 @@
+package io.github.game.headless;
+
+import com.badlogic.ashley.core.PooledEngine;
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import io.github.game.core.world.generator.GenerationExecutor;
+import io.github.game.core.world.generator.GeneratorFactory;
+import io.github.game.ecs.EntityFactory;
+import io.github.game.services.NameService;
+import io.github.game.services.SeedSearchService;
+import io.github.game.services.SeedSearchService.SeedRating;
+import io.github.game.settings.impl.SettingsFacade;
+import io.github.game.utils.ResourceManager;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Headless-приложение поиска seed'ов: генерирует миры {@link SeedSearchService}, печатает лучшие и по
+ * желанию пишет все оценки в CSV. Зависимости собираются вручную: компонент Dagger игры требует GL.
+ * <p>
+ * Аргументы: --first-seed (0), --count (1000), --size (128), --locations (50), --top (20),
+ * --threads (все ядра), --csv (путь к файлу, без него CSV не пишется).
+ */
+public class SeedSearchApplication extends ApplicationAdapter {
+
+    private final String[] args;
+
+    public SeedSearchApplication(String[] args) {
+        this.args = args;
+    }
+
+    @Override
+    public void create() {
+        long firstSeed = Long.parseLong(argument("--first-seed", "0"));
+        int count = Integer.parseInt(argument("--count", "1000"));
+        int size = Integer.parseInt(argument("--size", "128"));
+        int locations = Integer.parseInt(argument("--locations", "50"));
+        int top = Integer.parseInt(argument("--top", "20"));
+        int threads = Integer.parseInt(argument("--threads",
+                                                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        String csv = argument("--csv", null);
+
+        ResourceManager resourceManager = new ResourceManager();
+        GenerationExecutor executor = new GenerationExecutor(threads);
+        SeedSearchService seedSearch = new SeedSearchService(
+            new SettingsFacade(), new NameService(),
+            new GeneratorFactory(new EntityFactory(new PooledEngine(), resourceManager)), executor);
+
+        // Генераторы подробно логируют каждый мир - на время поиска оставляем только ошибки
+        Gdx.app.setLogLevel(Application.LOG_ERROR);
+        long startTime = System.currentTimeMillis();
+        List<SeedRating> ratings = seedSearch.search(firstSeed, count, size, locations);
+        long elapsed = System.currentTimeMillis() - startTime;
+        Gdx.app.setLogLevel(Application.LOG_INFO);
+
+        Gdx.app.log("SeedSearch", "%d worlds %dx%d with %d locations rated in %d ms on %d threads".formatted(
+            count, size, size, locations, elapsed, threads));
+        Gdx.app.log("SeedSearch", "seed        score  biomes  locations  land  placed");
+        for (SeedRating rating : ratings.subList(0, Math.min(top, ratings.size()))) {
+            Gdx.app.log("SeedSearch", "%-10d  %.3f  %.3f   %.3f      %.2f  %d".formatted(
+                rating.seed(), rating.score(), rating.biomeScore(), rating.locationScore(), rating.landShare(),
+                rating.locations()));
+        }
+        if (csv != null) {
+            writeCsv(csv, ratings);
+        }
+
+        executor.shutdown();
+        resourceManager.dispose();
+        Gdx.app.exit();
+    }
+
+    private void writeCsv(String path, List<SeedRating> ratings) {
+        try (Writer writer = Gdx.files.absolute(new File(path).getAbsolutePath()).writer(false, "UTF-8")) {
+            writer.write("seed,score,biomeScore,locationScore,landShare,locations\n");
+            for (SeedRating rating : ratings) {
+                writer.write("%d,%.4f,%.4f,%.4f,%.4f,%d\n".formatted(
+                    rating.seed(), rating.score(), rating.biomeScore(), rating.locationScore(),
+                    rating.landShare(), rating.locations()));
+            }
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Unable to write " + path, e);
+        }
+        Gdx.app.log("SeedSearch", "Ratings written to " + path);
+    }
+
+    /**
+     * Значение аргумента вида "--name value" или defaultValue
+     */
+    private String argument(String name, String defaultValue) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals(name)) {
+                return args[i + 1];
+            }
+        }
+        return defaultValue;
+    }
+}
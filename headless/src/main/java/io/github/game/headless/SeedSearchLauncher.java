@@ -0,0 +1,18 @@
+package io.github.game.headless;
+
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+
+/**
+ * Launches the seed search without a window or GL context.
+ * <p>
+ * Arguments: --first-seed, --count, --size, --locations, --top, --threads, --csv (see {@link SeedSearchApplication}).
+ */
+public class SeedSearchLauncher {
+    public static void main(String[] args) {
+        HeadlessApplicationConfiguration configuration = new HeadlessApplicationConfiguration();
+        // The search runs once in create(); no render loop is needed
+        configuration.updatesPerSecond = -1;
+        new HeadlessApplication(new SeedSearchApplication(args), configuration);
+    }
+}
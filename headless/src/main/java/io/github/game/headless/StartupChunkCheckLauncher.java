@@ -0,0 +1,109 @@
+package io.github.game.headless;
+
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.PooledEngine;
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import io.github.game.core.world.HexMap;
+import io.github.game.core.world.generator.GenerationCache;
+import io.github.game.core.world.generator.GenerationContext;
+import io.github.game.core.world.generator.GenerationExecutor;
+import io.github.game.core.world.generator.GenerationMonitor;
+import io.github.game.core.world.generator.GeneratorFactory;
+import io.github.game.core.world.hex.HexCoordinates;
+import io.github.game.core.world.storage.ChunkedHexStorage;
+import io.github.game.ecs.EntityFactory;
+import io.github.game.ecs.components.world.GlobalPositionComponent;
+import io.github.game.ecs.components.world.LocationComponent;
+import io.github.game.services.NameService;
+import io.github.game.services.WorldEntityService;
+import io.github.game.settings.impl.SettingsFacade;
+import io.github.game.utils.ResourceManager;
+import java.util.UUID;
+
+/**
+ * Runs the game's generation pipeline on a world large enough for on-demand chunk generation and counts the
+ * chunks it materialised. Only the chunks under the placement mosaic windows that feature rasters and locations
+ * use should be generated, not the whole world. Also checks that locations are spread over the whole world and
+ * that every location id is recorded in the world map.
+ * <p>
+ * Arguments: --size (10000, the largest world the settings allow), --threads (all cores). Exits with status 1
+ * if any of the checks fails.
+ */
+public class StartupChunkCheckLauncher {
+    public static void main(String[] args) {
+        HeadlessApplicationConfiguration configuration = new HeadlessApplicationConfiguration();
+        configuration.updatesPerSecond = -1;
+        new HeadlessApplication(new ApplicationAdapter() {
+            @Override
+            public void create() {
+                int size = Integer.parseInt(LauncherArguments.get(args, "--size", "10000"));
+                int threads = Integer.parseInt(LauncherArguments.get(args, "--threads",
+                    String.valueOf(GenerationExecutor.defaultThreadBudget())));
+
+                ResourceManager resourceManager = new ResourceManager();
+                EntityFactory entityFactory = new EntityFactory(new PooledEngine(), resourceManager);
+                GenerationExecutor executor = new GenerationExecutor(threads);
+                GenerationContext context = new GenerationContext(new SettingsFacade(), new NameService(),
+                                                                  HexMap.create(size, size));
+                WorldEntityService worldEntityService = new WorldEntityService(
+                    new PooledEngine(), entityFactory, context, new GeneratorFactory(entityFactory), executor,
+                    new GenerationCache(null));
+
+                long startTime = System.currentTimeMillis();
+                GenerationContext result = worldEntityService.generateAllAsync(new GenerationMonitor()).join();
+                long elapsed = System.currentTimeMillis() - startTime;
+
+                boolean passed = true;
+                HexMap map = result.getHexMap();
+                if (map.getStorage() instanceof ChunkedHexStorage storage) {
+                    // mosaic windows are chunk-aligned, so they cover as many chunks as the mosaic map itself
+                    HexMap mosaic = result.getPlacementMap();
+                    int chunkSize = ChunkedHexStorage.CHUNK_SIZE;
+                    long worldChunks = (long) Math.ceilDiv(map.getWidth(), chunkSize)
+                                       * Math.ceilDiv(map.getHeight(), chunkSize);
+                    long mosaicChunks = (long) Math.ceilDiv(mosaic.getWidth(), chunkSize)
+                                        * Math.ceilDiv(mosaic.getHeight(), chunkSize);
+                    int generated = storage.getGeneratedChunkCount();
+
+                    int maxQ = 0;
+                    int maxR = 0;
+                    int unmarked = 0;
+                    for (Entity location : result.getLocations()) {
+                        HexCoordinates coordinates =
+                            location.getComponent(GlobalPositionComponent.class).getCoordinates();
+                        maxQ = Math.max(maxQ, coordinates.getQ());
+                        maxR = Math.max(maxR, coordinates.getR());
+                        UUID locationId = location.getComponent(LocationComponent.class).getLocationId();
+                        if (!locationId.equals(map.getLocationId(coordinates.getQ(), coordinates.getR()))) {
+                            unmarked++;
+                        }
+                    }
+                    boolean spread = maxQ >= mosaic.getWidth() && maxR >= mosaic.getHeight()
+                                     || mosaic.getWidth() >= map.getWidth() && mosaic.getHeight() >= map.getHeight();
+                    passed = generated <= mosaicChunks && unmarked == 0 && spread;
+                    Gdx.app.log("StartupCheck", "%dx%d world: pipeline took %d ms, %d of %d chunks generated (placement mosaic %dx%d, %d chunks)"
+                        .formatted(size, size, elapsed, generated, worldChunks, mosaic.getWidth(),
+                                   mosaic.getHeight(), mosaicChunks));
+                    Gdx.app.log("StartupCheck", "%d locations up to %d,%d, %d not marked in the world map"
+                        .formatted(result.getLocations().size(), maxQ, maxR, unmarked));
+                } else {
+                    Gdx.app.log("StartupCheck", "%dx%d world uses %s, nothing is generated on demand".formatted(
+                        size, size, map.getStorage().getClass().getSimpleName()));
+                }
+
+                map.dispose();
+                executor.shutdown();
+                resourceManager.dispose();
+                if (!passed) {
+                    Gdx.app.error("StartupCheck", "Pipeline generated chunks outside the placement windows, "
+                                                  + "left locations unmarked or kept them in a corner");
+                    System.exit(1);
+                }
+                Gdx.app.exit();
+            }
+        }, configuration);
+    }
+}